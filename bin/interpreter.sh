@@ -222,6 +222,47 @@ fi
 
 addJarInDirForIntp "${LOCAL_INTERPRETER_REPO}"
 
+# use the class data sharing archive of the interpreter, or create it at exit (bin/interpreter-cds.sh).
+# Dynamic archives need JDK 13+, the java of the interpreter may differ from the one of the zeppelin server.
+# The java version is read from the release file of the JDK, so that no JVM is started for the check,
+# it is stored next to the archive when it is created, and the archive is only used by the same version.
+if [[ -z "${SPARK_SUBMIT}" ]] && [[ -n "${ZEPPELIN_INTP_CDS_ARCHIVE}" || -n "${ZEPPELIN_INTP_CDS_DUMP}" ]]; then
+  INTP_JAVA_HOME="${JAVA_HOME}"
+  if [[ -z "${INTP_JAVA_HOME}" ]]; then
+    INTP_JAVA_BIN="$(readlink -f "$(command -v "${ZEPPELIN_RUNNER}")")"
+    INTP_JAVA_HOME="${INTP_JAVA_BIN%/bin/java}"
+  fi
+  INTP_JAVA_VERSION=""
+  if [[ -f "${INTP_JAVA_HOME}/release" ]]; then
+    while IFS='=' read -r key value; do
+      if [[ "${key}" == "JAVA_VERSION" ]]; then
+        INTP_JAVA_VERSION="${value//\"/}"
+      fi
+    done < "${INTP_JAVA_HOME}/release"
+  fi
+  INTP_JAVA_MAJOR_VERSION="${INTP_JAVA_VERSION%%[.-]*}"
+
+  if [[ -n "${ZEPPELIN_INTP_CDS_DUMP}" ]]; then
+    if [[ "${INTP_JAVA_MAJOR_VERSION}" =~ ^[0-9]+$ ]] && (( INTP_JAVA_MAJOR_VERSION >= 13 )); then
+      JAVA_INTP_OPTS+=" -XX:ArchiveClassesAtExit=${ZEPPELIN_INTP_CDS_DUMP}"
+      echo "${INTP_JAVA_VERSION}" > "${ZEPPELIN_INTP_CDS_DUMP}.version"
+    else
+      echo "Class data sharing archive not created, java ${INTP_JAVA_VERSION:-of ${INTP_JAVA_HOME}} of the interpreter doesn't support dynamic archives"
+    fi
+  else
+    ARCHIVE_JAVA_VERSION=""
+    if [[ -f "${ZEPPELIN_INTP_CDS_ARCHIVE}.version" ]]; then
+      read -r ARCHIVE_JAVA_VERSION < "${ZEPPELIN_INTP_CDS_ARCHIVE}.version"
+    fi
+    if [[ -n "${INTP_JAVA_VERSION}" ]] && [[ "${INTP_JAVA_VERSION}" == "${ARCHIVE_JAVA_VERSION}" ]]; then
+      # fall back to no sharing when the archive doesn't match the classpath
+      JAVA_INTP_OPTS+=" -XX:SharedArchiveFile=${ZEPPELIN_INTP_CDS_ARCHIVE} -Xshare:auto"
+    else
+      echo "Class data sharing archive ignored, it was created by java ${ARCHIVE_JAVA_VERSION:-unknown} and the interpreter runs java ${INTP_JAVA_VERSION:-unknown}"
+    fi
+  fi
+fi
+
 if [[ ! -z "$ZEPPELIN_IMPERSONATE_USER" ]]; then
   if [[ "${INTERPRETER_ID}" != "spark" || "$ZEPPELIN_IMPERSONATE_SPARK_PROXY_USER" == "false" ]]; then
     suid="$(id -u ${ZEPPELIN_IMPERSONATE_USER})"
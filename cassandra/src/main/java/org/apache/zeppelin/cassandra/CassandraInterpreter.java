@@ -98,6 +98,8 @@ public class CassandraInterpreter extends Interpreter {
           "cassandra.query.default.fetchSize";
   public static final String CASSANDRA_QUERY_DEFAULT_IDEMPOTENCE =
           "cassandra.query.default.idempotence";
+  public static final String CASSANDRA_PREPARED_STATEMENTS_CACHE_SIZE =
+          "cassandra.prepared.statements.cache.size";
   public static final String CASSANDRA_SOCKET_CONNECTION_TIMEOUT_MILLIS =
           "cassandra.socket.connection.timeout.millisecs";
   public static final String CASSANDRA_SOCKET_KEEP_ALIVE =
@@ -145,6 +147,7 @@ public class CassandraInterpreter extends Interpreter {
   public static final String DEFAULT_CONSISTENCY = "ONE";
   public static final String DEFAULT_SERIAL_CONSISTENCY = "SERIAL";
   public static final String DEFAULT_FETCH_SIZE = "5000";
+  public static final String DEFAULT_PREPARED_STATEMENTS_CACHE_SIZE = "1000";
   public static final String DEFAULT_CONNECTION_TIMEOUT = "5000";
   public static final String DEFAULT_READ_TIMEOUT = "12000";
   public static final String DEFAULT_TCP_NO_DELAY = "true";
@@ -231,7 +234,8 @@ public class CassandraInterpreter extends Interpreter {
 
     cluster = clusterBuilder.build();
     session = cluster.connect();
-    helper = new InterpreterLogic(session);
+    helper = new InterpreterLogic(session, parseInt(getProperty(
+            CASSANDRA_PREPARED_STATEMENTS_CACHE_SIZE, DEFAULT_PREPARED_STATEMENTS_CACHE_SIZE)));
   }
 
   @Override
@@ -247,6 +251,7 @@ public class CassandraInterpreter extends Interpreter {
 
   @Override
   public void cancel(InterpreterContext context) {
+    helper.cancel(context);
   }
 
   @Override
@@ -22,22 +22,22 @@ import java.nio.ByteBuffer
 import java.text.SimpleDateFormat
 import java.util
 import java.util.Date
-import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.{CancellationException, ConcurrentHashMap}
 
 import com.datastax.driver.core.DataType.Name._
 import com.datastax.driver.core._
 import com.datastax.driver.core.exceptions.DriverException
 import com.datastax.driver.core.policies.{LoggingRetryPolicy, FallthroughRetryPolicy, DowngradingConsistencyRetryPolicy, Policies}
+import com.google.common.cache.{CacheBuilder, RemovalListener, RemovalNotification}
 import org.apache.zeppelin.cassandra.TextBlockHierarchy._
 import org.apache.zeppelin.display.AngularObjectRegistry
 import org.apache.zeppelin.display.ui.OptionInput.ParamOption
 import org.apache.zeppelin.interpreter.InterpreterResult.Code
-import org.apache.zeppelin.interpreter.{InterpreterException, InterpreterResult, InterpreterContext}
+import org.apache.zeppelin.interpreter.{InterpreterException, InterpreterOutput, InterpreterResult, InterpreterContext}
 import org.slf4j.LoggerFactory
 import scala.collection.JavaConversions._
 import scala.collection.JavaConverters._
 import scala.collection.mutable
-import scala.collection.mutable.ArrayBuffer
 
 
 /**
@@ -77,7 +77,7 @@ object InterpreterLogic {
   val loggingDownGradingRetryPolicy = new LoggingRetryPolicy(downgradingConsistencyRetryPolicy)
   val loggingFallThroughRetryPolicy = new LoggingRetryPolicy(fallThroughRetryPolicy)
 
-  val preparedStatements : mutable.Map[String,PreparedStatement] = new ConcurrentHashMap[String,PreparedStatement]().asScala
+  val DEFAULT_PREPARED_STATEMENTS_CACHE_SIZE = 1000
 
   val logger = LoggerFactory.getLogger(classOf[InterpreterLogic])
 
@@ -92,13 +92,34 @@ object InterpreterLogic {
  * and parameters blocks
  *
  * @param session java driver session
+ * @param preparedStatementsCacheSize max number of prepared statements kept by this interpreter
  */
-class InterpreterLogic(val session: Session)  {
+class InterpreterLogic(val session: Session, val preparedStatementsCacheSize: Int)  {
+
+  def this(session: Session) = this(session, InterpreterLogic.DEFAULT_PREPARED_STATEMENTS_CACHE_SIZE)
 
   val enhancedSession: EnhancedSession = new EnhancedSession(session)
 
   import InterpreterLogic._
 
+  val preparedStatements: mutable.Map[String,PreparedStatement] = CacheBuilder.newBuilder()
+    .maximumSize(preparedStatementsCacheSize)
+    .removalListener(new RemovalListener[String, PreparedStatement] {
+      override def onRemoval(notification: RemovalNotification[String, PreparedStatement]): Unit = {
+        if (notification.wasEvicted()) {
+          logger.info(s"Prepared statement '${notification.getKey}' evicted from the cache")
+        }
+      }
+    })
+    .build[String, PreparedStatement]()
+    .asMap()
+    .asScala
+
+  /**
+   * Queries being executed, by paragraph id, so that they can be cancelled
+   */
+  private val runningQueries = new ConcurrentHashMap[String, ResultSetFuture]()
+
   def interpret(session:Session, stringStatements : String, context: InterpreterContext): InterpreterResult = {
 
     logger.info(s"Executing CQL statements : \n\n$stringStatements\n")
@@ -152,13 +173,31 @@ class InterpreterLogic(val session: Session)  {
           case x => throw new InterpreterException(s"Unknown statement type : ${x}")
        }
 
-      val results: List[(Any,Any)] = for (statement <- statements) yield (enhancedSession.execute(statement),statement)
-
-      if (results.nonEmpty) {
-        results.last match {
-          case(res: ResultSet, st: Statement) => buildResponseMessage((res, st), protocolVersion)
-          case(output: String, _) => new InterpreterResult(Code.SUCCESS, output)
-          case _ => throw new InterpreterException(s"Cannot parse result type : ${results.last}")
+      if (statements.nonEmpty) {
+        // Only the result of the last statement is displayed
+        statements.init.foreach(enhancedSession.execute(_))
+
+        statements.last match {
+          case st: Statement => {
+            val key = queryKey(context)
+            val future = session.executeAsync(st)
+            runningQueries.put(key, future)
+            try {
+              buildResponseMessage((future.getUninterruptibly, st), protocolVersion, context)
+            } catch {
+              case _: CancellationException => {
+                logger.info(s"Query of paragraph $key cancelled before its first rows")
+                new InterpreterResult(Code.INCOMPLETE, InterpreterResult.Type.TEXT,
+                  "Query cancelled before its first rows were fetched")
+              }
+            } finally {
+              runningQueries.remove(key)
+            }
+          }
+          case st => enhancedSession.execute(st) match {
+            case output: String => new InterpreterResult(Code.SUCCESS, output)
+            case result => throw new InterpreterException(s"Cannot parse result type : $result")
+          }
         }
 
       } else {
@@ -185,48 +224,85 @@ class InterpreterLogic(val session: Session)  {
     }
   }
 
-  def buildResponseMessage(lastResultSet: (ResultSet,Statement), protocolVersion: ProtocolVersion): InterpreterResult = {
-    val output = new StringBuilder()
-    val rows: collection.mutable.ArrayBuffer[Row] = ArrayBuffer()
+  def cancel(context: InterpreterContext): Unit = {
+    Option(runningQueries.remove(queryKey(context))).foreach(_.cancel(true))
+  }
 
-    val iterator: util.Iterator[Row] = lastResultSet._1.iterator()
-    while (iterator.hasNext) {
-      rows.append(iterator.next())
-    }
+  private def queryKey(context: InterpreterContext): String = {
+    Option(context).map(ctx => String.valueOf(ctx.getParagraphId)).getOrElse("")
+  }
 
-    val columnsDefinitions: List[(String, DataType)] = lastResultSet._1
-      .getColumnDefinitions
-      .asList
-      .toList // Java list -> Scala list
-      .map(definition => (definition.getName, definition.getType))
+  /**
+   * Render the rows of the result set page by page. The next page is fetched
+   * asynchronously while the current one is rendered and, when the context
+   * provides an output, each page is written to it as soon as it is rendered
+   * instead of materializing the whole result
+   */
+  def buildResponseMessage(lastResultSet: (ResultSet,Statement), protocolVersion: ProtocolVersion,
+                           context: InterpreterContext): InterpreterResult = {
+    val (resultSet, statement) = lastResultSet
+    val output = new StringBuilder()
 
+    if (resultSet.isExhausted) {
+      val lastQuery: String = statement.toString
+      val executionInfo: ExecutionInfo = resultSet.getExecutionInfo
+      output.append(enhancedSession.displayExecutionStatistics(lastQuery, executionInfo))
+      new InterpreterResult(Code.SUCCESS, output.toString())
+    } else {
+      val interpreterOutput: Option[InterpreterOutput] = Option(context).flatMap(ctx => Option(ctx.out))
+      val key = queryKey(context)
+      // A query cancelled by the user is removed from the running queries
+      val cancellable = runningQueries.containsKey(key)
+      val columnsCount = resultSet.getColumnDefinitions.size()
+      val startTime = System.currentTimeMillis()
+      var rowCount = 0L
+      var cancelled = false
 
-    if (rows.nonEmpty) {
       // Create table headers
       output
         .append("%table ")
-        .append(columnsDefinitions.map { case (columnName, _) => columnName }.mkString("\t")).append("\n")
-
-      // Deserialize Data
-      rows.foreach {
-        row => {
-          val data = columnsDefinitions.map {
-            case (name, dataType) => {
-              if (row.isNull(name)) null else row.getObject(name)
-            }
-          }
+        .append(resultSet.getColumnDefinitions.asList.map(_.getName).mkString("\t")).append("\n")
+
+      while (!cancelled && !resultSet.isExhausted) {
+        // Fetch the next page while the current one is rendered
+        val available = resultSet.getAvailableWithoutFetching
+        if (!resultSet.isFullyFetched) {
+          resultSet.fetchMoreResults()
+        }
+
+        // Deserialize Data
+        for (_ <- 1 to available) {
+          val row = resultSet.one()
+          val data = (0 until columnsCount).map(i => if (row.isNull(i)) null else row.getObject(i))
           output.append(data.mkString("\t")).append("\n")
         }
+        rowCount += available
+
+        interpreterOutput.foreach(out => {
+          out.write(output.toString())
+          out.flush()
+          output.clear()
+        })
+        logger.debug(s"Fetched $rowCount rows in ${System.currentTimeMillis() - startTime} ms")
+        cancelled = cancellable && !runningQueries.containsKey(key)
       }
-    } else {
-      val lastQuery: String = lastResultSet._2.toString
-      val executionInfo: ExecutionInfo = lastResultSet._1.getExecutionInfo
-      output.append(enhancedSession.displayExecutionStatistics(lastQuery, executionInfo))
-    }
+      logger.info(s"Fetched $rowCount rows in ${System.currentTimeMillis() - startTime} ms")
 
-    val result: String = output.toString()
-    logger.debug(s"CQL result : \n\n$result\n")
-    new InterpreterResult(Code.SUCCESS, result)
+      val interpreterResult = if (interpreterOutput.isDefined) {
+        new InterpreterResult(if (cancelled) Code.INCOMPLETE else Code.SUCCESS)
+      } else {
+        val result: String = output.toString()
+        logger.debug(s"CQL result : \n\n$result\n")
+        new InterpreterResult(if (cancelled) Code.INCOMPLETE else Code.SUCCESS, result)
+      }
+      // The table of a cancelled query only holds the rows fetched before the cancellation
+      if (cancelled) {
+        logger.info(s"Query of paragraph $key cancelled after $rowCount rows")
+        interpreterResult.add(InterpreterResult.Type.TEXT,
+          s"Query cancelled, only the first $rowCount rows are displayed")
+      }
+      interpreterResult
+    }
   }
 
   def parseInput(input:String): List[AnyBlock] = {
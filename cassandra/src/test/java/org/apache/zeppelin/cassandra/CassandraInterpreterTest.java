@@ -77,6 +77,7 @@ import info.archinnov.achilles.embedded.CassandraEmbeddedServerBuilder;
 import org.apache.zeppelin.display.AngularObjectRegistry;
 import org.apache.zeppelin.interpreter.Interpreter;
 import org.apache.zeppelin.interpreter.InterpreterContext;
+import org.apache.zeppelin.interpreter.InterpreterOutput;
 import org.apache.zeppelin.interpreter.InterpreterResult;
 import org.apache.zeppelin.interpreter.InterpreterResult.Code;
 
@@ -191,6 +192,28 @@ public class CassandraInterpreterTest {
             "[Rock, Pop, Classic]\tGroup\n");
   }
 
+  @Test
+  public void should_stream_select_result_page_by_page() throws Exception {
+    //Given
+    final String query = "@fetchSize=3\nSELECT * FROM " + ARTISTS_TABLE + " LIMIT 10;";
+    final InterpreterContext context = InterpreterContext.builder()
+            .setParagraphId("stream")
+            .setInterpreterOut(new InterpreterOutput(null))
+            .build();
+
+    //When
+    final InterpreterResult expected = interpreter.interpret(query, intrContext);
+    final InterpreterResult actual = interpreter.interpret(query, context);
+
+    //Then
+    assertThat(actual.code()).isEqualTo(Code.SUCCESS);
+    assertThat(actual.message()).isEmpty();
+    assertThat(context.out.toInterpreterResultMessage().get(0).getType())
+            .isEqualTo(InterpreterResult.Type.TABLE);
+    assertThat(context.out.toInterpreterResultMessage().get(0).getData())
+            .isEqualTo(expected.message().get(0).getData());
+  }
+
   @Test
   public void should_interpret_select_statement() throws Exception {
     //Given
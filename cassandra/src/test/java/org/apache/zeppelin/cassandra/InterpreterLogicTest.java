@@ -17,6 +17,8 @@
 package org.apache.zeppelin.cassandra;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -48,9 +50,11 @@ import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
 import com.datastax.driver.core.BatchStatement;
 import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.ResultSetFuture;
 import com.datastax.driver.core.Session;
 import com.datastax.driver.core.SimpleStatement;
 import com.datastax.driver.core.Statement;
@@ -72,6 +76,7 @@ import org.apache.zeppelin.display.GUI;
 import org.apache.zeppelin.display.ui.OptionInput.ParamOption;
 import org.apache.zeppelin.interpreter.InterpreterContext;
 import org.apache.zeppelin.interpreter.InterpreterException;
+import org.apache.zeppelin.interpreter.InterpreterResult;
 
 @RunWith(MockitoJUnitRunner.class)
 public class InterpreterLogicTest {
@@ -366,6 +371,29 @@ public class InterpreterLogicTest {
     assertThat(calendar.get(Calendar.MILLISECOND)).isEqualTo(123);
   }
 
+  @Test
+  public void should_end_as_incomplete_when_cancelled_before_first_page() throws Exception {
+    //Given
+    Session session = mock(Session.class, RETURNS_DEEP_STUBS);
+    ResultSetFuture future = mock(ResultSetFuture.class);
+    when(session.executeAsync(any(Statement.class))).thenReturn(future);
+    // the paragraph is cancelled while the first page is awaited
+    when(future.getUninterruptibly()).thenAnswer(invocation -> {
+      helper.cancel(intrContext);
+      throw new CancellationException();
+    });
+
+    //When
+    final InterpreterResult actual = helper.interpret(session, "SELECT * FROM users;",
+            intrContext);
+
+    //Then
+    verify(future).cancel(true);
+    assertThat(actual.code()).isEqualTo(InterpreterResult.Code.INCOMPLETE);
+    assertThat(actual.message().get(0).getData())
+            .isEqualTo("Query cancelled before its first rows were fetched");
+  }
+
   private <A> scala.collection.immutable.List<A> toScalaList(java.util.List<A> list)  {
     return scala.collection.JavaConversions.collectionAsScalaIterable(list).toList();
   }
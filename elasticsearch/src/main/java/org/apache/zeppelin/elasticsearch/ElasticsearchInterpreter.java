@@ -19,7 +19,10 @@ package org.apache.zeppelin.elasticsearch;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 
 import org.apache.commons.lang3.StringUtils;
 import org.elasticsearch.common.xcontent.XContentBuilder;
@@ -37,29 +40,29 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.github.wnameless.json.flattener.JsonFlattener;
 
 import org.apache.zeppelin.completer.CompletionType;
+import org.apache.zeppelin.elasticsearch.action.ActionException;
 import org.apache.zeppelin.elasticsearch.action.ActionResponse;
 import org.apache.zeppelin.elasticsearch.action.AggWrapper;
 import org.apache.zeppelin.elasticsearch.action.HitWrapper;
+import org.apache.zeppelin.elasticsearch.action.ScrollHandler;
 import org.apache.zeppelin.elasticsearch.client.ElasticsearchClient;
 import org.apache.zeppelin.elasticsearch.client.HttpBasedClient;
 import org.apache.zeppelin.elasticsearch.client.TransportBasedClient;
 import org.apache.zeppelin.interpreter.Interpreter;
 import org.apache.zeppelin.interpreter.InterpreterContext;
+import org.apache.zeppelin.interpreter.InterpreterOutput;
 import org.apache.zeppelin.interpreter.InterpreterResult;
 import org.apache.zeppelin.interpreter.thrift.InterpreterCompletion;
 
@@ -77,9 +80,13 @@ public class ElasticsearchInterpreter extends Interpreter {
       + "  - search /indices/types <query>\n"
       + "    . indices and types can be omitted (at least, you have to provide '/')\n"
       + "    . a query is either a JSON-formatted query, nor a lucene query\n"
+      + "  - scroll /indices/types <query>\n"
+      + "    . same as search, but streams all the matching hits page by page\n"
+      + "    . the columns are the _source includes of the query, if any\n"
       + "  - size <value>\n"
       + "    . defines the size of the result set (default value is in the config)\n"
       + "    . if used, this command must be declared before a search command\n"
+      + "    . with a scroll command, it limits the number of hits (no limit by default)\n"
       + "  - count /indices/types <query>\n"
       + "    . same comments as for the search\n"
       + "  - get /index/type/id\n"
@@ -88,9 +95,7 @@ public class ElasticsearchInterpreter extends Interpreter {
       + "    . the id can be omitted, elasticsearch will generate one";
 
   protected static final List<String> COMMANDS = Arrays.asList(
-      "count", "delete", "get", "help", "index", "search");
-
-  private static final Pattern FIELD_NAME_PATTERN = Pattern.compile("\\[\\\\\"(.+)\\\\\"\\](.*)");
+      "count", "delete", "get", "help", "index", "scroll", "search");
 
   public static final String ELASTICSEARCH_HOST = "elasticsearch.host";
   public static final String ELASTICSEARCH_PORT = "elasticsearch.port";
@@ -99,10 +104,16 @@ public class ElasticsearchInterpreter extends Interpreter {
   public static final String ELASTICSEARCH_RESULT_SIZE = "elasticsearch.result.size";
   public static final String ELASTICSEARCH_BASIC_AUTH_USERNAME = "elasticsearch.basicauth.username";
   public static final String ELASTICSEARCH_BASIC_AUTH_PASSWORD = "elasticsearch.basicauth.password";
+  public static final String ELASTICSEARCH_SCROLL_SIZE = "elasticsearch.scroll.size";
+  public static final String ELASTICSEARCH_SCROLL_KEEPALIVE = "elasticsearch.scroll.keepalive";
 
   private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+  private final FieldPathFlattener flattener = new FieldPathFlattener();
+  private final Map<String, TableHitsWriter> runningScrolls = new ConcurrentHashMap<>();
   private ElasticsearchClient elsClient;
   private int resultSize = 10;
+  private int scrollSize = 1000;
+  private String scrollKeepAlive = "1m";
 
   public ElasticsearchInterpreter(Properties property) {
     super(property);
@@ -123,6 +134,15 @@ public class ElasticsearchInterpreter extends Interpreter {
           getProperty(ELASTICSEARCH_RESULT_SIZE), e);
     }
 
+    try {
+      this.scrollSize = Integer.parseInt(getProperty(ELASTICSEARCH_SCROLL_SIZE, "1000"));
+    } catch (final NumberFormatException e) {
+      this.scrollSize = 1000;
+      logger.error("Unable to parse " + ELASTICSEARCH_SCROLL_SIZE + " : " +
+          getProperty(ELASTICSEARCH_SCROLL_SIZE), e);
+    }
+    this.scrollKeepAlive = getProperty(ELASTICSEARCH_SCROLL_KEEPALIVE, "1m");
+
     try {
       if (StringUtils.isEmpty(clientType) || "transport".equals(clientType)) {
         elsClient = new TransportBasedClient(getProperties());
@@ -152,6 +172,7 @@ public class ElasticsearchInterpreter extends Interpreter {
     }
 
     int currentResultSize = resultSize;
+    boolean isSizeDefined = false;
 
     if (elsClient == null) {
       return new InterpreterResult(InterpreterResult.Code.ERROR,
@@ -180,6 +201,7 @@ public class ElasticsearchInterpreter extends Interpreter {
         return processHelp(InterpreterResult.Code.ERROR, "Right format is : size <value>");
       }
       currentResultSize = Integer.parseInt(sizeLine[1]);
+      isSizeDefined = true;
 
       items = StringUtils.split(lines[1].trim(), " ", 3);
     }
@@ -201,6 +223,9 @@ public class ElasticsearchInterpreter extends Interpreter {
         return processCount(urlItems, data, interpreterContext);
       } else if ("search".equalsIgnoreCase(method)) {
         return processSearch(urlItems, data, currentResultSize, interpreterContext);
+      } else if ("scroll".equalsIgnoreCase(method)) {
+        return processScroll(urlItems, data, isSizeDefined ? currentResultSize : 0,
+            interpreterContext);
       } else if ("index".equalsIgnoreCase(method)) {
         return processIndex(urlItems, data);
       } else if ("delete".equalsIgnoreCase(method)) {
@@ -215,7 +240,10 @@ public class ElasticsearchInterpreter extends Interpreter {
 
   @Override
   public void cancel(InterpreterContext interpreterContext) {
-    // Nothing to do
+    final TableHitsWriter writer = runningScrolls.get(interpreterContext.getParagraphId());
+    if (writer != null) {
+      writer.cancel();
+    }
   }
 
   @Override
@@ -225,7 +253,8 @@ public class ElasticsearchInterpreter extends Interpreter {
 
   @Override
   public int getProgress(InterpreterContext interpreterContext) {
-    return 0;
+    final TableHitsWriter writer = runningScrolls.get(interpreterContext.getParagraphId());
+    return writer != null ? writer.getProgress() : 0;
   }
 
   @Override
@@ -358,6 +387,97 @@ public class ElasticsearchInterpreter extends Interpreter {
     return buildResponseMessage(response);
   }
 
+  /**
+   * Processes a "scroll" request: the hits are written to the output of the paragraph
+   * page by page, so that the result set is never entirely loaded in memory.
+   *
+   * @param urlItems Items of the URL
+   * @param data May contains the JSON of the request
+   * @param maxHits Limit of result set (0 means no limit)
+   * @param interpreterContext Instance of the context
+   * @return Result of the scroll request, the table has already been written to the output
+   */
+  private InterpreterResult processScroll(String[] urlItems, String data, int maxHits,
+      InterpreterContext interpreterContext) {
+    if (urlItems.length > 2) {
+      return new InterpreterResult(InterpreterResult.Code.ERROR,
+          "Bad URL (it should be /index1,index2,.../type1,type2,...)");
+    }
+
+    final String[] indices = urlItems.length >= 1 ? StringUtils.split(urlItems[0], ",") : null;
+    final String[] types = urlItems.length > 1 ? StringUtils.split(urlItems[1], ",") : null;
+    final int pageSize = maxHits > 0 ? Math.min(maxHits, scrollSize) : scrollSize;
+
+    final TableHitsWriter writer = new TableHitsWriter(
+        interpreterContext.out, getSourceIncludes(data), maxHits);
+    final String paragraphId = interpreterContext.getParagraphId();
+    runningScrolls.put(paragraphId, writer);
+    try {
+      elsClient.scroll(indices, types, data, pageSize, scrollKeepAlive, writer);
+      writer.flush();
+    } catch (final IOException e) {
+      throw new ActionException(e);
+    } finally {
+      runningScrolls.remove(paragraphId);
+    }
+
+    addAngularObject(interpreterContext, "scroll", writer.getWrittenHits());
+
+    if (!writer.isHeaderWritten()) {
+      return new InterpreterResult(
+          InterpreterResult.Code.SUCCESS,
+          InterpreterResult.Type.TABLE,
+          "");
+    }
+    return new InterpreterResult(InterpreterResult.Code.SUCCESS);
+  }
+
+  /**
+   * Gets the fields listed in the _source element of a JSON query, they are used as the columns
+   * of the table. Wildcards cannot be used as columns, in this case null is returned.
+   *
+   * @param query May contains the JSON of the request
+   * @return Included fields, or null if there is no usable projection in the query
+   */
+  private String[] getSourceIncludes(String query) {
+    if (StringUtils.isEmpty(query)) {
+      return null;
+    }
+
+    JsonElement source;
+    try {
+      final JsonElement json = new JsonParser().parse(query);
+      source = json.isJsonObject() ? json.getAsJsonObject().get("_source") : null;
+    } catch (final JsonParseException e) {
+      // A Lucene query
+      return null;
+    }
+
+    if (source != null && source.isJsonObject()) {
+      final JsonObject sourceObj = source.getAsJsonObject();
+      source = sourceObj.has("includes") ? sourceObj.get("includes") : sourceObj.get("include");
+    }
+    if (source == null || source.isJsonNull()) {
+      return null;
+    }
+
+    final List<String> includes = new ArrayList<>();
+    if (source.isJsonArray()) {
+      for (final JsonElement include : source.getAsJsonArray()) {
+        includes.add(include.getAsString());
+      }
+    } else if (source.isJsonPrimitive() && source.getAsJsonPrimitive().isString()) {
+      includes.add(source.getAsString());
+    }
+
+    for (final String include : includes) {
+      if (include.contains("*")) {
+        return null;
+      }
+    }
+    return includes.isEmpty() ? null : includes.toArray(new String[0]);
+  }
+
   /**
    * Processes a "index" request.
    *
@@ -516,27 +636,9 @@ public class ElasticsearchInterpreter extends Interpreter {
     final List<Map<String, Object>> flattenHits = new LinkedList<>();
     final Set<String> keys = new TreeSet<>();
     for (final HitWrapper hit : response.getHits()) {
-
-      final String json = hit.getSourceAsString();
-
-      final Map<String, Object> flattenJsonMap = JsonFlattener.flattenAsMap(json);
-      final Map<String, Object> flattenMap = new HashMap<>();
-      for (final Iterator<String> iter = flattenJsonMap.keySet().iterator(); iter.hasNext(); ) {
-        // Replace keys that match a format like that : [\"keyname\"][0]
-        final String fieldName = iter.next();
-        final Matcher fieldNameMatcher = FIELD_NAME_PATTERN.matcher(fieldName);
-        if (fieldNameMatcher.matches()) {
-          flattenMap.put(fieldNameMatcher.group(1) + fieldNameMatcher.group(2),
-              flattenJsonMap.get(fieldName));
-        } else {
-          flattenMap.put(fieldName, flattenJsonMap.get(fieldName));
-        }
-      }
+      final Map<String, Object> flattenMap = flattener.flatten(hit.getSourceAsString());
       flattenHits.add(flattenMap);
-
-      for (final String key : flattenMap.keySet()) {
-        keys.add(key);
-      }
+      keys.addAll(flattenMap.keySet());
     }
 
     // Next : build the header of the table
@@ -575,4 +677,109 @@ public class ElasticsearchInterpreter extends Interpreter {
         InterpreterResult.Type.TABLE,
         buildSearchHitsResponseMessage(response));
   }
+
+  /**
+   * Writes the pages of hits of a scroll as the rows of a table.
+   *
+   * If the query contains _source includes, they are the columns. Otherwise, the columns are
+   * the fields found in the first page: fields only found in the next pages are ignored.
+   */
+  private class TableHitsWriter implements ScrollHandler {
+    private final InterpreterOutput out;
+    private final int maxHits;
+    private String[] columns;
+    private final boolean isProjection;
+    private boolean isHeaderWritten = false;
+    private long writtenHits = 0;
+    private long totalHits = 0;
+    private volatile boolean cancelled = false;
+
+    TableHitsWriter(InterpreterOutput out, String[] includes, int maxHits) {
+      this.out = out;
+      this.columns = includes;
+      this.isProjection = includes != null;
+      this.maxHits = maxHits;
+    }
+
+    @Override
+    public boolean onHits(List<HitWrapper> hits, long totalHits) {
+      this.totalHits = maxHits > 0 ? Math.min(maxHits, totalHits) : totalHits;
+
+      try {
+        final StringBuilder buffer = new StringBuilder();
+        if (columns == null) {
+          final Set<String> keys = new TreeSet<>();
+          for (final HitWrapper hit : hits) {
+            keys.addAll(flattener.flatten(hit.getSourceAsString()).keySet());
+          }
+          columns = keys.toArray(new String[0]);
+        }
+        if (!isHeaderWritten) {
+          buffer.append("%table ");
+          appendRow(buffer, columns);
+          isHeaderWritten = true;
+        }
+
+        for (final HitWrapper hit : hits) {
+          if (cancelled || (maxHits > 0 && writtenHits >= maxHits)) {
+            break;
+          }
+          appendRow(buffer, getValues(hit.getSourceAsString()));
+          writtenHits++;
+        }
+        out.write(buffer.toString());
+        out.flush();
+      } catch (final IOException e) {
+        throw new ActionException(e);
+      }
+
+      return !cancelled && (maxHits <= 0 || writtenHits < maxHits);
+    }
+
+    private String[] getValues(String source) {
+      if (isProjection) {
+        return flattener.project(source, columns);
+      }
+
+      final Map<String, Object> flattenMap = flattener.flatten(source);
+      final String[] values = new String[columns.length];
+      for (int i = 0; i < columns.length; i++) {
+        final Object val = flattenMap.get(columns[i]);
+        values[i] = val != null ? val.toString() : null;
+      }
+      return values;
+    }
+
+    private void appendRow(StringBuilder buffer, String[] values) {
+      for (int i = 0; i < values.length; i++) {
+        if (i > 0) {
+          buffer.append('\t');
+        }
+        if (values[i] != null) {
+          buffer.append(values[i]);
+        }
+      }
+      buffer.append('\n');
+    }
+
+    void flush() throws IOException {
+      out.flush();
+    }
+
+    void cancel() {
+      cancelled = true;
+    }
+
+    boolean isHeaderWritten() {
+      return isHeaderWritten;
+    }
+
+    long getWrittenHits() {
+      return writtenHits;
+    }
+
+    int getProgress() {
+      return totalHits > 0 ? (int) (writtenHits * 100 / totalHits) : 0;
+    }
+  }
 }
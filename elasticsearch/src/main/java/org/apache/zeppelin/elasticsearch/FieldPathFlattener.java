@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.elasticsearch;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.github.wnameless.json.flattener.JsonFlattener;
+
+/**
+ * Flattens the source of the hits into column name / value maps.
+ *
+ * Field paths are computed once per distinct key and cached, so that the flattening of
+ * a large number of hits sharing the same mapping does not run a regex per field and per hit.
+ */
+public class FieldPathFlattener {
+
+  private static final Pattern FIELD_NAME_PATTERN = Pattern.compile("\\[\\\\\"(.+)\\\\\"\\](.*)");
+
+  /** Upper bound of the caches, documents with dynamic keys must not make them grow forever. */
+  private static final int MAX_CACHED_PATHS = 10000;
+
+  private final JsonParser parser = new JsonParser();
+  private final Map<String, String> columnNames = new ConcurrentHashMap<>();
+  private final Map<String, String[]> fieldPaths = new ConcurrentHashMap<>();
+
+  /**
+   * Flattens a JSON document, the keys of the map are the column names.
+   *
+   * @param json JSON-formatted document
+   * @return Flattened document
+   */
+  public Map<String, Object> flatten(String json) {
+    final Map<String, Object> flattenJsonMap = JsonFlattener.flattenAsMap(json);
+    final Map<String, Object> flattenMap = new LinkedHashMap<>(flattenJsonMap.size() * 2);
+    for (final Map.Entry<String, Object> entry : flattenJsonMap.entrySet()) {
+      flattenMap.put(getColumnName(entry.getKey()), entry.getValue());
+    }
+    return flattenMap;
+  }
+
+  /**
+   * Extracts the values of some fields of a JSON document, without flattening the whole document.
+   * A value which is not a primitive (an array or an object) is returned as JSON.
+   *
+   * @param json JSON-formatted document
+   * @param fields Dot-separated paths of the fields (e.g. request.method)
+   * @return Values of the fields, in the same order (null if the field does not exist)
+   */
+  public String[] project(String json, String[] fields) {
+    final String[] values = new String[fields.length];
+    final JsonElement document = parser.parse(json);
+    if (!document.isJsonObject()) {
+      return values;
+    }
+
+    for (int i = 0; i < fields.length; i++) {
+      final JsonElement element = getElement(document.getAsJsonObject(), getFieldPath(fields[i]));
+      if (element == null || element.isJsonNull()) {
+        continue;
+      }
+      values[i] = element.isJsonPrimitive() ? element.getAsString() : element.toString();
+    }
+    return values;
+  }
+
+  private JsonElement getElement(JsonObject document, String[] path) {
+    JsonElement element = document;
+    for (final String item : path) {
+      if (element == null || !element.isJsonObject()) {
+        return null;
+      }
+      element = element.getAsJsonObject().get(item);
+    }
+    return element;
+  }
+
+  String getColumnName(String flattenedKey) {
+    String columnName = columnNames.get(flattenedKey);
+    if (columnName == null) {
+      // Replace keys that match a format like that : [\"keyname\"][0]
+      final Matcher fieldNameMatcher = FIELD_NAME_PATTERN.matcher(flattenedKey);
+      columnName = fieldNameMatcher.matches() ?
+          fieldNameMatcher.group(1) + fieldNameMatcher.group(2) : flattenedKey;
+      if (columnNames.size() < MAX_CACHED_PATHS) {
+        columnNames.put(flattenedKey, columnName);
+      }
+    }
+    return columnName;
+  }
+
+  private String[] getFieldPath(String field) {
+    String[] path = fieldPaths.get(field);
+    if (path == null) {
+      path = StringUtils.split(field, '.');
+      if (fieldPaths.size() < MAX_CACHED_PATHS) {
+        fieldPaths.put(field, path);
+      }
+    }
+    return path;
+  }
+}
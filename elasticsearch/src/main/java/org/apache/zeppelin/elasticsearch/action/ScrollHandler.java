@@ -0,0 +1,35 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.elasticsearch.action;
+
+import java.util.List;
+
+/**
+ * Receives the pages of hits of a scrolled search, one page at a time.
+ */
+public interface ScrollHandler {
+
+  /**
+   * Called for each page of hits returned by the scroll.
+   *
+   * @param hits Hits of the current page (never empty)
+   * @param totalHits Total number of hits matching the query
+   * @return true to fetch the next page, false to stop scrolling
+   */
+  boolean onHits(List<HitWrapper> hits, long totalHits);
+}
@@ -18,6 +18,7 @@
 package org.apache.zeppelin.elasticsearch.client;
 
 import org.apache.zeppelin.elasticsearch.action.ActionResponse;
+import org.apache.zeppelin.elasticsearch.action.ScrollHandler;
 
 /**
  * Interface that must be implemented by any kind of Elasticsearch client (transport, ...).
@@ -32,5 +33,19 @@ public interface ElasticsearchClient {
 
   ActionResponse search(String[] indices, String[] types, String query, int size);
 
+  /**
+   * Scrolls through all the hits of a search, page by page, without keeping them in memory.
+   *
+   * @param indices Indices (may be null)
+   * @param types Types (may be null)
+   * @param query JSON-formatted query, nor a Lucene query
+   * @param pageSize Number of hits fetched by each request
+   * @param keepAlive How long the search context is kept alive between two pages (e.g. 1m)
+   * @param handler Receives the pages of hits
+   * @return Response containing the total number of hits, but no hit
+   */
+  ActionResponse scroll(String[] indices, String[] types, String query, int pageSize,
+      String keepAlive, ScrollHandler handler);
+
   void close();
 }
@@ -28,7 +28,9 @@ import org.json.JSONObject;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -45,6 +47,7 @@ import org.apache.zeppelin.elasticsearch.action.ActionResponse;
 import org.apache.zeppelin.elasticsearch.action.AggWrapper;
 import org.apache.zeppelin.elasticsearch.action.AggWrapper.AggregationType;
 import org.apache.zeppelin.elasticsearch.action.HitWrapper;
+import org.apache.zeppelin.elasticsearch.action.ScrollHandler;
 
 /**
  * Elasticsearch client using the HTTP API.
@@ -254,10 +257,7 @@ public class HttpBasedClient implements ElasticsearchClient {
     return response;
   }
 
-  @Override
-  public ActionResponse search(String[] indices, String[] types, String query, int size) {
-    ActionResponse response = null;
-
+  private String toJsonQuery(String query) {
     if (!StringUtils.isEmpty(query)) {
       // The query can be either JSON-formatted, nor a Lucene query
       // So, try to parse as a JSON => if there is an error, consider the query a Lucene one
@@ -265,9 +265,26 @@ public class HttpBasedClient implements ElasticsearchClient {
         gson.fromJson(query, Map.class);
       } catch (final JsonParseException e) {
         // This is not a JSON (or maybe not well formatted...)
-        query = QUERY_STRING_TEMPLATE.replace("_Q_", query);
+        return QUERY_STRING_TEMPLATE.replace("_Q_", query);
       }
     }
+    return query;
+  }
+
+  private HitWrapper toHitWrapper(JSONObject hit) {
+    final Object data = hit.opt("_source") != null ? hit.opt("_source") : hit.opt("fields");
+    return new HitWrapper(
+        hit.getString("_index"),
+        hit.getString("_type"),
+        hit.getString("_id"),
+        data == null ? "{}" : data.toString());
+  }
+
+  @Override
+  public ActionResponse search(String[] indices, String[] types, String query, int size) {
+    ActionResponse response = null;
+
+    query = toJsonQuery(query);
 
     try {
       final HttpRequestWithBody request = Unirest
@@ -318,14 +335,7 @@ public class HttpBasedClient implements ElasticsearchClient {
           final Iterator<Object> iter = hits.iterator();
 
           while (iter.hasNext()) {
-            final JSONObject hit = (JSONObject) iter.next();
-            final Object data =
-                hit.opt("_source") != null ? hit.opt("_source") : hit.opt("fields");
-            response.addHit(new HitWrapper(
-                hit.getString("_index"),
-                hit.getString("_type"),
-                hit.getString("_id"),
-                data.toString()));
+            response.addHit(toHitWrapper((JSONObject) iter.next()));
           }
         }
       } else {
@@ -338,6 +348,85 @@ public class HttpBasedClient implements ElasticsearchClient {
     return response;
   }
 
+  @Override
+  public ActionResponse scroll(String[] indices, String[] types, String query, int pageSize,
+      String keepAlive, ScrollHandler handler) {
+    final String jsonQuery = toJsonQuery(query);
+    final JSONObject source =
+        StringUtils.isEmpty(jsonQuery) ? new JSONObject() : new JSONObject(jsonQuery);
+    if (!source.has("sort")) {
+      // Without any sort, the hits are returned in index order, which is the cheapest way
+      source.put("sort", new JSONArray().put("_doc"));
+    }
+
+    String scrollId = null;
+    try {
+      HttpResponse<JsonNode> result = sendJson(Unirest.post(getUrl(indices, types)
+          + "/_search?scroll=" + keepAlive + "&size=" + pageSize), source);
+      long total = 0;
+
+      while (true) {
+        final JSONObject body = result.getBody() != null ? result.getBody().getObject() : null;
+        if (!isSucceeded(result)) {
+          // e.g. the failure of an expired scroll may have no error field
+          final Object error = body == null ? null : body.opt("error");
+          throw new ActionException(error == null ? result.getStatusText() : error.toString());
+        }
+
+        scrollId = body.optString("_scroll_id", null);
+        total = getFieldAsLong(result, "hits/total");
+
+        final JSONArray hits = getFieldAsArray(body, "hits/hits");
+        if (hits.length() == 0) {
+          break;
+        }
+
+        final List<HitWrapper> page = new ArrayList<>(hits.length());
+        for (int i = 0; i < hits.length(); i++) {
+          page.add(toHitWrapper(hits.getJSONObject(i)));
+        }
+        if (!handler.onHits(page, total) || scrollId == null) {
+          break;
+        }
+
+        result = sendJson(Unirest.post(getUrl(null, null, null, false) + "_search/scroll"),
+            new JSONObject().put("scroll", keepAlive).put("scroll_id", scrollId));
+      }
+
+      return new ActionResponse()
+          .succeeded(true)
+          .totalHits(total);
+    } catch (final UnirestException e) {
+      throw new ActionException(e);
+    } finally {
+      clearScroll(scrollId);
+    }
+  }
+
+  private HttpResponse<JsonNode> sendJson(HttpRequestWithBody request, JSONObject body)
+      throws UnirestException {
+    request
+        .header("Accept", "application/json")
+        .header("Content-Type", "application/json")
+        .body(body.toString());
+    if (StringUtils.isNotEmpty(username)) {
+      request.basicAuth(username, password);
+    }
+    return request.asJson();
+  }
+
+  private void clearScroll(String scrollId) {
+    if (scrollId == null) {
+      return;
+    }
+    try {
+      sendJson(Unirest.delete(getUrl(null, null, null, false) + "_search/scroll"),
+          new JSONObject().put("scroll_id", new JSONArray().put(scrollId)));
+    } catch (final UnirestException e) {
+      // The search context will be released by Elasticsearch when the keep alive expires
+    }
+  }
+
   private boolean containsAggs(HttpResponse<JsonNode> result) {
     return result.getBody() != null &&
         (result.getBody().getObject().has("aggregations") ||
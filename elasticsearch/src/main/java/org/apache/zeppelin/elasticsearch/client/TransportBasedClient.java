@@ -32,6 +32,7 @@ import org.elasticsearch.client.Client;
 import org.elasticsearch.client.transport.TransportClient;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.InetSocketTransportAddress;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentHelper;
@@ -44,10 +45,12 @@ import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
 import org.elasticsearch.search.aggregations.bucket.InternalSingleBucketAggregation;
 import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation;
 import org.elasticsearch.search.aggregations.metrics.InternalMetricsAggregation;
+import org.elasticsearch.search.sort.SortOrder;
 
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -60,6 +63,7 @@ import org.apache.zeppelin.elasticsearch.ElasticsearchInterpreter;
 import org.apache.zeppelin.elasticsearch.action.ActionResponse;
 import org.apache.zeppelin.elasticsearch.action.AggWrapper;
 import org.apache.zeppelin.elasticsearch.action.HitWrapper;
+import org.apache.zeppelin.elasticsearch.action.ScrollHandler;
 
 /**
  * Elasticsearch client using the transport protocol.
@@ -131,8 +135,8 @@ public class TransportBasedClient implements ElasticsearchClient {
             null));
   }
 
-  @Override
-  public ActionResponse search(String[] indices, String[] types, String query, int size) {
+  private SearchRequestBuilder prepareSearch(String[] indices, String[] types, String query,
+      boolean sortByDoc) {
     final SearchRequestBuilder reqBuilder = new SearchRequestBuilder(
         client, SearchAction.INSTANCE);
     reqBuilder.setIndices();
@@ -144,6 +148,7 @@ public class TransportBasedClient implements ElasticsearchClient {
       reqBuilder.setTypes(types);
     }
 
+    boolean isSorted = false;
     if (!StringUtils.isEmpty(query)) {
       // The query can be either JSON-formatted, nor a Lucene query
       // So, try to parse as a JSON => if there is an error, consider the query a Lucene one
@@ -151,12 +156,40 @@ public class TransportBasedClient implements ElasticsearchClient {
         @SuppressWarnings("rawtypes")
         final Map source = gson.fromJson(query, Map.class);
         reqBuilder.setExtraSource(source);
+        isSorted = source != null && source.containsKey("sort");
       } catch (final JsonSyntaxException e) {
         // This is not a JSON (or maybe not well formatted...)
         reqBuilder.setQuery(QueryBuilders.queryStringQuery(query).analyzeWildcard(true));
       }
     }
 
+    if (sortByDoc && !isSorted) {
+      // Without any sort, the hits are returned in index order, which is the cheapest way
+      reqBuilder.addSort("_doc", SortOrder.ASC);
+    }
+
+    return reqBuilder;
+  }
+
+  private HitWrapper toHitWrapper(SearchHit hit) {
+    // Fields can be found either in _source, or in fields (it depends on the query)
+    // => specific for elasticsearch's version < 5
+    //
+    String src = hit.getSourceAsString();
+    if (src == null) {
+      final Map<String, Object> hitFields = new HashMap<>();
+      for (final SearchHitField hitField : hit.getFields().values()) {
+        hitFields.put(hitField.getName(), hitField.getValues());
+      }
+      src = gson.toJson(hitFields);
+    }
+    return new HitWrapper(hit.getIndex(), hit.getType(), hit.getId(), src);
+  }
+
+  @Override
+  public ActionResponse search(String[] indices, String[] types, String query, int size) {
+    final SearchRequestBuilder reqBuilder = prepareSearch(indices, types, query, false);
+
     reqBuilder.setSize(size);
 
     final SearchResponse searchResp = reqBuilder.get();
@@ -169,24 +202,56 @@ public class TransportBasedClient implements ElasticsearchClient {
       setAggregations(searchResp.getAggregations(), actionResp);
     } else {
       for (final SearchHit hit: searchResp.getHits()) {
-        // Fields can be found either in _source, or in fields (it depends on the query)
-        // => specific for elasticsearch's version < 5
-        //
-        String src = hit.getSourceAsString();
-        if (src == null) {
-          final Map<String, Object> hitFields = new HashMap<>();
-          for (final SearchHitField hitField : hit.getFields().values()) {
-            hitFields.put(hitField.getName(), hitField.getValues());
-          }
-          src = gson.toJson(hitFields);
-        }
-        actionResp.addHit(new HitWrapper(hit.getIndex(), hit.getType(), hit.getId(), src));
+        actionResp.addHit(toHitWrapper(hit));
       }
     }
 
     return actionResp;
   }
 
+  @Override
+  public ActionResponse scroll(String[] indices, String[] types, String query, int pageSize,
+      String keepAlive, ScrollHandler handler) {
+    final TimeValue keepAliveValue = TimeValue.parseTimeValue(keepAlive, null, "scroll");
+
+    SearchResponse searchResp = prepareSearch(indices, types, query, true)
+        .setScroll(keepAliveValue)
+        .setSize(pageSize)
+        .get();
+
+    String scrollId = null;
+    try {
+      while (true) {
+        scrollId = searchResp.getScrollId();
+
+        final SearchHit[] hits = searchResp.getHits().getHits();
+        if (hits.length == 0) {
+          break;
+        }
+
+        final List<HitWrapper> page = new ArrayList<>(hits.length);
+        for (final SearchHit hit : hits) {
+          page.add(toHitWrapper(hit));
+        }
+        if (!handler.onHits(page, searchResp.getHits().getTotalHits())) {
+          break;
+        }
+
+        searchResp = client.prepareSearchScroll(scrollId)
+            .setScroll(keepAliveValue)
+            .get();
+      }
+    } finally {
+      if (scrollId != null) {
+        client.prepareClearScroll().addScrollId(scrollId).get();
+      }
+    }
+
+    return new ActionResponse()
+        .succeeded(true)
+        .totalHits(searchResp.getHits().getTotalHits());
+  }
+
   private void setAggregations(Aggregations aggregations, ActionResponse actionResp) {
     // Only the result of the first aggregation is returned
     //
@@ -20,6 +20,7 @@ package org.apache.zeppelin.elasticsearch;
 import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import org.apache.commons.lang.math.RandomUtils;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
@@ -47,6 +48,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.zeppelin.completer.CompletionType;
 import org.apache.zeppelin.display.AngularObjectRegistry;
 import org.apache.zeppelin.interpreter.InterpreterContext;
+import org.apache.zeppelin.interpreter.InterpreterOutput;
 import org.apache.zeppelin.interpreter.InterpreterResult;
 import org.apache.zeppelin.interpreter.InterpreterResult.Code;
 import org.apache.zeppelin.interpreter.thrift.InterpreterCompletion;
@@ -128,6 +130,7 @@ public class ElasticsearchInterpreterTest {
     final Properties props = new Properties();
     props.put(ElasticsearchInterpreter.ELASTICSEARCH_HOST, ELS_HOST);
     props.put(ElasticsearchInterpreter.ELASTICSEARCH_CLUSTER_NAME, ELS_CLUSTER_NAME);
+    props.put(ElasticsearchInterpreter.ELASTICSEARCH_SCROLL_SIZE, "7");
 
     props.put(ElasticsearchInterpreter.ELASTICSEARCH_PORT, ELS_TRANSPORT_PORT);
     props.put(ElasticsearchInterpreter.ELASTICSEARCH_CLIENT_TYPE, "transport");
@@ -165,6 +168,7 @@ public class ElasticsearchInterpreterTest {
         .setNoteId(noteAndParagraphId)
         .setParagraphId(noteAndParagraphId)
         .setAngularObjectRegistry(new AngularObjectRegistry("elasticsearch", null))
+        .setInterpreterOut(new InterpreterOutput(null))
         .build();
   }
 
@@ -231,6 +235,43 @@ public class ElasticsearchInterpreterTest {
     assertEquals(Code.SUCCESS, res.code());
   }
 
+  @Theory
+  public void testScroll(ElasticsearchInterpreter interpreter) throws IOException {
+    InterpreterContext ctx = buildContext("scroll");
+
+    // These documents are neither deleted nor updated by the other tests
+    final StringBuilder ids = new StringBuilder();
+    for (int i = 10; i < 30; i++) {
+      ids.append(i == 10 ? "" : ", ").append('"').append(i).append('"');
+    }
+    InterpreterResult res = interpreter.interpret("scroll /logs { \"query\": { \"ids\": " +
+            "{ \"values\": [ " + ids + " ] } } }", ctx);
+    assertEquals(Code.SUCCESS, res.code());
+    String table = ctx.out.toInterpreterResultMessage().get(0).getData();
+    assertEquals(21, table.split("\n").length);
+    assertTrue(table.startsWith("content_length\tdate\t"));
+    assertEquals(20L, ctx.getAngularObjectRegistry().get("scroll_scroll", null, null).get());
+
+    ctx = buildContext("scroll");
+    res = interpreter.interpret("size 10\nscroll /logs { \"_source\": " +
+            "[ \"request.method\", \"status\" ] }", ctx);
+    assertEquals(Code.SUCCESS, res.code());
+    table = ctx.out.toInterpreterResultMessage().get(0).getData();
+    final String[] lines = table.split("\n");
+    assertEquals(11, lines.length);
+    assertEquals("request.method\tstatus", lines[0]);
+    assertEquals(2, lines[1].split("\t").length);
+
+    ctx = buildContext("scroll");
+    res = interpreter.interpret("scroll /logs { \"query\": { \"match\": { \"status\": 999 } } }",
+            ctx);
+    assertEquals(Code.SUCCESS, res.code());
+    assertEquals("", res.message().get(0).getData());
+
+    res = interpreter.interpret("scroll /logs {{{hello}}}", ctx);
+    assertEquals(Code.ERROR, res.code());
+  }
+
   @Theory
   public void testAgg(ElasticsearchInterpreter interpreter) {
     final InterpreterContext ctx = buildContext("agg");
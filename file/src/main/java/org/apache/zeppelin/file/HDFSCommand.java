@@ -22,8 +22,10 @@ import org.slf4j.Logger;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 
 import javax.ws.rs.core.UriBuilder;
 
@@ -76,6 +78,8 @@ public class HDFSCommand {
   // Define all the commands available
   public Op getFileStatus = new Op("GETFILESTATUS", HttpType.GET, 0);
   public Op listStatus = new Op("LISTSTATUS", HttpType.GET, 0);
+  // Paged LISTSTATUS, since Hadoop 2.8
+  public Op listStatusBatch = new Op("LISTSTATUS_BATCH", HttpType.GET, 0);
 
   public HDFSCommand(String url, String user, Logger logger, int maxLength) {
     super();
@@ -109,6 +113,31 @@ public class HDFSCommand {
       return "ERROR: BAD ARGS";
     }
 
+    try (Reader reader = openCommand(op, path, args)) {
+      if (reader == null) {
+        return null;
+      }
+      StringBuffer response = new StringBuffer();
+      BufferedReader in = new BufferedReader(reader);
+      String inputLine;
+      while ((inputLine = in.readLine()) != null) {
+        response.append(inputLine);
+      }
+      return response.toString();
+    }
+  }
+
+  /**
+   * Runs the command and opens its response, so that it can be parsed while it is received.
+   *
+   * @return the response, to be closed by the caller
+   */
+  public Reader openCommand(Op op, String path, Arg[] args) throws Exception {
+    String error = checkArgs(op, path, args);
+    if (error != null) {
+      throw new IllegalArgumentException("Bad arguments to command: " + error);
+    }
+
     // Build URI
     UriBuilder builder = UriBuilder
         .fromPath(url)
@@ -122,7 +151,7 @@ public class HDFSCommand {
     }
     java.net.URI uri = builder.build();
 
-    // Connect and get response string
+    // Connect and open the response
     URL hdfsUrl = uri.toURL();
     HttpURLConnection con = (HttpURLConnection) hdfsUrl.openConnection();
 
@@ -131,15 +160,8 @@ public class HDFSCommand {
       int responseCode = con.getResponseCode();
       logger.info("Sending 'GET' request to URL : " + hdfsUrl);
       logger.info("Response Code : " + responseCode);
-      StringBuffer response = new StringBuffer();
-      try (BufferedReader in = new BufferedReader(
-              new InputStreamReader(con.getInputStream()));) {
-        String inputLine;
-        while ((inputLine = in.readLine()) != null) {
-          response.append(inputLine);
-        }
-      }
-      return response.toString();
+      return new BufferedReader(
+          new InputStreamReader(con.getInputStream(), StandardCharsets.UTF_8));
     }
     return null;
   }
@@ -21,8 +21,11 @@ package org.apache.zeppelin.file;
 import com.google.gson.Gson;
 
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
 import org.apache.commons.lang.StringUtils;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
@@ -41,10 +44,14 @@ public class HDFSFileInterpreter extends FileInterpreter {
   static final String HDFS_URL = "hdfs.url";
   static final String HDFS_USER = "hdfs.user";
   static final String HDFS_MAXLENGTH = "hdfs.maxlength";
+  static final String HDFS_CACHE_TTL = "hdfs.cache.ttl";
+  static final String HDFS_CACHE_SIZE = "hdfs.cache.size";
+  static final String HDFS_LISTSTATUS_BATCH = "hdfs.liststatus.batch";
 
   Exception exceptionOnConnect = null;
   HDFSCommand cmd = null;
   Gson gson = null;
+  HDFSStatusCache cache = null;
 
   public void prepare() {
     String userName = getProperty(HDFS_USER);
@@ -57,6 +64,8 @@ public class HDFSFileInterpreter extends FileInterpreter {
   public HDFSFileInterpreter(Properties property){
     super(property);
     prepare();
+    cache = new HDFSStatusCache(Long.parseLong(getProperty(HDFS_CACHE_TTL, "5000")),
+        Integer.parseInt(getProperty(HDFS_CACHE_SIZE, "100")));
   }
 
   /**
@@ -147,10 +156,156 @@ public class HDFSFileInterpreter extends FileInterpreter {
 
   @Override
   public void close() {
+    cache.clear();
   }
 
-  private String listDir(String path) throws Exception {
-    return cmd.runCommand(cmd.listStatus, path, null);
+  /**
+   * @param limit the listing stops after this number of files
+   * @return the first files of the directory, empty if it can't be listed
+   */
+  List<OneFileStatus> listDir(String path, int limit) throws Exception {
+    List<OneFileStatus> files = cache.getListing(path, limit);
+    if (files != null) {
+      return files.size() > limit ? files.subList(0, limit) : files;
+    }
+    files = new ArrayList<>();
+    Boolean complete = Boolean.parseBoolean(getProperty(HDFS_LISTSTATUS_BATCH, "false")) ?
+        listDirBatch(path, files, limit) : listDirAll(path, files, limit);
+    if (complete == null) {
+      // failures are not cached
+      return files;
+    }
+    // a complete listing answers every limit, ls only renders its first hdfs.maxlength files
+    cache.putListing(path, files, complete);
+    return files;
+  }
+
+  // @return whether all the files were read, null if the directory can't be listed
+  private Boolean listDirAll(String path, List<OneFileStatus> files, int limit)
+      throws Exception {
+    try (Reader response = cmd.openCommand(cmd.listStatus, path, null)) {
+      if (response == null) {
+        return null;
+      }
+      JsonReader reader = new JsonReader(response);
+      reader.beginObject();
+      while (reader.hasNext()) {
+        if ("FileStatuses".equals(reader.nextName())) {
+          if (!readFileStatuses(reader, files, limit)) {
+            // the rest of the response is not read, closing it aborts the transfer
+            return false;
+          }
+        } else {
+          reader.skipValue();
+        }
+      }
+      reader.endObject();
+    }
+    return true;
+  }
+
+  // Pages through the directory with LISTSTATUS_BATCH, each page starts after the last file
+  private Boolean listDirBatch(String path, List<OneFileStatus> files, int limit)
+      throws Exception {
+    int remainingEntries = 1;
+    while (remainingEntries > 0) {
+      if (files.size() >= limit) {
+        return false;
+      }
+      HDFSCommand.Arg[] args = files.isEmpty() ? null : new HDFSCommand.Arg[] {
+          cmd.new Arg("startAfter", files.get(files.size() - 1).pathSuffix)};
+      int size = files.size();
+      remainingEntries = 0;
+      try (Reader response = cmd.openCommand(cmd.listStatusBatch, path, args)) {
+        if (response == null) {
+          return null;
+        }
+        JsonReader reader = new JsonReader(response);
+        reader.beginObject();
+        while (reader.hasNext()) {
+          if ("DirectoryListing".equals(reader.nextName())) {
+            remainingEntries = readDirectoryListing(reader, files, limit);
+            if (remainingEntries < 0) {
+              return false;
+            }
+          } else {
+            reader.skipValue();
+          }
+        }
+        reader.endObject();
+      }
+      if (files.size() == size) {
+        break;
+      }
+    }
+    return true;
+  }
+
+  // {"partialListing":{"FileStatuses":{...}},"remainingEntries":0}
+  // @return the remaining entries, -1 if the limit was reached before the end of the page
+  private int readDirectoryListing(JsonReader reader, List<OneFileStatus> files, int limit)
+      throws IOException {
+    int remainingEntries = 0;
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      if ("partialListing".equals(name)) {
+        reader.beginObject();
+        while (reader.hasNext()) {
+          if ("FileStatuses".equals(reader.nextName())) {
+            if (!readFileStatuses(reader, files, limit)) {
+              return -1;
+            }
+          } else {
+            reader.skipValue();
+          }
+        }
+        reader.endObject();
+      } else if ("remainingEntries".equals(name)) {
+        remainingEntries = reader.nextInt();
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.endObject();
+    return remainingEntries;
+  }
+
+  // {"FileStatus":[...]}, one file at a time rather than the whole response
+  // @return false if the limit was reached before the end of the files
+  private boolean readFileStatuses(JsonReader reader, List<OneFileStatus> files, int limit)
+      throws IOException {
+    reader.beginObject();
+    while (reader.hasNext()) {
+      if ("FileStatus".equals(reader.nextName())) {
+        reader.beginArray();
+        while (reader.hasNext()) {
+          if (files.size() >= limit) {
+            return false;
+          }
+          files.add(gson.<OneFileStatus>fromJson(reader, OneFileStatus.class));
+        }
+        reader.endArray();
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.endObject();
+    return true;
+  }
+
+  OneFileStatus getFileStatus(String path) throws Exception {
+    OneFileStatus status = cache.getStatus(path);
+    if (status == null) {
+      String str = cmd.runCommand(cmd.getFileStatus, path, null);
+      SingleFileStatus sfs = gson.fromJson(str, SingleFileStatus.class);
+      if (sfs == null || sfs.fileStatus == null) {
+        return null;
+      }
+      status = sfs.fileStatus;
+      cache.putStatus(path, status);
+    }
+    return status;
   }
 
   private String listPermission(OneFileStatus fs){
@@ -218,7 +373,6 @@ public class HDFSFileInterpreter extends FileInterpreter {
   }
 
   public String listAll(String path) throws InterpreterException {
-    String all = "";
     if (exceptionOnConnect != null) {
       return "Error connecting to provided endpoint.";
     }
@@ -226,22 +380,11 @@ public class HDFSFileInterpreter extends FileInterpreter {
     try {
       //see if directory.
       if (isDirectory(path)) {
-        String sfs = listDir(path);
-        if (sfs != null) {
-          AllFileStatus allFiles = gson.fromJson(sfs, AllFileStatus.class);
-
-          if (allFiles != null &&
-                  allFiles.fileStatuses != null &&
-                  allFiles.fileStatuses.fileStatus != null) {
-            int length = cmd.maxLength < allFiles.fileStatuses.fileStatus.length ? cmd.maxLength :
-                    allFiles.fileStatuses.fileStatus.length;
-            for (int index = 0; index < length; index++) {
-              OneFileStatus fs = allFiles.fileStatuses.fileStatus[index];
-              all = all + listOne(path, fs) + '\n';
-            }
-          }
+        StringBuilder all = new StringBuilder();
+        for (OneFileStatus file : listDir(path, cmd.maxLength)) {
+          all.append(listOne(path, file)).append('\n');
         }
-        return all;
+        return all.toString();
       } else {
         return listFile(path);
       }
@@ -258,10 +401,9 @@ public class HDFSFileInterpreter extends FileInterpreter {
     }
 
     try {
-      String str = cmd.runCommand(cmd.getFileStatus, path, null);
-      SingleFileStatus sfs = gson.fromJson(str, SingleFileStatus.class);
-      if (sfs != null) {
-        return sfs.fileStatus.type.equals("DIRECTORY");
+      OneFileStatus status = getFileStatus(path);
+      if (status != null) {
+        return status.type.equals("DIRECTORY");
       }
     } catch (Exception e) {
       logger.error("IsDirectory: " + path, e);
@@ -316,26 +458,17 @@ public class HDFSFileInterpreter extends FileInterpreter {
 
     if (isDirectory(globalPath)){
       try {
-        String fileStatusString = listDir(globalPath);
-        if (fileStatusString != null) {
-          AllFileStatus allFiles = gson.fromJson(fileStatusString, AllFileStatus.class);
-
-          if (allFiles != null &&
-                  allFiles.fileStatuses != null &&
-                  allFiles.fileStatuses.fileStatus != null) {
-            for (OneFileStatus fs : allFiles.fileStatuses.fileStatus) {
-              if (fs.pathSuffix.contains(unfinished)) {
-                //only suggest the text after the last .
-                String beforeLastPeriod = unfinished.substring(0, unfinished.lastIndexOf('.') + 1);
-                //beforeLastPeriod should be the start of fs.pathSuffix, so take the end of it.
-                String suggestedFinish = fs.pathSuffix.substring(beforeLastPeriod.length());
-                suggestions.add(new InterpreterCompletion(suggestedFinish, suggestedFinish,
-                    CompletionType.path.name()));
-              }
-            }
-            return suggestions;
+        for (OneFileStatus fs : listDir(globalPath, Integer.MAX_VALUE)) {
+          if (fs.pathSuffix.contains(unfinished)) {
+            //only suggest the text after the last .
+            String beforeLastPeriod = unfinished.substring(0, unfinished.lastIndexOf('.') + 1);
+            //beforeLastPeriod should be the start of fs.pathSuffix, so take the end of it.
+            String suggestedFinish = fs.pathSuffix.substring(beforeLastPeriod.length());
+            suggestions.add(new InterpreterCompletion(suggestedFinish, suggestedFinish,
+                CompletionType.path.name()));
           }
         }
+        return suggestions;
       } catch (Exception e) {
         logger.error("listall: listDir " + globalPath, e);
         return null;
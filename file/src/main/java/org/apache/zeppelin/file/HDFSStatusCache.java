@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.zeppelin.file;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.zeppelin.file.HDFSFileInterpreter.OneFileStatus;
+
+/**
+ * Status and listing of the WebHDFS paths, kept for a time to live so that
+ * the completion and the commands don't request the same paths again.
+ * The least recently used paths are evicted beyond the size of the cache.
+ * A listing may hold only the first files of a large directory.
+ */
+class HDFSStatusCache {
+  private final long ttl;
+  private final Map<String, Entry<OneFileStatus>> statuses;
+  private final Map<String, Entry<Listing>> listings;
+
+  HDFSStatusCache(long ttl, int size) {
+    this.ttl = ttl;
+    this.statuses = lruMap(size);
+    this.listings = lruMap(size);
+  }
+
+  /**
+   * @return the status of the path, from its own status or the listing of its parent,
+   *         null if it is not cached
+   */
+  synchronized OneFileStatus getStatus(String path) {
+    OneFileStatus status = get(statuses, path);
+    if (status != null) {
+      return status;
+    }
+    int index = path.lastIndexOf('/');
+    if (index < 0 || path.length() == 1) {
+      return null;
+    }
+    Listing siblings = get(listings, index == 0 ? "/" : path.substring(0, index));
+    if (siblings != null) {
+      String name = path.substring(index + 1);
+      for (OneFileStatus sibling : siblings.files) {
+        if (name.equals(sibling.pathSuffix)) {
+          return sibling;
+        }
+      }
+    }
+    return null;
+  }
+
+  synchronized void putStatus(String path, OneFileStatus status) {
+    put(statuses, path, status);
+  }
+
+  /**
+   * @return the files of the directory, null if it is not cached or if fewer than limit
+   *         files of an incomplete listing are cached
+   */
+  synchronized List<OneFileStatus> getListing(String path, int limit) {
+    Listing listing = get(listings, path);
+    if (listing == null || (!listing.complete && listing.files.size() < limit)) {
+      return null;
+    }
+    return listing.files;
+  }
+
+  /**
+   * @param complete whether the files are all the files of the directory
+   */
+  synchronized void putListing(String path, List<OneFileStatus> files, boolean complete) {
+    put(listings, path, new Listing(files, complete));
+  }
+
+  synchronized void clear() {
+    statuses.clear();
+    listings.clear();
+  }
+
+  private <V> V get(Map<String, Entry<V>> map, String path) {
+    Entry<V> entry = map.get(path);
+    if (entry == null) {
+      return null;
+    }
+    if (System.currentTimeMillis() - entry.time >= ttl) {
+      map.remove(path);
+      return null;
+    }
+    return entry.value;
+  }
+
+  private <V> void put(Map<String, Entry<V>> map, String path, V value) {
+    if (ttl > 0) {
+      map.put(path, new Entry<>(value, System.currentTimeMillis()));
+    }
+  }
+
+  private static <V> Map<String, Entry<V>> lruMap(final int maxSize) {
+    return new LinkedHashMap<String, Entry<V>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  private static class Listing {
+    private final List<OneFileStatus> files;
+    private final boolean complete;
+
+    Listing(List<OneFileStatus> files, boolean complete) {
+      this.files = files;
+      this.complete = complete;
+    }
+  }
+
+  private static class Entry<V> {
+    private final V value;
+    private final long time;
+
+    Entry(V value, long time) {
+      this.value = value;
+      this.time = time;
+    }
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.zeppelin.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.zeppelin.interpreter.InterpreterResult;
+import org.apache.zeppelin.interpreter.thrift.InterpreterCompletion;
+
+/**
+ * Tests the HDFS interpreter against an embedded WebHDFS stub.
+ */
+public class HDFSFileInterpreterStubTest {
+  private HttpServer server;
+  private final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/webhdfs/v1", exchange -> {
+      String request = exchange.getRequestURI().getPath().substring("/webhdfs/v1".length())
+          + "?" + exchange.getRequestURI().getQuery();
+      requests.add(request);
+      respond(exchange, request);
+    });
+    server.start();
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+  }
+
+  private void respond(HttpExchange exchange, String request) throws IOException {
+    String response;
+    if (request.equals("/?op=GETFILESTATUS") || request.equals("/data?op=GETFILESTATUS")) {
+      response = "{\"FileStatus\":" + status("", "DIRECTORY") + "}";
+    } else if (request.equals("/data?op=LISTSTATUS")) {
+      response = "{\"FileStatuses\":{\"FileStatus\":[" + status("a.csv", "FILE") + ","
+          + status("b.csv", "FILE") + "," + status("logs", "DIRECTORY") + "]}}";
+    } else if (request.equals("/data?op=LISTSTATUS_BATCH")) {
+      response = "{\"DirectoryListing\":{\"partialListing\":{\"FileStatuses\":{\"FileStatus\":["
+          + status("a.csv", "FILE") + "," + status("b.csv", "FILE")
+          + "]}},\"remainingEntries\":1}}";
+    } else if (request.equals("/data?op=LISTSTATUS_BATCH&startAfter=b.csv")) {
+      response = "{\"DirectoryListing\":{\"partialListing\":{\"FileStatuses\":{\"FileStatus\":["
+          + status("logs", "DIRECTORY") + "]}},\"remainingEntries\":0}}";
+    } else {
+      exchange.sendResponseHeaders(404, -1);
+      exchange.close();
+      return;
+    }
+    byte[] body = response.getBytes(StandardCharsets.UTF_8);
+    exchange.sendResponseHeaders(200, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private static String status(String pathSuffix, String type) {
+    return "{\"accessTime\":0,\"blockSize\":0,\"childrenNum\":0,\"fileId\":16389,"
+        + "\"group\":\"hadoop\",\"length\":10,\"modificationTime\":1438548219672,"
+        + "\"owner\":\"yarn\",\"pathSuffix\":\"" + pathSuffix + "\",\"permission\":\"755\","
+        + "\"replication\":1,\"storagePolicy\":0,\"type\":\"" + type + "\"}";
+  }
+
+  private HDFSFileInterpreter createInterpreter(boolean batch, String ttl) {
+    return createInterpreter(batch, ttl, "1000");
+  }
+
+  private HDFSFileInterpreter createInterpreter(boolean batch, String ttl, String maxLength) {
+    Properties properties = new Properties();
+    properties.setProperty("hdfs.url",
+        "http://localhost:" + server.getAddress().getPort() + "/webhdfs/v1/");
+    properties.setProperty("hdfs.user", "hdfs");
+    properties.setProperty("hdfs.maxlength", maxLength);
+    properties.setProperty("hdfs.cache.ttl", ttl);
+    properties.setProperty("hdfs.liststatus.batch", String.valueOf(batch));
+    HDFSFileInterpreter interpreter = new HDFSFileInterpreter(properties);
+    interpreter.open();
+    return interpreter;
+  }
+
+  @Test
+  public void testListingCache() {
+    HDFSFileInterpreter interpreter = createInterpreter(false, "60000");
+    InterpreterResult result = interpreter.interpret("ls /data", null);
+    assertEquals("a.csv\nb.csv\nlogs\n", result.message().get(0).getData());
+
+    // completion, cd and ls are answered by the cache
+    requests.clear();
+    List<InterpreterCompletion> completions = interpreter.completion("ls /data/b", 0, null);
+    assertEquals(1, completions.size());
+    assertEquals("b.csv", completions.get(0).getValue());
+    assertEquals("OK", interpreter.interpret("cd /data/logs", null).message().get(0).getData());
+    assertFalse(interpreter.isDirectory("/data/a.csv"));
+    interpreter.interpret("ls /data", null);
+    assertTrue(requests.isEmpty());
+    interpreter.close();
+
+    // without cache every command requests WebHDFS
+    interpreter = createInterpreter(false, "0");
+    requests.clear();
+    interpreter.interpret("ls /data", null);
+    interpreter.completion("ls /data/b", 0, null);
+    assertEquals(4, requests.size());
+    interpreter.close();
+  }
+
+  @Test
+  public void testListStatusBatch() {
+    HDFSFileInterpreter interpreter = createInterpreter(true, "60000");
+    requests.clear();
+    InterpreterResult result = interpreter.interpret("ls /data", null);
+    assertEquals("a.csv\nb.csv\nlogs\n", result.message().get(0).getData());
+    assertEquals(3, requests.size());
+    assertEquals("/data?op=LISTSTATUS_BATCH&startAfter=b.csv", requests.get(2));
+    interpreter.close();
+  }
+
+  @Test
+  public void testListingLimit() {
+    HDFSFileInterpreter interpreter = createInterpreter(true, "60000", "2");
+    requests.clear();
+    // ls stops at hdfs.maxlength files, the second page is not requested
+    InterpreterResult result = interpreter.interpret("ls /data", null);
+    assertEquals("a.csv\nb.csv\n", result.message().get(0).getData());
+    assertEquals(2, requests.size());
+    interpreter.interpret("ls /data", null);
+    assertEquals(2, requests.size());
+
+    // the cached listing is incomplete, the completion lists the whole directory
+    List<InterpreterCompletion> completions = interpreter.completion("ls /data/lo", 0, null);
+    assertEquals(1, completions.size());
+    assertEquals("logs", completions.get(0).getValue());
+    assertEquals(4, requests.size());
+
+    // the complete listing is cached, the next completions and ls don't list it again
+    completions = interpreter.completion("ls /data/l", 0, null);
+    assertEquals(1, completions.size());
+    result = interpreter.interpret("ls /data", null);
+    assertEquals("a.csv\nb.csv\n", result.message().get(0).getData());
+    assertEquals(4, requests.size());
+    interpreter.close();
+  }
+}
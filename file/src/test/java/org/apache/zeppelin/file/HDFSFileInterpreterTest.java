@@ -27,6 +27,8 @@ import junit.framework.TestCase;
 import org.junit.Test;
 import org.slf4j.Logger;
 
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -269,6 +271,12 @@ class MockHDFSCommand extends HDFSCommand {
     }
     return fs.get(c);
   }
+
+  @Override
+  public Reader openCommand(Op op, String path, Arg[] args) throws Exception {
+    String response = runCommand(op, path, args);
+    return response == null ? null : new StringReader(response);
+  }
 }
 
 /**
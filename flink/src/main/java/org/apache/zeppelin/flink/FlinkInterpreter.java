@@ -44,8 +44,12 @@ public class FlinkInterpreter extends Interpreter {
 
     // bind ZeppelinContext
     int maxRow = Integer.parseInt(getProperty("zeppelin.flink.maxResult", "1000"));
+    long streamRefreshInterval =
+        Long.parseLong(getProperty("zeppelin.flink.stream.refreshInterval", "3000"));
     this.z = new FlinkZeppelinContext(innerIntp.getBatchTableEnviroment(),
-        getInterpreterGroup().getInterpreterHookRegistry(), maxRow);
+        innerIntp.getStreamingExecutionEnviroment(), innerIntp.getStreamTableEnvironment(),
+        getInterpreterGroup().getInterpreterHookRegistry(), maxRow, streamRefreshInterval,
+        innerIntp.getStreamSinkHost(), innerIntp::cancelJobs);
     List<String> modifiers = new ArrayList<>();
     modifiers.add("@transient");
     this.innerIntp.bind("z", z.getClass().getCanonicalName(), z, modifiers);
@@ -67,7 +71,7 @@ public class FlinkInterpreter extends Interpreter {
 
   @Override
   public void cancel(InterpreterContext context) throws InterpreterException {
-
+    this.z.cancelStream(context.getParagraphId());
   }
 
   @Override
@@ -57,7 +57,7 @@ public class FlinkSQLInterpreter extends Interpreter {
 
   @Override
   public void cancel(InterpreterContext context) throws InterpreterException {
-
+    this.sqlScalaInterpreter.cancel(context);
   }
 
   @Override
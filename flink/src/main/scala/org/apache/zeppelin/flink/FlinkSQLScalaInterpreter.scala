@@ -19,7 +19,7 @@
 package org.apache.zeppelin.flink
 
 import org.apache.flink.table.api.Table
-import org.apache.flink.table.api.scala.BatchTableEnvironment
+import org.apache.flink.table.api.scala.{BatchTableEnvironment, StreamTableEnvironment}
 import org.apache.zeppelin.interpreter.{InterpreterContext, InterpreterResult}
 
 class FlinkSQLScalaInterpreter(scalaInterpreter: FlinkScalaInterpreter,
@@ -27,8 +27,13 @@ class FlinkSQLScalaInterpreter(scalaInterpreter: FlinkScalaInterpreter,
                                maxRow: Int) {
 
   private var btenv: BatchTableEnvironment = scalaInterpreter.getBatchTableEnviroment()
+  private var stenv: StreamTableEnvironment = scalaInterpreter.getStreamTableEnvironment()
 
   def interpret(code: String, context: InterpreterContext): InterpreterResult = {
+    val streamType = context.getLocalProperties.get("type")
+    if (streamType != null) {
+      return interpretStream(code, streamType, context)
+    }
     try {
       val table: Table = this.btenv.sqlQuery(code)
       val result = z.showData(table)
@@ -39,4 +44,27 @@ class FlinkSQLScalaInterpreter(scalaInterpreter: FlinkScalaInterpreter,
           "Fail to fetch result: " + e.getMessage)
     }
   }
+
+  /**
+    * Runs a stream query, e.g. %flink.sql(type=update, refreshInterval=1000)
+    */
+  private def interpretStream(code: String,
+                              streamType: String,
+                              context: InterpreterContext): InterpreterResult = {
+    try {
+      val table: Table = this.stenv.sqlQuery(code)
+      val refreshInterval = Option(context.getLocalProperties.get("refreshInterval"))
+        .map(_.toLong).getOrElse(z.streamRefreshInterval)
+      z.showStream(table, streamType, refreshInterval, context)
+      new InterpreterResult(InterpreterResult.Code.SUCCESS)
+    } catch {
+      case e: Exception =>
+        new InterpreterResult(InterpreterResult.Code.ERROR,
+          "Fail to run stream query: " + e.getMessage)
+    }
+  }
+
+  def cancel(context: InterpreterContext): Unit = {
+    z.cancelStream(context.getParagraphId)
+  }
 }
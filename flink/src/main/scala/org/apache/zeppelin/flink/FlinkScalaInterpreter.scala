@@ -19,13 +19,17 @@
 package org.apache.zeppelin.flink
 
 import java.io.BufferedReader
+import java.net.InetAddress
 import java.nio.file.Files
 import java.util.Properties
 
 import org.apache.flink.api.scala.FlinkShell._
 import org.apache.flink.api.scala.{ExecutionEnvironment, FlinkILoop}
+import org.apache.flink.client.deployment.StandaloneClusterId
 import org.apache.flink.client.program.ClusterClient
-import org.apache.flink.configuration.GlobalConfiguration
+import org.apache.flink.client.program.rest.RestClusterClient
+import org.apache.flink.configuration.{Configuration, GlobalConfiguration, JobManagerOptions, RestOptions}
+import org.apache.flink.runtime.client.JobStatusMessage
 import org.apache.flink.runtime.minicluster.MiniCluster
 import org.apache.flink.streaming.api.scala.StreamExecutionEnvironment
 import org.apache.flink.table.api.TableEnvironment
@@ -46,6 +50,10 @@ class FlinkScalaInterpreter(val properties: Properties) {
 
   private var flinkILoop: FlinkILoop = _
   private var cluster: Option[Either[MiniCluster, ClusterClient[_]]] = _
+  // configuration and address of the job manager the jobs are submitted to
+  private var flinkConf: Configuration = _
+  private var jobManagerHost: String = _
+  private var jobManagerPort: Int = _
   private var scalaCompleter: ScalaCompleter = _
   private val interpreterOutput = new InterpreterOutputStream(LOGGER)
 
@@ -73,6 +81,9 @@ class FlinkScalaInterpreter(val properties: Properties) {
       }
       LOGGER.info(s"\nConnecting to Flink cluster (host: $host, port: $port).\n")
       val repl = new FlinkILoop(host, port, conf, config.externalJars, None, replOut)
+      this.flinkConf = conf
+      this.jobManagerHost = host
+      this.jobManagerPort = port
 
       (repl, cluster)
     } catch {
@@ -224,10 +235,73 @@ class FlinkScalaInterpreter(val properties: Properties) {
     }
   }
 
+  /**
+    * Cancels the running jobs of the given name. A stream job runs until it's cancelled, and the
+    * execution environment doesn't expose the id of the job it runs.
+    */
+  def cancelJobs(jobName: String): Unit = {
+    if (flinkConf == null) {
+      return
+    }
+    cluster match {
+      case Some(Left(miniCluster)) =>
+        miniCluster.listJobs().get().asScala
+          .filter(job => isRunning(job, jobName))
+          .foreach { job =>
+            LOGGER.info(s"Cancel job $jobName (${job.getJobId})")
+            miniCluster.cancelJob(job.getJobId).get()
+          }
+      case Some(Right(clusterClient)) =>
+        cancelClusterJobs(clusterClient, jobName)
+      case _ =>
+        // remote cluster, the shell submits the jobs through its rest endpoint
+        val conf = new Configuration(flinkConf)
+        conf.setString(JobManagerOptions.ADDRESS, jobManagerHost)
+        conf.setInteger(JobManagerOptions.PORT, jobManagerPort)
+        conf.setString(RestOptions.ADDRESS, jobManagerHost)
+        conf.setInteger(RestOptions.PORT, jobManagerPort)
+        val clusterClient = new RestClusterClient[StandaloneClusterId](conf,
+          StandaloneClusterId.getInstance())
+        try {
+          cancelClusterJobs(clusterClient, jobName)
+        } finally {
+          clusterClient.shutdown()
+        }
+    }
+  }
+
+  private def cancelClusterJobs(clusterClient: ClusterClient[_], jobName: String): Unit = {
+    clusterClient.listJobs().get().asScala
+      .filter(job => isRunning(job, jobName))
+      .foreach { job =>
+        LOGGER.info(s"Cancel job $jobName (${job.getJobId})")
+        clusterClient.cancel(job.getJobId)
+      }
+  }
+
+  private def isRunning(job: JobStatusMessage, jobName: String): Boolean =
+    job.getJobName == jobName && !job.getJobState.isGloballyTerminalState
+
   def getExecutionEnviroment(): ExecutionEnvironment = this.benv
 
   def getStreamingExecutionEnviroment(): StreamExecutionEnvironment = this.senv
 
   def getBatchTableEnviroment(): BatchTableEnvironment = this.btenv
 
+  def getStreamTableEnvironment(): StreamTableEnvironment = this.stenv
+
+  /**
+    * Host the stream sinks connect to, to send the results back to the interpreter.
+    */
+  def getStreamSinkHost(): String = {
+    val sinkHost = properties.getProperty("zeppelin.flink.stream.sinkHost", "")
+    if (sinkHost.nonEmpty) {
+      sinkHost
+    } else if (properties.getProperty("flink.execution.mode", "LOCAL").equalsIgnoreCase("LOCAL")) {
+      InetAddress.getLoopbackAddress.getHostAddress
+    } else {
+      InetAddress.getLocalHost.getHostAddress
+    }
+  }
+
 }
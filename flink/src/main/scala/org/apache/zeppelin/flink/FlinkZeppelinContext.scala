@@ -19,11 +19,13 @@
 package org.apache.zeppelin.flink
 
 import java.util
+import java.util.concurrent.ConcurrentHashMap
+import java.util.function.Consumer
 
 import org.apache.flink.api.scala.DataSet
 import org.apache.flink.streaming.api.scala._
 import org.apache.flink.table.api.Table
-import org.apache.flink.table.api.scala.BatchTableEnvironment
+import org.apache.flink.table.api.scala.{BatchTableEnvironment, StreamTableEnvironment}
 import org.apache.flink.types.Row
 import org.apache.zeppelin.annotation.ZeppelinApi
 import org.apache.zeppelin.display.AngularObjectWatcher
@@ -38,8 +40,16 @@ import scala.collection.{JavaConversions, Seq}
   * ZeppelinContext for Flink
   */
 class FlinkZeppelinContext(val btenv: BatchTableEnvironment,
+                           val senv: StreamExecutionEnvironment,
+                           val stenv: StreamTableEnvironment,
                            val hooks2: InterpreterHookRegistry,
-                           val maxResult2: Int) extends BaseZeppelinContext(hooks2, maxResult2) {
+                           val maxResult2: Int,
+                           val streamRefreshInterval: Long,
+                           val streamSinkHost: String,
+                           val jobCanceller: Consumer[String])
+  extends BaseZeppelinContext(hooks2, maxResult2) {
+
+  private val runningStreams = new ConcurrentHashMap[String, StreamTableCollector]()
 
   private val interpreterClassMap = Map(
     "flink" -> "org.apache.zeppelin.flink.FlinkInterpreter",
@@ -89,6 +99,45 @@ class FlinkZeppelinContext(val btenv: BatchTableEnvironment,
     }
   }
 
+  /**
+    * Displays the result of a streaming table query, continuously updated until the query ends
+    * or the paragraph is cancelled.
+    *
+    * @param table table of the stream table environment (stenv)
+    * @param streamType append (insertions only) or update (insertions and retractions)
+    * @param refreshInterval interval between the refreshes of the output, in milliseconds
+    */
+  @ZeppelinApi
+  def showStream(table: Table, streamType: String, refreshInterval: Long): Unit =
+    showStream(table, streamType, refreshInterval, interpreterContext)
+
+  @ZeppelinApi
+  def showStream(table: Table, streamType: String): Unit =
+    showStream(table, streamType, streamRefreshInterval)
+
+  def showStream(table: Table,
+                 streamType: String,
+                 refreshInterval: Long,
+                 context: InterpreterContext): Unit = {
+    val collector = new StreamTableCollector(senv, stenv, table, streamType, maxResult,
+      refreshInterval, streamSinkHost, jobCanceller)
+    val previous = runningStreams.put(context.getParagraphId, collector)
+    if (previous != null) {
+      previous.cancel()
+    }
+    try {
+      collector.run(context.out)
+    } finally {
+      runningStreams.remove(context.getParagraphId, collector)
+    }
+  }
+
+  def cancelStream(paragraphId: String): Unit = {
+    val collector = runningStreams.remove(paragraphId)
+    if (collector != null) {
+      collector.cancel()
+    }
+  }
 
   @ZeppelinApi
   def select(name: String, options: Seq[(Any, String)]): Any = select(name, null, options)
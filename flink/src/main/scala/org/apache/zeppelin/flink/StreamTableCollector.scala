@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.flink
+
+import java.io.{BufferedReader, Closeable, InputStreamReader}
+import java.net.{InetAddress, ServerSocket, Socket, SocketTimeoutException}
+import java.nio.charset.StandardCharsets
+import java.util
+import java.util.UUID
+import java.util.function.Consumer
+
+import org.apache.flink.api.common.serialization.SerializationSchema
+import org.apache.flink.streaming.api.functions.sink.SocketClientSink
+import org.apache.flink.streaming.api.scala._
+import org.apache.flink.table.api.Table
+import org.apache.flink.table.api.scala.StreamTableEnvironment
+import org.apache.flink.types.Row
+import org.apache.zeppelin.interpreter.InterpreterOutput
+import org.slf4j.{Logger, LoggerFactory}
+
+/**
+  * Runs a streaming table query and keeps its result, bounded to maxResult rows, up to date
+  * in the paragraph output.
+  *
+  * The changes of the table are sent by a socket sink back to the interpreter:
+  *  - append: only insertions, the last maxResult rows are displayed.
+  *  - update: insertions and retractions (retract or upsert tables, e.g. group by), the
+  *    materialized table is displayed.
+  *
+  * The socket only listens on sinkHost. On cancel the job is cancelled by jobCanceller, from
+  * its unique name.
+  */
+class StreamTableCollector(senv: StreamExecutionEnvironment,
+                           stenv: StreamTableEnvironment,
+                           table: Table,
+                           streamType: String,
+                           maxResult: Int,
+                           refreshInterval: Long,
+                           sinkHost: String,
+                           jobCanceller: Consumer[String]) {
+
+  lazy val LOGGER: Logger = LoggerFactory.getLogger(getClass)
+
+  private val columnNames: Array[String] = table.getSchema.getColumnNames
+  private val rows = new util.LinkedList[String]()
+  private val jobName = s"Zeppelin stream query $streamType ${UUID.randomUUID()}"
+
+  @volatile private var serverSocket: ServerSocket = _
+  @volatile private var jobThread: Thread = _
+  @volatile private var clientSocket: Socket = _
+  @volatile private var cancelled = false
+  @volatile private var jobError: Throwable = _
+  private var changed = true
+  private var truncated = false
+
+  /**
+    * Runs the query until it ends or is cancelled, refreshing the output every refreshInterval
+    * milliseconds when the result changed.
+    */
+  def run(out: InterpreterOutput): Unit = {
+    val changes: DataStream[(Boolean, Row)] = streamType match {
+      case StreamTableCollector.APPEND =>
+        stenv.toAppendStream[Row](table).map(row => (true, row))
+      case StreamTableCollector.UPDATE => stenv.toRetractStream[Row](table)
+      case _ => throw new IllegalArgumentException("Unknown stream type: " + streamType +
+        ", supported types are " + StreamTableCollector.APPEND + " and " +
+        StreamTableCollector.UPDATE)
+    }
+
+    // the socket is closed by cancel, whichever way the query ends
+    val serverSocket = new ServerSocket(0, 1, InetAddress.getByName(sinkHost))
+    this.serverSocket = serverSocket
+    try {
+      // a single sink keeps the order of the changes
+      changes.addSink(new SocketClientSink[(Boolean, Row)](sinkHost, serverSocket.getLocalPort,
+        new RowChangeSerializationSchema, 0, true)).setParallelism(1)
+
+      val jobThread = new Thread(s"flink-stream-job-${serverSocket.getLocalPort}") {
+        override def run(): Unit = {
+          try {
+            senv.execute(jobName)
+          } catch {
+            case e: Throwable => jobError = e
+          }
+        }
+      }
+      val readerThread = new Thread(s"flink-stream-reader-${serverSocket.getLocalPort}") {
+        override def run(): Unit = readChanges(serverSocket, jobThread)
+      }
+      this.jobThread = jobThread
+      jobThread.start()
+      readerThread.start()
+
+      while (jobThread.isAlive && !cancelled) {
+        jobThread.join(refreshInterval)
+        render(out)
+      }
+      // the sink is closed when the job ends, wait for its last changes
+      readerThread.join(refreshInterval + StreamTableCollector.READER_TIMEOUT)
+      render(out)
+    } finally {
+      stop()
+    }
+
+    if (jobError != null && !cancelled) {
+      throw jobError
+    }
+  }
+
+  /**
+    * Stops the query: cancels its job, and closes the socket, which also fails the sink of a job
+    * not submitted yet.
+    */
+  def cancel(): Unit = {
+    cancelled = true
+    stop()
+  }
+
+  private def stop(): Unit = {
+    val thread = jobThread
+    if (thread != null && thread.isAlive) {
+      try {
+        jobCanceller.accept(jobName)
+      } catch {
+        case e: Exception => LOGGER.warn("Fail to cancel job " + jobName, e)
+      }
+    }
+    closeQuietly(clientSocket)
+    closeQuietly(serverSocket)
+  }
+
+  private def readChanges(serverSocket: ServerSocket, jobThread: Thread): Unit = {
+    try {
+      serverSocket.setSoTimeout(StreamTableCollector.ACCEPT_TIMEOUT)
+      while (clientSocket == null && jobThread.isAlive && !cancelled) {
+        try {
+          clientSocket = serverSocket.accept()
+        } catch {
+          case _: SocketTimeoutException =>
+        }
+      }
+      if (clientSocket == null) {
+        return
+      }
+      val reader = new BufferedReader(
+        new InputStreamReader(clientSocket.getInputStream, StandardCharsets.UTF_8))
+      var line = reader.readLine()
+      while (line != null) {
+        applyChange(line)
+        line = reader.readLine()
+      }
+    } catch {
+      case e: Exception =>
+        if (!cancelled) {
+          LOGGER.warn("Fail to read the changes of the stream query", e)
+        }
+    }
+  }
+
+  private def applyChange(line: String): Unit = rows.synchronized {
+    val row = if (line.length > 1) line.substring(2) else ""
+    if (line.startsWith("+")) {
+      if (streamType == StreamTableCollector.APPEND && rows.size() >= maxResult) {
+        rows.removeFirst()
+        truncated = true
+      }
+      if (rows.size() < maxResult) {
+        rows.add(row)
+      } else {
+        truncated = true
+      }
+    } else {
+      rows.removeLastOccurrence(row)
+    }
+    changed = true
+  }
+
+  private def render(out: InterpreterOutput): Unit = {
+    val result: Option[String] = rows.synchronized {
+      if (!changed) {
+        None
+      } else {
+        changed = false
+        Some(renderTable())
+      }
+    }
+    result.foreach { table =>
+      out.clear()
+      out.write(table)
+      out.flush()
+    }
+  }
+
+  private def renderTable(): String = {
+    val builder = new StringBuilder("%table ")
+    builder.append(columnNames.mkString("\t"))
+    builder.append("\n")
+    val it = rows.iterator()
+    while (it.hasNext) {
+      builder.append(it.next())
+      builder.append("\n")
+    }
+    if (truncated) {
+      builder.append("\n%html <font color=red>Results are limited by ")
+        .append(maxResult).append(" rows.</font>\n")
+    }
+    // append %text at the end, otherwise the following output will be put in table as well.
+    builder.append("\n%text ")
+    builder.toString()
+  }
+
+  private def closeQuietly(closeable: Closeable): Unit = {
+    if (closeable != null) {
+      try {
+        closeable.close()
+      } catch {
+        case e: Exception => LOGGER.debug("Fail to close " + closeable, e)
+      }
+    }
+  }
+}
+
+object StreamTableCollector {
+  val APPEND = "append"
+  val UPDATE = "update"
+
+  private val ACCEPT_TIMEOUT = 1000
+  private val READER_TIMEOUT = 10000
+}
+
+/**
+  * Serializes a change as a line: + or - (insertion or retraction) followed by the
+  * tab-separated fields of the row.
+  */
+class RowChangeSerializationSchema extends SerializationSchema[(Boolean, Row)] {
+
+  override def serialize(change: (Boolean, Row)): Array[Byte] = {
+    val builder = new StringBuilder(if (change._1) "+" else "-")
+    val row = change._2
+    var i = 0
+    while (i < row.getArity) {
+      builder.append(if (i == 0) ' ' else '\t')
+      builder.append(String.valueOf(row.getField(i)).replace('\t', ' ').replace('\n', ' '))
+      i += 1
+    }
+    builder.append('\n')
+    builder.toString().getBytes(StandardCharsets.UTF_8)
+  }
+}
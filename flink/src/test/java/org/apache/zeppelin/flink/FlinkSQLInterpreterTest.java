@@ -24,11 +24,16 @@ import org.apache.zeppelin.interpreter.InterpreterGroup;
 import org.apache.zeppelin.interpreter.InterpreterOutput;
 import org.apache.zeppelin.interpreter.InterpreterOutputListener;
 import org.apache.zeppelin.interpreter.InterpreterResult;
+import org.apache.zeppelin.interpreter.InterpreterResultMessage;
 import org.apache.zeppelin.interpreter.InterpreterResultMessageOutput;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
 
 import static org.junit.Assert.assertEquals;
@@ -60,6 +65,12 @@ public class FlinkSQLInterpreterTest {
     context = InterpreterContext.builder().build();
   }
 
+  @After
+  public void tearDown() throws InterpreterException {
+    sqlInterpreter.close();
+    interpreter.close();
+  }
+
   @Test
   public void testSQLInterpreter() throws InterpreterException {
     InterpreterResult result = interpreter.interpret(
@@ -78,6 +89,55 @@ public class FlinkSQLInterpreterTest {
         "2\tandy\n", result.message().get(0).getData());
   }
 
+  @Test
+  public void testStreamSQLInterpreter() throws InterpreterException, IOException {
+    InterpreterResult result = interpreter.interpret(
+        "val stream = senv.fromElements((1, \"jeff\"), (2, \"andy\"), (3, \"jeff\"))\n" +
+        "stenv.registerDataStream(\"table_2\", stream)", getInterpreterContext());
+    assertEquals(InterpreterResult.Code.SUCCESS, result.code());
+
+    // append: every row of the stream
+    InterpreterContext context = getStreamInterpreterContext("append");
+    result = sqlInterpreter.interpret("select _2 from table_2 where _1 > 1", context);
+    assertEquals(InterpreterResult.Code.SUCCESS, result.code());
+    InterpreterResultMessage message = context.out.toInterpreterResultMessage().get(0);
+    assertEquals(InterpreterResult.Type.TABLE, message.getType());
+    assertEquals("_2\nandy\njeff\n", message.getData());
+
+    // update: the previous counts are retracted
+    context = getStreamInterpreterContext("update");
+    result = sqlInterpreter.interpret(
+        "select _2, count(1) as c from table_2 group by _2", context);
+    assertEquals(InterpreterResult.Code.SUCCESS, result.code());
+    message = context.out.toInterpreterResultMessage().get(0);
+    assertEquals(InterpreterResult.Type.TABLE, message.getType());
+    assertEquals("_2\tc\nandy\t1\njeff\t2\n",
+        sortRows(message.getData()));
+  }
+
+  private String sortRows(String table) {
+    String[] lines = table.split("\n");
+    String[] rows = Arrays.copyOfRange(lines, 1, lines.length);
+    Arrays.sort(rows);
+    StringBuilder builder = new StringBuilder(lines[0]).append("\n");
+    for (String row : rows) {
+      builder.append(row).append("\n");
+    }
+    return builder.toString();
+  }
+
+  private InterpreterContext getStreamInterpreterContext(String streamType) {
+    Map<String, String> localProperties = new HashMap<>();
+    localProperties.put("type", streamType);
+    localProperties.put("refreshInterval", "100");
+    return InterpreterContext.builder()
+        .setParagraphId("paragraph_" + streamType)
+        .setInterpreterOut(new InterpreterOutput(null))
+        .setAngularObjectRegistry(new AngularObjectRegistry("flink", null))
+        .setLocalProperties(localProperties)
+        .build();
+  }
+
   private InterpreterContext getInterpreterContext() {
     output = "";
     InterpreterContext context = InterpreterContext.builder()
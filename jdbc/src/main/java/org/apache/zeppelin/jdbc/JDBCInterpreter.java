@@ -26,8 +26,8 @@ import org.apache.commons.dbcp2.PoolingDriver;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.commons.lang3.mutable.MutableBoolean;
-import org.apache.commons.pool2.ObjectPool;
 import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.hadoop.security.alias.CredentialProvider;
@@ -36,7 +36,10 @@ import org.apache.zeppelin.interpreter.BaseZeppelinContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.nio.charset.StandardCharsets;
 import java.security.PrivilegedExceptionAction;
 import java.sql.Connection;
 import java.sql.DriverManager;
@@ -52,9 +55,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.zeppelin.interpreter.InterpreterContext;
 import org.apache.zeppelin.interpreter.InterpreterException;
@@ -138,10 +148,52 @@ public class JDBCInterpreter extends KerberosInterpreter {
           "zeppelin.jdbc.concurrent.max_connection";
   private static final String DBCP_STRING = "jdbc:apache:commons:dbcp:";
   private static final String MAX_ROWS_KEY = "zeppelin.jdbc.maxRows";
+  private static final String COMPLETER_SNAPSHOT_DIR_KEY = "zeppelin.jdbc.completer.snapshotDir";
+  private static final int COMPLETER_LOAD_TIMEOUT_SECONDS = 3;
+  private static final String POOL_MIN_IDLE_KEY = "zeppelin.jdbc.pool.minIdle";
+  private static final String POOL_MAX_IDLE_KEY = "zeppelin.jdbc.pool.maxIdle";
+  private static final String POOL_MAX_TOTAL_KEY = "zeppelin.jdbc.pool.maxTotal";
+  private static final String POOL_MAX_WAIT_KEY = "zeppelin.jdbc.pool.maxWaitMillis";
+  private static final String POOL_TEST_ON_BORROW_KEY = "zeppelin.jdbc.pool.testOnBorrow";
+  private static final String POOL_TEST_WHILE_IDLE_KEY = "zeppelin.jdbc.pool.testWhileIdle";
+  private static final String POOL_VALIDATION_QUERY_KEY = "zeppelin.jdbc.pool.validationQuery";
+  private static final String POOL_VALIDATION_QUERY_TIMEOUT_KEY =
+      "zeppelin.jdbc.pool.validationQueryTimeout";
+  private static final String POOL_EVICTION_INTERVAL_KEY =
+      "zeppelin.jdbc.pool.timeBetweenEvictionRunsMillis";
+  private static final String POOL_MIN_EVICTABLE_IDLE_TIME_KEY =
+      "zeppelin.jdbc.pool.minEvictableIdleTimeMillis";
+  private static final String POOL_PREPARED_STATEMENTS_KEY =
+      "zeppelin.jdbc.pool.poolPreparedStatements";
+  private static final String POOL_MAX_OPEN_PREPARED_STATEMENTS_KEY =
+      "zeppelin.jdbc.pool.maxOpenPreparedStatements";
+  private static final String POOL_JMX_ENABLED_KEY = "zeppelin.jdbc.pool.jmxEnabled";
+  private static final String POOL_JMX_NAME_BASE =
+      "org.apache.zeppelin:type=JDBCConnectionPool,name=";
+
+  /**
+   * Completers shared by all the interpreters of the process, keyed by connection identity:
+   * users connecting to the same data source with the same account see the same metadata.
+   */
+  private static final Map<String, SqlCompleter> sqlCompletersMap = new ConcurrentHashMap<>();
+  private static final Map<String, Future<?>> sqlCompleterUpdatesMap = new ConcurrentHashMap<>();
+  /**
+   * Runs the completer updates and the pre-warming of the connection pools.
+   */
+  private static final ExecutorService backgroundExecutor =
+      Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread thread = new Thread(r, "JDBCInterpreter-background-" + count.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
 
   private final HashMap<String, Properties> basePropretiesMap;
   private final HashMap<String, JDBCUserConfigurations> jdbcUserConfigurationsMap;
-  private final HashMap<String, SqlCompleter> sqlCompletersMap;
 
   private int maxLineResults;
   private int maxRows;
@@ -150,7 +202,6 @@ public class JDBCInterpreter extends KerberosInterpreter {
     super(property);
     jdbcUserConfigurationsMap = new HashMap<>();
     basePropretiesMap = new HashMap<>();
-    sqlCompletersMap = new HashMap<>();
     maxLineResults = MAX_LINE_DEFAULT;
   }
 
@@ -245,44 +296,111 @@ public class JDBCInterpreter extends KerberosInterpreter {
     maxRows = Integer.valueOf(getProperty(MAX_ROWS_KEY, "1000"));
   }
 
-  private SqlCompleter createOrUpdateSqlCompleter(SqlCompleter sqlCompleter,
-      final Connection connection, String propertyKey, final String buf, final int cursor) {
-    String schemaFiltersKey = String.format("%s.%s", propertyKey, COMPLETER_SCHEMA_FILTERS_KEY);
+  /**
+   * Identity of the connection used for the completion: data source, database account and,
+   * when the connections are impersonated, Zeppelin user.
+   */
+  private String getSqlCompleterKey(String propertyKey, InterpreterContext interpreterContext) {
+    String user = interpreterContext.getAuthenticationInfo().getUser();
+    Properties properties = basePropretiesMap.get(propertyKey);
+    if (properties == null) {
+      return String.format("%s.%s", user, propertyKey);
+    }
+
+    String dbUser = properties.getProperty(USER_KEY);
+    if (isEmpty(dbUser)) {
+      UsernamePassword usernamePassword = getUsernamePassword(interpreterContext,
+          getEntityName(interpreterContext.getReplName()));
+      dbUser = usernamePassword != null ? usernamePassword.getUsername() : "";
+    }
+    StringBuilder key = new StringBuilder(properties.getProperty(URL_KEY))
+        .append('|').append(dbUser);
+    if (!isEmpty(getProperty("zeppelin.jdbc.auth.type"))) {
+      key.append('|').append(user);
+    }
+    key.append('|').append(getProperty(
+        String.format("%s.%s", propertyKey, COMPLETER_SCHEMA_FILTERS_KEY)));
+    return key.toString();
+  }
+
+  private File getSqlCompleterSnapshot(String sqlCompleterKey) {
+    String snapshotDir = getProperty(COMPLETER_SNAPSHOT_DIR_KEY);
+    if (isEmpty(snapshotDir)) {
+      return null;
+    }
+    return new File(snapshotDir, UUID.nameUUIDFromBytes(
+        sqlCompleterKey.getBytes(StandardCharsets.UTF_8)) + ".completer");
+  }
+
+  private SqlCompleter getOrCreateSqlCompleter(String sqlCompleterKey, String propertyKey) {
+    SqlCompleter sqlCompleter = sqlCompletersMap.get(sqlCompleterKey);
+    if (sqlCompleter != null) {
+      return sqlCompleter;
+    }
+
     String sqlCompleterTtlKey = String.format("%s.%s", propertyKey, COMPLETER_TTL_KEY);
-    final String schemaFiltersString = getProperty(schemaFiltersKey);
     int ttlInSeconds = Integer.valueOf(
         StringUtils.defaultIfEmpty(getProperty(sqlCompleterTtlKey), DEFAULT_COMPLETER_TTL)
     );
-    final SqlCompleter completer;
-    if (sqlCompleter == null) {
-      completer = new SqlCompleter(ttlInSeconds);
-    } else {
-      completer = sqlCompleter;
+    SqlCompleter newSqlCompleter = new SqlCompleter(ttlInSeconds);
+    File snapshot = getSqlCompleterSnapshot(sqlCompleterKey);
+    if (snapshot != null) {
+      try {
+        newSqlCompleter.loadSnapshot(snapshot);
+      } catch (IOException e) {
+        logger.warn("Failed to load the completer snapshot " + snapshot, e);
+      }
     }
-    ExecutorService executorService = Executors.newFixedThreadPool(1);
-    executorService.execute(new Runnable() {
-      @Override
-      public void run() {
-        completer.createOrUpdateFromConnection(connection, schemaFiltersString, buf, cursor);
+    sqlCompleter = sqlCompletersMap.putIfAbsent(sqlCompleterKey, newSqlCompleter);
+    return sqlCompleter != null ? sqlCompleter : newSqlCompleter;
+  }
+
+  /**
+   * Loads the missing or expired metadata in background. Only one update per connection identity
+   * runs at a time, the connection is only borrowed when an update is started.
+   *
+   * @return the running update, null if it cannot be started
+   */
+  private Future<?> updateSqlCompleter(final SqlCompleter sqlCompleter,
+      final String sqlCompleterKey, String propertyKey, final String buf, final int cursor,
+      InterpreterContext interpreterContext) {
+    synchronized (sqlCompleter) {
+      Future<?> update = sqlCompleterUpdatesMap.get(sqlCompleterKey);
+      if (update != null && !update.isDone()) {
+        return update;
       }
-    });
 
-    executorService.shutdown();
+      final Connection connection;
+      try {
+        connection = getConnection(propertyKey, interpreterContext);
+      } catch (ClassNotFoundException | SQLException | IOException | InterpreterException e) {
+        logger.warn("SQLCompleter will be used without update from the connection", e);
+        return null;
+      }
+      if (connection == null) {
+        return null;
+      }
 
-    try {
-      // protection to release connection
-      executorService.awaitTermination(3, TimeUnit.SECONDS);
-    } catch (InterruptedException e) {
-      logger.warn("Completion timeout", e);
-      if (connection != null) {
-        try {
-          connection.close();
-        } catch (SQLException e1) {
-          logger.warn("Error close connection", e1);
+      final String schemaFiltersString = getProperty(
+          String.format("%s.%s", propertyKey, COMPLETER_SCHEMA_FILTERS_KEY));
+      final File snapshot = getSqlCompleterSnapshot(sqlCompleterKey);
+      update = backgroundExecutor.submit(new Runnable() {
+        @Override
+        public void run() {
+          sqlCompleter.createOrUpdateFromConnection(connection, schemaFiltersString, buf, cursor);
+          if (snapshot != null) {
+            try {
+              snapshot.getParentFile().mkdirs();
+              sqlCompleter.saveSnapshot(snapshot);
+            } catch (IOException e) {
+              logger.warn("Failed to save the completer snapshot " + snapshot, e);
+            }
+          }
         }
-      }
+      });
+      sqlCompleterUpdatesMap.put(sqlCompleterKey, update);
+      return update;
     }
-    return completer;
   }
 
   private void initStatementMap() {
@@ -403,20 +521,130 @@ public class JDBCInterpreter extends KerberosInterpreter {
       Properties properties) throws SQLException, ClassNotFoundException {
     ConnectionFactory connectionFactory =
             new DriverManagerConnectionFactory(url, properties);
+    if (isKerboseEnabled()) {
+      connectionFactory = new UgiConnectionFactory(connectionFactory, getCurrentUgi());
+    }
 
     PoolableConnectionFactory poolableConnectionFactory = new PoolableConnectionFactory(
             connectionFactory, null);
     final String maxConnectionLifetime =
         StringUtils.defaultIfEmpty(getProperty("zeppelin.jdbc.maxConnLifetime"), "-1");
     poolableConnectionFactory.setMaxConnLifetimeMillis(Long.parseLong(maxConnectionLifetime));
+    String validationQuery = getProperty(POOL_VALIDATION_QUERY_KEY);
+    if (isNotEmpty(validationQuery)) {
+      poolableConnectionFactory.setValidationQuery(validationQuery);
+    }
+    poolableConnectionFactory.setValidationQueryTimeout(
+        getIntProperty(POOL_VALIDATION_QUERY_TIMEOUT_KEY, -1));
+    boolean poolPreparedStatements =
+        Boolean.parseBoolean(getProperty(POOL_PREPARED_STATEMENTS_KEY, "false"));
+    poolableConnectionFactory.setPoolStatements(poolPreparedStatements);
+    if (poolPreparedStatements) {
+      poolableConnectionFactory.setMaxOpenPrepatedStatements(
+          getIntProperty(POOL_MAX_OPEN_PREPARED_STATEMENTS_KEY, -1));
+    }
 
-    ObjectPool connectionPool = new GenericObjectPool(poolableConnectionFactory);
+    final GenericObjectPool connectionPool = new GenericObjectPool(
+        poolableConnectionFactory, getConnectionPoolConfig(propertyKey, user));
 
     poolableConnectionFactory.setPool(connectionPool);
     Class.forName(properties.getProperty(DRIVER_KEY));
     PoolingDriver driver = new PoolingDriver();
     driver.registerPool(propertyKey + user, connectionPool);
     getJDBCConfiguration(user).saveDBDriverPool(propertyKey, driver);
+
+    if (connectionPool.getMinIdle() > 0) {
+      // Same as the evictor does, but right away and without delaying the caller
+      backgroundExecutor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            int minIdle = connectionPool.getMinIdle();
+            for (int i = 0; i < minIdle && connectionPool.getNumIdle() < minIdle
+                && !connectionPool.isClosed(); i++) {
+              connectionPool.addObject();
+            }
+            logger.info("Connection pool {} pre-warmed with {} idle connections",
+                connectionPool.getJmxName(), connectionPool.getNumIdle());
+          } catch (Exception e) {
+            logger.warn("Failed to pre-warm the connection pool " + propertyKey + user, e);
+          }
+        }
+      });
+    }
+  }
+
+  private GenericObjectPoolConfig getConnectionPoolConfig(String propertyKey, String user) {
+    GenericObjectPoolConfig config = new GenericObjectPoolConfig();
+    config.setMaxTotal(getIntProperty(POOL_MAX_TOTAL_KEY, config.getMaxTotal()));
+    config.setMaxIdle(getIntProperty(POOL_MAX_IDLE_KEY, config.getMaxIdle()));
+    config.setMinIdle(getIntProperty(POOL_MIN_IDLE_KEY, config.getMinIdle()));
+    config.setMaxWaitMillis(getLongProperty(POOL_MAX_WAIT_KEY, config.getMaxWaitMillis()));
+    config.setTestOnBorrow(
+        Boolean.parseBoolean(getProperty(POOL_TEST_ON_BORROW_KEY, "false")));
+    config.setTestWhileIdle(
+        Boolean.parseBoolean(getProperty(POOL_TEST_WHILE_IDLE_KEY, "false")));
+    config.setTimeBetweenEvictionRunsMillis(getLongProperty(POOL_EVICTION_INTERVAL_KEY,
+        config.getTimeBetweenEvictionRunsMillis()));
+    config.setMinEvictableIdleTimeMillis(getLongProperty(POOL_MIN_EVICTABLE_IDLE_TIME_KEY,
+        config.getMinEvictableIdleTimeMillis()));
+    // Exposes NumActive, NumIdle, MeanBorrowWaitTimeMillis... of each pool through JMX
+    config.setJmxEnabled(Boolean.parseBoolean(getProperty(POOL_JMX_ENABLED_KEY, "true")));
+    config.setJmxNameBase(POOL_JMX_NAME_BASE);
+    config.setJmxNamePrefix((propertyKey + "." + user).replaceAll("[^A-Za-z0-9_.\\-]", "_"));
+    return config;
+  }
+
+  private int getIntProperty(String key, int defaultValue) {
+    String value = getProperty(key);
+    return isEmpty(value) ? defaultValue : Integer.parseInt(value.trim());
+  }
+
+  private long getLongProperty(String key, long defaultValue) {
+    String value = getProperty(key);
+    return isEmpty(value) ? defaultValue : Long.parseLong(value.trim());
+  }
+
+  private UserGroupInformation getCurrentUgi() throws SQLException {
+    try {
+      // This is the proxy user when called from UserGroupInformation.doAs
+      return UserGroupInformation.getCurrentUser();
+    } catch (IOException e) {
+      throw new SQLException("Error in getCurrentUser", e);
+    }
+  }
+
+  /**
+   * Creates the connections as the user that created the pool, so that connections created
+   * by the pool evictor or in background get the same (impersonated) identity.
+   */
+  private static class UgiConnectionFactory implements ConnectionFactory {
+    private final ConnectionFactory connectionFactory;
+    private final UserGroupInformation ugi;
+
+    UgiConnectionFactory(ConnectionFactory connectionFactory, UserGroupInformation ugi) {
+      this.connectionFactory = connectionFactory;
+      this.ugi = ugi;
+    }
+
+    @Override
+    public Connection createConnection() throws SQLException {
+      try {
+        return ugi.doAs(new PrivilegedExceptionAction<Connection>() {
+          @Override
+          public Connection run() throws Exception {
+            return connectionFactory.createConnection();
+          }
+        });
+      } catch (UndeclaredThrowableException e) {
+        if (e.getCause() instanceof SQLException) {
+          throw (SQLException) e.getCause();
+        }
+        throw new SQLException("Error in doAs", e.getCause());
+      } catch (IOException | InterruptedException e) {
+        throw new SQLException("Error in doAs", e);
+      }
+    }
   }
 
   private Connection getConnectionFromPool(String url, String user, String propertyKey,
@@ -874,21 +1102,25 @@ public class JDBCInterpreter extends KerberosInterpreter {
       InterpreterContext interpreterContext) throws InterpreterException {
     List<InterpreterCompletion> candidates = new ArrayList<>();
     String propertyKey = getPropertyKey(interpreterContext);
-    String sqlCompleterKey =
-        String.format("%s.%s", interpreterContext.getAuthenticationInfo().getUser(), propertyKey);
-    SqlCompleter sqlCompleter = sqlCompletersMap.get(sqlCompleterKey);
-
-    Connection connection = null;
-    try {
-      if (interpreterContext != null) {
-        connection = getConnection(propertyKey, interpreterContext);
+    String sqlCompleterKey = getSqlCompleterKey(propertyKey, interpreterContext);
+    SqlCompleter sqlCompleter = getOrCreateSqlCompleter(sqlCompleterKey, propertyKey);
+
+    if (sqlCompleter.isUpdateNeeded(buf, cursor)) {
+      Future<?> update = updateSqlCompleter(sqlCompleter, sqlCompleterKey, propertyKey, buf,
+          cursor, interpreterContext);
+      // Expired metadata is used while it is refreshed, only wait when there is nothing yet
+      if (update != null && sqlCompleter.isMissing(buf, cursor)) {
+        try {
+          update.get(COMPLETER_LOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+          logger.warn("Completion timeout, metadata is still loading");
+        } catch (ExecutionException e) {
+          logger.warn("Failed to update the completer", e);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
       }
-    } catch (ClassNotFoundException | SQLException | IOException e) {
-      logger.warn("SQLCompleter will created without use connection");
     }
-
-    sqlCompleter = createOrUpdateSqlCompleter(sqlCompleter, connection, propertyKey, buf, cursor);
-    sqlCompletersMap.put(sqlCompleterKey, sqlCompleter);
     sqlCompleter.complete(buf, cursor, candidates);
 
     return candidates;
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.jdbc;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import jline.console.completer.Completer;
+
+/**
+ * Case-insensitive completer backed by a prefix tree.
+ *
+ * The tree is built once and never modified afterwards, so it can be read by several threads.
+ * A lookup only walks the characters of the prefix and the matching subtree, whatever the
+ * number of names of the database.
+ */
+public class PrefixTreeCompleter implements Completer {
+
+  private final Node root = new Node();
+  private int size;
+
+  public PrefixTreeCompleter(Collection<String> strings) {
+    for (String string : strings) {
+      if (string != null) {
+        add(string);
+      }
+    }
+  }
+
+  private void add(String string) {
+    Node node = root;
+    for (int i = 0; i < string.length(); i++) {
+      char c = Character.toUpperCase(string.charAt(i));
+      Node child = node.children.get(c);
+      if (child == null) {
+        child = new Node();
+        node.children.put(c, child);
+      }
+      node = child;
+    }
+    if (!node.values.contains(string)) {
+      node.values.add(string);
+      size++;
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return all the strings of the tree
+   */
+  public List<String> getStrings() {
+    List<String> strings = new ArrayList<>(size);
+    collect(root, strings);
+    return strings;
+  }
+
+  @Override
+  public int complete(String buffer, int cursor, List<CharSequence> candidates) {
+    Node node = root;
+    if (buffer != null) {
+      String part = buffer.substring(0, cursor);
+      for (int i = 0; i < part.length() && node != null; i++) {
+        node = node.children.get(Character.toUpperCase(part.charAt(i)));
+      }
+    }
+    if (node != null) {
+      collect(node, candidates);
+    }
+    return candidates.isEmpty() ? -1 : 0;
+  }
+
+  private static void collect(Node from, Collection<? super String> result) {
+    // Iterative traversal, a long name must not end up in a stack overflow
+    Deque<Node> stack = new ArrayDeque<>();
+    stack.push(from);
+    while (!stack.isEmpty()) {
+      Node node = stack.pop();
+      result.addAll(node.values);
+      List<Node> children = new ArrayList<>(node.children.values());
+      for (int i = children.size() - 1; i >= 0; i--) {
+        stack.push(children.get(i));
+      }
+    }
+  }
+
+  private static class Node {
+    private final Map<Character, Node> children = new TreeMap<>();
+    private final List<String> values = new ArrayList<>(1);
+  }
+}
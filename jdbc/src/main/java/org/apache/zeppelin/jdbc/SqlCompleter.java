@@ -10,8 +10,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
@@ -25,6 +31,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import jline.console.completer.ArgumentCompleter.ArgumentList;
@@ -32,11 +39,14 @@ import jline.console.completer.ArgumentCompleter.WhitespaceArgumentDelimiter;
 
 import org.apache.zeppelin.completer.CachedCompleter;
 import org.apache.zeppelin.completer.CompletionType;
-import org.apache.zeppelin.completer.StringsCompleter;
 import org.apache.zeppelin.interpreter.thrift.InterpreterCompletion;
 
 /**
  * SQL auto complete functionality for the JdbcInterpreter.
+ *
+ * The metadata is kept in prefix trees and can be shared by all the users of a same data source:
+ * completions are answered from memory, the database is only queried to load the missing or
+ * expired parts (see {@link #isUpdateNeeded(String, int)}).
  */
 public class SqlCompleter {
   private static Logger logger = LoggerFactory.getLogger(SqlCompleter.class);
@@ -58,26 +68,35 @@ public class SqlCompleter {
   /**
    * Schema completer.
    */
-  private CachedCompleter schemasCompleter;
+  private volatile CachedCompleter schemasCompleter;
 
   /**
    * Contain different completer with table list for every schema name.
    */
-  private Map<String, CachedCompleter> tablesCompleters = new HashMap<>();
+  private Map<String, CachedCompleter> tablesCompleters = new ConcurrentHashMap<>();
 
   /**
    * Contains different completer with column list for every table name
    * Table names store as schema_name.table_name.
    */
-  private Map<String, CachedCompleter> columnsCompleters = new HashMap<>();
+  private Map<String, CachedCompleter> columnsCompleters = new ConcurrentHashMap<>();
 
   /**
    * Completer for sql keywords.
    */
-  private CachedCompleter keywordCompleter;
+  private volatile CachedCompleter keywordCompleter;
 
   private int ttlInSeconds;
 
+  /**
+   * Line prefixes of the snapshot file.
+   */
+  private static final String SNAPSHOT_KEYWORD = "K";
+  private static final String SNAPSHOT_SCHEMA = "S";
+  private static final String SNAPSHOT_TABLE = "T";
+  private static final String SNAPSHOT_COLUMN = "C";
+  private static final String SNAPSHOT_SEPARATOR = "\t";
+
   public SqlCompleter(int ttlInSeconds) {
     this.ttlInSeconds = ttlInSeconds;
   }
@@ -297,14 +316,11 @@ public class SqlCompleter {
 
       if (c != null) {
         DatabaseMetaData databaseMetaData = c.getMetaData();
-        if (keywordCompleter == null || keywordCompleter.getCompleter() == null
-            || keywordCompleter.isExpired()) {
+        if (isStale(keywordCompleter)) {
           keywords = getSqlKeywordsCompletions(databaseMetaData);
           initKeywords(keywords);
         }
-        if (cursorArgument.needLoadSchemas() &&
-            (schemasCompleter == null || schemasCompleter.getCompleter() == null
-            || schemasCompleter.isExpired())) {
+        if (cursorArgument.needLoadSchemas() && isStale(schemasCompleter)) {
           schemas = getSchemaNames(databaseMetaData, schemaFilters);
           catalogs = getCatalogNames(databaseMetaData, schemaFilters);
 
@@ -315,19 +331,14 @@ public class SqlCompleter {
           initSchemas(schemas);
         }
 
-        CachedCompleter tablesCompleter = tablesCompleters.get(cursorArgument.getSchema());
-        if (cursorArgument.needLoadTables() &&
-            (tablesCompleter == null || tablesCompleter.isExpired())) {
+        if (cursorArgument.needLoadTables()
+            && isStale(tablesCompleters.get(cursorArgument.getSchema()))) {
           fillTableNames(cursorArgument.getSchema(), databaseMetaData, tables);
           initTables(cursorArgument.getSchema(), tables);
         }
 
-        String schemaTable =
-            String.format("%s.%s", cursorArgument.getSchema(), cursorArgument.getTable());
-        CachedCompleter columnsCompleter = columnsCompleters.get(schemaTable);
-
-        if (cursorArgument.needLoadColumns() &&
-            (columnsCompleter == null || columnsCompleter.isExpired())) {
+        String schemaTable = cursorArgument.getSchemaTable();
+        if (cursorArgument.needLoadColumns() && isStale(columnsCompleters.get(schemaTable))) {
           fillColumnNames(cursorArgument.getSchema(), cursorArgument.getTable(), databaseMetaData,
               columns);
           initColumns(schemaTable, columns);
@@ -342,30 +353,177 @@ public class SqlCompleter {
     }
   }
 
+  private static boolean isStale(CachedCompleter completer) {
+    return completer == null || completer.getCompleter() == null || completer.isExpired();
+  }
+
+  /**
+   * Tells whether the metadata needed to complete the buffer is missing or expired, i.e. whether
+   * {@link #createOrUpdateFromConnection(Connection, String, String, int)} would query the
+   * database.
+   */
+  public boolean isUpdateNeeded(String buffer, int cursor) {
+    CursorArgument cursorArgument = parseCursorArgument(buffer, cursor);
+    return isStale(keywordCompleter)
+        || (cursorArgument.needLoadSchemas() && isStale(schemasCompleter))
+        || (cursorArgument.needLoadTables()
+            && isStale(tablesCompleters.get(cursorArgument.getSchema())))
+        || (cursorArgument.needLoadColumns()
+            && isStale(columnsCompleters.get(cursorArgument.getSchemaTable())));
+  }
+
+  /**
+   * Tells whether the metadata needed to complete the buffer has never been loaded. Expired
+   * metadata can still be used for completion while it is refreshed.
+   */
+  public boolean isMissing(String buffer, int cursor) {
+    CursorArgument cursorArgument = parseCursorArgument(buffer, cursor);
+    return keywordCompleter == null
+        || (cursorArgument.needLoadSchemas() && schemasCompleter == null)
+        || (cursorArgument.needLoadTables()
+            && !tablesCompleters.containsKey(cursorArgument.getSchema()))
+        || (cursorArgument.needLoadColumns()
+            && !columnsCompleters.containsKey(cursorArgument.getSchemaTable()));
+  }
+
+  /**
+   * Saves the loaded metadata, so that a new interpreter process can complete without querying
+   * the database first.
+   *
+   * @param file snapshot file, replaced atomically
+   */
+  public void saveSnapshot(File file) throws IOException {
+    File tmpFile = new File(file.getPath() + ".tmp");
+    try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+        new FileOutputStream(tmpFile), StandardCharsets.UTF_8))) {
+      CachedCompleter keywords = keywordCompleter;
+      if (keywords != null) {
+        writeSnapshotLines(writer, SNAPSHOT_KEYWORD, null, keywords);
+      }
+      CachedCompleter schemas = schemasCompleter;
+      if (schemas != null) {
+        writeSnapshotLines(writer, SNAPSHOT_SCHEMA, null, schemas);
+      }
+      for (Map.Entry<String, CachedCompleter> entry : tablesCompleters.entrySet()) {
+        writeSnapshotLines(writer, SNAPSHOT_TABLE, entry.getKey(), entry.getValue());
+      }
+      for (Map.Entry<String, CachedCompleter> entry : columnsCompleters.entrySet()) {
+        writeSnapshotLines(writer, SNAPSHOT_COLUMN, entry.getKey(), entry.getValue());
+      }
+    }
+    if (!tmpFile.renameTo(file)) {
+      file.delete();
+      if (!tmpFile.renameTo(file)) {
+        throw new IOException("Failed to rename " + tmpFile + " to " + file);
+      }
+    }
+  }
+
+  private void writeSnapshotLines(BufferedWriter writer, String type, String key,
+      CachedCompleter completer) throws IOException {
+    if (!(completer.getCompleter() instanceof PrefixTreeCompleter)) {
+      return;
+    }
+    for (String name : ((PrefixTreeCompleter) completer.getCompleter()).getStrings()) {
+      if (name.indexOf('\t') >= 0 || name.indexOf('\n') >= 0 || name.indexOf('\r') >= 0) {
+        continue;
+      }
+      writer.write(type);
+      writer.write('\t');
+      if (key != null) {
+        writer.write(key);
+        writer.write('\t');
+      }
+      writer.write(name);
+      writer.newLine();
+    }
+  }
+
+  /**
+   * Loads the metadata saved by {@link #saveSnapshot(File)}. The loaded metadata is used for
+   * completion right away and is considered as expired, so it is refreshed from the database
+   * on the next completion.
+   *
+   * @param file snapshot file
+   * @return false if the file does not exist
+   */
+  public boolean loadSnapshot(File file) throws IOException {
+    if (!file.isFile()) {
+      return false;
+    }
+    Set<String> keywords = new HashSet<>();
+    Set<String> schemas = new HashSet<>();
+    Map<String, Set<String>> tables = new HashMap<>();
+    Map<String, Set<String>> columns = new HashMap<>();
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+        new FileInputStream(file), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String[] fields = line.split(SNAPSHOT_SEPARATOR, -1);
+        if (fields.length == 2 && SNAPSHOT_KEYWORD.equals(fields[0])) {
+          keywords.add(fields[1]);
+        } else if (fields.length == 2 && SNAPSHOT_SCHEMA.equals(fields[0])) {
+          schemas.add(fields[1]);
+        } else if (fields.length == 3 && SNAPSHOT_TABLE.equals(fields[0])) {
+          addSnapshotName(tables, fields[1], fields[2]);
+        } else if (fields.length == 3 && SNAPSHOT_COLUMN.equals(fields[0])) {
+          addSnapshotName(columns, fields[1], fields[2]);
+        }
+      }
+    }
+
+    if (!keywords.isEmpty()) {
+      keywordCompleter = new CachedCompleter(new PrefixTreeCompleter(keywords), -1);
+    }
+    if (!schemas.isEmpty()) {
+      schemasCompleter = new CachedCompleter(new PrefixTreeCompleter(schemas), -1);
+    }
+    for (Map.Entry<String, Set<String>> entry : tables.entrySet()) {
+      tablesCompleters.put(entry.getKey(),
+          new CachedCompleter(new PrefixTreeCompleter(entry.getValue()), -1));
+    }
+    for (Map.Entry<String, Set<String>> entry : columns.entrySet()) {
+      columnsCompleters.put(entry.getKey(),
+          new CachedCompleter(new PrefixTreeCompleter(entry.getValue()), -1));
+    }
+    logger.info("Completer loaded from {} with {} schemas, {} tables and {} keywords",
+        file, schemas.size(), tables.size(), keywords.size());
+    return true;
+  }
+
+  private static void addSnapshotName(Map<String, Set<String>> names, String key, String name) {
+    Set<String> keyNames = names.get(key);
+    if (keyNames == null) {
+      keyNames = new HashSet<>();
+      names.put(key, keyNames);
+    }
+    keyNames.add(name);
+  }
+
   public void initKeywords(Set<String> keywords) {
     if (keywords != null && !keywords.isEmpty()) {
-      keywordCompleter = new CachedCompleter(new StringsCompleter(keywords), 0);
+      keywordCompleter = new CachedCompleter(new PrefixTreeCompleter(keywords), 0);
     }
   }
 
   public void initSchemas(Set<String> schemas) {
     if (schemas != null && !schemas.isEmpty()) {
       schemasCompleter = new CachedCompleter(
-          new StringsCompleter(new TreeSet<>(schemas)), ttlInSeconds);
+          new PrefixTreeCompleter(schemas), ttlInSeconds);
     }
   }
 
   public void initTables(String schema, Set<String> tables) {
     if (tables != null && !tables.isEmpty()) {
       tablesCompleters.put(schema, new CachedCompleter(
-          new StringsCompleter(new TreeSet<>(tables)), ttlInSeconds));
+          new PrefixTreeCompleter(tables), ttlInSeconds));
     }
   }
 
   public void initColumns(String schemaTable, Set<String> columns) {
     if (columns != null && !columns.isEmpty()) {
       columnsCompleters.put(schemaTable,
-          new CachedCompleter(new StringsCompleter(columns), ttlInSeconds));
+          new CachedCompleter(new PrefixTreeCompleter(columns), ttlInSeconds));
     }
   }
 
@@ -392,7 +550,11 @@ public class SqlCompleter {
    * @return -1 in case of no candidates found, 0 otherwise
    */
   private int completeKeyword(String buffer, int cursor, List<CharSequence> candidates) {
-    return keywordCompleter.getCompleter().complete(buffer, cursor, candidates);
+    CachedCompleter completer = keywordCompleter;
+    if (completer == null) {
+      return -1;
+    }
+    return completer.getCompleter().complete(buffer, cursor, candidates);
   }
 
   /**
@@ -401,7 +563,11 @@ public class SqlCompleter {
    * @return -1 in case of no candidates found, 0 otherwise
    */
   private int completeSchema(String buffer, int cursor, List<CharSequence> candidates) {
-    return schemasCompleter.getCompleter().complete(buffer, cursor, candidates);
+    CachedCompleter completer = schemasCompleter;
+    if (completer == null) {
+      return -1;
+    }
+    return completer.getCompleter().complete(buffer, cursor, candidates);
   }
 
   /**
@@ -411,11 +577,12 @@ public class SqlCompleter {
    */
   private int completeTable(String schema, String buffer, int cursor,
                             List<CharSequence> candidates) {
+    CachedCompleter completer = schema == null ? null : tablesCompleters.get(schema);
     // Wrong schema
-    if (schema == null || !tablesCompleters.containsKey(schema)) {
+    if (completer == null) {
       return -1;
     } else {
-      return tablesCompleters.get(schema).getCompleter().complete(buffer, cursor, candidates);
+      return completer.getCompleter().complete(buffer, cursor, candidates);
     }
   }
 
@@ -426,12 +593,13 @@ public class SqlCompleter {
    */
   private int completeColumn(String schema, String table, String buffer, int cursor,
                              List<CharSequence> candidates) {
+    CachedCompleter completer = schema == null || table == null ?
+        null : columnsCompleters.get(schema + "." + table);
     // Wrong schema or wrong table
-    if (schema == null || table == null || !columnsCompleters.containsKey(schema + "." + table)) {
+    if (completer == null) {
       return -1;
     } else {
-      return columnsCompleters.get(schema + "." + table).getCompleter()
-          .complete(buffer, cursor, candidates);
+      return completer.getCompleter().complete(buffer, cursor, candidates);
     }
   }
 
@@ -555,6 +723,10 @@ public class SqlCompleter {
       this.table = table;
     }
 
+    public String getSchemaTable() {
+      return String.format("%s.%s", schema, table);
+    }
+
     public String getColumn() {
       return column;
     }
@@ -35,7 +35,9 @@ import org.junit.Test;
 import static org.apache.zeppelin.jdbc.JDBCInterpreter.STATEMENT_PRECODE_KEY_TEMPLATE;
 
 
+import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.sql.Connection;
@@ -43,12 +45,17 @@ import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import javax.management.ObjectName;
 
 import com.mockrunner.jdbc.BasicJDBCTestCaseAdapter;
+import org.apache.commons.dbcp2.PoolingDriver;
+import org.apache.commons.pool2.ObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPool;
 
 import org.apache.zeppelin.completer.CompletionType;
 import org.apache.zeppelin.interpreter.InterpreterContext;
@@ -423,6 +430,86 @@ public class JDBCInterpreterTest extends BasicJDBCTestCaseAdapter {
     assertEquals(true, completionList.contains(correctCompletionKeyword));
   }
 
+  @Test
+  public void testAutoCompletionSnapshot() throws IOException, InterpreterException {
+    Path snapshotDir = Files.createTempDirectory("jdbc-completer-");
+    snapshotDir.toFile().deleteOnExit();
+    Properties properties = new Properties();
+    properties.setProperty("common.max_count", "1000");
+    properties.setProperty("default.driver", "org.h2.Driver");
+    properties.setProperty("default.url", getJdbcConnection());
+    properties.setProperty("default.user", "");
+    properties.setProperty("default.password", "");
+    properties.setProperty("default.completer.schemaFilters", "PUBLIC");
+    properties.setProperty("zeppelin.jdbc.completer.snapshotDir", snapshotDir.toString());
+    JDBCInterpreter jdbcInterpreter = new JDBCInterpreter(properties);
+    jdbcInterpreter.open();
+
+    List<InterpreterCompletion> completionList = jdbcInterpreter.completion("PUB", 3,
+        interpreterContext);
+    assertTrue(completionList.contains(new InterpreterCompletion("PUBLIC", "PUBLIC",
+        CompletionType.schema.name())));
+
+    // another user with the same account shares the metadata already loaded
+    InterpreterContext otherContext = InterpreterContext.builder()
+        .setAuthenticationInfo(new AuthenticationInfo("otherUser"))
+        .build();
+    completionList = jdbcInterpreter.completion("PUB", 3, otherContext);
+    assertTrue(completionList.contains(new InterpreterCompletion("PUBLIC", "PUBLIC",
+        CompletionType.schema.name())));
+
+    // a new process completes from the snapshot before the database is queried
+    File[] snapshots = snapshotDir.toFile().listFiles();
+    assertEquals(1, snapshots.length);
+    SqlCompleter sqlCompleter = new SqlCompleter(120);
+    assertTrue(sqlCompleter.loadSnapshot(snapshots[0]));
+    assertFalse(sqlCompleter.isMissing("PUB", 3));
+    assertTrue(sqlCompleter.isUpdateNeeded("PUB", 3));
+    List<InterpreterCompletion> candidates = new ArrayList<>();
+    sqlCompleter.complete("PUB", 3, candidates);
+    assertTrue(candidates.contains(new InterpreterCompletion("PUBLIC", "PUBLIC",
+        CompletionType.schema.name())));
+    snapshots[0].deleteOnExit();
+  }
+
+  @Test
+  public void testConnectionPoolPreWarm() throws Exception {
+    Properties properties = new Properties();
+    properties.setProperty("common.max_count", "1000");
+    properties.setProperty("default.driver", "org.h2.Driver");
+    properties.setProperty("default.url", getJdbcConnection());
+    properties.setProperty("default.user", "");
+    properties.setProperty("default.password", "");
+    properties.setProperty("zeppelin.jdbc.pool.minIdle", "3");
+    properties.setProperty("zeppelin.jdbc.pool.testOnBorrow", "true");
+    properties.setProperty("zeppelin.jdbc.pool.validationQuery", "select 1");
+    JDBCInterpreter jdbcInterpreter = new JDBCInterpreter(properties);
+    jdbcInterpreter.open();
+
+    InterpreterContext context = InterpreterContext.builder()
+        .setAuthenticationInfo(new AuthenticationInfo("poolUser"))
+        .setParagraphId("paragraphId")
+        .build();
+    InterpreterResult interpreterResult =
+        jdbcInterpreter.interpret("select * from test_table", context);
+    assertEquals(InterpreterResult.Code.SUCCESS, interpreterResult.code());
+
+    ObjectPool pool = new PoolingDriver().getConnectionPool("defaultpoolUser");
+    long deadline = System.currentTimeMillis() + 10000;
+    while (pool.getNumIdle() < 3 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(50);
+    }
+    assertTrue(pool.getNumIdle() >= 3);
+    assertEquals(0, pool.getNumActive());
+    ObjectName poolName = ((GenericObjectPool) pool).getJmxName();
+    assertEquals("org.apache.zeppelin:type=JDBCConnectionPool,name=default.poolUser",
+        poolName.toString());
+    assertEquals(pool.getNumIdle(),
+        ManagementFactory.getPlatformMBeanServer().getAttribute(poolName, "NumIdle"));
+
+    jdbcInterpreter.close();
+  }
+
   private Properties getDBProperty(String dbUser, String dbPassowrd) throws IOException {
     Properties properties = new Properties();
     properties.setProperty("common.max_count", "1000");
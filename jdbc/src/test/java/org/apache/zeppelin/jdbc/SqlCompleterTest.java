@@ -17,6 +17,7 @@ package org.apache.zeppelin.jdbc;
 import static com.google.common.collect.Sets.newHashSet;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import com.google.common.base.Joiner;
@@ -28,9 +29,11 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -383,6 +386,68 @@ public class SqlCompleterTest {
     ).test();
   }
 
+  @Test
+  public void testUpdateNeeded() {
+    assertFalse(sqlCompleter.isUpdateNeeded("SEL", 3));
+    assertFalse(sqlCompleter.isUpdateNeeded("prod_dds.fin", 12));
+    assertFalse(sqlCompleter.isUpdateNeeded("prod_dds.customer.na", 20));
+    assertTrue(sqlCompleter.isUpdateNeeded("prod_emart.customer.na", 22));
+    assertTrue(sqlCompleter.isMissing("prod_emart.customer.na", 22));
+    assertTrue(sqlCompleter.isUpdateNeeded("prod_test.cu", 12));
+    assertTrue(sqlCompleter.isMissing("prod_test.cu", 12));
+  }
+
+  @Test
+  public void testSnapshot() throws IOException {
+    File snapshot = File.createTempFile("completer-", ".snapshot");
+    snapshot.deleteOnExit();
+    sqlCompleter.saveSnapshot(snapshot);
+
+    SqlCompleter loadedCompleter = new SqlCompleter(0);
+    assertTrue(loadedCompleter.loadSnapshot(snapshot));
+    // loaded metadata is used right away, and refreshed on the next completion
+    assertTrue(loadedCompleter.isUpdateNeeded("prod_dds.fin", 12));
+    assertFalse(loadedCompleter.isMissing("prod_dds.fin", 12));
+
+    CompleterTester loadedTester = new CompleterTester(loadedCompleter);
+    loadedTester.buffer("select * from prod_emart.fi").from(25).to(27).expect(newHashSet(
+        new InterpreterCompletion("financial_account", "financial_account",
+            CompletionType.table.name()))).test();
+    loadedTester.buffer("SU").from(2).to(2).expect(newHashSet(
+        new InterpreterCompletion("SUBCLASS_ORIGIN", "SUBCLASS_ORIGIN",
+            CompletionType.keyword.name()),
+        new InterpreterCompletion("SUM", "SUM", CompletionType.keyword.name()),
+        new InterpreterCompletion("SUBSTRING", "SUBSTRING", CompletionType.keyword.name()))
+    ).test();
+    loadedTester.buffer("prod_dds.customer.bi").from(20).to(20).expect(newHashSet(
+        new InterpreterCompletion("birth_dt", "birth_dt", CompletionType.column.name()))).test();
+
+    assertFalse(new SqlCompleter(0).loadSnapshot(new File(snapshot.getPath() + ".missing")));
+  }
+
+  @Test
+  public void testPrefixTreeCompleter() {
+    PrefixTreeCompleter completer = new PrefixTreeCompleter(
+        Arrays.asList("customer", "Customer_Account", "cost", "account", "customer"));
+    assertEquals(4, completer.size());
+
+    List<CharSequence> candidates = new ArrayList<>();
+    assertEquals(0, completer.complete("CUST", 4, candidates));
+    assertEquals(newHashSet("customer", "Customer_Account"), newHashSet(candidates));
+
+    candidates.clear();
+    assertEquals(0, completer.complete("c", 1, candidates));
+    assertEquals(3, candidates.size());
+
+    candidates.clear();
+    assertEquals(-1, completer.complete("custom_", 7, candidates));
+    assertTrue(candidates.isEmpty());
+
+    candidates.clear();
+    assertEquals(0, completer.complete(null, 0, candidates));
+    assertEquals(4, candidates.size());
+  }
+
   @Test
   public void testSqlDelimiterCharacters() {
     assertTrue(sqlCompleter.getSqlDelimiter().isDelimiterChar("r,", 1));
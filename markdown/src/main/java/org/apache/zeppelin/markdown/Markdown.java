@@ -62,6 +62,8 @@ public class Markdown extends Interpreter {
   public static final String MARKDOWN_PARSER_TYPE = "markdown.parser.type";
   public static final String PARSER_TYPE_PEGDOWN = "pegdown";
   public static final String PARSER_TYPE_MARKDOWN4J = "markdown4j";
+  public static final String MARKDOWN_RENDER_CACHE_SIZE = "markdown.render.cache.size";
+  public static final String DEFAULT_RENDER_CACHE_SIZE = String.valueOf(4 * 1024 * 1024);
 
   public Markdown(Properties property) {
     super(property);
@@ -82,6 +84,8 @@ public class Markdown extends Interpreter {
   public void open() {
     String parserType = getProperty(MARKDOWN_PARSER_TYPE);
     parser = createMarkdownParser(parserType);
+    MarkdownRenderCache.get().setCapacity(
+        Long.parseLong(getProperty(MARKDOWN_RENDER_CACHE_SIZE, DEFAULT_RENDER_CACHE_SIZE)));
   }
 
   @Override
@@ -93,7 +97,7 @@ public class Markdown extends Interpreter {
     String html;
 
     try {
-      html = parser.render(markdownText);
+      html = MarkdownRenderCache.get().render(parser, markdownText);
     } catch (RuntimeException e) {
       LOGGER.error("Exception in MarkdownInterpreter while interpret ", e);
       return new InterpreterResult(Code.ERROR, InterpreterUtils.getMostRelevantMessage(e));
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.zeppelin.markdown;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * HTML rendered from markdown text, keyed by the parser and the hash of the text, so that
+ * an unchanged paragraph is not parsed again on every run.
+ * The least recently used HTML is evicted beyond the capacity, in characters.
+ * It is shared by all the markdown interpreters of the interpreter process.
+ */
+public class MarkdownRenderCache {
+  private static final MarkdownRenderCache INSTANCE = new MarkdownRenderCache();
+
+  private final LinkedHashMap<String, String> htmls = new LinkedHashMap<>(16, 0.75f, true);
+  private long capacity;
+  private long size;
+  private long hitCount;
+
+  public static MarkdownRenderCache get() {
+    return INSTANCE;
+  }
+
+  /**
+   * @return the html of the markdown text, rendered by the parser if it is not cached
+   */
+  public String render(MarkdownParser parser, String markdownText) {
+    if (getCapacity() <= 0) {
+      return parser.render(markdownText);
+    }
+    String key = key(parser, markdownText);
+    String html;
+    synchronized (this) {
+      html = htmls.get(key);
+      if (null != html) {
+        hitCount++;
+      }
+    }
+    if (null == html) {
+      // rendered outside of the lock, a slow parse doesn't block the other paragraphs
+      html = parser.render(markdownText);
+      put(key, html);
+    }
+    return html;
+  }
+
+  private synchronized void put(String key, String html) {
+    if (html.length() > capacity) {
+      return;
+    }
+    String previous = htmls.put(key, html);
+    size += html.length() - (null == previous ? 0 : previous.length());
+    evict();
+  }
+
+  private void evict() {
+    Iterator<Map.Entry<String, String>> iterator = htmls.entrySet().iterator();
+    while (size > capacity && iterator.hasNext()) {
+      size -= iterator.next().getValue().length();
+      iterator.remove();
+    }
+  }
+
+  static String key(MarkdownParser parser, String markdownText) {
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256")
+          .digest(markdownText.getBytes(StandardCharsets.UTF_8));
+      return parser.getClass().getName() + ":" + Base64.getEncoder().encodeToString(hash);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public synchronized void setCapacity(long capacity) {
+    this.capacity = capacity;
+    evict();
+  }
+
+  public synchronized long getCapacity() {
+    return capacity;
+  }
+
+  public synchronized int size() {
+    return htmls.size();
+  }
+
+  /**
+   * @return the number of renders served from the cache
+   */
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  public synchronized void clear() {
+    htmls.clear();
+    size = 0;
+  }
+}
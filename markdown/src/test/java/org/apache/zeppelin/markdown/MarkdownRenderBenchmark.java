@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.markdown;
+
+import java.util.Properties;
+
+/**
+ * Manual benchmark of cold and cached markdown renders, it's not part of the unit tests.
+ *
+ * <pre>
+ * cd markdown
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) \
+ *   org.apache.zeppelin.markdown.MarkdownRenderBenchmark [sections] [runs]
+ * </pre>
+ */
+public class MarkdownRenderBenchmark {
+
+  public static void main(String[] args) {
+    int sections = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+    int runs = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+    StringBuilder document = new StringBuilder();
+    for (int i = 0; i < sections; i++) {
+      document.append("## Section ").append(i).append("\n\n")
+          .append("Some *emphasis*, **strong** and `code` with a [link](http://example.com)")
+          .append("\n\n| a | b |\n|---|---|\n| ").append(i).append(" | ").append(i * 2)
+          .append(" |\n\n* item 1\n* item 2\n\n```\ncode block ").append(i).append("\n```\n\n");
+    }
+
+    for (String parserType : new String[]{Markdown.PARSER_TYPE_PEGDOWN,
+        Markdown.PARSER_TYPE_MARKDOWN4J}) {
+      MarkdownRenderCache.get().clear();
+      Properties props = new Properties();
+      props.put(Markdown.MARKDOWN_PARSER_TYPE, parserType);
+      Markdown md = new Markdown(props);
+      md.open();
+
+      long start = System.nanoTime();
+      md.interpret(document.toString(), null);
+      long coldTime = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (int i = 0; i < runs; i++) {
+        md.interpret(document.toString(), null);
+      }
+      long warmTime = (System.nanoTime() - start) / runs;
+      md.close();
+
+      System.out.println(String.format("%s rendering of %d characters: cold %d us, warm %d us",
+          parserType, document.length(), coldTime / 1000, warmTime / 1000));
+    }
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.zeppelin.markdown;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.zeppelin.interpreter.InterpreterResult;
+
+public class MarkdownRenderCacheTest {
+  private MarkdownRenderCache cache = MarkdownRenderCache.get();
+
+  @Before
+  public void setUp() {
+    cache.clear();
+    cache.setCapacity(1024 * 1024);
+  }
+
+  @After
+  public void tearDown() {
+    cache.clear();
+  }
+
+  private static class CountingParser implements MarkdownParser {
+    private final AtomicInteger renders = new AtomicInteger();
+
+    @Override
+    public String render(String markdownText) {
+      renders.incrementAndGet();
+      return "<p>" + markdownText + "</p>";
+    }
+  }
+
+  @Test
+  public void testRenderOnce() {
+    CountingParser parser = new CountingParser();
+    assertEquals("<p>text</p>", cache.render(parser, "text"));
+    assertEquals("<p>text</p>", cache.render(parser, "text"));
+    assertEquals(1, parser.renders.get());
+
+    cache.render(parser, "other text");
+    assertEquals(2, parser.renders.get());
+
+    // the html of another parser is not reused
+    assertEquals("text", cache.render(markdownText -> markdownText, "text"));
+    assertEquals(3, cache.size());
+  }
+
+  @Test
+  public void testCapacity() {
+    CountingParser parser = new CountingParser();
+    cache.setCapacity(20);
+    cache.render(parser, "0123456");
+    cache.render(parser, "abcdefg");
+    assertEquals(1, cache.size());
+    cache.render(parser, "abcdefg");
+    assertEquals(2, parser.renders.get());
+
+    // larger than the capacity
+    cache.render(parser, "0123456789abcdefghij");
+    cache.render(parser, "0123456789abcdefghij");
+    assertEquals(4, parser.renders.get());
+
+    cache.setCapacity(0);
+    cache.render(parser, "abcdefg");
+    assertEquals(5, parser.renders.get());
+  }
+
+  @Test
+  public void testInterpreterRender() {
+    for (String parserType : new String[]{Markdown.PARSER_TYPE_PEGDOWN,
+        Markdown.PARSER_TYPE_MARKDOWN4J}) {
+      cache.clear();
+      Properties props = new Properties();
+      props.put(Markdown.MARKDOWN_PARSER_TYPE, parserType);
+      Markdown md = new Markdown(props);
+      md.open();
+
+      InterpreterResult cold = md.interpret("## Section\n\nSome *emphasis*", null);
+      assertEquals(InterpreterResult.Code.SUCCESS, cold.code());
+      assertEquals(1, cache.size());
+
+      // the html of the unchanged text is served from the cache
+      long hits = cache.getHitCount();
+      InterpreterResult warm = md.interpret("## Section\n\nSome *emphasis*", null);
+      assertEquals(cold.message().get(0).getData(), warm.message().get(0).getData());
+      assertEquals(hits + 1, cache.getHitCount());
+      assertEquals(1, cache.size());
+
+      md.interpret("## Other section", null);
+      assertEquals(2, cache.size());
+      md.close();
+    }
+  }
+}
@@ -27,7 +27,6 @@ import org.apache.zeppelin.interpreter.BaseZeppelinContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -54,9 +53,20 @@ public class ShellInterpreter extends KerberosInterpreter {
   private String defaultTimeoutProperty = "60000";
 
   private static final String DIRECTORY_USER_HOME = "shell.working.directory.user.home";
+  // none, user or note
+  private static final String SESSION_PROPERTY = "shell.session";
+  private static final OutputStream NULL_OUTPUT = new OutputStream() {
+    @Override
+    public void write(int b) {
+    }
+  };
   private final boolean isWindows = System.getProperty("os.name").startsWith("Windows");
   private final String shell = isWindows ? "cmd /c" : "bash -c";
   ConcurrentHashMap<String, DefaultExecutor> executors;
+  // shell sessions by user or note
+  ConcurrentHashMap<String, ShellSession> sessions;
+  // shell sessions by running paragraph
+  ConcurrentHashMap<String, ShellSession> runningSessions;
 
   public ShellInterpreter(Properties property) {
     super(property);
@@ -67,6 +77,8 @@ public class ShellInterpreter extends KerberosInterpreter {
     super.open();
     LOGGER.info("Command timeout property: {}", getProperty(TIMEOUT_PROPERTY));
     executors = new ConcurrentHashMap<>();
+    sessions = new ConcurrentHashMap<>();
+    runningSessions = new ConcurrentHashMap<>();
   }
 
   @Override
@@ -82,6 +94,12 @@ public class ShellInterpreter extends KerberosInterpreter {
         }
       }
     }
+    for (String sessionKey : sessions.keySet()) {
+      ShellSession session = sessions.remove(sessionKey);
+      if (session != null) {
+        session.close();
+      }
+    }
   }
 
   @Override
@@ -98,7 +116,10 @@ public class ShellInterpreter extends KerberosInterpreter {
   public InterpreterResult internalInterpret(String cmd,
                                              InterpreterContext contextInterpreter) {
     LOGGER.debug("Run shell command '" + cmd + "'");
-    OutputStream outStream = new ByteArrayOutputStream();
+    String sessionKey = getSessionKey(contextInterpreter);
+    if (sessionKey != null) {
+      return interpretInSession(sessionKey, cmd, contextInterpreter);
+    }
 
     CommandLine cmdLine = CommandLine.parse(shell);
     // the Windows CMD shell doesn't handle multiline statements,
@@ -124,20 +145,10 @@ public class ShellInterpreter extends KerberosInterpreter {
       int exitVal = executor.execute(cmdLine);
       LOGGER.info("Paragraph " + contextInterpreter.getParagraphId()
           + " return with exit value: " + exitVal);
-      return new InterpreterResult(Code.SUCCESS, outStream.toString());
+      return new InterpreterResult(Code.SUCCESS);
     } catch (ExecuteException e) {
-      int exitValue = e.getExitValue();
       LOGGER.error("Can not run " + cmd, e);
-      Code code = Code.ERROR;
-      String message = outStream.toString();
-      if (exitValue == 143) {
-        code = Code.INCOMPLETE;
-        message += "Paragraph received a SIGTERM\n";
-        LOGGER.info("The paragraph " + contextInterpreter.getParagraphId()
-            + " stopped executing: " + message);
-      }
-      message += "ExitValue: " + exitValue;
-      return new InterpreterResult(code, message);
+      return exitValueResult(e.getExitValue(), contextInterpreter);
     } catch (IOException e) {
       LOGGER.error("Can not run " + cmd, e);
       return new InterpreterResult(Code.ERROR, e.getMessage());
@@ -146,8 +157,103 @@ public class ShellInterpreter extends KerberosInterpreter {
     }
   }
 
+  private InterpreterResult exitValueResult(int exitValue, InterpreterContext context) {
+    Code code = Code.ERROR;
+    String message = "";
+    if (exitValue == 143) {
+      code = Code.INCOMPLETE;
+      message += "Paragraph received a SIGTERM\n";
+      LOGGER.info("The paragraph " + context.getParagraphId()
+          + " stopped executing: " + message);
+    }
+    message += "ExitValue: " + exitValue;
+    return new InterpreterResult(code, message);
+  }
+
+  /**
+   * @return the key of the shell session of the paragraph, null if the paragraph runs in its
+   *         own shell
+   */
+  private String getSessionKey(InterpreterContext context) {
+    String session = getProperty(SESSION_PROPERTY, "none").trim();
+    if (isWindows || session.isEmpty() || session.equalsIgnoreCase("none")) {
+      return null;
+    }
+    if (session.equalsIgnoreCase("user")) {
+      String user = context.getAuthenticationInfo() == null ? null
+          : context.getAuthenticationInfo().getUser();
+      return "user:" + (user == null ? "anonymous" : user);
+    }
+    if (session.equalsIgnoreCase("note")) {
+      return "note:" + context.getNoteId();
+    }
+    LOGGER.warn("Invalid value of " + SESSION_PROPERTY + ": " + session + ", use none");
+    return null;
+  }
+
+  private InterpreterResult interpretInSession(String sessionKey, String cmd,
+                                               InterpreterContext context) {
+    OutputStream out = context.out != null ? context.out : NULL_OUTPUT;
+    long timeoutMs = Long.valueOf(getProperty(TIMEOUT_PROPERTY, defaultTimeoutProperty));
+    boolean restarted = false;
+    while (true) {
+      ShellSession session;
+      try {
+        session = getSession(sessionKey);
+      } catch (IOException e) {
+        LOGGER.error("Can not start shell session " + sessionKey, e);
+        return new InterpreterResult(Code.ERROR, e.getMessage());
+      }
+
+      runningSessions.put(context.getParagraphId(), session);
+      try {
+        int exitValue = session.execute(context.getParagraphId(), cmd, out, timeoutMs);
+        LOGGER.info("Paragraph " + context.getParagraphId()
+            + " return with exit value: " + exitValue);
+        if (exitValue == 0) {
+          return new InterpreterResult(Code.SUCCESS);
+        }
+        return exitValueResult(exitValue, context);
+      } catch (ShellSession.SessionExitedException e) {
+        // the previous command exited the session, run the paragraph in a new one
+        if (restarted) {
+          LOGGER.error("Can not run " + cmd, e);
+          return new InterpreterResult(Code.ERROR, e.getMessage());
+        }
+        restarted = true;
+      } catch (IOException e) {
+        LOGGER.error("Can not run " + cmd, e);
+        return new InterpreterResult(Code.ERROR, e.getMessage());
+      } finally {
+        runningSessions.remove(context.getParagraphId());
+        if (!session.isAlive()) {
+          // the next paragraph runs in a new session
+          sessions.remove(sessionKey, session);
+          session.close();
+        }
+      }
+    }
+  }
+
+  private ShellSession getSession(String sessionKey) throws IOException {
+    synchronized (sessions) {
+      ShellSession session = sessions.get(sessionKey);
+      if (session == null || !session.isAlive()) {
+        File workingDirectory = Boolean.valueOf(getProperty(DIRECTORY_USER_HOME)) ?
+            new File(System.getProperty("user.home")) : null;
+        session = new ShellSession(workingDirectory);
+        sessions.put(sessionKey, session);
+      }
+      return session;
+    }
+  }
+
   @Override
   public void cancel(InterpreterContext context) {
+    ShellSession session = runningSessions.get(context.getParagraphId());
+    if (session != null) {
+      session.cancel(context.getParagraphId());
+    }
     DefaultExecutor executor = executors.remove(context.getParagraphId());
     if (executor != null) {
       try {
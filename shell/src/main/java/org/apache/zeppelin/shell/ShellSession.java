@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.zeppelin.shell;
+
+import org.apache.zeppelin.scheduler.ExecutorFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bash process kept across the paragraph runs, so that the working directory
+ * and the variables set by a paragraph are seen by the next ones.
+ * Each command is followed by a sentinel line with its exit code, the output of the
+ * command is streamed until the sentinel.
+ *
+ * The commands run one at a time, in the order they are submitted. Each command has an
+ * owner, the paragraph running it, and a cancel only affects the command of its owner.
+ */
+class ShellSession implements Closeable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ShellSession.class);
+
+  // time for the commands to exit after a SIGTERM, before the session is destroyed
+  private static final long CANCEL_GRACE_PERIOD_MS = 2000;
+  // exit value of a command cancelled by a SIGTERM
+  static final int CANCELLED_EXIT_VALUE = 143;
+
+  private final Process process;
+  private final OutputStream stdin;
+  private final PushbackInputStream stdout;
+  private final String marker;
+  // \001 never appears again in the sentinel, so a partial match never overlaps another one
+  private final byte[] sentinel;
+  private final String pid;
+
+  // fair, so that the commands run in the order they are submitted
+  private final ReentrantLock lock = new ReentrantLock(true);
+  // owners waiting for the session -> cancelled while waiting
+  private final ConcurrentHashMap<String, Boolean> waiting = new ConcurrentHashMap<>();
+  private volatile Command running;
+
+  ShellSession(File workingDirectory) throws IOException {
+    ProcessBuilder builder = new ProcessBuilder("bash");
+    builder.redirectErrorStream(true);
+    if (workingDirectory != null) {
+      builder.directory(workingDirectory);
+    }
+    this.process = builder.start();
+    this.stdin = process.getOutputStream();
+    this.stdout = new PushbackInputStream(process.getInputStream(), 8192);
+    this.marker = "ZEPPELIN_" + UUID.randomUUID().toString().replace("-", "");
+    this.sentinel = ("\001" + marker + " ").getBytes(StandardCharsets.US_ASCII);
+
+    try {
+      stdin.write("echo $$\n".getBytes(StandardCharsets.UTF_8));
+      stdin.flush();
+      this.pid = readLine();
+    } catch (IOException e) {
+      process.destroy();
+      throw e;
+    }
+    LOGGER.info("Shell session started with pid {}", pid);
+  }
+
+  /**
+   * Runs the command of the owner in the session, after the commands submitted before, and
+   * streams its output, stdout and stderr, to out. The command is cancelled once it ran for
+   * timeoutMs.
+   *
+   * @return the exit value of the command, CANCELLED_EXIT_VALUE if it's cancelled
+   * @throws SessionExitedException when the session exited before the command started
+   * @throws IOException when the session exited
+   */
+  int execute(String owner, String cmd, OutputStream out, long timeoutMs) throws IOException {
+    waiting.put(owner, false);
+    lock.lock();
+    try {
+      if (Boolean.TRUE.equals(waiting.remove(owner))) {
+        return CANCELLED_EXIT_VALUE;
+      }
+      if (!process.isAlive()) {
+        throw new SessionExitedException();
+      }
+      Command command = new Command(owner);
+      running = command;
+      ScheduledFuture<?> timeout = ExecutorFactory.singleton()
+          .createOrGetScheduled("shell-session-timeout", 1)
+          .schedule(() -> cancel(owner), timeoutMs, TimeUnit.MILLISECONDS);
+      try {
+        // the commands don't read the input of the session, which holds the next commands
+        String script = "eval " + quote(cmd) + " < /dev/null\n"
+            + "printf '\\001%s %d\\n' " + marker + " $?\n";
+        stdin.write(script.getBytes(StandardCharsets.UTF_8));
+        stdin.flush();
+        return stream(out);
+      } catch (IOException e) {
+        if (command.cancelled) {
+          // the session was destroyed as the command didn't exit on SIGTERM
+          return CANCELLED_EXIT_VALUE;
+        }
+        throw e;
+      } finally {
+        timeout.cancel(false);
+        command.done.countDown();
+      }
+    } finally {
+      waiting.remove(owner);
+      lock.unlock();
+    }
+  }
+
+  private int stream(OutputStream out) throws IOException {
+    byte[] buffer = new byte[8192];
+    // the first bytes of the sentinel already read, they are output if the sentinel
+    // doesn't follow
+    int matched = 0;
+    while (true) {
+      int n = stdout.read(buffer);
+      if (n < 0) {
+        throw new IOException("Shell session exited");
+      }
+      int start = 0;
+      for (int i = 0; i < n; i++) {
+        if (matched > 0 && buffer[i] != sentinel[matched]) {
+          out.write(sentinel, 0, matched);
+          matched = 0;
+          start = i;
+        }
+        if (buffer[i] == sentinel[matched]) {
+          if (matched == 0) {
+            out.write(buffer, start, i - start);
+          }
+          matched++;
+          start = i + 1;
+          if (matched == sentinel.length) {
+            out.flush();
+            // output of the background jobs, left for the next command
+            stdout.unread(buffer, i + 1, n - i - 1);
+            return Integer.parseInt(readLine());
+          }
+        }
+      }
+      out.write(buffer, start, n - start);
+      out.flush();
+    }
+  }
+
+  private String readLine() throws IOException {
+    StringBuilder line = new StringBuilder();
+    int b;
+    while ((b = stdout.read()) != '\n') {
+      if (b < 0) {
+        throw new IOException("Shell session exited");
+      }
+      line.append((char) b);
+    }
+    return line.toString().trim();
+  }
+
+  // bash ANSI-C quoting, the command is evaluated as is
+  static String quote(String cmd) {
+    return "$'" + cmd.replace("\\", "\\\\").replace("'", "\\'")
+        .replace("\n", "\\n").replace("\r", "\\r") + "'";
+  }
+
+  /**
+   * Cancels the command of the owner. A command waiting for the session doesn't run, the
+   * commands started by a running command receive a SIGTERM, and the session is destroyed
+   * if they don't exit.
+   */
+  void cancel(String owner) {
+    if (waiting.replace(owner, false, true)) {
+      return;
+    }
+    Command command = running;
+    if (null == command || !command.owner.equals(owner) || command.done.getCount() == 0) {
+      return;
+    }
+    command.cancelled = true;
+    try {
+      new ProcessBuilder("pkill", "-TERM", "-P", pid).start().waitFor();
+      if (!command.done.await(CANCEL_GRACE_PERIOD_MS, TimeUnit.MILLISECONDS)) {
+        LOGGER.warn("Shell session {} doesn't exit on SIGTERM, destroy it", pid);
+        process.destroy();
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Fail to send SIGTERM to shell session " + pid + ", destroy it", e);
+      process.destroy();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // the command of the owner waits for the session
+  boolean isWaiting(String owner) {
+    return waiting.containsKey(owner);
+  }
+
+  boolean isAlive() {
+    return process.isAlive();
+  }
+
+  @Override
+  public void close() {
+    process.destroy();
+  }
+
+  private static class Command {
+    private final String owner;
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile boolean cancelled;
+
+    Command(String owner) {
+      this.owner = owner;
+    }
+  }
+
+  /**
+   * The session exited before the command started, it can run in a new session.
+   */
+  static class SessionExitedException extends IOException {
+    SessionExitedException() {
+      super("Shell session exited");
+    }
+  }
+}
@@ -28,6 +28,7 @@ import org.junit.Test;
 import java.util.Properties;
 
 import org.apache.zeppelin.interpreter.InterpreterContext;
+import org.apache.zeppelin.interpreter.InterpreterOutput;
 import org.apache.zeppelin.interpreter.InterpreterResult;
 import org.apache.zeppelin.interpreter.InterpreterResult.Code;
 
@@ -87,4 +88,120 @@ public class ShellInterpreterTest {
     assertEquals(Code.INCOMPLETE, result.code());
     assertTrue(result.message().get(0).getData().contains("Paragraph received a SIGTERM"));
   }
+
+  @Test
+  public void testSession() throws Exception {
+    if (System.getProperty("os.name").startsWith("Windows")) {
+      return;
+    }
+    shell.setProperty("shell.session", "note");
+    InterpreterContext context = getContext("note1");
+    result = shell.interpret("cd /tmp\nexport SHELL_TEST='it''s \\n kept'", context);
+    assertEquals(Code.SUCCESS, result.code());
+
+    context = getContext("note1");
+    result = shell.interpret("pwd\necho \"$SHELL_TEST\" >&2\nprintf partial", context);
+    assertEquals(Code.SUCCESS, result.code());
+    assertEquals("/tmp\nits \\n kept\npartial",
+        context.out.toInterpreterResultMessage().get(0).getData());
+
+    // another note has its own session
+    context = getContext("note2");
+    result = shell.interpret("echo \"[$SHELL_TEST]\"", context);
+    assertEquals(Code.SUCCESS, result.code());
+    assertEquals("[]\n", context.out.toInterpreterResultMessage().get(0).getData());
+
+    result = shell.interpret("false", getContext("note1"));
+    assertEquals(Code.ERROR, result.code());
+    assertEquals("ExitValue: 1", result.message().get(0).getData());
+
+    // the session is restarted after an exit
+    result = shell.interpret("exit 3", getContext("note1"));
+    assertEquals(Code.ERROR, result.code());
+    context = getContext("note1");
+    result = shell.interpret("echo \"[$SHELL_TEST]\"", context);
+    assertEquals(Code.SUCCESS, result.code());
+    assertEquals("[]\n", context.out.toInterpreterResultMessage().get(0).getData());
+    shell.close();
+    assertTrue(shell.sessions.isEmpty());
+  }
+
+  @Test
+  public void testSessionTimeout() throws Exception {
+    if (System.getProperty("os.name").startsWith("Windows")) {
+      return;
+    }
+    shell.setProperty("shell.session", "user");
+    InterpreterContext context = getContext("note1");
+    result = shell.interpret("export SHELL_TEST=kept\nsleep 4", context);
+    assertEquals(Code.INCOMPLETE, result.code());
+    assertTrue(result.message().get(0).getData().contains("Paragraph received a SIGTERM"));
+    assertTrue(shell.runningSessions.isEmpty());
+
+    // the session survives the cancellation of the command
+    context = getContext("note2");
+    result = shell.interpret("echo $SHELL_TEST", context);
+    assertEquals(Code.SUCCESS, result.code());
+    assertEquals("kept\n", context.out.toInterpreterResultMessage().get(0).getData());
+    shell.close();
+  }
+
+  @Test
+  public void testSessionQueue() throws Exception {
+    if (System.getProperty("os.name").startsWith("Windows")) {
+      return;
+    }
+    shell.setProperty("shell.session", "note");
+    final InterpreterResult[] results = new InterpreterResult[3];
+    Thread first = interpretInThread("sleep 1.5", getContext("note1", "p1"), results, 0);
+    while (!shell.runningSessions.containsKey("p1")) {
+      Thread.sleep(10);
+    }
+    // the timeout of a paragraph starts once the previous one is done
+    Thread second = interpretInThread("sleep 1", getContext("note1", "p2"), results, 1);
+    InterpreterContext thirdContext = getContext("note1", "p3");
+    Thread third = interpretInThread("echo third", thirdContext, results, 2);
+    while (!shell.runningSessions.containsKey("p3")
+        || !shell.runningSessions.get("p3").isWaiting("p3")) {
+      Thread.sleep(10);
+    }
+
+    // the cancel of a waiting paragraph doesn't stop the running one
+    shell.cancel(thirdContext);
+    first.join();
+    second.join();
+    third.join();
+    assertEquals(Code.SUCCESS, results[0].code());
+    assertEquals(Code.SUCCESS, results[1].code());
+    assertEquals(Code.INCOMPLETE, results[2].code());
+    shell.close();
+  }
+
+  private Thread interpretInThread(final String cmd, final InterpreterContext context,
+                                   final InterpreterResult[] results, final int index) {
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          results[index] = shell.interpret(cmd, context);
+        } catch (InterpreterException e) {
+          results[index] = new InterpreterResult(Code.ERROR, e.getMessage());
+        }
+      }
+    });
+    thread.start();
+    return thread;
+  }
+
+  private InterpreterContext getContext(String noteId) {
+    return getContext(noteId, "paragraphId");
+  }
+
+  private InterpreterContext getContext(String noteId, String paragraphId) {
+    return InterpreterContext.builder()
+        .setNoteId(noteId)
+        .setParagraphId(paragraphId)
+        .setInterpreterOut(new InterpreterOutput(null))
+        .build();
+  }
 }
@@ -21,6 +21,9 @@ import io.atomix.cluster.MemberId;
 import io.atomix.cluster.Node;
 import io.atomix.cluster.messaging.MessagingService;
 import io.atomix.cluster.messaging.impl.NettyMessagingService;
+import io.atomix.primitive.PrimitiveState;
+import io.atomix.primitive.event.PrimitiveEvent;
+import io.atomix.primitive.event.impl.DefaultEventType;
 import io.atomix.primitive.operation.OperationType;
 import io.atomix.primitive.operation.PrimitiveOperation;
 import io.atomix.primitive.operation.impl.DefaultOperationId;
@@ -83,6 +86,7 @@ import org.apache.zeppelin.cluster.meta.ClusterMeta;
 import org.apache.zeppelin.cluster.meta.ClusterMetaEntity;
 import org.apache.zeppelin.cluster.meta.ClusterMetaOperation;
 import org.apache.zeppelin.cluster.meta.ClusterMetaType;
+import org.apache.zeppelin.cluster.meta.ClusterMetaView;
 import org.apache.zeppelin.cluster.protocol.LocalRaftProtocolFactory;
 import org.apache.zeppelin.cluster.protocol.RaftClientMessagingProtocol;
 import org.apache.zeppelin.conf.ZeppelinConfiguration;
@@ -100,12 +104,15 @@ import java.util.Collections;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeoutException;
@@ -120,6 +127,7 @@ import static org.apache.zeppelin.cluster.meta.ClusterMetaOperation.GET_OPERATIO
  * 1. RaftClient as the raft client
  * 2. Threading to provide retry after cluster metadata submission failure
  * 3. Cluster monitoring
+ * 4. Local view of the cluster metadata, kept up to date by the events of the state machine
  */
 public abstract class ClusterManager {
   private static Logger LOGGER = LoggerFactory.getLogger(ClusterManager.class);
@@ -148,6 +156,15 @@ public abstract class ClusterManager {
 
   protected ClusterMonitor clusterMonitor = null;
 
+  // Messaging service of the raft client, also used to send the heartbeats
+  protected MessagingService clientMessagingService = null;
+
+  // Local view of the cluster metadata, updated by the events of the cluster state machine
+  protected ClusterMetaView clusterMetaView = new ClusterMetaView();
+
+  // Writes of this node not committed yet, the view is only read when there are none
+  private AtomicInteger pendingMetaWrites = new AtomicInteger();
+
   public ClusterManager() {
     try {
       zeplServerHost = RemoteInterpreterUtils.findAvailableHostAddress();
@@ -179,6 +196,20 @@ public abstract class ClusterManager {
 
   }
 
+  // The member id of the raft servers and clients is host:port, the raft servers
+  // resolve the clients of the other processes (e.g. to publish the session events) with it.
+  protected Address getMemberAddress(MemberId memberId) {
+    Address address = raftAddressMap.get(memberId);
+    if (null == address) {
+      try {
+        address = Address.from(memberId.id());
+      } catch (RuntimeException e) {
+        LOGGER.warn("Can not resolve the address of member {}", memberId);
+      }
+    }
+    return address;
+  }
+
   // Check if the raft environment is initialized
   public abstract boolean raftInitialized();
   // Is it a cluster leader
@@ -191,7 +222,7 @@ public abstract class ClusterManager {
   private SessionClient createProxy(RaftClient client) {
     return client.sessionBuilder(ClusterPrimitiveType.PRIMITIVE_NAME,
         ClusterPrimitiveType.INSTANCE, new ServiceConfig())
-        .withReadConsistency(ReadConsistency.SEQUENTIAL)
+        .withReadConsistency(ReadConsistency.LINEARIZABLE)
         .withCommunicationStrategy(CommunicationStrategy.LEADER)
         .build()
         .connect()
@@ -223,7 +254,8 @@ public abstract class ClusterManager {
         MessagingService messagingManager
             = NettyMessagingService.builder().withAddress(address).build().start().join();
         RaftClientProtocol protocol = new RaftClientMessagingProtocol(
-            messagingManager, protocolSerializer, raftAddressMap::get);
+            messagingManager, protocolSerializer, ClusterManager.this::getMemberAddress);
+        clientMessagingService = messagingManager;
 
         raftClient = RaftClient.builder()
             .withMemberId(memberId)
@@ -235,6 +267,18 @@ public abstract class ClusterManager {
 
         raftSessionClient = createProxy(raftClient);
 
+        raftSessionClient.addEventListener(ClusterStateMachine.CHANGE,
+            event -> onClusterMetaChange(clientSerializer.decode(event.value())));
+        raftSessionClient.addStateChangeListener(state -> {
+          if (state == PrimitiveState.CONNECTED) {
+            syncClusterMetaView();
+          } else {
+            // Events may be lost, read the cluster until the view is synchronized again
+            clusterMetaView.setSynced(false);
+          }
+        });
+        syncClusterMetaView();
+
         LOGGER.info("RaftClientThread run() <<<");
       }
     }).start();
@@ -325,13 +369,24 @@ public abstract class ClusterManager {
       LOGGER.debug("putClusterMeta {} {}", metaType, metaKey);
     }
 
-    // add cluster name
-    newMetaValue.put(ClusterMeta.SERVER_HOST, zeplServerHost);
-    newMetaValue.put(ClusterMeta.SERVER_PORT, raftServerPort);
+    // add cluster name, the leader keeps the one of the process whose status it changes
+    newMetaValue.putIfAbsent(ClusterMeta.SERVER_HOST, zeplServerHost);
+    newMetaValue.putIfAbsent(ClusterMeta.SERVER_PORT, raftServerPort);
 
+    // read your writes once the change is committed,
+    // the change event of the state machine will be applied again
+    pendingMetaWrites.incrementAndGet();
     raftSessionClient.execute(operation(ClusterStateMachine.PUT,
         clientSerializer.encode(entity)))
-        .<Long>thenApply(clientSerializer::decode);
+        .<Long>thenApply(clientSerializer::decode)
+        .whenComplete((result, error) -> {
+          pendingMetaWrites.decrementAndGet();
+          if (null == error) {
+            clusterMetaView.put(metaType, metaKey, newMetaValue);
+          } else {
+            LOGGER.error("putClusterMeta {} {} failure", metaType, metaKey, error);
+          }
+        });
     return true;
   }
 
@@ -346,6 +401,39 @@ public abstract class ClusterManager {
     }
   }
 
+  // Send a heartbeat to every zeppelin-server of the cluster through the messaging service.
+  // Heartbeats are not committed to the raft log, the cluster leader only commits
+  // the online / offline transitions detected by the ClusterMonitor.
+  public void sendHeartbeat(ClusterMetaType type, String key, HashMap<String, Object> values) {
+    MessagingService messagingService = clientMessagingService;
+    if (null == messagingService) {
+      LOGGER.warn("Messaging service is not started, heartbeat of {} is not sent", key);
+      return;
+    }
+
+    values.put(ClusterMeta.SERVER_HOST, zeplServerHost);
+    values.put(ClusterMeta.SERVER_PORT, raftServerPort);
+    byte[] payload = clientSerializer.encode(
+        new ClusterMetaEntity(PUT_OPERATION, type, key, values));
+    for (Node node : clusterNodes) {
+      messagingService.sendAsync(node.address(), ClusterMonitor.HEARTBEAT_TOPIC, payload)
+          .exceptionally(e -> {
+            if (LOGGER.isDebugEnabled()) {
+              LOGGER.debug("Fail to send heartbeat to {}", node.address(), e);
+            }
+            return null;
+          });
+    }
+  }
+
+  // Called by a zeppelin-server when it receives a heartbeat
+  protected void onHeartbeat(byte[] payload) {
+    ClusterMetaEntity entity = clientSerializer.decode(payload);
+    if (null != clusterMonitor) {
+      clusterMonitor.onHeartbeat(entity.getMetaType(), entity.getKey(), entity.getValues());
+    }
+  }
+
   // delete metadata by cluster metadata
   private boolean deleteClusterMeta(ClusterMetaEntity entity) {
     ClusterMetaType metaType = entity.getMetaType();
@@ -359,12 +447,19 @@ public abstract class ClusterManager {
       return false;
     }
 
+    pendingMetaWrites.incrementAndGet();
     raftSessionClient.execute(operation(
         ClusterStateMachine.REMOVE,
         clientSerializer.encode(entity)))
         .<Long>thenApply(clientSerializer::decode)
-        .thenAccept(result -> {
-          LOGGER.info("deleteClusterMeta {}", result);
+        .whenComplete((result, error) -> {
+          pendingMetaWrites.decrementAndGet();
+          if (null == error) {
+            LOGGER.info("deleteClusterMeta {}", result);
+            clusterMetaView.remove(metaType, metaKey);
+          } else {
+            LOGGER.error("deleteClusterMeta {} {} failure", metaType, metaKey, error);
+          }
         });
 
     return true;
@@ -382,8 +477,28 @@ public abstract class ClusterManager {
   }
 
   // get metadata by cluster metadata
+  // Served by the local view of the node, which is eventually consistent with the cluster,
+  // or by the cluster while a write of this node is not committed yet
   public HashMap<String, HashMap<String, Object>> getClusterMeta(
       ClusterMetaType metaType, String metaKey) {
+    if (!clusterMetaView.isSynced() || pendingMetaWrites.get() > 0) {
+      return getLinearizableClusterMeta(metaType, metaKey);
+    }
+
+    HashMap<String, HashMap<String, Object>> clusterMeta
+        = clusterMetaView.get(metaType, metaKey);
+
+    // add the resource usage and heartbeat time received by this zeppelin-server
+    if (null != clusterMonitor) {
+      clusterMonitor.mergeHeartbeats(metaType, clusterMeta);
+    }
+
+    return clusterMeta;
+  }
+
+  // get metadata by cluster metadata, read from the raft leader
+  public HashMap<String, HashMap<String, Object>> getLinearizableClusterMeta(
+      ClusterMetaType metaType, String metaKey) {
     HashMap<String, HashMap<String, Object>> clusterMeta = new HashMap<>();
     if (!raftInitialized()) {
       LOGGER.error("Raft incomplete initialization!");
@@ -412,9 +527,48 @@ public abstract class ClusterManager {
       LOGGER.debug("getClusterMeta >>> {}", clusterMeta.toString());
     }
 
+    // add the resource usage and heartbeat time received by this zeppelin-server
+    if (null != clusterMonitor) {
+      clusterMonitor.mergeHeartbeats(metaType, clusterMeta);
+    }
+
     return clusterMeta;
   }
 
+  // Load the local view from the cluster state machine. The responses and the change events
+  // of the session are delivered in order, the view is reset before the following changes.
+  private void syncClusterMetaView() {
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    for (ClusterMetaType metaType : ClusterMetaType.values()) {
+      ClusterMetaEntity entity = new ClusterMetaEntity(GET_OPERATION, metaType, "", null);
+      futures.add(raftSessionClient.execute(operation(ClusterStateMachine.GET,
+          clientSerializer.encode(entity)))
+          .thenAccept(mateData -> clusterMetaView.reset(metaType,
+              clientSerializer.<HashMap<String, HashMap<String, Object>>>decode(mateData))));
+    }
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+        .whenComplete((result, error) -> {
+          if (null == error) {
+            clusterMetaView.setSynced(true);
+          } else {
+            LOGGER.error("Fail to synchronize the cluster meta view", error);
+          }
+        });
+  }
+
+  private void onClusterMetaChange(ClusterMetaEntity entity) {
+    switch (entity.getOperation()) {
+      case PUT_OPERATION:
+        clusterMetaView.put(entity.getMetaType(), entity.getKey(), entity.getValues());
+        break;
+      case DELETE_OPERATION:
+        clusterMetaView.remove(entity.getMetaType(), entity.getKey());
+        break;
+      default:
+        break;
+    }
+  }
+
   protected static final Serializer protocolSerializer = Serializer.using(Namespace.builder()
       .register(OpenSessionRequest.class)
       .register(OpenSessionResponse.class)
@@ -445,6 +599,9 @@ public abstract class ClusterManager {
       .register(AppendRequest.class)
       .register(AppendResponse.class)
       .register(PublishRequest.class)
+      .register(PrimitiveEvent.class)
+      .register(DefaultEventType.class)
+      .register(LinkedList.class)
       .register(ResetRequest.class)
       .register(RaftResponse.Status.class)
       .register(RaftError.class)
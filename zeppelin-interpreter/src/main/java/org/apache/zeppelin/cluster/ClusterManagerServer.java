@@ -16,6 +16,7 @@
  */
 package org.apache.zeppelin.cluster;
 
+import com.google.common.util.concurrent.MoreExecutors;
 import io.atomix.cluster.*;
 import io.atomix.cluster.discovery.BootstrapDiscoveryProvider;
 import io.atomix.cluster.impl.DefaultClusterMembershipService;
@@ -37,6 +38,7 @@ import org.apache.thrift.server.TThreadPoolServer;
 import org.apache.thrift.transport.TServerSocket;
 import org.apache.thrift.transport.TSocket;
 import org.apache.thrift.transport.TTransport;
+import org.apache.zeppelin.cluster.event.ClusterEventListener;
 import org.apache.zeppelin.cluster.meta.ClusterMeta;
 import org.apache.zeppelin.cluster.protocol.RaftServerMessagingProtocol;
 import org.apache.zeppelin.conf.ZeppelinConfiguration;
@@ -51,16 +53,22 @@ import java.io.File;
 import java.io.IOException;
 import java.net.SocketException;
 import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
 
+import static org.apache.zeppelin.cluster.meta.ClusterMetaType.IntpProcessMeta;
 import static org.apache.zeppelin.cluster.meta.ClusterMetaType.ServerMeta;
 
 /**
@@ -89,10 +97,29 @@ public class ClusterManagerServer extends ClusterManager
   // Connect to the interpreter process that has been created
   public static String CONNET_EXISTING_PROCESS = "CONNET_EXISTING_PROCESS";
 
+  // Choose the nodes the interpreter processes are launched on
+  private ClusterPlacementScheduler placementScheduler = null;
+
+  // intpGroupId -> placement of the interpreter processes launched by this zeppelin-server
+  private final Map<String, ClusterPlacementRequest> placedRequests = new ConcurrentHashMap<>();
+
+  // Topic of the note and folder changes made on a zeppelin-server
+  public static String CLUSTER_NOTE_EVENT_TOPIC = "CLUSTER_NOTE_EVENT_TOPIC";
+
+  // Topic of the websocket messages forwarded to the zeppelin-servers watching a note
+  public static String CLUSTER_CONNECTION_EVENT_TOPIC = "CLUSTER_CONNECTION_EVENT_TOPIC";
+
+  // topic -> listeners of the events broadcast by the other zeppelin-servers
+  private final Map<String, List<ClusterEventListener>> clusterEventListeners = new HashMap<>();
+
+  // Cluster events are handled one by one, in the order they are received
+  private final ExecutorService clusterEventExecutor = Executors.newSingleThreadExecutor();
+
   private ClusterManagerServer() {
     super();
 
     clusterManagerProcessor = new ClusterManagerService.Processor<>(this);
+    placementScheduler = new ClusterPlacementScheduler(zconf);
 
     deleteRaftSystemData();
   }
@@ -113,11 +140,12 @@ public class ClusterManagerServer extends ClusterManager
 
     this.interpreterFactory = interpreterFactory;
 
-    initThread();
-
     // Instantiated raftServer monitoring class
     String clusterName = getClusterNodeName();
     clusterMonitor = new ClusterMonitor(this);
+
+    initThread();
+
     clusterMonitor.start(ServerMeta, clusterName);
 
     super.start();
@@ -184,8 +212,14 @@ public class ClusterManagerServer extends ClusterManager
             .build();
         messagingService = NettyMessagingService.builder()
             .withAddress(address).build().start().join();
+        // heartbeats of the zeppelin-servers and interpreter processes
+        messagingService.registerHandler(ClusterMonitor.HEARTBEAT_TOPIC,
+            (BiConsumer<Address, byte[]>) (sender, payload) -> onHeartbeat(payload),
+            MoreExecutors.directExecutor());
+        registerClusterEventHandlers();
         RaftServerProtocol protocol = new RaftServerMessagingProtocol(
-            messagingService, ClusterManager.protocolSerializer, raftAddressMap::get);
+            messagingService, ClusterManager.protocolSerializer,
+            ClusterManagerServer.this::getMemberAddress);
 
         BootstrapService bootstrapService = new BootstrapService() {
           @Override
@@ -292,10 +326,96 @@ public class ClusterManagerServer extends ClusterManager
     }
 
     clusterManagerTserver.stop();
+    clusterEventExecutor.shutdownNow();
 
     super.shutdown();
   }
 
+  // Listen to the events of a topic broadcast by the other zeppelin-servers
+  public void addClusterEventListeners(String topic, ClusterEventListener listener) {
+    synchronized (clusterEventListeners) {
+      List<ClusterEventListener> listeners = clusterEventListeners.get(topic);
+      if (null == listeners) {
+        listeners = new ArrayList<>();
+        clusterEventListeners.put(topic, listeners);
+        if (null != messagingService) {
+          registerClusterEventHandler(topic);
+        }
+      }
+      listeners.add(listener);
+    }
+  }
+
+  // Send an event to all the other zeppelin-servers of the cluster.
+  // The events are not committed to the raft log, a server which is not reachable
+  // misses them, the messaging service keeps the order of the events sent to a server.
+  public void broadcastClusterEvent(String topic, String msg) {
+    MessagingService service = messagingService;
+    if (null == service) {
+      LOGGER.warn("Messaging service is not started, cluster event {} is not sent", msg);
+      return;
+    }
+
+    Address localAddress = Address.from(zeplServerHost, raftServerPort);
+    byte[] payload = msg.getBytes(StandardCharsets.UTF_8);
+    for (Node node : clusterNodes) {
+      if (localAddress.equals(node.address())) {
+        continue;
+      }
+      sendClusterEvent(service, node.address(), topic, payload);
+    }
+  }
+
+  // Send an event to one zeppelin-server of the cluster, nodeName is its host:port
+  public void sendClusterEvent(String nodeName, String topic, String msg) {
+    MessagingService service = messagingService;
+    if (null == service) {
+      LOGGER.warn("Messaging service is not started, cluster event {} is not sent", msg);
+      return;
+    }
+
+    for (Node node : clusterNodes) {
+      if (node.id().id().equals(nodeName)) {
+        sendClusterEvent(service, node.address(), topic, msg.getBytes(StandardCharsets.UTF_8));
+        return;
+      }
+    }
+    LOGGER.warn("Unknown cluster node {}, cluster event is not sent", nodeName);
+  }
+
+  private void sendClusterEvent(MessagingService service, Address address,
+                                String topic, byte[] payload) {
+    service.sendAsync(address, topic, payload).exceptionally(e -> {
+      LOGGER.warn("Fail to send cluster event to {}: {}", address, e.getMessage());
+      return null;
+    });
+  }
+
+  private void registerClusterEventHandlers() {
+    synchronized (clusterEventListeners) {
+      for (String topic : clusterEventListeners.keySet()) {
+        registerClusterEventHandler(topic);
+      }
+    }
+  }
+
+  private void registerClusterEventHandler(String topic) {
+    messagingService.registerHandler(topic, (BiConsumer<Address, byte[]>) (sender, payload) -> {
+      String msg = new String(payload, StandardCharsets.UTF_8);
+      List<ClusterEventListener> listeners;
+      synchronized (clusterEventListeners) {
+        listeners = new ArrayList<>(clusterEventListeners.get(topic));
+      }
+      for (ClusterEventListener listener : listeners) {
+        try {
+          listener.onClusterEvent(msg);
+        } catch (Exception e) {
+          LOGGER.error("Fail to handle cluster event " + msg + " from " + sender, e);
+        }
+      }
+    }, clusterEventExecutor);
+  }
+
   public boolean openRemoteInterpreterProcess(
       String host, int port, final ClusterIntpProcParameters clusterIntpProcParameters)
       throws TException {
@@ -318,30 +438,51 @@ public class ClusterManagerServer extends ClusterManager
     return true;
   }
 
-  // Obtain the server node whose resources are idle in the cluster
-  public HashMap<String, Object> getIdleNodeMeta() {
-    HashMap<String, Object> idleNodeMeta = null;
-    HashMap<String, HashMap<String, Object>> clusterMeta = getClusterMeta(ServerMeta, "");
-
-    long memoryIdle = 0;
-    for (Map.Entry<String, HashMap<String, Object>> entry : clusterMeta.entrySet()) {
-      HashMap<String, Object> meta = entry.getValue();
-      // Check if the service or process is offline
-      String status = (String) meta.get(ClusterMeta.STATUS);
-      if (null == status || StringUtils.isEmpty(status)
-          || status.equals(ClusterMeta.OFFLINE_STATUS)) {
-        continue;
-      }
+  // Choose the node an interpreter process is launched on, its resources are reserved
+  // on the node until releaseIntpProcess is called, or the reservation times out.
+  public HashMap<String, Object> getIdleNodeMeta(ClusterPlacementRequest request) {
+    HashMap<String, HashMap<String, Object>> serverMeta = getClusterMeta(ServerMeta, "");
+    HashMap<String, HashMap<String, Object>> intpProcessMeta
+        = getClusterMeta(IntpProcessMeta, "");
+
+    String nodeName = placementScheduler.place(request, serverMeta, intpProcessMeta);
+    if (null == nodeName) {
+      LOGGER.warn("No node of the cluster can host {}", request);
+      return null;
+    }
+    placedRequests.put(request.getIntpGroupId(), request);
+    LOGGER.info("Place {} on node {}", request, nodeName);
+    return serverMeta.get(nodeName);
+  }
 
-      long memoryCapacity  = (long) meta.get(ClusterMeta.MEMORY_CAPACITY);
-      long memoryUsed      = (long) meta.get(ClusterMeta.MEMORY_USED);
-      long idle = memoryCapacity - memoryUsed;
-      if (idle > memoryIdle) {
-        memoryIdle = idle;
-        idleNodeMeta = meta;
-      }
+  // Called when an interpreter process placed by getIdleNodeMeta registers,
+  // the following processes are placed according to the affinity with its
+  // interpreter setting and user.
+  public void putIntpProcessMeta(String intpGroupId, String host, int port) {
+    ClusterPlacementRequest request = placedRequests.get(intpGroupId);
+    if (null == request) {
+      return;
+    }
+
+    HashMap<String, Object> meta = new HashMap<>();
+    meta.put(ClusterMeta.INTP_TSERVER_HOST, host);
+    meta.put(ClusterMeta.INTP_TSERVER_PORT, port);
+    meta.put(ClusterMeta.INTP_START_TIME, new Date());
+    if (null != request.getInterpreterSettingName()) {
+      meta.put(ClusterMeta.INTP_SETTING_NAME, request.getInterpreterSettingName());
     }
+    if (null != request.getUser()) {
+      meta.put(ClusterMeta.INTP_USER, request.getUser());
+    }
+    meta.put(ClusterMeta.STATUS, ClusterMeta.ONLINE_STATUS);
+    putClusterMeta(IntpProcessMeta, intpGroupId, meta);
+  }
 
-    return idleNodeMeta;
+  // The interpreter process placed by getIdleNodeMeta stopped, or failed to launch
+  public void releaseIntpProcess(String intpGroupId) {
+    placementScheduler.release(intpGroupId);
+    if (null != placedRequests.remove(intpGroupId)) {
+      deleteClusterMeta(IntpProcessMeta, intpGroupId);
+    }
   }
 }
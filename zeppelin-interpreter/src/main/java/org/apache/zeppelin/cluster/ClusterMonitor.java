@@ -17,6 +17,7 @@
 package org.apache.zeppelin.cluster;
 
 import com.sun.management.OperatingSystemMXBean;
+import io.atomix.cluster.impl.PhiAccrualFailureDetector;
 import org.apache.zeppelin.cluster.meta.ClusterMeta;
 import org.apache.zeppelin.cluster.meta.ClusterMetaType;
 import org.apache.zeppelin.conf.ZeppelinConfiguration;
@@ -25,6 +26,7 @@ import org.slf4j.LoggerFactory;
 
 import java.lang.management.ManagementFactory;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.apache.zeppelin.cluster.meta.ClusterMetaType.IntpProcessMeta;
@@ -37,10 +39,18 @@ import static org.apache.zeppelin.cluster.meta.ClusterMetaType.ServerMeta;
  * 2. Report the average of the server resource CPU and MEMORY usage in the
  *    last few minutes to smooth the server's instantaneous peak
  * 3. checks the heartbeat timeout of the zeppelin-server and interperter processes
+ *
+ * Heartbeats and resource usage are sent to each zeppelin-server through the messaging
+ * service, every zeppelin-server keeps them in memory with a phi accrual failure detector
+ * per process. Only the online / offline transitions are committed to the raft log,
+ * by the cluster leader.
  */
 public class ClusterMonitor {
   private static Logger LOGGER = LoggerFactory.getLogger(ClusterMonitor.class);
 
+  // Messaging topic of the heartbeats
+  public static final String HEARTBEAT_TOPIC = "ZEPPELIN_CLUSTER_HEARTBEAT";
+
   // Whether the thread has started
   private static AtomicBoolean running = new AtomicBoolean(true);
 
@@ -58,6 +68,18 @@ public class ClusterMonitor {
   // can have an exception and no heartbeat is reported.
   private int heartbeatTimeout = 9000;
 
+  // Once the heartbeat timeout is exceeded, a process is only considered as offline
+  // if the suspicion level of the failure detector also exceeds this threshold,
+  // so that a process whose heartbeats are usually late gets more time.
+  private double phiThreshold = 8.0;
+
+  // Number of heartbeats a failure detector needs before its suspicion level is used
+  private static final int FAILURE_DETECTOR_MIN_SAMPLES = 3;
+  private static final int FAILURE_DETECTOR_WINDOW_SIZE = 100;
+
+  // Processes which have been offline for this number of heartbeat timeouts are forgotten
+  private static final int FORGET_OFFLINE_TIMEOUTS = 10;
+
   // Type of cluster monitoring object
   private ClusterMetaType clusterMetaType;
 
@@ -66,12 +88,20 @@ public class ClusterMonitor {
   // and the interperterGroupID when monitoring the interperter processes
   private String metaKey;
 
+  // Heartbeats received by this zeppelin-server, by meta type and key
+  private Map<ClusterMetaType, Map<String, MemberHeartbeat>> memberHeartbeats
+      = new EnumMap<>(ClusterMetaType.class);
+
+  // Whether this zeppelin-server was the cluster leader at the last health check
+  private boolean leader = false;
+
   public ClusterMonitor(ClusterManager clusterManagerServer) {
     this.clusterManager = clusterManagerServer;
 
     ZeppelinConfiguration zconf = new ZeppelinConfiguration();
     heartbeatInterval = zconf.getClusterHeartbeatInterval();
     heartbeatTimeout = zconf.getClusterHeartbeatTimeout();
+    phiThreshold = zconf.getClusterHeartbeatPhiThreshold();
 
     if (heartbeatTimeout < heartbeatInterval) {
       LOGGER.error("Heartbeat timeout must be greater than heartbeat period.");
@@ -82,6 +112,10 @@ public class ClusterMonitor {
     if (heartbeatTimeout < heartbeatInterval * 3) {
       LOGGER.warn("Heartbeat timeout recommended than 3 times the heartbeat period.");
     }
+
+    for (ClusterMetaType metaType : ClusterMetaType.values()) {
+      memberHeartbeats.put(metaType, new ConcurrentHashMap<>());
+    }
   }
 
   //
@@ -120,47 +154,126 @@ public class ClusterMonitor {
     running.set(false);
   }
 
+  // Called when a heartbeat of a zeppelin-server or interperter process is received
+  public void onHeartbeat(ClusterMetaType metaType, String key, HashMap<String, Object> values) {
+    MemberHeartbeat member = memberHeartbeats.get(metaType).get(key);
+    if (null == member) {
+      member = new MemberHeartbeat();
+      MemberHeartbeat previous = memberHeartbeats.get(metaType).putIfAbsent(key, member);
+      if (null != previous) {
+        member = previous;
+      }
+    }
+    member.report(values);
+  }
+
+  // Adds the last heartbeat values (resource usage, heartbeat time) received by this
+  // zeppelin-server to the metadata read from the cluster
+  public void mergeHeartbeats(ClusterMetaType metaType,
+                              Map<String, HashMap<String, Object>> clusterMeta) {
+    for (Map.Entry<String, HashMap<String, Object>> entry : clusterMeta.entrySet()) {
+      MemberHeartbeat member = memberHeartbeats.get(metaType).get(entry.getKey());
+      if (null != member && null != entry.getValue() && null != member.values) {
+        entry.getValue().putAll(member.values);
+      }
+    }
+  }
+
   // Check the healthy of each service and interperter instance
   private void checkHealthy() {
+    long now = System.currentTimeMillis();
     // only leader check cluster healthy
     if (!clusterManager.isClusterLeader()) {
+      if (leader) {
+        // the new leader commits the status transitions
+        for (ClusterMetaType metaType : ClusterMetaType.values()) {
+          for (MemberHeartbeat member : memberHeartbeats.get(metaType).values()) {
+            member.status = null;
+          }
+        }
+        leader = false;
+      }
+      forgetOfflineMembers(now);
       return;
     }
 
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("checkHealthy()");
     }
-    Date now = new Date();
-    // check machine mate
+
+    if (!leader) {
+      if (!clusterManager.raftInitialized()) {
+        return;
+      }
+      takeOverOnlineMembers();
+      leader = true;
+    }
+
+    for (ClusterMetaType metaType : ClusterMetaType.values()) {
+      for (Map.Entry<String, MemberHeartbeat> entry : memberHeartbeats.get(metaType).entrySet()) {
+        String key = entry.getKey();
+        MemberHeartbeat member = entry.getValue();
+
+        if (member.isAlive(now)) {
+          if (!ClusterMeta.ONLINE_STATUS.equals(member.status)) {
+            HashMap<String, Object> mapValues = member.getAddressValues();
+            mapValues.put(ClusterMeta.STATUS, ClusterMeta.ONLINE_STATUS);
+            mapValues.put(ClusterMeta.HEARTBEAT, new Date(member.lastHeartbeat));
+            clusterManager.putClusterMeta(metaType, key, mapValues);
+            member.status = ClusterMeta.ONLINE_STATUS;
+            LOGGER.info("online meta[{}]", key);
+          }
+        } else if (ClusterMeta.ONLINE_STATUS.equals(member.status)) {
+          // Set the metadata for the heartbeat timeout to offline
+          // Cannot delete metadata
+          HashMap<String, Object> mapValues = member.getAddressValues();
+          mapValues.put(ClusterMeta.STATUS, ClusterMeta.OFFLINE_STATUS);
+          clusterManager.putClusterMeta(metaType, key, mapValues);
+          member.status = ClusterMeta.OFFLINE_STATUS;
+          LOGGER.warn("offline heartbeat timeout[{}] meta[{}]",
+              new Date(member.lastHeartbeat), key);
+        }
+      }
+    }
+    forgetOfflineMembers(now);
+  }
+
+  // Processes that stopped sending heartbeats for a long time are removed from the memory,
+  // the leader keeps them until their offline status is committed.
+  private void forgetOfflineMembers(long now) {
+    long forgetTimeout = (long) heartbeatTimeout * FORGET_OFFLINE_TIMEOUTS;
+    for (ClusterMetaType metaType : ClusterMetaType.values()) {
+      Iterator<MemberHeartbeat> iterator = memberHeartbeats.get(metaType).values().iterator();
+      while (iterator.hasNext()) {
+        MemberHeartbeat member = iterator.next();
+        if (now - member.lastHeartbeat > forgetTimeout
+            && !ClusterMeta.ONLINE_STATUS.equals(member.status)) {
+          iterator.remove();
+        }
+      }
+    }
+  }
+
+  // A new leader watches the processes that are online in the cluster metadata,
+  // even the ones which have not sent a heartbeat to this zeppelin-server yet.
+  private void takeOverOnlineMembers() {
     for (ClusterMetaType metaType : ClusterMetaType.values()) {
       Map<String, HashMap<String, Object>> clusterMeta
-          = clusterManager.getClusterMeta(metaType, "");
+          = clusterManager.getLinearizableClusterMeta(metaType, "");
 
       for (Map.Entry<String, HashMap<String, Object>> entry : clusterMeta.entrySet()) {
-        String key = entry.getKey();
         Map<String, Object> meta = entry.getValue();
-
-        // Metadata that has been offline is not processed
-        String status = (String) meta.get(ClusterMeta.STATUS);
-        if (status.equals(ClusterMeta.OFFLINE_STATUS)) {
+        if (null == meta || !ClusterMeta.ONLINE_STATUS.equals(meta.get(ClusterMeta.STATUS))) {
           continue;
         }
-
-        Object heartbeat = meta.get(ClusterMeta.HEARTBEAT);
-        if (heartbeat instanceof Date) {
-          Date dHeartbeat = (Date) heartbeat;
-          long diff = now.getTime() - dHeartbeat.getTime();
-          if (diff > heartbeatTimeout) {
-            // Set the metadata for the heartbeat timeout to offline
-            // Cannot delete metadata
-            HashMap<String, Object> mapValues = new HashMap<>();
-            mapValues.put(ClusterMeta.STATUS, ClusterMeta.OFFLINE_STATUS);
-            clusterManager.putClusterMeta(metaType, key, mapValues);
-            LOGGER.warn("offline heartbeat timeout[{}] meta[{}]", dHeartbeat, key);
-          }
-        } else {
-          LOGGER.error("wrong data type");
+        MemberHeartbeat member = new MemberHeartbeat();
+        member.values = new HashMap<>(meta);
+        MemberHeartbeat previous
+            = memberHeartbeats.get(metaType).putIfAbsent(entry.getKey(), member);
+        if (null != previous) {
+          member = previous;
         }
+        member.status = ClusterMeta.ONLINE_STATUS;
       }
     }
   }
@@ -170,9 +283,8 @@ public class ClusterMonitor {
   private void sendHeartbeat() {
     HashMap<String, Object> mapMonitorUtil = new HashMap<>();
     mapMonitorUtil.put(ClusterMeta.HEARTBEAT, new Date());
-    mapMonitorUtil.put(ClusterMeta.STATUS, ClusterMeta.ONLINE_STATUS);
 
-    clusterManager.putClusterMeta(IntpProcessMeta, metaKey, mapMonitorUtil);
+    clusterManager.sendHeartbeat(IntpProcessMeta, metaKey, mapMonitorUtil);
   }
 
   // send the usage of each service
@@ -209,10 +321,9 @@ public class ClusterMonitor {
     mapMonitorUtil.put(ClusterMeta.CPU_USED, avgMonitorUtil.cpuUsed);
     mapMonitorUtil.put(ClusterMeta.CPU_CAPACITY, avgMonitorUtil.cpuCapacity);
     mapMonitorUtil.put(ClusterMeta.HEARTBEAT, new Date());
-    mapMonitorUtil.put(ClusterMeta.STATUS, ClusterMeta.ONLINE_STATUS);
 
     String clusterName = clusterManager.getClusterNodeName();
-    clusterManager.putClusterMeta(ServerMeta, clusterName, mapMonitorUtil);
+    clusterManager.sendHeartbeat(ServerMeta, clusterName, mapMonitorUtil);
   }
 
   private UsageUtil getMachineUsage() {
@@ -245,4 +356,51 @@ public class ClusterMonitor {
     private long cpuUsed = 0;
     private long cpuCapacity = 0;
   }
+
+  // Heartbeats of a zeppelin-server or interperter process
+  private class MemberHeartbeat {
+    private final PhiAccrualFailureDetector failureDetector = PhiAccrualFailureDetector.builder()
+        .withMinSamples(FAILURE_DETECTOR_MIN_SAMPLES)
+        .withWindowSize(FAILURE_DETECTOR_WINDOW_SIZE)
+        .build();
+    private volatile int samples = 0;
+    private volatile long lastHeartbeat = System.currentTimeMillis();
+    // last values sent with the heartbeat
+    private volatile HashMap<String, Object> values = null;
+    // status committed to the cluster metadata by this zeppelin-server, when it is the leader
+    private String status = null;
+
+    private synchronized void report(HashMap<String, Object> values) {
+      lastHeartbeat = System.currentTimeMillis();
+      failureDetector.report(lastHeartbeat);
+      samples++;
+      this.values = values;
+    }
+
+    private synchronized boolean isAlive(long now) {
+      if (now - lastHeartbeat <= heartbeatTimeout) {
+        return true;
+      }
+      // not enough heartbeats to know the usual heartbeat interval of the process
+      if (samples < FAILURE_DETECTOR_MIN_SAMPLES) {
+        return false;
+      }
+      return failureDetector.phi() < phiThreshold;
+    }
+
+    // host and port of the zeppelin-server of the process
+    private HashMap<String, Object> getAddressValues() {
+      HashMap<String, Object> mapValues = new HashMap<>();
+      HashMap<String, Object> lastValues = values;
+      if (null != lastValues) {
+        if (lastValues.containsKey(ClusterMeta.SERVER_HOST)) {
+          mapValues.put(ClusterMeta.SERVER_HOST, lastValues.get(ClusterMeta.SERVER_HOST));
+        }
+        if (lastValues.containsKey(ClusterMeta.SERVER_PORT)) {
+          mapValues.put(ClusterMeta.SERVER_PORT, lastValues.get(ClusterMeta.SERVER_PORT));
+        }
+      }
+      return mapValues;
+    }
+  }
 }
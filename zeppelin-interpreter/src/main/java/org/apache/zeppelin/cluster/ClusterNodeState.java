@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.zeppelin.cluster;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resources of a node of the cluster as seen by the placement policy:
+ * the last usage report of the node, plus the launches in flight on it.
+ */
+public class ClusterNodeState {
+  private final String nodeName;
+  private final long memoryCapacity;
+  private final long cpuCapacity;
+  private long memoryUsed;
+  private long cpuUsed;
+  private int processCount = 0;
+
+  // interpreter setting name / user -> number of interpreter processes on the node
+  private final Map<String, Integer> settingProcessCounts = new HashMap<>();
+  private final Map<String, Integer> userProcessCounts = new HashMap<>();
+
+  public ClusterNodeState(String nodeName, long memoryCapacity, long memoryUsed,
+                          long cpuCapacity, long cpuUsed) {
+    this.nodeName = nodeName;
+    this.memoryCapacity = memoryCapacity;
+    this.memoryUsed = memoryUsed;
+    this.cpuCapacity = cpuCapacity;
+    this.cpuUsed = cpuUsed;
+  }
+
+  // An interpreter process running or being launched on the node
+  public void addProcess(String interpreterSettingName, String user) {
+    processCount++;
+    if (null != interpreterSettingName) {
+      settingProcessCounts.merge(interpreterSettingName, 1, Integer::sum);
+    }
+    if (null != user) {
+      userProcessCounts.merge(user, 1, Integer::sum);
+    }
+  }
+
+  // Resources reserved for a launch, not yet included in the usage reports
+  public void reserve(long memory, long cpu) {
+    memoryUsed += memory;
+    cpuUsed += cpu;
+  }
+
+  public String getNodeName() {
+    return nodeName;
+  }
+
+  public long getMemoryCapacity() {
+    return memoryCapacity;
+  }
+
+  public long getMemoryUsed() {
+    return memoryUsed;
+  }
+
+  public long getMemoryFree() {
+    return Math.max(0, memoryCapacity - memoryUsed);
+  }
+
+  public long getCpuCapacity() {
+    return cpuCapacity;
+  }
+
+  public long getCpuUsed() {
+    return cpuUsed;
+  }
+
+  public long getCpuFree() {
+    return Math.max(0, cpuCapacity - cpuUsed);
+  }
+
+  public int getProcessCount() {
+    return processCount;
+  }
+
+  public int getSettingProcessCount(String interpreterSettingName) {
+    Integer count = settingProcessCounts.get(interpreterSettingName);
+    return null == count ? 0 : count;
+  }
+
+  public int getUserProcessCount(String user) {
+    Integer count = userProcessCounts.get(user);
+    return null == count ? 0 : count;
+  }
+}
@@ -0,0 +1,34 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.zeppelin.cluster;
+
+import java.util.List;
+
+/**
+ * Chooses the node of the cluster an interpreter process is launched on.
+ * The implementation is set by zeppelin.cluster.placement.policy, it must have a public
+ * constructor taking a ZeppelinConfiguration.
+ */
+public interface ClusterPlacementPolicy {
+
+  /**
+   * @param request the interpreter process to launch
+   * @param nodes the online nodes, their usage includes the launches in flight
+   * @return the name of the node, null if no node can host the process
+   */
+  String selectNode(ClusterPlacementRequest request, List<ClusterNodeState> nodes);
+}
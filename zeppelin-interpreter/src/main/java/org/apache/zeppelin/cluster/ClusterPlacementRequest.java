@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.zeppelin.cluster;
+
+/**
+ * Launch of an interpreter process to place on a node of the cluster
+ */
+public class ClusterPlacementRequest {
+  // Resources reserved on the node until its usage reports include the process
+  public static final long DEFAULT_MEMORY = 1024L * 1024 * 1024;
+  public static final long DEFAULT_CPU = 100; // one core, same unit as ClusterMeta.CPU_USED
+
+  // The key of the interpreter process meta
+  private final String intpGroupId;
+  private final String interpreterSettingName;
+  private final String user;
+  private final long memory;
+  private final long cpu;
+
+  public ClusterPlacementRequest(String intpGroupId, String interpreterSettingName,
+                                 String user) {
+    this(intpGroupId, interpreterSettingName, user, DEFAULT_MEMORY, DEFAULT_CPU);
+  }
+
+  public ClusterPlacementRequest(String intpGroupId, String interpreterSettingName,
+                                 String user, long memory, long cpu) {
+    this.intpGroupId = intpGroupId;
+    this.interpreterSettingName = interpreterSettingName;
+    this.user = user;
+    this.memory = memory;
+    this.cpu = cpu;
+  }
+
+  public String getIntpGroupId() {
+    return intpGroupId;
+  }
+
+  public String getInterpreterSettingName() {
+    return interpreterSettingName;
+  }
+
+  public String getUser() {
+    return user;
+  }
+
+  public long getMemory() {
+    return memory;
+  }
+
+  public long getCpu() {
+    return cpu;
+  }
+
+  @Override
+  public String toString() {
+    return "ClusterPlacementRequest{intpGroupId='" + intpGroupId
+        + "', interpreterSettingName='" + interpreterSettingName
+        + "', user='" + user + "', memory=" + memory + ", cpu=" + cpu + "}";
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.zeppelin.cluster;
+
+import org.apache.zeppelin.cluster.meta.ClusterMeta;
+import org.apache.zeppelin.conf.ZeppelinConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Places the interpreter processes on the nodes of the cluster with a ClusterPlacementPolicy.
+ *
+ * The usage of the nodes is only reported every heartbeat interval, and averaged, so the
+ * resources of each placed process are reserved on its node for the reservation timeout.
+ * Otherwise a burst of launches would land on the same node before its next usage report.
+ */
+public class ClusterPlacementScheduler {
+  private static Logger LOGGER = LoggerFactory.getLogger(ClusterPlacementScheduler.class);
+
+  private final ClusterPlacementPolicy policy;
+  private final long reservationTimeout;
+  private final LongSupplier clock;
+
+  // launches in flight
+  private final List<Reservation> reservations = new ArrayList<>();
+
+  public ClusterPlacementScheduler(ZeppelinConfiguration zconf) {
+    this(createPolicy(zconf), zconf.getClusterPlacementReservationTimeout(),
+        System::currentTimeMillis);
+  }
+
+  public ClusterPlacementScheduler(ClusterPlacementPolicy policy, long reservationTimeout,
+                                   LongSupplier clock) {
+    this.policy = policy;
+    this.reservationTimeout = reservationTimeout;
+    this.clock = clock;
+  }
+
+  public static ClusterPlacementPolicy createPolicy(ZeppelinConfiguration zconf) {
+    String className = zconf.getClusterPlacementPolicy();
+    try {
+      return (ClusterPlacementPolicy) Class.forName(className)
+          .getConstructor(ZeppelinConfiguration.class).newInstance(zconf);
+    } catch (Exception e) {
+      LOGGER.error("Fail to create the placement policy " + className
+          + ", use WeightedClusterPlacementPolicy", e);
+      return new WeightedClusterPlacementPolicy(zconf);
+    }
+  }
+
+  public ClusterPlacementPolicy getPolicy() {
+    return policy;
+  }
+
+  /**
+   * Selects the node of an interpreter process and reserves its resources on it.
+   *
+   * @return the name of the node, null if no node can host the process
+   */
+  public synchronized String place(ClusterPlacementRequest request,
+                                   Map<String, HashMap<String, Object>> serverMeta,
+                                   Map<String, HashMap<String, Object>> intpProcessMeta) {
+    List<ClusterNodeState> nodes = getNodeStates(serverMeta, intpProcessMeta);
+    String nodeName = policy.selectNode(request, nodes);
+    if (null != nodeName) {
+      reservations.add(new Reservation(nodeName, request, clock.getAsLong()));
+    }
+    return nodeName;
+  }
+
+  // The launch of the interpreter process failed, or it already stopped
+  public synchronized void release(String intpGroupId) {
+    Iterator<Reservation> iterator = reservations.iterator();
+    while (iterator.hasNext()) {
+      if (Objects.equals(iterator.next().request.getIntpGroupId(), intpGroupId)) {
+        iterator.remove();
+      }
+    }
+  }
+
+  public synchronized int getReservationCount() {
+    expireReservations();
+    return reservations.size();
+  }
+
+  /**
+   * @return the online nodes of the cluster, sorted by name, with their interpreter processes
+   *         and the resources reserved for the launches in flight
+   */
+  public synchronized List<ClusterNodeState> getNodeStates(
+      Map<String, HashMap<String, Object>> serverMeta,
+      Map<String, HashMap<String, Object>> intpProcessMeta) {
+    expireReservations();
+
+    Map<String, ClusterNodeState> nodes = new TreeMap<>();
+    for (Map.Entry<String, HashMap<String, Object>> entry : serverMeta.entrySet()) {
+      Map<String, Object> meta = entry.getValue();
+      // The resource usage is only known once a heartbeat of the server is received
+      if (null == meta || !isOnline(meta)
+          || !(meta.get(ClusterMeta.MEMORY_CAPACITY) instanceof Number)
+          || !(meta.get(ClusterMeta.MEMORY_USED) instanceof Number)) {
+        continue;
+      }
+      nodes.put(entry.getKey(), new ClusterNodeState(entry.getKey(),
+          getLong(meta, ClusterMeta.MEMORY_CAPACITY), getLong(meta, ClusterMeta.MEMORY_USED),
+          getLong(meta, ClusterMeta.CPU_CAPACITY), getLong(meta, ClusterMeta.CPU_USED)));
+    }
+
+    for (Map<String, Object> meta : intpProcessMeta.values()) {
+      if (null == meta || !isOnline(meta)) {
+        continue;
+      }
+      ClusterNodeState node = nodes.get(getNodeName(meta));
+      if (null != node) {
+        node.addProcess((String) meta.get(ClusterMeta.INTP_SETTING_NAME),
+            (String) meta.get(ClusterMeta.INTP_USER));
+      }
+    }
+
+    for (Reservation reservation : reservations) {
+      ClusterNodeState node = nodes.get(reservation.nodeName);
+      if (null == node) {
+        continue;
+      }
+      ClusterPlacementRequest request = reservation.request;
+      node.reserve(request.getMemory(), request.getCpu());
+      Map<String, Object> meta = intpProcessMeta.get(request.getIntpGroupId());
+      if (null == meta || !isOnline(meta)) {
+        node.addProcess(request.getInterpreterSettingName(), request.getUser());
+      }
+    }
+
+    return new ArrayList<>(nodes.values());
+  }
+
+  private void expireReservations() {
+    long now = clock.getAsLong();
+    Iterator<Reservation> iterator = reservations.iterator();
+    while (iterator.hasNext()) {
+      if (now - iterator.next().time >= reservationTimeout) {
+        iterator.remove();
+      }
+    }
+  }
+
+  private static boolean isOnline(Map<String, Object> meta) {
+    return ClusterMeta.ONLINE_STATUS.equals(meta.get(ClusterMeta.STATUS));
+  }
+
+  // cluster_name = host:port
+  public static String getNodeName(Map<String, Object> meta) {
+    return meta.get(ClusterMeta.SERVER_HOST) + ":" + meta.get(ClusterMeta.SERVER_PORT);
+  }
+
+  private static long getLong(Map<String, Object> meta, String key) {
+    Object value = meta.get(key);
+    return value instanceof Number ? ((Number) value).longValue() : 0;
+  }
+
+  private static class Reservation {
+    private final String nodeName;
+    private final ClusterPlacementRequest request;
+    private final long time;
+
+    Reservation(String nodeName, ClusterPlacementRequest request, long time) {
+      this.nodeName = nodeName;
+      this.request = request;
+      this.time = time;
+    }
+  }
+}
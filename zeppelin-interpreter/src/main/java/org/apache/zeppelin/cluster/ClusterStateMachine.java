@@ -17,12 +17,14 @@
 package org.apache.zeppelin.cluster;
 
 import com.google.common.collect.Maps;
+import io.atomix.primitive.event.EventType;
 import io.atomix.primitive.operation.OperationId;
 import io.atomix.primitive.service.AbstractPrimitiveService;
 import io.atomix.primitive.service.BackupOutput;
 import io.atomix.primitive.service.BackupInput;
 import io.atomix.primitive.service.Commit;
 import io.atomix.primitive.service.ServiceExecutor;
+import io.atomix.primitive.session.Session;
 import io.atomix.utils.serializer.Serializer;
 import org.apache.zeppelin.cluster.meta.ClusterMeta;
 import org.apache.zeppelin.cluster.meta.ClusterMetaEntity;
@@ -48,6 +50,9 @@ public class ClusterStateMachine extends AbstractPrimitiveService {
   public static final OperationId REMOVE = OperationId.command("remove");
   public static final OperationId INDEX = OperationId.command("index");
 
+  // Event published to every session when the metadata changes
+  public static final EventType CHANGE = EventType.from("change");
+
   public ClusterStateMachine() {
     super(ClusterPrimitiveType.INSTANCE);
   }
@@ -68,6 +73,7 @@ public class ClusterStateMachine extends AbstractPrimitiveService {
   protected long put(Commit<ClusterMetaEntity> commit) {
     clusterMeta.put(commit.value().getMetaType(),
         commit.value().getKey(), commit.value().getValues());
+    publishChange(commit.value());
     return commit.index();
   }
 
@@ -77,9 +83,17 @@ public class ClusterStateMachine extends AbstractPrimitiveService {
 
   protected long remove(Commit<ClusterMetaEntity> commit) {
     clusterMeta.remove(commit.value().getMetaType(), commit.value().getKey());
+    publishChange(commit.value());
     return commit.index();
   }
 
+  // Each node keeps a local view of the metadata, updated by these events
+  private void publishChange(ClusterMetaEntity entity) {
+    for (Object session : getSessions()) {
+      ((Session) session).publish(CHANGE, entity);
+    }
+  }
+
   protected long index(Commit<Void> commit) {
     return commit.index();
   }
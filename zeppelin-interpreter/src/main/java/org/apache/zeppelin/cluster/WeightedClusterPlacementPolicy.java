@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.zeppelin.cluster;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.zeppelin.conf.ZeppelinConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Placement policy scoring each node by a weighted sum of:
+ * - memory: free memory ratio of the node once the process is launched
+ * - cpu: free cpu ratio of the node once the process is launched
+ * - process: fewer interpreter processes than the most loaded node
+ * - user: interpreter processes of the same user on the node,
+ *   a positive weight is an affinity and a negative weight an anti-affinity
+ * - setting: interpreter processes of the same interpreter setting on the node,
+ *   a positive weight is an affinity and a negative weight an anti-affinity
+ *
+ * The weights are set by zeppelin.cluster.placement.weights, e.g.
+ * memory=0.4,cpu=0.3,process=0.3,user=0.1,setting=-0.1
+ * Nodes without enough free memory for the process are never selected.
+ */
+public class WeightedClusterPlacementPolicy implements ClusterPlacementPolicy {
+  private static Logger LOGGER = LoggerFactory.getLogger(WeightedClusterPlacementPolicy.class);
+
+  public static final String MEMORY_WEIGHT = "memory";
+  public static final String CPU_WEIGHT = "cpu";
+  public static final String PROCESS_WEIGHT = "process";
+  public static final String USER_WEIGHT = "user";
+  public static final String SETTING_WEIGHT = "setting";
+
+  private final double memoryWeight;
+  private final double cpuWeight;
+  private final double processWeight;
+  private final double userWeight;
+  private final double settingWeight;
+
+  public WeightedClusterPlacementPolicy(ZeppelinConfiguration zconf) {
+    this(parseWeights(zconf.getClusterPlacementWeights()));
+  }
+
+  public WeightedClusterPlacementPolicy(Map<String, Double> weights) {
+    this.memoryWeight = getWeight(weights, MEMORY_WEIGHT);
+    this.cpuWeight = getWeight(weights, CPU_WEIGHT);
+    this.processWeight = getWeight(weights, PROCESS_WEIGHT);
+    this.userWeight = getWeight(weights, USER_WEIGHT);
+    this.settingWeight = getWeight(weights, SETTING_WEIGHT);
+  }
+
+  @Override
+  public String selectNode(ClusterPlacementRequest request, List<ClusterNodeState> nodes) {
+    int maxProcessCount = 0;
+    for (ClusterNodeState node : nodes) {
+      maxProcessCount = Math.max(maxProcessCount, node.getProcessCount());
+    }
+
+    String selectedNode = null;
+    double selectedScore = Double.NEGATIVE_INFINITY;
+    for (ClusterNodeState node : nodes) {
+      if (node.getMemoryFree() < request.getMemory()) {
+        continue;
+      }
+      double score = score(request, node, maxProcessCount);
+      if (LOGGER.isDebugEnabled()) {
+        LOGGER.debug("node {} score {} for {}", node.getNodeName(), score, request);
+      }
+      if (score > selectedScore) {
+        selectedScore = score;
+        selectedNode = node.getNodeName();
+      }
+    }
+    return selectedNode;
+  }
+
+  double score(ClusterPlacementRequest request, ClusterNodeState node, int maxProcessCount) {
+    double memory = ratio(node.getMemoryFree() - request.getMemory(), node.getMemoryCapacity());
+    double cpu = ratio(node.getCpuFree() - request.getCpu(), node.getCpuCapacity());
+    double process = 1.0 - (double) node.getProcessCount() / (maxProcessCount + 1);
+    double user = saturate(node.getUserProcessCount(request.getUser()));
+    double setting = saturate(node.getSettingProcessCount(request.getInterpreterSettingName()));
+
+    return memoryWeight * memory + cpuWeight * cpu + processWeight * process
+        + userWeight * user + settingWeight * setting;
+  }
+
+  private static double ratio(long value, long capacity) {
+    if (capacity <= 0) {
+      return 0;
+    }
+    return Math.max(0, (double) value / capacity);
+  }
+
+  // 0 without process, tends to 1 with the number of processes
+  private static double saturate(int count) {
+    return (double) count / (count + 1);
+  }
+
+  private static double getWeight(Map<String, Double> weights, String name) {
+    Double weight = weights.get(name);
+    return null == weight ? 0 : weight;
+  }
+
+  public static Map<String, Double> parseWeights(String weights) {
+    Map<String, Double> result = new HashMap<>();
+    if (StringUtils.isBlank(weights)) {
+      return result;
+    }
+    for (String weight : weights.split(",")) {
+      String[] parts = weight.split("=");
+      if (parts.length != 2) {
+        LOGGER.warn("Invalid placement weight: {}", weight);
+        continue;
+      }
+      try {
+        result.put(parts[0].trim(), Double.parseDouble(parts[1].trim()));
+      } catch (NumberFormatException e) {
+        LOGGER.warn("Invalid placement weight: {}", weight);
+      }
+    }
+    return result;
+  }
+}
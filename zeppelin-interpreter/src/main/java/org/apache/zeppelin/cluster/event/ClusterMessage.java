@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.zeppelin.cluster.event;
+
+import com.google.gson.Gson;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Message of a cluster event, serialized as json
+ */
+public class ClusterMessage {
+  private static final Gson gson = new Gson();
+
+  private ClusterEvent clusterEvent;
+  private Map<String, String> data = new HashMap<>();
+
+  public ClusterMessage(ClusterEvent event) {
+    this.clusterEvent = event;
+  }
+
+  public ClusterMessage put(String key, String value) {
+    data.put(key, value);
+    return this;
+  }
+
+  public String get(String key) {
+    return data.get(key);
+  }
+
+  public ClusterEvent getClusterEvent() {
+    return clusterEvent;
+  }
+
+  public Map<String, String> getData() {
+    return data;
+  }
+
+  public String toJson() {
+    return gson.toJson(this);
+  }
+
+  public static ClusterMessage fromJson(String json) {
+    return gson.fromJson(json, ClusterMessage.class);
+  }
+
+  @Override
+  public String toString() {
+    return "ClusterMessage{clusterEvent=" + clusterEvent + ", data=" + data + '}';
+  }
+}
@@ -46,6 +46,8 @@ public class ClusterMeta implements Serializable {
   public static String INTP_TSERVER_HOST    = "INTP_TSERVER_HOST";
   public static String INTP_TSERVER_PORT    = "INTP_TSERVER_PORT";
   public static String INTP_START_TIME      = "INTP_START_TIME";
+  public static String INTP_SETTING_NAME    = "INTP_SETTING_NAME";
+  public static String INTP_USER            = "INTP_USER";
 
   // zeppelin-server resource usage
   public static String CPU_CAPACITY         = "CPU_CAPACITY";
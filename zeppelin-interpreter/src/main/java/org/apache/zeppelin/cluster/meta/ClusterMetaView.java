@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.zeppelin.cluster.meta;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local, eventually consistent replica of the cluster metadata of a node.
+ * It is loaded once from the cluster state machine, and then updated by the change events
+ * the state machine publishes to the raft session of the node.
+ *
+ * The values of a key are never modified once stored, an update replaces them,
+ * so that reads are served without locking.
+ */
+public class ClusterMetaView {
+  private final Map<ClusterMetaType, Map<String, Map<String, Object>>> metas
+      = new EnumMap<>(ClusterMetaType.class);
+
+  // Whether the view has been loaded from the cluster state machine
+  private volatile boolean synced = false;
+
+  public ClusterMetaView() {
+    for (ClusterMetaType type : ClusterMetaType.values()) {
+      metas.put(type, new ConcurrentHashMap<>());
+    }
+  }
+
+  public boolean isSynced() {
+    return synced;
+  }
+
+  public void setSynced(boolean synced) {
+    this.synced = synced;
+  }
+
+  // Because it may be partially updated metadata information, the values are merged
+  public synchronized void put(ClusterMetaType type, String key, Map<String, Object> values) {
+    Map<String, Object> current = metas.get(type).get(key);
+    Map<String, Object> merged = (null == current) ? new HashMap<>() : new HashMap<>(current);
+    if (null != values) {
+      merged.putAll(values);
+    }
+    metas.get(type).put(key, Collections.unmodifiableMap(merged));
+  }
+
+  public synchronized void remove(ClusterMetaType type, String key) {
+    metas.get(type).remove(key);
+  }
+
+  // Replaces all the metadata of a type, read from the cluster state machine
+  public synchronized void reset(ClusterMetaType type,
+                                 Map<String, ? extends Map<String, Object>> values) {
+    Map<String, Map<String, Object>> typeMetas = metas.get(type);
+    typeMetas.keySet().retainAll(values.keySet());
+    for (Map.Entry<String, ? extends Map<String, Object>> entry : values.entrySet()) {
+      if (null != entry.getValue()) {
+        typeMetas.put(entry.getKey(),
+            Collections.unmodifiableMap(new HashMap<>(entry.getValue())));
+      }
+    }
+  }
+
+  // Same result as ClusterMeta.get(): all the metadata of the type when the key is empty,
+  // the values of the key (null if it does not exist) otherwise.
+  // The caller can modify the returned maps.
+  public HashMap<String, HashMap<String, Object>> get(ClusterMetaType type, String key) {
+    HashMap<String, HashMap<String, Object>> result = new HashMap<>();
+    Map<String, Map<String, Object>> typeMetas = metas.get(type);
+    if (StringUtils.isEmpty(key)) {
+      for (Map.Entry<String, Map<String, Object>> entry : typeMetas.entrySet()) {
+        result.put(entry.getKey(), new HashMap<>(entry.getValue()));
+      }
+    } else {
+      Map<String, Object> values = typeMetas.get(key);
+      result.put(key, (null == values) ? null : new HashMap<>(values));
+    }
+    return result;
+  }
+}
@@ -369,6 +369,14 @@ public class ZeppelinConfiguration extends XMLConfiguration {
     return getString(ConfVars.ZEPPELIN_RECOVERY_STORAGE_CLASS);
   }
 
+  public int getRecoveryProbeTimeout() {
+    return getInt(ConfVars.ZEPPELIN_RECOVERY_PROBE_TIMEOUT);
+  }
+
+  public int getRecoveryProbeParallelism() {
+    return getInt(ConfVars.ZEPPELIN_RECOVERY_PROBE_PARALLELISM);
+  }
+
   public boolean isRecoveryEnabled() {
     return !getString(ConfVars.ZEPPELIN_RECOVERY_STORAGE_CLASS).equals(
         "org.apache.zeppelin.interpreter.recovery.NullRecoveryStorage");
@@ -495,6 +503,10 @@ public class ZeppelinConfiguration extends XMLConfiguration {
     return getRelativeDir(ConfVars.ZEPPELIN_INTERPRETER_LOCALREPO);
   }
 
+  public String getInterpreterCdsDir() {
+    return getRelativeDir(ConfVars.ZEPPELIN_INTERPRETER_CDS_DIR);
+  }
+
   public String getInterpreterMvnRepoPath() {
     return getString(ConfVars.ZEPPELIN_INTERPRETER_DEP_MVNREPO);
   }
@@ -645,6 +657,26 @@ public class ZeppelinConfiguration extends XMLConfiguration {
     return getRelativeDir(ConfVars.ZEPPELIN_SEARCH_TEMP_PATH);
   }
 
+  public int getZeppelinSearchIndexThreads() {
+    return getInt(ConfVars.ZEPPELIN_SEARCH_INDEX_THREADS);
+  }
+
+  public int getInterpreterOutputAppendFlushSize() {
+    return getInt(ConfVars.ZEPPELIN_INTERPRETER_OUTPUT_APPEND_FLUSH_SIZE);
+  }
+
+  public int getInterpreterOutputAppendBufferSize() {
+    return getInt(ConfVars.ZEPPELIN_INTERPRETER_OUTPUT_APPEND_BUFFER_SIZE);
+  }
+
+  public String getInterpreterOutputAppendOverflowPolicy() {
+    return getString(ConfVars.ZEPPELIN_INTERPRETER_OUTPUT_APPEND_OVERFLOW_POLICY);
+  }
+
+  public int getInterpreterProcessPoolSize() {
+    return getInt(ConfVars.ZEPPELIN_INTERPRETER_PROCESS_POOL_SIZE);
+  }
+
   public String getClusterAddress() {
     return getString(ConfVars.ZEPPELIN_CLUSTER_ADDR);
   }
@@ -670,6 +702,30 @@ public class ZeppelinConfiguration extends XMLConfiguration {
     return getInt(ConfVars.ZEPPELIN_CLUSTER_HEARTBEAT_TIMEOUT);
   }
 
+  public float getClusterHeartbeatPhiThreshold() {
+    return getFloat(ConfVars.ZEPPELIN_CLUSTER_HEARTBEAT_PHI_THRESHOLD);
+  }
+
+  public String getClusterPlacementPolicy() {
+    return getString(ConfVars.ZEPPELIN_CLUSTER_PLACEMENT_POLICY);
+  }
+
+  public String getClusterPlacementWeights() {
+    return getString(ConfVars.ZEPPELIN_CLUSTER_PLACEMENT_WEIGHTS);
+  }
+
+  public int getClusterPlacementReservationTimeout() {
+    return getInt(ConfVars.ZEPPELIN_CLUSTER_PLACEMENT_RESERVATION_TIMEOUT);
+  }
+
+  public int getClusterBroadcastInterval() {
+    return getInt(ConfVars.ZEPPELIN_CLUSTER_BROADCAST_INTERVAL);
+  }
+
+  public int getClusterBroadcastSubscriptionInterval() {
+    return getInt(ConfVars.ZEPPELIN_CLUSTER_BROADCAST_SUBSCRIPTION_INTERVAL);
+  }
+
   public RUN_MODE getRunMode() {
     String mode = getString(ConfVars.ZEPPELIN_RUN_MODE);
     if ("auto".equalsIgnoreCase(mode)) { // auto detect
@@ -699,6 +755,10 @@ public class ZeppelinConfiguration extends XMLConfiguration {
     return getString(ConfVars.ZEPPELIN_K8S_SPARK_CONTAINER_IMAGE);
   }
 
+  public boolean getK8sPodWatch() {
+    return getBoolean(ConfVars.ZEPPELIN_K8S_POD_WATCH);
+  }
+
   public String getK8sTemplatesDir() {
     return getRelativeDir(ConfVars.ZEPPELIN_K8S_TEMPLATE_DIR);
   }
@@ -758,17 +818,28 @@ public class ZeppelinConfiguration extends XMLConfiguration {
     ZEPPELIN_INTERPRETER_JSON("zeppelin.interpreter.setting", "interpreter-setting.json"),
     ZEPPELIN_INTERPRETER_DIR("zeppelin.interpreter.dir", "interpreter"),
     ZEPPELIN_INTERPRETER_LOCALREPO("zeppelin.interpreter.localRepo", "local-repo"),
+    ZEPPELIN_INTERPRETER_CDS_DIR("zeppelin.interpreter.cds.dir", "interpreter-cds"),
     ZEPPELIN_INTERPRETER_DEP_MVNREPO("zeppelin.interpreter.dep.mvnRepo",
         "http://repo1.maven.org/maven2/"),
     ZEPPELIN_INTERPRETER_CONNECT_TIMEOUT("zeppelin.interpreter.connect.timeout", 60000),
     ZEPPELIN_INTERPRETER_MAX_POOL_SIZE("zeppelin.interpreter.max.poolsize", 10),
     ZEPPELIN_INTERPRETER_GROUP_DEFAULT("zeppelin.interpreter.group.default", "spark"),
     ZEPPELIN_INTERPRETER_OUTPUT_LIMIT("zeppelin.interpreter.output.limit", 1024 * 100),
+    ZEPPELIN_INTERPRETER_ANGULAR_OBJECT_UPDATE_BATCH_INTERVAL(
+        "zeppelin.interpreter.angularObject.update.batch.interval", 0L),
+    ZEPPELIN_INTERPRETER_OUTPUT_APPEND_FLUSH_SIZE(
+        "zeppelin.interpreter.output.append.flush.size", 64 * 1024),
+    ZEPPELIN_INTERPRETER_OUTPUT_APPEND_BUFFER_SIZE(
+        "zeppelin.interpreter.output.append.buffer.size", 1024 * 1024),
+    ZEPPELIN_INTERPRETER_OUTPUT_APPEND_OVERFLOW_POLICY(
+        "zeppelin.interpreter.output.append.overflow.policy", "block"),
     ZEPPELIN_ENCODING("zeppelin.encoding", "UTF-8"),
     ZEPPELIN_NOTEBOOK_DIR("zeppelin.notebook.dir", "notebook"),
     ZEPPELIN_RECOVERY_DIR("zeppelin.recovery.dir", "recovery"),
     ZEPPELIN_RECOVERY_STORAGE_CLASS("zeppelin.recovery.storage.class",
         "org.apache.zeppelin.interpreter.recovery.NullRecoveryStorage"),
+    ZEPPELIN_RECOVERY_PROBE_TIMEOUT("zeppelin.recovery.probe.timeout", 1000),
+    ZEPPELIN_RECOVERY_PROBE_PARALLELISM("zeppelin.recovery.probe.parallelism", 16),
     ZEPPELIN_PLUGINS_DIR("zeppelin.plugins.dir", "plugins"),
 
     // use specified notebook (id) as homescreen
@@ -837,6 +908,10 @@ public class ZeppelinConfiguration extends XMLConfiguration {
     ZEPPELIN_SERVER_KERBEROS_KEYTAB("zeppelin.server.kerberos.keytab", ""),
     ZEPPELIN_SERVER_KERBEROS_PRINCIPAL("zeppelin.server.kerberos.principal", ""),
 
+    ZEPPELIN_SERVER_ROLES_CACHE_TTL("zeppelin.server.roles.cache.ttl", 60000L),
+    ZEPPELIN_SERVER_ROLES_CACHE_NEGATIVE_TTL("zeppelin.server.roles.cache.negative.ttl", 10000L),
+    ZEPPELIN_SERVER_ROLES_CACHE_SIZE("zeppelin.server.roles.cache.size", 10000),
+
     ZEPPELIN_SERVER_RPC_PORTRANGE("zeppelin.server.rpc.portRange", ":"),
     ZEPPELIN_INTERPRETER_RPC_PORTRANGE("zeppelin.interpreter.rpc.portRange", ":"),
 
@@ -846,14 +921,33 @@ public class ZeppelinConfiguration extends XMLConfiguration {
         "zeppelin.interpreter.lifecyclemanager.timeout.checkinterval", 6000L),
     ZEPPELIN_INTERPRETER_LIFECYCLE_MANAGER_TIMEOUT_THRESHOLD(
         "zeppelin.interpreter.lifecyclemanager.timeout.threshold", 3600000L),
+    ZEPPELIN_INTERPRETER_LIFECYCLE_MANAGER_MEMORY_CHECK_INTERVAL(
+        "zeppelin.interpreter.lifecyclemanager.memory.checkinterval", 10000L),
+    ZEPPELIN_INTERPRETER_LIFECYCLE_MANAGER_MEMORY_IDLE_THRESHOLD(
+        "zeppelin.interpreter.lifecyclemanager.memory.idle.threshold", 60000L),
+    ZEPPELIN_INTERPRETER_LIFECYCLE_MANAGER_MEMORY_BUDGET(
+        "zeppelin.interpreter.lifecyclemanager.memory.budget", 0L),
+    ZEPPELIN_INTERPRETER_LIFECYCLE_MANAGER_MEMORY_MIN_AVAILABLE(
+        "zeppelin.interpreter.lifecyclemanager.memory.minAvailable", 0.1f),
 
     ZEPPELIN_INTERPRETER_SCHEDULER_POOL_SIZE("zeppelin.scheduler.threadpool.size", 100),
+    ZEPPELIN_INTERPRETER_PROCESS_POOL_SIZE("zeppelin.interpreter.process.pool.size", 0),
 
     ZEPPELIN_OWNER_ROLE("zeppelin.notebook.default.owner.username", ""),
 
     ZEPPELIN_CLUSTER_ADDR("zeppelin.cluster.addr", ""),
     ZEPPELIN_CLUSTER_HEARTBEAT_INTERVAL("zeppelin.cluster.heartbeat.interval", 3000),
     ZEPPELIN_CLUSTER_HEARTBEAT_TIMEOUT("zeppelin.cluster.heartbeat.timeout", 9000),
+    ZEPPELIN_CLUSTER_HEARTBEAT_PHI_THRESHOLD("zeppelin.cluster.heartbeat.phiThreshold", 8.0f),
+    ZEPPELIN_CLUSTER_PLACEMENT_POLICY("zeppelin.cluster.placement.policy",
+        "org.apache.zeppelin.cluster.WeightedClusterPlacementPolicy"),
+    ZEPPELIN_CLUSTER_PLACEMENT_WEIGHTS("zeppelin.cluster.placement.weights",
+        "memory=0.4,cpu=0.3,process=0.3,user=0.1,setting=-0.1"),
+    ZEPPELIN_CLUSTER_PLACEMENT_RESERVATION_TIMEOUT(
+        "zeppelin.cluster.placement.reservationTimeout", 60000),
+    ZEPPELIN_CLUSTER_BROADCAST_INTERVAL("zeppelin.cluster.broadcast.interval", 100),
+    ZEPPELIN_CLUSTER_BROADCAST_SUBSCRIPTION_INTERVAL(
+        "zeppelin.cluster.broadcast.subscriptionInterval", 5000),
 
     ZEPPELIN_RUN_MODE("zeppelin.run.mode", "auto"),              // auto | local | k8s
 
@@ -862,6 +956,7 @@ public class ZeppelinConfiguration extends XMLConfiguration {
     ZEPPELIN_K8S_CONTAINER_IMAGE("zeppelin.k8s.container.image", "apache/zeppelin:" + Util.getVersion()),
     ZEPPELIN_K8S_SPARK_CONTAINER_IMAGE("zeppelin.k8s.spark.container.image", "apache/spark:latest"),
     ZEPPELIN_K8S_TEMPLATE_DIR("zeppelin.k8s.template.dir", "k8s"),
+    ZEPPELIN_K8S_POD_WATCH("zeppelin.k8s.pod.watch", true),      // cache the interpreter pod states from a kubectl watch
 
     ZEPPELIN_NOTEBOOK_GIT_REMOTE_URL("zeppelin.notebook.git.remote.url", ""),
     ZEPPELIN_NOTEBOOK_GIT_REMOTE_USERNAME("zeppelin.notebook.git.remote.username", "token"),
@@ -875,7 +970,8 @@ public class ZeppelinConfiguration extends XMLConfiguration {
     ZEPPELIN_PROXY_USER("zeppelin.proxy.user", null),
     ZEPPELIN_PROXY_PASSWORD("zeppelin.proxy.password", null),
     ZEPPELIN_SEARCH_USE_DISK("zeppelin.search.use.disk", false),
-    ZEPPELIN_SEARCH_TEMP_PATH("zeppelin.search.temp.path", System.getProperty("java.io.tmpdir"));
+    ZEPPELIN_SEARCH_TEMP_PATH("zeppelin.search.temp.path", System.getProperty("java.io.tmpdir")),
+    ZEPPELIN_SEARCH_INDEX_THREADS("zeppelin.search.index.threads", 4);
 
     private String varName;
     @SuppressWarnings("rawtypes")
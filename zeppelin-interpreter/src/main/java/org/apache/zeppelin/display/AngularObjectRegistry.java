@@ -17,10 +17,16 @@
 
 package org.apache.zeppelin.display;
 
-import java.util.HashMap;
+import org.apache.zeppelin.scheduler.ExecutorFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * AngularObjectRegistry keeps all the object that binded to Angular Display System.
@@ -29,13 +35,24 @@ import java.util.Map;
  *  - Paragraphscope : AngularObject is valid in specific paragraph
  *  - Notebook scope: AngularObject is valid in a single notebook
  *  - Global scope : Shared to all notebook that uses the same interpreter group
+ *
+ * The objects are sharded by scope in concurrent maps, adding or removing an object only locks
+ * its scope. When the update batch interval is set, the updates of an object are propagated to
+ * the listener at most once per interval, with its latest value.
  */
 public class AngularObjectRegistry {
-  Map<String, Map<String, AngularObject>> registry = new HashMap<>();
+  private static final Logger LOGGER = LoggerFactory.getLogger(AngularObjectRegistry.class);
+
+  volatile Map<String, Map<String, AngularObject>> registry = new ConcurrentHashMap<>();
   private final String GLOBAL_KEY = "_GLOBAL_";
   private AngularObjectRegistryListener listener;
   private String interpreterId;
-  
+
+  // 0 to propagate each update right away
+  private volatile long updateBatchInterval = 0;
+  // updated objects waiting for the end of the batch interval
+  private final Map<AngularObject, AngularObject> pendingUpdates = new ConcurrentHashMap<>();
+  private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
 
   AngularObjectListener angularObjectListener;
 
@@ -46,7 +63,13 @@ public class AngularObjectRegistry {
     angularObjectListener = new AngularObjectListener() {
       @Override
       public void updated(AngularObject updatedObject) {
-        if (listener != null) {
+        if (listener == null) {
+          return;
+        }
+        if (updateBatchInterval > 0) {
+          pendingUpdates.put(updatedObject, updatedObject);
+          scheduleFlush();
+        } else {
           listener.onUpdate(interpreterId, updatedObject);
         }
       }
@@ -57,6 +80,47 @@ public class AngularObjectRegistry {
     return listener;
   }
 
+  /**
+   * Merges the updates of an object within the interval into one update propagated to the
+   * listener, e.g. when an object is updated in a loop.
+   *
+   * @param updateBatchInterval milliseconds, 0 to propagate each update right away
+   */
+  public void setUpdateBatchInterval(long updateBatchInterval) {
+    this.updateBatchInterval = updateBatchInterval;
+    if (updateBatchInterval <= 0) {
+      flushUpdates();
+    }
+  }
+
+  public long getUpdateBatchInterval() {
+    return updateBatchInterval;
+  }
+
+  private void scheduleFlush() {
+    if (flushScheduled.compareAndSet(false, true)) {
+      ExecutorFactory.singleton().createOrGetScheduled("angularObjectRegistry", 1)
+          .schedule(this::flushUpdates, updateBatchInterval, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Propagates the pending updates to the listener.
+   */
+  public void flushUpdates() {
+    flushScheduled.set(false);
+    for (AngularObject key : pendingUpdates.keySet()) {
+      AngularObject updatedObject = pendingUpdates.remove(key);
+      if (updatedObject != null && listener != null) {
+        try {
+          listener.onUpdate(interpreterId, updatedObject);
+        } catch (Exception e) {
+          LOGGER.warn("Fail to propagate the update of " + updatedObject, e);
+        }
+      }
+    }
+  }
+
   /**
    * Add object into registry
    *
@@ -87,14 +151,8 @@ public class AngularObjectRegistry {
   }
   
   private Map<String, AngularObject> getRegistryForKey(String noteId, String paragraphId) {
-    synchronized (registry) {
-      String key = getRegistryKey(noteId, paragraphId);
-      if (!registry.containsKey(key)) {
-        registry.put(key, new HashMap<String, AngularObject>());
-      }
-      
-      return registry.get(key);
-    }
+    return registry.computeIfAbsent(getRegistryKey(noteId, paragraphId),
+        key -> new ConcurrentHashMap<>());
   }
 
   /**
@@ -115,9 +173,12 @@ public class AngularObjectRegistry {
                            boolean emit) {
     AngularObject ao = createNewAngularObject(name, o, noteId, paragraphId);
 
-    synchronized (registry) {
-      Map<String, AngularObject> noteLocalRegistry = getRegistryForKey(noteId, paragraphId);
+    Map<String, AngularObject> noteLocalRegistry = getRegistryForKey(noteId, paragraphId);
+    // keep the events of the scope in order
+    synchronized (noteLocalRegistry) {
       noteLocalRegistry.put(name, ao);
+      // the added object has the latest value
+      pendingUpdates.remove(ao);
       if (listener != null && emit) {
         listener.onAdd(interpreterId, ao);
       }
@@ -157,9 +218,12 @@ public class AngularObjectRegistry {
    * @return removed object. null if object is not found in registry
    */
   public AngularObject remove(String name, String noteId, String paragraphId, boolean emit) {
-    synchronized (registry) {
-      Map<String, AngularObject> r = getRegistryForKey(noteId, paragraphId);
+    Map<String, AngularObject> r = getRegistryForKey(noteId, paragraphId);
+    synchronized (r) {
       AngularObject o = r.remove(name);
+      if (o != null) {
+        pendingUpdates.remove(o);
+      }
       if (listener != null && emit) {
         listener.onRemove(interpreterId, name, noteId, paragraphId);
       }
@@ -178,11 +242,9 @@ public class AngularObjectRegistry {
    * @param paragraphId paragraphId
    */
   public void removeAll(String noteId, String paragraphId) {
-    synchronized (registry) {
-      List<AngularObject> all = getAll(noteId, paragraphId);
-      for (AngularObject ao : all) {
-        remove(ao.getName(), noteId, paragraphId);
-      }
+    List<AngularObject> all = getAll(noteId, paragraphId);
+    for (AngularObject ao : all) {
+      remove(ao.getName(), noteId, paragraphId);
     }
   }
 
@@ -194,10 +256,8 @@ public class AngularObjectRegistry {
    * @return angularobject. null when not found
    */
   public AngularObject get(String name, String noteId, String paragraphId) {
-    synchronized (registry) {
-      Map<String, AngularObject> r = getRegistryForKey(noteId, paragraphId);
-      return r.get(name);
-    }
+    Map<String, AngularObject> r = registry.get(getRegistryKey(noteId, paragraphId));
+    return r == null ? null : r.get(name);
   }
 
   /**
@@ -208,11 +268,9 @@ public class AngularObjectRegistry {
    */
   public List<AngularObject> getAll(String noteId, String paragraphId) {
     List<AngularObject> all = new LinkedList<>();
-    synchronized (registry) {
-      Map<String, AngularObject> r = getRegistryForKey(noteId, paragraphId);
-      if (r != null) {
-        all.addAll(r.values());
-      }
+    Map<String, AngularObject> r = registry.get(getRegistryKey(noteId, paragraphId));
+    if (r != null) {
+      all.addAll(r.values());
     }
     return all;
   }
@@ -227,15 +285,13 @@ public class AngularObjectRegistry {
    */
   public List<AngularObject> getAllWithGlobal(String noteId) {
     List<AngularObject> all = new LinkedList<>();
-    synchronized (registry) {
-      Map<String, AngularObject> global = getRegistryForKey(null, null);
-      if (global != null) {
-        all.addAll(global.values());
-      }
-      for (String key : registry.keySet()) {
-        if (key.startsWith(noteId)) {
-          all.addAll(registry.get(key).values());
-        }
+    Map<String, AngularObject> global = registry.get(GLOBAL_KEY);
+    if (global != null) {
+      all.addAll(global.values());
+    }
+    for (Map.Entry<String, Map<String, AngularObject>> entry : registry.entrySet()) {
+      if (entry.getKey().startsWith(noteId)) {
+        all.addAll(entry.getValue().values());
       }
     }
     return all;
@@ -250,11 +306,15 @@ public class AngularObjectRegistry {
   }
 
   public void setRegistry(Map<String, Map<String, AngularObject>> registry) {
-    this.registry = registry;
-    for (Map<String, AngularObject> map : registry.values()) {
-      for (AngularObject ao : map.values()) {
-        ao.setListener(angularObjectListener);
+    Map<String, Map<String, AngularObject>> concurrentRegistry = new ConcurrentHashMap<>();
+    for (Map.Entry<String, Map<String, AngularObject>> entry : registry.entrySet()) {
+      Map<String, AngularObject> map = new ConcurrentHashMap<>();
+      for (Map.Entry<String, AngularObject> object : entry.getValue().entrySet()) {
+        object.getValue().setListener(angularObjectListener);
+        map.put(object.getKey(), object.getValue());
       }
+      concurrentRegistry.put(entry.getKey(), map);
     }
+    this.registry = concurrentRegistry;
   }
 }
@@ -0,0 +1,451 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.interpreter.launcher;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.apache.commons.io.IOUtils;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.server.TThreadPoolServer;
+import org.apache.thrift.transport.TServerSocket;
+import org.apache.thrift.transport.TSocket;
+import org.apache.thrift.transport.TTransport;
+import org.apache.zeppelin.conf.ZeppelinConfiguration;
+import org.apache.zeppelin.interpreter.remote.RemoteInterpreterUtils;
+import org.apache.zeppelin.interpreter.thrift.AppOutputAppendEvent;
+import org.apache.zeppelin.interpreter.thrift.AppOutputUpdateEvent;
+import org.apache.zeppelin.interpreter.thrift.AppStatusUpdateEvent;
+import org.apache.zeppelin.interpreter.thrift.OutputAppendEvent;
+import org.apache.zeppelin.interpreter.thrift.OutputUpdateAllEvent;
+import org.apache.zeppelin.interpreter.thrift.OutputUpdateEvent;
+import org.apache.zeppelin.interpreter.thrift.ParagraphInfo;
+import org.apache.zeppelin.interpreter.thrift.RegisterInfo;
+import org.apache.zeppelin.interpreter.thrift.RemoteInterpreterContext;
+import org.apache.zeppelin.interpreter.thrift.RemoteInterpreterEventService;
+import org.apache.zeppelin.interpreter.thrift.RemoteInterpreterService;
+import org.apache.zeppelin.interpreter.thrift.RunParagraphsEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+
+/**
+ * Creates the class data sharing (AppCDS) archives of the interpreters, and measures the startup
+ * time of the interpreter processes with and without them. It plays the part of the zeppelin
+ * server: it launches the interpreter processes with bin/interpreter.sh and receives their
+ * registration.
+ *
+ * train [interpreter group ...]
+ *   Launches each interpreter process with -XX:ArchiveClassesAtExit, creates and opens all its
+ *   interpreters, runs an empty paragraph, then shuts it down so that the loaded classes are
+ *   dumped to {zeppelin.interpreter.cds.dir}/{interpreter group}.jsa
+ *
+ * benchmark interpreter group [runs]
+ *   Measures the time from the launch of the interpreter process to its registration,
+ *   without and with the archive of the interpreter group.
+ *
+ * Dynamic archives are only supported since JDK 13.
+ */
+public class InterpreterCdsTool implements RemoteInterpreterEventService.Iface {
+  private static final Logger LOGGER = LoggerFactory.getLogger(InterpreterCdsTool.class);
+
+  private static final int TIMEOUT_SECONDS = 120;
+  private static final int SHUTDOWN_TIMEOUT_SECONDS = 30;
+  private static final Gson GSON = new Gson();
+
+  private final ZeppelinConfiguration zConf;
+  private final Map<String, CompletableFuture<RegisterInfo>> registrations =
+      new ConcurrentHashMap<>();
+  private final AtomicInteger launchCounter = new AtomicInteger();
+  private TThreadPoolServer eventServer;
+  private String host;
+  private int port;
+
+  public InterpreterCdsTool(ZeppelinConfiguration zConf) {
+    this.zConf = zConf;
+  }
+
+  public void start() throws IOException {
+    TServerSocket serverSocket = RemoteInterpreterUtils.createTServerSocket(":");
+    port = serverSocket.getServerSocket().getLocalPort();
+    host = RemoteInterpreterUtils.findAvailableHostAddress();
+    eventServer = new TThreadPoolServer(new TThreadPoolServer.Args(serverSocket)
+        .processor(new RemoteInterpreterEventService.Processor<>(this)));
+    Thread thread = new Thread(eventServer::serve, "InterpreterCdsTool-EventServer");
+    thread.setDaemon(true);
+    thread.start();
+    long start = System.currentTimeMillis();
+    while (!eventServer.isServing() && System.currentTimeMillis() - start < 30 * 1000) {
+      try {
+        Thread.sleep(100);
+      } catch (InterruptedException e) {
+        throw new IOException(e);
+      }
+    }
+  }
+
+  public void stop() {
+    if (eventServer != null) {
+      eventServer.stop();
+    }
+  }
+
+  public File getArchive(String interpreterGroup) {
+    return new File(zConf.getInterpreterCdsDir(), interpreterGroup + ".jsa");
+  }
+
+  /**
+   * Creates the archive of the interpreter group from a training run.
+   */
+  public void train(String interpreterGroup) throws Exception {
+    File archive = getArchive(interpreterGroup);
+    File cdsDir = archive.getParentFile();
+    if (!cdsDir.exists() && !cdsDir.mkdirs()) {
+      throw new IOException("Fail to create " + cdsDir);
+    }
+    Files.deleteIfExists(archive.toPath());
+    // the java version of the archive, written by interpreter.sh
+    Files.deleteIfExists(new File(archive.getPath() + ".version").toPath());
+
+    Map<String, String> env = new HashMap<>();
+    env.put("ZEPPELIN_INTP_CDS_DUMP", archive.getAbsolutePath());
+    launch(interpreterGroup, env, true);
+    if (!archive.isFile()) {
+      throw new IOException("Class data sharing archive is not created for " + interpreterGroup
+          + ", the JVM of the interpreter may not support -XX:ArchiveClassesAtExit");
+    }
+    LOGGER.info("Create class data sharing archive {}", archive.getAbsolutePath());
+  }
+
+  /**
+   * @return milliseconds from the launch of the interpreter process to its registration
+   */
+  public double benchmark(String interpreterGroup, boolean cds) throws Exception {
+    Map<String, String> env = new HashMap<>();
+    if (cds) {
+      env.put("ZEPPELIN_INTP_CDS_ARCHIVE", getArchive(interpreterGroup).getAbsolutePath());
+    }
+    return launch(interpreterGroup, env, false) / 1e6;
+  }
+
+  private long launch(String interpreterGroup, Map<String, String> env, boolean train)
+      throws Exception {
+    String interpreterGroupId = "cds-" + interpreterGroup + "-" + launchCounter.incrementAndGet();
+    File interpreterDir = new File(zConf.getInterpreterDir(), interpreterGroup);
+    String localRepo =
+        new File(zConf.getInterpreterLocalRepoPath(), interpreterGroupId).getAbsolutePath();
+    File logFile = new File(System.getProperty("java.io.tmpdir"),
+        "zeppelin-interpreter-cds-" + interpreterGroup + ".log");
+    CompletableFuture<RegisterInfo> registration = new CompletableFuture<>();
+    registrations.put(interpreterGroupId, registration);
+
+    ProcessBuilder builder = new ProcessBuilder(zConf.getInterpreterRemoteRunnerPath(),
+        "-d", interpreterDir.getAbsolutePath(),
+        "-c", host,
+        "-p", String.valueOf(port),
+        "-r", ":",
+        "-i", interpreterGroupId,
+        "-l", localRepo,
+        "-g", interpreterGroup);
+    // the archive must not depend on the environment of the current shell
+    builder.environment().remove("ZEPPELIN_INTP_CDS_ARCHIVE");
+    builder.environment().remove("ZEPPELIN_INTP_CDS_DUMP");
+    builder.environment().putAll(env);
+    builder.redirectErrorStream(true);
+    builder.redirectOutput(ProcessBuilder.Redirect.appendTo(logFile));
+
+    long start = System.nanoTime();
+    Process process = builder.start();
+    try {
+      RegisterInfo registerInfo = registration.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      long latency = System.nanoTime() - start;
+
+      TTransport transport = new TSocket(registerInfo.getHost(), registerInfo.getPort());
+      transport.open();
+      try {
+        RemoteInterpreterService.Client client =
+            new RemoteInterpreterService.Client(new TBinaryProtocol(transport));
+        if (train) {
+          runTraining(client, interpreterGroupId, interpreterDir, localRepo);
+        }
+        try {
+          client.shutdown();
+        } catch (TException e) {
+          // the interpreter process may close the connection before replying
+          LOGGER.debug("Exception while shutting down {}", interpreterGroupId, e);
+        }
+      } finally {
+        transport.close();
+      }
+
+      if (!process.waitFor(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        throw new IOException("Interpreter process " + interpreterGroupId + " is not terminated");
+      }
+      return latency;
+    } finally {
+      registrations.remove(interpreterGroupId);
+      if (process.isAlive()) {
+        process.destroy();
+      }
+    }
+  }
+
+  // Loads the classes of the first paragraph: creates and opens all the interpreters of the
+  // group with their default properties, then runs an empty paragraph with the default one
+  private void runTraining(RemoteInterpreterService.Client client, String interpreterGroupId,
+                           File interpreterDir, String localRepo) throws IOException {
+    List<Map<String, Object>> interpreters = loadInterpreterSetting(interpreterDir);
+    List<String> classNames = new ArrayList<>();
+    for (Map<String, Object> interpreter : interpreters) {
+      String className = (String) interpreter.get("className");
+      Map<String, String> properties = getDefaultProperties(interpreter);
+      properties.put("zeppelin.interpreter.localRepo", localRepo);
+      try {
+        client.createInterpreter(interpreterGroupId, "cds", className, properties, "cds");
+        classNames.add(className);
+      } catch (TException e) {
+        LOGGER.warn("Fail to create interpreter " + className, e);
+      }
+    }
+    for (String className : classNames) {
+      try {
+        client.open("cds", className);
+      } catch (TException e) {
+        LOGGER.warn("Fail to open interpreter " + className, e);
+      }
+    }
+    if (!classNames.isEmpty()) {
+      RemoteInterpreterContext context = new RemoteInterpreterContext("cds", "cds",
+          "paragraph_cds", "", "", "", "{}", "{}", "{}", "{}", new HashMap<>());
+      try {
+        client.interpret("cds", classNames.get(0), "", context);
+      } catch (TException e) {
+        LOGGER.warn("Fail to run paragraph with " + classNames.get(0), e);
+      }
+    }
+  }
+
+  private static Map<String, String> getDefaultProperties(Map<String, Object> interpreter) {
+    Map<String, String> properties = new HashMap<>();
+    Object definitions = interpreter.get("properties");
+    if (definitions instanceof Map) {
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) definitions).entrySet()) {
+        Object defaultValue = entry.getValue() instanceof Map ?
+            ((Map<?, ?>) entry.getValue()).get("defaultValue") : null;
+        if (defaultValue != null) {
+          properties.put(entry.getKey().toString(), defaultValue.toString());
+        }
+      }
+    }
+    return properties;
+  }
+
+  // interpreter-setting.json is either in the interpreter directory or in one of its jars
+  private static List<Map<String, Object>> loadInterpreterSetting(File interpreterDir)
+      throws IOException {
+    String json = null;
+    File settingFile = new File(interpreterDir, "interpreter-setting.json");
+    if (settingFile.isFile()) {
+      json = new String(Files.readAllBytes(settingFile.toPath()), StandardCharsets.UTF_8);
+    } else {
+      File[] jars = interpreterDir.listFiles((dir, name) -> name.endsWith(".jar"));
+      for (File jar : jars == null ? new File[0] : jars) {
+        try (JarFile jarFile = new JarFile(jar)) {
+          ZipEntry entry = jarFile.getEntry("interpreter-setting.json");
+          if (entry != null) {
+            try (InputStream in = jarFile.getInputStream(entry)) {
+              json = IOUtils.toString(in, StandardCharsets.UTF_8);
+            }
+            break;
+          }
+        }
+      }
+    }
+    if (json == null) {
+      LOGGER.warn("No interpreter-setting.json in {}", interpreterDir);
+      return Collections.emptyList();
+    }
+    return GSON.fromJson(json, new TypeToken<List<Map<String, Object>>>() {}.getType());
+  }
+
+  @Override
+  public void registerInterpreterProcess(RegisterInfo registerInfo) throws TException {
+    CompletableFuture<RegisterInfo> registration =
+        registrations.get(registerInfo.getInterpreterGroupId());
+    if (registration != null) {
+      registration.complete(registerInfo);
+    }
+  }
+
+  @Override
+  public void appendOutput(OutputAppendEvent event) throws TException {
+  }
+
+  @Override
+  public void updateOutput(OutputUpdateEvent event) throws TException {
+  }
+
+  @Override
+  public void updateAllOutput(OutputUpdateAllEvent event) throws TException {
+  }
+
+  @Override
+  public void appendAppOutput(AppOutputAppendEvent event) throws TException {
+  }
+
+  @Override
+  public void updateAppOutput(AppOutputUpdateEvent event) throws TException {
+  }
+
+  @Override
+  public void updateAppStatus(AppStatusUpdateEvent event) throws TException {
+  }
+
+  @Override
+  public void runParagraphs(RunParagraphsEvent event) throws TException {
+  }
+
+  @Override
+  public void addAngularObject(String intpGroupId, String json) throws TException {
+  }
+
+  @Override
+  public void updateAngularObject(String intpGroupId, String json) throws TException {
+  }
+
+  @Override
+  public void removeAngularObject(String intpGroupId, String noteId, String paragraphId,
+                                  String name) throws TException {
+  }
+
+  @Override
+  public void sendParagraphInfo(String intpGroupId, String json) throws TException {
+  }
+
+  @Override
+  public List<String> getAllResources(String intpGroupId) throws TException {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public ByteBuffer getResource(String resourceIdJson) throws TException {
+    return ByteBuffer.allocate(0);
+  }
+
+  @Override
+  public ByteBuffer invokeMethod(String intpGroupId, String invokeMethodJson)
+      throws TException {
+    return ByteBuffer.allocate(0);
+  }
+
+  @Override
+  public List<ParagraphInfo> getParagraphList(String user, String noteId) throws TException {
+    return new ArrayList<>();
+  }
+
+  private static void printUsage() {
+    System.err.println("Usage: InterpreterCdsTool train [interpreter group ...]");
+    System.err.println("       InterpreterCdsTool benchmark <interpreter group> [runs]");
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (args.length == 0) {
+      printUsage();
+      System.exit(1);
+    }
+    ZeppelinConfiguration zConf = ZeppelinConfiguration.create();
+    InterpreterCdsTool tool = new InterpreterCdsTool(zConf);
+    tool.start();
+    int exitCode = 0;
+    try {
+      if ("train".equals(args[0])) {
+        List<String> interpreterGroups = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+          interpreterGroups.add(args[i]);
+        }
+        if (interpreterGroups.isEmpty()) {
+          File[] dirs = new File(zConf.getInterpreterDir()).listFiles(File::isDirectory);
+          for (File dir : dirs == null ? new File[0] : dirs) {
+            interpreterGroups.add(dir.getName());
+          }
+          Collections.sort(interpreterGroups);
+        }
+        for (String interpreterGroup : interpreterGroups) {
+          try {
+            tool.train(interpreterGroup);
+            System.out.println("Created " + tool.getArchive(interpreterGroup));
+          } catch (Exception e) {
+            LOGGER.error("Fail to create the archive of " + interpreterGroup, e);
+            exitCode = 1;
+          }
+        }
+      } else if ("benchmark".equals(args[0]) && args.length > 1) {
+        String interpreterGroup = args[1];
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        if (!tool.getArchive(interpreterGroup).isFile()) {
+          tool.train(interpreterGroup);
+        }
+        // alternate the runs so that both see the same file system cache
+        List<Double> withoutCds = new ArrayList<>();
+        List<Double> withCds = new ArrayList<>();
+        for (int i = 0; i < runs; i++) {
+          withoutCds.add(tool.benchmark(interpreterGroup, false));
+          withCds.add(tool.benchmark(interpreterGroup, true));
+        }
+        System.out.println(String.format("%s launch to registration (ms), %d runs",
+            interpreterGroup, runs));
+        System.out.println("without CDS: " + summarize(withoutCds));
+        System.out.println("with CDS:    " + summarize(withCds));
+      } else {
+        printUsage();
+        exitCode = 1;
+      }
+    } finally {
+      tool.stop();
+    }
+    System.exit(exitCode);
+  }
+
+  private static String summarize(List<Double> latencies) {
+    List<Double> sorted = new ArrayList<>(latencies);
+    Collections.sort(sorted);
+    double sum = 0;
+    for (double latency : sorted) {
+      sum += latency;
+    }
+    return String.format("min %.0f, median %.0f, mean %.0f, max %.0f", sorted.get(0),
+        sorted.get(sorted.size() / 2), sum / sorted.size(), sorted.get(sorted.size() - 1));
+  }
+}
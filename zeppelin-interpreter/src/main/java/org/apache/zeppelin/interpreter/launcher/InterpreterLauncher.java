@@ -49,4 +49,10 @@ public abstract class InterpreterLauncher {
   }
 
   public abstract InterpreterClient launch(InterpreterLaunchContext context) throws IOException;
+
+  /**
+   * Release the resources of the launcher, called when zeppelin server shuts down.
+   */
+  public void close() {
+  }
 }
@@ -190,7 +190,7 @@ public class RemoteInterpreterServer extends Thread
         public void run() {
           while (!interrupted && !server.isServing()) {
             try {
-              Thread.sleep(1000);
+              Thread.sleep(100);
             } catch (InterruptedException e) {
               interrupted = true;
             }
@@ -321,6 +321,10 @@ public class RemoteInterpreterServer extends Thread
         InterpreterOutput.limit = Integer.parseInt(
             properties.get("zeppelin.interpreter.output.limit"));
       }
+      if (properties.containsKey("zeppelin.interpreter.angularObject.update.batch.interval")) {
+        angularObjectRegistry.setUpdateBatchInterval(Long.parseLong(
+            properties.get("zeppelin.interpreter.angularObject.update.batch.interval")));
+      }
 
       depLoader = new DependencyResolver(localRepoPath);
       appLoader = new ApplicationLoader(resourcePool, depLoader);
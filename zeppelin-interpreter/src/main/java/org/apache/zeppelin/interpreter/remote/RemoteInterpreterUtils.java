@@ -112,10 +112,14 @@ public class RemoteInterpreterUtils {
   }
 
   public static boolean checkIfRemoteEndpointAccessible(String host, int port) {
+    return checkIfRemoteEndpointAccessible(host, port, 1000);
+  }
+
+  public static boolean checkIfRemoteEndpointAccessible(String host, int port, int timeout) {
     try {
       Socket discover = new Socket();
-      discover.setSoTimeout(1000);
-      discover.connect(new InetSocketAddress(host, port), 1000);
+      discover.setSoTimeout(timeout);
+      discover.connect(new InetSocketAddress(host, port), timeout);
       discover.close();
       return true;
     } catch (ConnectException cne) {
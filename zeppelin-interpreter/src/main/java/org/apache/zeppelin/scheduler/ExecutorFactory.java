@@ -20,6 +20,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * Factory class for Executor
@@ -55,6 +56,10 @@ public class ExecutorFactory {
     }
   }
 
+  public ScheduledExecutorService createOrGetScheduled(String name, int numThread) {
+    return (ScheduledExecutorService) createOrGet(name, numThread);
+  }
+
   public void shutdown(String name) {
     synchronized (executors) {
       if (executors.containsKey(name)) {
@@ -22,7 +22,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 
 
@@ -84,6 +86,8 @@ public abstract class Job<T> {
   private volatile String errorMessage;
   private transient volatile Throwable exception;
   private transient JobListener listener;
+  // run once the job is completed, guarded by this
+  private transient List<Runnable> completionCallbacks;
 
   public Job(String jobName, JobListener listener) {
     this.jobName = jobName;
@@ -128,6 +132,9 @@ public abstract class Job<T> {
    */
   public void setStatusWithoutNotification(Status status) {
     this.status = status;
+    if (status != null && status.isCompleted()) {
+      fireCompletion();
+    }
   }
 
   public void setStatus(Status status) {
@@ -140,6 +147,76 @@ public abstract class Job<T> {
     if (listener != null && before != null && before != after) {
       listener.onStatusChange(this, before, after);
     }
+    if (after != null && after.isCompleted()) {
+      fireCompletion();
+    }
+  }
+
+  /**
+   * Waits until the job is completed (FINISHED, ERROR or ABORT), without polling its status.
+   *
+   * @param timeout milliseconds to wait, 0 to wait forever
+   * @return true if the job is completed, false on timeout
+   */
+  public synchronized boolean waitForCompletion(long timeout) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + timeout;
+    while (!status.isCompleted()) {
+      if (timeout <= 0) {
+        wait();
+      } else {
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+          return false;
+        }
+        wait(remaining);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Runs the callback once, when the job is completed. The callback runs in the thread completing
+   * the job, or right away in the calling thread if the job is already completed.
+   */
+  public void onCompletion(Runnable callback) {
+    synchronized (this) {
+      if (!status.isCompleted()) {
+        if (completionCallbacks == null) {
+          completionCallbacks = new ArrayList<>();
+        }
+        completionCallbacks.add(callback);
+        return;
+      }
+    }
+    callback.run();
+  }
+
+  /**
+   * Removes a callback registered by onCompletion, e.g. when its caller is not interested in the
+   * completion anymore.
+   */
+  public synchronized void removeCompletionCallback(Runnable callback) {
+    if (completionCallbacks != null) {
+      completionCallbacks.remove(callback);
+    }
+  }
+
+  private void fireCompletion() {
+    List<Runnable> callbacks;
+    synchronized (this) {
+      notifyAll();
+      callbacks = completionCallbacks;
+      completionCallbacks = null;
+    }
+    if (callbacks != null) {
+      for (Runnable callback : callbacks) {
+        try {
+          callback.run();
+        } catch (Exception e) {
+          LOGGER.error("Fail to run the completion callback of job " + id, e);
+        }
+      }
+    }
   }
 
   public void setListener(JobListener listener) {
@@ -26,10 +26,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.Date;
 import java.util.HashMap;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class ClusterManagerTest {
   private static Logger LOGGER = LoggerFactory.getLogger(ClusterManagerTest.class);
@@ -132,4 +135,99 @@ public class ClusterManagerTest {
     assertNotNull(check.get(metaKey));
     assertEquals(true, check.get(metaKey).size()>0);
   }
+
+  @Test
+  public void heartbeatStatus() throws InterruptedException {
+    // The heartbeats are not committed, the leader commits the online status
+    // and merges the last heartbeat values into the metadata
+    HashMap<String, Object> intpMeta = null;
+    HashMap<String, Object> serverMeta = null;
+    int wait = 0;
+    while (wait++ < 30) {
+      intpMeta = clusterManagerServer.getClusterMeta(
+          ClusterMetaType.IntpProcessMeta, metaKey).get(metaKey);
+      serverMeta = clusterManagerServer.getClusterMeta(
+          ClusterMetaType.ServerMeta, zServerHost + ":" + zServerPort)
+          .get(zServerHost + ":" + zServerPort);
+      if (null != intpMeta && null != serverMeta
+          && ClusterMeta.ONLINE_STATUS.equals(intpMeta.get(ClusterMeta.STATUS))
+          && ClusterMeta.ONLINE_STATUS.equals(serverMeta.get(ClusterMeta.STATUS))
+          && null != serverMeta.get(ClusterMeta.MEMORY_CAPACITY)) {
+        break;
+      }
+      Thread.sleep(1000);
+    }
+
+    assertNotNull(intpMeta);
+    assertEquals(ClusterMeta.ONLINE_STATUS, intpMeta.get(ClusterMeta.STATUS));
+    assertTrue(intpMeta.get(ClusterMeta.HEARTBEAT) instanceof Date);
+    assertNotNull(serverMeta);
+    assertEquals(ClusterMeta.ONLINE_STATUS, serverMeta.get(ClusterMeta.STATUS));
+    assertTrue(serverMeta.get(ClusterMeta.MEMORY_CAPACITY) instanceof Long);
+  }
+
+  @Test
+  public void placeIntpProcess() throws InterruptedException {
+    String serverKey = zServerHost + ":" + zServerPort;
+    HashMap<String, Object> serverMeta = null;
+    int wait = 0;
+    while (wait++ < 30) {
+      serverMeta = clusterManagerServer.getClusterMeta(ClusterMetaType.ServerMeta, serverKey)
+          .get(serverKey);
+      if (null != serverMeta
+          && ClusterMeta.ONLINE_STATUS.equals(serverMeta.get(ClusterMeta.STATUS))
+          && null != serverMeta.get(ClusterMeta.MEMORY_CAPACITY)) {
+        break;
+      }
+      Thread.sleep(1000);
+    }
+
+    // the placement reserves the resources of the process until it is released
+    String intpGroupId = "placeIntpProcess";
+    HashMap<String, Object> nodeMeta = clusterManagerServer.getIdleNodeMeta(
+        new ClusterPlacementRequest(intpGroupId, "spark", "user1", 1024 * 1024, 1));
+    assertNotNull(nodeMeta);
+    assertEquals(serverKey, ClusterPlacementScheduler.getNodeName(nodeMeta));
+
+    // the interpreter setting and the user are published when the process registers
+    clusterManagerServer.putIntpProcessMeta(intpGroupId, "INTP_TSERVER_HOST", 1234);
+    HashMap<String, Object> intpMeta = clusterManagerServer.getClusterMeta(
+        ClusterMetaType.IntpProcessMeta, intpGroupId).get(intpGroupId);
+    assertNotNull(intpMeta);
+    assertEquals("spark", intpMeta.get(ClusterMeta.INTP_SETTING_NAME));
+    assertEquals("user1", intpMeta.get(ClusterMeta.INTP_USER));
+    assertEquals(serverKey, ClusterPlacementScheduler.getNodeName(intpMeta));
+
+    clusterManagerServer.releaseIntpProcess(intpGroupId);
+    assertNull(clusterManagerServer.getClusterMeta(
+        ClusterMetaType.IntpProcessMeta, intpGroupId).get(intpGroupId));
+  }
+
+  @Test
+  public void clusterMetaView() throws InterruptedException {
+    // The client did not write this metadata, its local view is updated by the change events
+    String key = "ClusterMetaViewKey";
+    HashMap<String, Object> meta = new HashMap<>();
+    meta.put(ClusterMeta.INTP_TSERVER_HOST, "INTP_TSERVER_HOST");
+    clusterManagerServer.putClusterMeta(ClusterMetaType.IntpProcessMeta, key, meta);
+
+    HashMap<String, Object> values = null;
+    int wait = 0;
+    while (wait++ < 50 && null == values) {
+      values = clusterManagerClient.getClusterMeta(ClusterMetaType.IntpProcessMeta, key).get(key);
+      Thread.sleep(100);
+    }
+    assertNotNull(values);
+    assertEquals("INTP_TSERVER_HOST", values.get(ClusterMeta.INTP_TSERVER_HOST));
+    assertEquals("INTP_TSERVER_HOST", clusterManagerClient.getLinearizableClusterMeta(
+        ClusterMetaType.IntpProcessMeta, key).get(key).get(ClusterMeta.INTP_TSERVER_HOST));
+
+    clusterManagerServer.deleteClusterMeta(ClusterMetaType.IntpProcessMeta, key);
+    wait = 0;
+    while (wait++ < 50 && null != values) {
+      values = clusterManagerClient.getClusterMeta(ClusterMetaType.IntpProcessMeta, key).get(key);
+      Thread.sleep(100);
+    }
+    assertNull(values);
+  }
 }
@@ -0,0 +1,351 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.zeppelin.cluster;
+
+import org.apache.zeppelin.cluster.meta.ClusterMeta;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replays launch traces against synthetic nodes, whose usage is only reported
+ * every heartbeat interval, to compare the placement policies.
+ */
+public class ClusterPlacementSimulationTest {
+  private static Logger LOGGER = LoggerFactory.getLogger(ClusterPlacementSimulationTest.class);
+
+  private static final long GB = 1024L * 1024 * 1024;
+  private static final long REPORT_INTERVAL = 3000;
+
+  private static final String[] SETTINGS = {"spark", "python", "jdbc", "md"};
+
+  // Placement of the former getIdleNodeMeta: the node with the most free memory
+  private static final ClusterPlacementPolicy MOST_FREE_MEMORY = (request, nodes) -> {
+    String selectedNode = null;
+    long memoryIdle = 0;
+    for (ClusterNodeState node : nodes) {
+      if (node.getMemoryFree() > memoryIdle) {
+        memoryIdle = node.getMemoryFree();
+        selectedNode = node.getNodeName();
+      }
+    }
+    return selectedNode;
+  };
+
+  private static WeightedClusterPlacementPolicy weightedPolicy(String weights) {
+    return new WeightedClusterPlacementPolicy(
+        WeightedClusterPlacementPolicy.parseWeights(weights));
+  }
+
+  private static final String DEFAULT_WEIGHTS =
+      "memory=0.4,cpu=0.3,process=0.3,user=0.1,setting=-0.1";
+
+  @Test
+  public void burstOfLaunches() {
+    // 10 launches between two usage reports
+    SimulationResult mostFreeMemory = simulate(MOST_FREE_MEMORY, 0, burstTrace(1, 10));
+    SimulationResult weighted = simulate(weightedPolicy(DEFAULT_WEIGHTS),
+        REPORT_INTERVAL * 2, burstTrace(1, 10));
+
+    // all the launches land on the node with the most free memory at the last report
+    assertEquals(10, mostFreeMemory.maxProcessesPerNode());
+    assertTrue(weighted.maxProcessesPerNode() <= 4);
+  }
+
+  @Test
+  public void launchTrace() {
+    List<Launch> trace = randomTrace(new Random(42), 400);
+
+    SimulationResult mostFreeMemory = simulate(MOST_FREE_MEMORY, 0, trace);
+    SimulationResult weighted = simulate(weightedPolicy(DEFAULT_WEIGHTS),
+        REPORT_INTERVAL * 2, trace);
+
+    LOGGER.info("most free memory: {}", mostFreeMemory);
+    LOGGER.info("weighted: {}", weighted);
+
+    assertEquals(0, weighted.overcommits);
+    assertTrue(weighted.overcommits <= mostFreeMemory.overcommits);
+    assertTrue(weighted.peakMemoryUtilization <= mostFreeMemory.peakMemoryUtilization);
+  }
+
+  @Test
+  public void affinity() {
+    // user affinity: the processes of a user are on the same node
+    SimulationResult userAffinity = simulate(weightedPolicy("memory=0.1,user=1"),
+        REPORT_INTERVAL * 2, burstTrace(4, 4));
+    for (Map<String, Integer> users : userAffinity.nodeUsers.values()) {
+      for (int count : users.values()) {
+        assertTrue(count == 0 || count == 4);
+      }
+    }
+
+    // interpreter setting anti-affinity: the processes of a setting are spread over the nodes
+    SimulationResult settingAntiAffinity = simulate(weightedPolicy("memory=0.1,setting=-1"),
+        REPORT_INTERVAL * 2, burstTrace(4, 4));
+    for (Map<String, Integer> settings : settingAntiAffinity.nodeSettings.values()) {
+      for (int count : settings.values()) {
+        assertTrue(count <= 1);
+      }
+    }
+  }
+
+  @Test
+  public void noNodeCanHostTheProcess() {
+    ClusterPlacementScheduler scheduler = new ClusterPlacementScheduler(
+        weightedPolicy(DEFAULT_WEIGHTS), REPORT_INTERVAL, () -> 0);
+    Map<String, HashMap<String, Object>> serverMeta = new HashMap<>();
+    serverMeta.put("node:1", serverMeta("node", 1, 4 * GB, 3 * GB, 400, 100));
+
+    assertEquals("node:1", scheduler.place(new ClusterPlacementRequest("intp-1", "spark",
+        "user", GB, 100), serverMeta, new HashMap<>()));
+    // the memory of the first launch is reserved
+    assertNull(scheduler.place(new ClusterPlacementRequest("intp-2", "spark",
+        "user", GB, 100), serverMeta, new HashMap<>()));
+
+    scheduler.release("intp-1");
+    assertEquals(0, scheduler.getReservationCount());
+  }
+
+  // count launches of each user every report interval, one process per setting and user
+  private List<Launch> burstTrace(int users, int launchesPerUser) {
+    List<Launch> trace = new ArrayList<>();
+    for (int u = 0; u < users; u++) {
+      for (int i = 0; i < launchesPerUser; i++) {
+        trace.add(new Launch(0, SETTINGS[i % SETTINGS.length], "user" + u, 2 * GB, 100,
+            Long.MAX_VALUE));
+      }
+    }
+    return trace;
+  }
+
+  private List<Launch> randomTrace(Random random, int count) {
+    List<Launch> trace = new ArrayList<>();
+    long time = 0;
+    for (int i = 0; i < count; i++) {
+      // bursts: most of the launches are a few milliseconds apart
+      time += random.nextInt(10) < 8 ? random.nextInt(50) : random.nextInt(20000);
+      long memory = (1 + random.nextInt(4)) * GB;
+      long cpu = 50 + random.nextInt(200);
+      long duration = 60000 + random.nextInt(600000);
+      trace.add(new Launch(time, SETTINGS[random.nextInt(SETTINGS.length)],
+          "user" + random.nextInt(20), memory, cpu, duration));
+    }
+    return trace;
+  }
+
+  private SimulationResult simulate(ClusterPlacementPolicy policy, long reservationTimeout,
+                                    List<Launch> trace) {
+    long[] clock = {0};
+    ClusterPlacementScheduler scheduler =
+        new ClusterPlacementScheduler(policy, reservationTimeout, () -> clock[0]);
+
+    List<SyntheticNode> nodes = new ArrayList<>();
+    nodes.add(new SyntheticNode("node1", 64 * GB, 1600, 8 * GB));
+    nodes.add(new SyntheticNode("node2", 64 * GB, 1600, 16 * GB));
+    nodes.add(new SyntheticNode("node3", 32 * GB, 800, 4 * GB));
+    nodes.add(new SyntheticNode("node4", 128 * GB, 3200, 48 * GB));
+
+    SimulationResult result = new SimulationResult();
+    Map<String, HashMap<String, Object>> intpProcessMeta = new HashMap<>();
+    List<RunningProcess> running = new ArrayList<>();
+    long nextReport = 0;
+    int intpGroupId = 0;
+
+    for (Launch launch : trace) {
+      // processes stopped before the launch
+      List<RunningProcess> stopped = new ArrayList<>();
+      for (RunningProcess process : running) {
+        if (process.end <= launch.time) {
+          process.node.memoryUsed -= process.launch.memory;
+          process.node.cpuUsed -= process.launch.cpu;
+          intpProcessMeta.remove(process.intpGroupId);
+          stopped.add(process);
+        }
+      }
+      running.removeAll(stopped);
+
+      // usage reports of the nodes, and interpreter processes online since the last report
+      while (nextReport <= launch.time) {
+        for (SyntheticNode node : nodes) {
+          node.report();
+        }
+        for (RunningProcess process : running) {
+          intpProcessMeta.get(process.intpGroupId)
+              .put(ClusterMeta.STATUS, ClusterMeta.ONLINE_STATUS);
+        }
+        nextReport += REPORT_INTERVAL;
+      }
+      clock[0] = launch.time;
+
+      Map<String, HashMap<String, Object>> serverMeta = new HashMap<>();
+      for (SyntheticNode node : nodes) {
+        serverMeta.put(node.name + ":1", serverMeta(node.name, 1, node.memoryCapacity,
+            node.reportedMemoryUsed, node.cpuCapacity, node.reportedCpuUsed));
+      }
+
+      String id = "intp-" + intpGroupId++;
+      String nodeName = scheduler.place(new ClusterPlacementRequest(id,
+          launch.setting, launch.user, launch.memory, launch.cpu), serverMeta, intpProcessMeta);
+      result.placements++;
+      if (null == nodeName) {
+        result.rejected++;
+        continue;
+      }
+
+      SyntheticNode node = null;
+      for (SyntheticNode candidate : nodes) {
+        if (nodeName.equals(candidate.name + ":1")) {
+          node = candidate;
+        }
+      }
+      if (node.memoryCapacity - node.memoryUsed < launch.memory) {
+        // the node has not enough memory left, the process can not start
+        result.overcommits++;
+        scheduler.release(id);
+        continue;
+      }
+      node.memoryUsed += launch.memory;
+      node.cpuUsed += launch.cpu;
+      result.peakMemoryUtilization = Math.max(result.peakMemoryUtilization,
+          (double) node.memoryUsed / node.memoryCapacity);
+      result.addProcess(nodeName, launch);
+
+      HashMap<String, Object> meta = new HashMap<>();
+      meta.put(ClusterMeta.SERVER_HOST, node.name);
+      meta.put(ClusterMeta.SERVER_PORT, 1);
+      meta.put(ClusterMeta.INTP_SETTING_NAME, launch.setting);
+      meta.put(ClusterMeta.INTP_USER, launch.user);
+      intpProcessMeta.put(id, meta);
+      running.add(new RunningProcess(id, node, launch, launch.time + launch.duration));
+    }
+    return result;
+  }
+
+  private static HashMap<String, Object> serverMeta(String host, int port,
+                                                    long memoryCapacity, long memoryUsed,
+                                                    long cpuCapacity, long cpuUsed) {
+    HashMap<String, Object> meta = new HashMap<>();
+    meta.put(ClusterMeta.SERVER_HOST, host);
+    meta.put(ClusterMeta.SERVER_PORT, port);
+    meta.put(ClusterMeta.STATUS, ClusterMeta.ONLINE_STATUS);
+    meta.put(ClusterMeta.MEMORY_CAPACITY, memoryCapacity);
+    meta.put(ClusterMeta.MEMORY_USED, memoryUsed);
+    meta.put(ClusterMeta.CPU_CAPACITY, cpuCapacity);
+    meta.put(ClusterMeta.CPU_USED, cpuUsed);
+    return meta;
+  }
+
+  private static class Launch {
+    private final long time;
+    private final String setting;
+    private final String user;
+    private final long memory;
+    private final long cpu;
+    private final long duration;
+
+    Launch(long time, String setting, String user, long memory, long cpu, long duration) {
+      this.time = time;
+      this.setting = setting;
+      this.user = user;
+      this.memory = memory;
+      this.cpu = cpu;
+      this.duration = duration;
+    }
+  }
+
+  private static class SyntheticNode {
+    private final String name;
+    private final long memoryCapacity;
+    private final long cpuCapacity;
+    private long memoryUsed;
+    private long cpuUsed = 0;
+    private long reportedMemoryUsed;
+    private long reportedCpuUsed;
+
+    SyntheticNode(String name, long memoryCapacity, long cpuCapacity, long memoryUsed) {
+      this.name = name;
+      this.memoryCapacity = memoryCapacity;
+      this.cpuCapacity = cpuCapacity;
+      this.memoryUsed = memoryUsed;
+      report();
+    }
+
+    void report() {
+      reportedMemoryUsed = memoryUsed;
+      reportedCpuUsed = cpuUsed;
+    }
+  }
+
+  private static class RunningProcess {
+    private final String intpGroupId;
+    private final SyntheticNode node;
+    private final Launch launch;
+    private final long end;
+
+    RunningProcess(String intpGroupId, SyntheticNode node, Launch launch, long end) {
+      this.intpGroupId = intpGroupId;
+      this.node = node;
+      this.launch = launch;
+      this.end = end;
+    }
+  }
+
+  private static class SimulationResult {
+    private int placements = 0;
+    private int rejected = 0;
+    private int overcommits = 0;
+    private double peakMemoryUtilization = 0;
+    private Map<String, Integer> nodeProcesses = new LinkedHashMap<>();
+    private Map<String, Map<String, Integer>> nodeUsers = new HashMap<>();
+    private Map<String, Map<String, Integer>> nodeSettings = new HashMap<>();
+
+    void addProcess(String nodeName, Launch launch) {
+      nodeProcesses.merge(nodeName, 1, Integer::sum);
+      nodeUsers.computeIfAbsent(nodeName, n -> new HashMap<>()).merge(launch.user, 1,
+          Integer::sum);
+      nodeSettings.computeIfAbsent(nodeName, n -> new HashMap<>()).merge(launch.setting, 1,
+          Integer::sum);
+    }
+
+    int maxProcessesPerNode() {
+      int max = 0;
+      for (int count : nodeProcesses.values()) {
+        max = Math.max(max, count);
+      }
+      return max;
+    }
+
+    @Override
+    public String toString() {
+      return "placements=" + placements + ", rejected=" + rejected
+          + ", overcommits=" + overcommits
+          + ", peakMemoryUtilization=" + String.format("%.2f", peakMemoryUtilization)
+          + ", processesPerNode=" + nodeProcesses;
+    }
+  }
+}
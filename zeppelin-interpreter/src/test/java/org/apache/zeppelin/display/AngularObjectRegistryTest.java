@@ -20,10 +20,16 @@ package org.apache.zeppelin.display;
 import org.apache.thrift.TException;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class AngularObjectRegistryTest {
 
@@ -114,4 +120,112 @@ public class AngularObjectRegistryTest {
     assertEquals(5, registry.getAllWithGlobal("noteId1").size());
   }
 
+  @Test
+  public void testBatchUpdates() throws InterruptedException {
+    final List<Object> updates = new ArrayList<>();
+    AngularObjectRegistry registry = new AngularObjectRegistry("intpId",
+        new AngularObjectRegistryListener() {
+          @Override
+          public void onAdd(String interpreterGroupId, AngularObject object) {
+          }
+
+          @Override
+          public void onUpdate(String interpreterGroupId, AngularObject object) {
+            synchronized (updates) {
+              updates.add(object.get());
+            }
+          }
+
+          @Override
+          public void onRemove(String interpreterGroupId, String name, String noteId,
+                               String paragraphId) {
+          }
+        });
+    registry.setUpdateBatchInterval(100);
+
+    AngularObject ao1 = registry.add("name1", 0, "note1", null);
+    AngularObject ao2 = registry.add("name2", 0, "note1", null);
+    for (int i = 1; i <= 100; i++) {
+      ao1.set(i);
+    }
+    ao2.set("value");
+    long start = System.currentTimeMillis();
+    while (true) {
+      synchronized (updates) {
+        if (updates.size() == 2) {
+          break;
+        }
+      }
+      assertTrue(System.currentTimeMillis() - start < 10000);
+      Thread.sleep(10);
+    }
+    // one update per object, with the latest value
+    assertTrue(updates.contains(100));
+    assertTrue(updates.contains("value"));
+
+    // the pending update of a removed object is dropped
+    ao1.set(101);
+    registry.remove("name1", "note1", null);
+    registry.flushUpdates();
+    assertEquals(2, updates.size());
+
+    // propagate right away
+    registry.setUpdateBatchInterval(0);
+    ao2.set("value2");
+    assertEquals(3, updates.size());
+  }
+
+  @Test
+  public void testConcurrentAccess() throws Exception {
+    final AtomicInteger onAdd = new AtomicInteger(0);
+    final AtomicInteger onRemove = new AtomicInteger(0);
+    final AngularObjectRegistry registry = new AngularObjectRegistry("intpId",
+        new AngularObjectRegistryListener() {
+          @Override
+          public void onAdd(String interpreterGroupId, AngularObject object) {
+            onAdd.incrementAndGet();
+          }
+
+          @Override
+          public void onUpdate(String interpreterGroupId, AngularObject object) {
+          }
+
+          @Override
+          public void onRemove(String interpreterGroupId, String name, String noteId,
+                               String paragraphId) {
+            onRemove.incrementAndGet();
+          }
+        });
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        final String noteId = "note" + (t % 4);
+        final String paragraphId = "paragraph" + t;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 1000; i++) {
+            registry.add("name" + i, i, noteId, paragraphId);
+            assertEquals(i, registry.get("name" + i, noteId, paragraphId).get());
+            registry.getAllWithGlobal(noteId);
+          }
+          for (int i = 0; i < 500; i++) {
+            registry.remove("name" + i, noteId, paragraphId);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertEquals(8000, onAdd.get());
+    assertEquals(4000, onRemove.get());
+    for (int t = 0; t < 8; t++) {
+      assertEquals(500, registry.getAll("note" + (t % 4), "paragraph" + t).size());
+    }
+    assertEquals(1000, registry.getAllWithGlobal("note0").size());
+  }
 }
@@ -29,9 +29,13 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.spy;
@@ -81,4 +85,55 @@ public class JobTest {
     assertNull(failedResult);
     assertNotNull(spyInterpretJob.getException());
   }
+
+  @Test
+  public void testWaitForCompletion() throws Exception {
+    InterpretJob job = new InterpretJob("jobid", "jobName", mockJobListener, mockInterpreter,
+        "script", mockInterpreterContext);
+    job.setStatus(Job.Status.RUNNING);
+    assertFalse(job.waitForCompletion(100));
+
+    Thread thread = new Thread(() -> {
+      try {
+        Thread.sleep(100);
+      } catch (InterruptedException e) {
+        // ignore
+      }
+      job.setStatus(Job.Status.FINISHED);
+    });
+    thread.start();
+    assertTrue(job.waitForCompletion(10000));
+    assertEquals(Job.Status.FINISHED, job.getStatus());
+    thread.join();
+  }
+
+  @Test
+  public void testOnCompletion() {
+    InterpretJob job = new InterpretJob("jobid", "jobName", mockJobListener, mockInterpreter,
+        "script", mockInterpreterContext);
+    AtomicInteger completions = new AtomicInteger();
+    job.setStatus(Job.Status.PENDING);
+    job.onCompletion(completions::incrementAndGet);
+    job.setStatus(Job.Status.RUNNING);
+    assertEquals(0, completions.get());
+
+    job.setStatus(Job.Status.ERROR);
+    assertEquals(1, completions.get());
+    // a callback runs only once
+    job.setStatus(Job.Status.RUNNING);
+    job.setStatus(Job.Status.FINISHED);
+    assertEquals(1, completions.get());
+
+    // runs right away when the job is already completed
+    job.onCompletion(completions::incrementAndGet);
+    assertEquals(2, completions.get());
+
+    // a removed callback doesn't run
+    Runnable callback = completions::incrementAndGet;
+    job.setStatus(Job.Status.RUNNING);
+    job.onCompletion(callback);
+    job.removeCompletionCallback(callback);
+    job.setStatus(Job.Status.FINISHED);
+    assertEquals(2, completions.get());
+  }
 }
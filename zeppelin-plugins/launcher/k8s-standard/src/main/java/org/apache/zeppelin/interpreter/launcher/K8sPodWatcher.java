@@ -0,0 +1,357 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.interpreter.launcher;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the state of the interpreter pods of the namespace in memory, from a single
+ * 'kubectl get pods --watch', so that the state of a pod doesn't need a kubectl process.
+ *
+ * The interpreter pods are selected by the label interpreterGroupId, see k8s/interpreter.
+ * The watch is restarted when kubectl exits, with a growing delay when kubectl exits without
+ * any event, and given up after MAX_FAILED_WATCHES such exits in a row. The state of the pods is
+ * only known once the pods are listed after the watch started, the caller falls back to kubectl
+ * while the watch is not running or doesn't know the pod.
+ */
+public class K8sPodWatcher implements Closeable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(K8sPodWatcher.class);
+  private static final String INTERPRETER_POD_LABEL = "interpreterGroupId";
+  private static final long MAX_RESTART_DELAY = 60 * 1000;
+  private static final int MAX_FAILED_WATCHES = 5;
+
+  private final Kubectl kubectl;
+  private final long initialRestartDelay;
+  private final Gson gson = new Gson();
+
+  // pod name -> state, guarded by this
+  private final Map<String, PodState> pods = new HashMap<>();
+  // incremented each time the watch stops, guarded by this
+  private int watchGeneration = 0;
+  private Thread watchThread;
+  private Process watchProcess;
+  private volatile boolean watching = false;
+  private volatile boolean closed = false;
+
+  public K8sPodWatcher(Kubectl kubectl) {
+    this(kubectl, 1000);
+  }
+
+  @VisibleForTesting
+  K8sPodWatcher(Kubectl kubectl, long initialRestartDelay) {
+    this.kubectl = kubectl;
+    this.initialRestartDelay = initialRestartDelay;
+  }
+
+  /**
+   * Start watching the pods, if not started yet.
+   */
+  public synchronized void start() {
+    if (watchThread != null || closed) {
+      return;
+    }
+    watchThread = new Thread(this::watchLoop, "K8sPodWatcher");
+    watchThread.setDaemon(true);
+    watchThread.start();
+  }
+
+  /**
+   * @return true when the pod states are streamed by a running kubectl watch
+   */
+  public boolean isWatching() {
+    return watching;
+  }
+
+  /**
+   * @return phase of the pod, null if the pod is not known by the watch
+   */
+  public synchronized String getPodPhase(String podName) {
+    if (!watching) {
+      return null;
+    }
+    PodState state = pods.get(podName);
+    return state == null ? null : state.phase;
+  }
+
+  /**
+   * Wait until the pod is ready.
+   * @return true if the pod is ready, false if the pod is not ready before the timeout or
+   *         terminated, null if the watch is not running or stopped while waiting
+   */
+  public synchronized Boolean waitForReady(String podName, long timeoutMs)
+      throws InterruptedException {
+    if (!watching) {
+      return null;
+    }
+    int generation = watchGeneration;
+    long deadline = System.currentTimeMillis() + timeoutMs;
+    while (true) {
+      if (generation != watchGeneration) {
+        return null;
+      }
+      PodState state = pods.get(podName);
+      if (state != null && state.ready) {
+        return true;
+      }
+      if (state != null && state.isTerminated()) {
+        LOGGER.warn("Pod {} is terminated in phase {}", podName, state.phase);
+        return false;
+      }
+      long remaining = deadline - System.currentTimeMillis();
+      if (remaining <= 0) {
+        return false;
+      }
+      wait(remaining);
+    }
+  }
+
+  /**
+   * Wait until the pod is deleted.
+   * @return true if the pod is deleted, false if the pod is not deleted before the timeout,
+   *         null if the watch doesn't know the pod or stopped while waiting
+   */
+  public synchronized Boolean waitForDelete(String podName, long timeoutMs)
+      throws InterruptedException {
+    if (!watching || !pods.containsKey(podName)) {
+      return null;
+    }
+    int generation = watchGeneration;
+    long deadline = System.currentTimeMillis() + timeoutMs;
+    while (pods.containsKey(podName)) {
+      long remaining = deadline - System.currentTimeMillis();
+      if (remaining <= 0) {
+        return false;
+      }
+      wait(remaining);
+      if (generation != watchGeneration) {
+        return null;
+      }
+    }
+    return true;
+  }
+
+  private void watchLoop() {
+    long restartDelay = initialRestartDelay;
+    int failedWatches = 0;
+    while (!closed) {
+      int events = 0;
+      try {
+        Process process = kubectl.watch(new String[]{
+            "get",
+            "pods",
+            "-l",
+            INTERPRETER_POD_LABEL,
+            "--watch",
+            "--output-watch-events",
+            "-o",
+            "json"
+        });
+        if (process == null) {
+          throw new IOException("Can't start kubectl");
+        }
+        synchronized (this) {
+          watchProcess = process;
+        }
+        // the events of the watch are read after the listing, so they are applied on top of it
+        listPods();
+        events = readEvents(new JsonReader(
+            new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8)));
+        LOGGER.info("Pod watch exited with code {} after {} events", process.waitFor(), events);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch (Exception e) {
+        if (!closed) {
+          LOGGER.warn("Pod watch failed", e);
+        }
+      } finally {
+        stopWatchProcess();
+      }
+      if (closed) {
+        break;
+      }
+
+      if (events > 0) {
+        failedWatches = 0;
+        restartDelay = initialRestartDelay;
+      } else if (++failedWatches >= MAX_FAILED_WATCHES) {
+        LOGGER.warn("Pod watch exited {} times in a row without any event, " +
+            "use kubectl for the pod states from now on", failedWatches);
+        break;
+      }
+      LOGGER.info("Restart the pod watch in {} ms", restartDelay);
+      try {
+        Thread.sleep(restartDelay);
+      } catch (InterruptedException e) {
+        break;
+      }
+      if (failedWatches > 0) {
+        restartDelay = Math.min(restartDelay * 2, MAX_RESTART_DELAY);
+      }
+    }
+  }
+
+  private void listPods() throws IOException {
+    String output = kubectl.execAndGet(new String[]{
+        "get",
+        "pods",
+        "-l",
+        INTERPRETER_POD_LABEL,
+        "-o",
+        "json"
+    });
+    PodList podList = gson.fromJson(output, PodList.class);
+    synchronized (this) {
+      if (podList != null && podList.items != null) {
+        for (Pod pod : podList.items) {
+          if (pod != null && pod.metadata != null && pod.metadata.name != null) {
+            pods.put(pod.metadata.name, new PodState(pod.status));
+          }
+        }
+      }
+      watching = true;
+      LOGGER.info("Pod watch started with {} pods", pods.size());
+      notifyAll();
+    }
+  }
+
+  private int readEvents(JsonReader reader) throws IOException {
+    // kubectl prints one json document per event
+    reader.setLenient(true);
+    int events = 0;
+    while (reader.peek() != JsonToken.END_DOCUMENT) {
+      WatchEvent event = gson.fromJson(reader, WatchEvent.class);
+      if (event != null) {
+        onEvent(event);
+        events++;
+      }
+    }
+    return events;
+  }
+
+  synchronized void onEvent(WatchEvent event) {
+    if (event.object == null || event.object.metadata == null
+        || event.object.metadata.name == null) {
+      LOGGER.debug("Ignore pod watch event {}", event.type);
+      return;
+    }
+    String podName = event.object.metadata.name;
+    if ("DELETED".equals(event.type)) {
+      pods.remove(podName);
+    } else {
+      pods.put(podName, new PodState(event.object.status));
+    }
+    LOGGER.debug("Pod {} {}: {}", podName, event.type, pods.get(podName));
+    notifyAll();
+  }
+
+  private synchronized void stopWatchProcess() {
+    watching = false;
+    if (watchProcess != null) {
+      watchProcess.destroy();
+      watchProcess = null;
+    }
+    // the next watch lists the pods again, the waiting callers ask kubectl meanwhile
+    pods.clear();
+    watchGeneration++;
+    notifyAll();
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    Thread thread;
+    synchronized (this) {
+      thread = watchThread;
+    }
+    stopWatchProcess();
+    if (thread != null) {
+      thread.interrupt();
+    }
+  }
+
+  static class PodState {
+    private final String phase;
+    private final boolean ready;
+
+    PodState(PodStatus status) {
+      this.phase = status == null ? null : status.phase;
+      boolean isReady = false;
+      if (status != null && status.conditions != null) {
+        for (PodCondition condition : status.conditions) {
+          if ("Ready".equals(condition.type) && "True".equals(condition.status)) {
+            isReady = true;
+          }
+        }
+      }
+      this.ready = isReady;
+    }
+
+    boolean isTerminated() {
+      return "Succeeded".equals(phase) || "Failed".equals(phase);
+    }
+
+    @Override
+    public String toString() {
+      return "phase=" + phase + ", ready=" + ready;
+    }
+  }
+
+  // json of 'kubectl get pods -o json'
+  static class PodList {
+    List<Pod> items;
+  }
+
+  // json of 'kubectl get pods --watch --output-watch-events -o json'
+  static class WatchEvent {
+    String type;
+    Pod object;
+  }
+
+  static class Pod {
+    PodMetadata metadata;
+    PodStatus status;
+  }
+
+  static class PodMetadata {
+    String name;
+  }
+
+  static class PodStatus {
+    String phase;
+    List<PodCondition> conditions;
+  }
+
+  static class PodCondition {
+    String type;
+    String status;
+  }
+}
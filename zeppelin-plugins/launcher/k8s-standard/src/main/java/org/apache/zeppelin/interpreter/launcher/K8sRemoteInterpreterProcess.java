@@ -20,6 +20,7 @@ public class K8sRemoteInterpreterProcess extends RemoteInterpreterProcess {
   private static final Logger LOGGER = LoggerFactory.getLogger(K8sStandardInterpreterLauncher.class);
   private static final int K8S_INTERPRETER_SERVICE_PORT = 12321;
   private final Kubectl kubectl;
+  private final K8sPodWatcher podWatcher;
   private final String interpreterGroupId;
   private final String interpreterGroupName;
   private final String interpreterSettingName;
@@ -53,9 +54,31 @@ public class K8sRemoteInterpreterProcess extends RemoteInterpreterProcess {
           boolean portForward,
           String sparkImage,
           int connectTimeout
+  ) {
+    this(kubectl, null, specTemplates, containerImage, interpreterGroupId, interpreterGroupName,
+        interpreterSettingName, properties, envs, zeppelinServiceHost, zeppelinServiceRpcPort,
+        portForward, sparkImage, connectTimeout);
+  }
+
+  public K8sRemoteInterpreterProcess(
+          Kubectl kubectl,
+          K8sPodWatcher podWatcher,
+          File specTemplates,
+          String containerImage,
+          String interpreterGroupId,
+          String interpreterGroupName,
+          String interpreterSettingName,
+          Properties properties,
+          Map<String, String> envs,
+          String zeppelinServiceHost,
+          String zeppelinServiceRpcPort,
+          boolean portForward,
+          String sparkImage,
+          int connectTimeout
   ) {
     super(connectTimeout);
     this.kubectl = kubectl;
+    this.podWatcher = podWatcher;
     this.specTempaltes = specTemplates;
     this.containerImage = containerImage;
     this.interpreterGroupId = interpreterGroupId;
@@ -89,7 +112,7 @@ public class K8sRemoteInterpreterProcess extends RemoteInterpreterProcess {
   public void start(String userName) throws IOException {
     // create new pod
     apply(specTempaltes, false);
-    kubectl.wait(String.format("pod/%s", getPodName()), "condition=Ready", getConnectTimeout()/1000);
+    waitForPodReady();
 
     if (portForward) {
       podPort = RemoteInterpreterUtils.findRandomAvailablePortOnAllLocalInterfaces();
@@ -142,7 +165,7 @@ public class K8sRemoteInterpreterProcess extends RemoteInterpreterProcess {
     }
 
     try {
-      kubectl.wait(String.format("pod/%s", getPodName()), "delete", 60);
+      waitForPodDelete(60);
     } catch (IOException e) {
       LOGGER.debug("Error on waiting pod delete", e);
     }
@@ -174,31 +197,80 @@ public class K8sRemoteInterpreterProcess extends RemoteInterpreterProcess {
         return true;
       }
 
-      String ret = kubectl.execAndGet(new String[]{
-              "get",
-              String.format("pods/%s", getPodName()),
-              "-o",
-              "json"
-      });
-
-      if (ret == null) {
-        return false;
+      String phase = podWatcher == null ? null : podWatcher.getPodPhase(getPodName());
+      if (phase == null) {
+        phase = getPodPhase();
       }
+      return "Running".equals(phase) && started.get();
+    } catch (Exception e) {
+      LOGGER.error("Can't get pod status", e);
+      return false;
+    }
+  }
 
-      Map<String, Object> pod = gson.fromJson(ret, new TypeToken<Map<String, Object>>() {}.getType());
-      if (pod == null || !pod.containsKey("status")) {
-        return false;
-      }
+  private String getPodPhase() throws IOException {
+    String ret = kubectl.execAndGet(new String[]{
+            "get",
+            String.format("pods/%s", getPodName()),
+            "-o",
+            "json"
+    });
+
+    if (ret == null) {
+      return null;
+    }
+
+    Map<String, Object> pod = gson.fromJson(ret, new TypeToken<Map<String, Object>>() {}.getType());
+    if (pod == null || !pod.containsKey("status")) {
+      return null;
+    }
+
+    Map<String, Object> status = (Map<String, Object>) pod.get("status");
+    if (status == null) {
+      return null;
+    }
+    return (String) status.get("phase");
+  }
 
-      Map<String, Object> status = (Map<String, Object>) pod.get("status");
-      if (status == null || !status.containsKey("phase")) {
-        return false;
+  /**
+   * Wait for the pod to be ready, from the pod watch if it's running, otherwise with kubectl wait.
+   */
+  private void waitForPodReady() throws IOException {
+    Boolean ready = null;
+    if (podWatcher != null) {
+      try {
+        ready = podWatcher.waitForReady(getPodName(), getConnectTimeout());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while waiting for pod " + getPodName(), e);
       }
+    }
+    if (ready == null) {
+      // the pod watch is not running, or stopped while waiting
+      kubectl.wait(String.format("pod/%s", getPodName()), "condition=Ready",
+          getConnectTimeout() / 1000);
+    } else if (!ready) {
+      throw new IOException(String.format("Pod %s is not ready in %d seconds",
+          getPodName(), getConnectTimeout() / 1000));
+    }
+  }
 
-      return "Running".equals(status.get("phase")) && started.get();
-    } catch (Exception e) {
-      LOGGER.error("Can't get pod status", e);
-      return false;
+  private void waitForPodDelete(int timeoutSec) throws IOException {
+    Boolean deleted = null;
+    if (podWatcher != null) {
+      try {
+        deleted = podWatcher.waitForDelete(getPodName(), timeoutSec * 1000L);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while waiting for pod " + getPodName(), e);
+      }
+    }
+    if (deleted == null) {
+      // the pod watch is not running, or doesn't know the pod
+      kubectl.wait(String.format("pod/%s", getPodName()), "delete", timeoutSec);
+    } else if (!deleted) {
+      throw new IOException(String.format("Pod %s is not deleted in %d seconds",
+          getPodName(), timeoutSec));
     }
   }
 
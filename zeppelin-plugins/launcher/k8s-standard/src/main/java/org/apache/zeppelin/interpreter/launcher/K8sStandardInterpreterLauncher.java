@@ -42,6 +42,7 @@ public class K8sStandardInterpreterLauncher extends InterpreterLauncher {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(K8sStandardInterpreterLauncher.class);
   private final Kubectl kubectl;
+  private final K8sPodWatcher podWatcher;
   private InterpreterLaunchContext context;
 
 
@@ -49,12 +50,18 @@ public class K8sStandardInterpreterLauncher extends InterpreterLauncher {
     super(zConf, recoveryStorage);
     kubectl = new Kubectl(zConf.getK8sKubectlCmd());
     kubectl.setNamespace(getNamespace());
+    podWatcher = createPodWatcher(zConf, kubectl);
   }
 
   @VisibleForTesting
   K8sStandardInterpreterLauncher(ZeppelinConfiguration zConf, RecoveryStorage recoveryStorage, Kubectl kubectl) {
     super(zConf, recoveryStorage);
     this.kubectl = kubectl;
+    this.podWatcher = createPodWatcher(zConf, kubectl);
+  }
+
+  private static K8sPodWatcher createPodWatcher(ZeppelinConfiguration zConf, Kubectl kubectl) {
+    return zConf.getK8sPodWatch() ? new K8sPodWatcher(kubectl) : null;
   }
 
 
@@ -136,9 +143,13 @@ public class K8sStandardInterpreterLauncher extends InterpreterLauncher {
     this.context = context;
     this.properties = context.getProperties();
     int connectTimeout = getConnectTimeout();
+    if (podWatcher != null) {
+      podWatcher.start();
+    }
 
     return new K8sRemoteInterpreterProcess(
             kubectl,
+            podWatcher,
             new File(zConf.getK8sTemplatesDir(), "interpreter"),
             zConf.getK8sContainerImage(),
             context.getInterpreterGroupId(),
@@ -153,6 +164,13 @@ public class K8sStandardInterpreterLauncher extends InterpreterLauncher {
             connectTimeout);
   }
 
+  @Override
+  public void close() {
+    if (podWatcher != null) {
+      podWatcher.close();
+    }
+  }
+
   protected Map<String, String> buildEnvFromProperties(InterpreterLaunchContext context) {
     Map<String, String> env = new HashMap<>();
     for (Object key : context.getProperties().keySet()) {
@@ -102,6 +102,26 @@ public class Kubectl {
     return watchdog;
   }
 
+  /**
+   * Start a long running kubectl command, e.g. 'get --watch', and stream its output.
+   * The caller reads the stdout of the returned process and destroys it.
+   */
+  public Process watch(String [] args) throws IOException {
+    ArrayList<String> cmd = new ArrayList<>();
+    cmd.add(kubectlCmd);
+    cmd.addAll(Arrays.asList(args));
+
+    // set namespace
+    if (namespace != null) {
+      cmd.add("--namespace=" + namespace);
+    }
+
+    LOGGER.info("kubectl " + cmd.subList(1, cmd.size()));
+    return new ProcessBuilder(cmd)
+        .redirectError(ProcessBuilder.Redirect.INHERIT)
+        .start();
+  }
+
   String execAndGet(String [] args) throws IOException {
     return execAndGet(args, "");
   }
@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.interpreter.launcher;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class K8sPodWatcherTest {
+
+  private File tmpDir;
+  private File fakeKubectl;
+  // json of the pods listed by 'kubectl get pods', before the watch events
+  private String listedPods = "";
+  private K8sPodWatcher podWatcher;
+
+  @Before
+  public void setUp() throws IOException {
+    tmpDir = Files.createTempDirectory("K8sPodWatcherTest").toFile();
+    fakeKubectl = new File(tmpDir, "kubectl");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    if (podWatcher != null) {
+      podWatcher.close();
+    }
+    FileUtils.deleteDirectory(tmpDir);
+  }
+
+  @Test
+  public void testPodState() throws Exception {
+    // given
+    writeFakeKubectl(
+        event("ADDED", "shell-abcdef", "Pending", false),
+        event("MODIFIED", "shell-abcdef", "Running", false),
+        "sleep 1",
+        event("MODIFIED", "shell-abcdef", "Running", true),
+        "sleep 1",
+        event("DELETED", "shell-abcdef", "Running", true),
+        "exec sleep 60");
+    Kubectl kubectl = new Kubectl(fakeKubectl.getAbsolutePath());
+    kubectl.setNamespace("zeppelin");
+    podWatcher = new K8sPodWatcher(kubectl);
+
+    // when
+    podWatcher.start();
+
+    // then
+    assertEquals(Boolean.TRUE, podWatcher.waitForReady("shell-abcdef", 10 * 1000));
+    assertTrue(podWatcher.isWatching());
+    assertEquals("Running", podWatcher.getPodPhase("shell-abcdef"));
+    assertEquals(Boolean.TRUE, podWatcher.waitForDelete("shell-abcdef", 10 * 1000));
+    assertNull(podWatcher.getPodPhase("shell-abcdef"));
+
+    // the single kubectl process watches the interpreter pods of the namespace
+    String args = new String(Files.readAllBytes(new File(tmpDir, "args").toPath()),
+        StandardCharsets.UTF_8);
+    assertEquals("get pods -l interpreterGroupId --watch --output-watch-events -o json " +
+        "--namespace=zeppelin", args.trim());
+  }
+
+  @Test
+  public void testTerminatedPod() throws Exception {
+    // given
+    writeFakeKubectl(
+        event("ADDED", "shell-abcdef", "Pending", false),
+        event("MODIFIED", "shell-abcdef", "Failed", false),
+        "exec sleep 60");
+    podWatcher = new K8sPodWatcher(new Kubectl(fakeKubectl.getAbsolutePath()));
+
+    // when
+    podWatcher.start();
+
+    // then
+    assertEquals(Boolean.FALSE, podWatcher.waitForReady("shell-abcdef", 10 * 1000));
+    assertEquals(Boolean.FALSE, podWatcher.waitForReady("unknown-pod", 100));
+  }
+
+  @Test
+  public void testListedPods() throws Exception {
+    // given, the pod exists before the watch starts
+    listedPods = pod("shell-abcdef", "Running", true);
+    writeFakeKubectl("exec sleep 60");
+    podWatcher = new K8sPodWatcher(new Kubectl(fakeKubectl.getAbsolutePath()));
+
+    // when
+    podWatcher.start();
+
+    // then
+    assertEquals(Boolean.TRUE, podWatcher.waitForReady("shell-abcdef", 10 * 1000));
+    assertEquals("Running", podWatcher.getPodPhase("shell-abcdef"));
+    // the watch doesn't know the pod, the caller asks kubectl
+    assertNull(podWatcher.getPodPhase("unknown-pod"));
+    assertNull(podWatcher.waitForDelete("unknown-pod", 100));
+  }
+
+  @Test
+  public void testNotWatching() throws Exception {
+    // given, the pod watch is not started
+    podWatcher = new K8sPodWatcher(new Kubectl(fakeKubectl.getAbsolutePath()));
+
+    // then
+    assertFalse(podWatcher.isWatching());
+    assertNull(podWatcher.waitForReady("shell-abcdef", 100));
+    assertNull(podWatcher.waitForDelete("shell-abcdef", 100));
+  }
+
+  @Test
+  public void testGiveUpFailingWatch() throws Exception {
+    // given, kubectl exits without any event
+    writeFakeKubectl("echo . >> " + new File(tmpDir, "count").getAbsolutePath());
+    podWatcher = new K8sPodWatcher(new Kubectl(fakeKubectl.getAbsolutePath()), 10);
+
+    // when
+    podWatcher.start();
+
+    // then, the watch is given up after 5 failures
+    File count = new File(tmpDir, "count");
+    long start = System.currentTimeMillis();
+    while ((!count.exists() || Files.readAllLines(count.toPath()).size() < 5)
+        && System.currentTimeMillis() - start < 10 * 1000) {
+      Thread.sleep(100);
+    }
+    Thread.sleep(1000);
+    assertEquals(5, Files.readAllLines(count.toPath()).size());
+    assertFalse(podWatcher.isWatching());
+  }
+
+  @Test
+  public void testRestartWatch() throws Exception {
+    // given, kubectl exits after the first event
+    writeFakeKubectl(
+        "echo . >> " + new File(tmpDir, "count").getAbsolutePath(),
+        event("ADDED", "shell-abcdef", "Running", true));
+    podWatcher = new K8sPodWatcher(new Kubectl(fakeKubectl.getAbsolutePath()));
+
+    // when
+    podWatcher.start();
+
+    // then
+    File count = new File(tmpDir, "count");
+    long start = System.currentTimeMillis();
+    while ((!count.exists() || Files.readAllLines(count.toPath()).size() < 2)
+        && System.currentTimeMillis() - start < 10 * 1000) {
+      Thread.sleep(100);
+    }
+    assertEquals(2, Files.readAllLines(count.toPath()).size());
+  }
+
+  private void writeFakeKubectl(String... commands) throws IOException {
+    StringBuilder script = new StringBuilder("#!/bin/sh\n");
+    // 'kubectl get pods -o json' lists the pods, 'kubectl get pods --watch' streams the events
+    script.append("case \"$*\" in *--watch*) ;; *) cat <<EOF\n")
+        .append("{\"kind\": \"List\", \"items\": [").append(listedPods).append("]}\n")
+        .append("EOF\nexit 0 ;; esac\n");
+    script.append("echo \"$@\" > ").append(new File(tmpDir, "args").getAbsolutePath())
+        .append("\n");
+    for (String command : commands) {
+      script.append(command).append("\n");
+    }
+    FileUtils.writeStringToFile(fakeKubectl, script.toString(), StandardCharsets.UTF_8);
+    assertTrue(fakeKubectl.setExecutable(true));
+  }
+
+  // kubectl prints each event as an indented json document
+  private String event(String type, String podName, String phase, boolean ready) {
+    return "cat <<EOF\n" +
+        "{\n" +
+        "    \"type\": \"" + type + "\",\n" +
+        "    \"object\": " + pod(podName, phase, ready) + "\n" +
+        "}\n" +
+        "EOF";
+  }
+
+  private String pod(String podName, String phase, boolean ready) {
+    return "{\n" +
+        "        \"kind\": \"Pod\",\n" +
+        "        \"metadata\": {\n" +
+        "            \"name\": \"" + podName + "\",\n" +
+        "            \"labels\": {\"interpreterGroupId\": \"shell-shared_process\"}\n" +
+        "        },\n" +
+        "        \"status\": {\n" +
+        "            \"phase\": \"" + phase + "\",\n" +
+        "            \"conditions\": [\n" +
+        "                {\"type\": \"Initialized\", \"status\": \"True\"},\n" +
+        "                {\"type\": \"Ready\", \"status\": \"" + (ready ? "True" : "False") +
+        "\"}\n" +
+        "            ]\n" +
+        "        }\n" +
+        "    }";
+  }
+}
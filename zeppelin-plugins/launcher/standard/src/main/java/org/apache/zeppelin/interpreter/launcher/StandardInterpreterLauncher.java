@@ -28,6 +28,7 @@ import org.apache.zeppelin.interpreter.remote.RemoteInterpreterUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
@@ -102,6 +103,24 @@ public class StandardInterpreterLauncher extends InterpreterLauncher {
       }
     }
     env.put("INTERPRETER_GROUP_ID", context.getInterpreterGroupId());
+    String cdsArchive = getCdsArchive(context.getInterpreterSettingGroup());
+    if (cdsArchive != null) {
+      env.put("ZEPPELIN_INTP_CDS_ARCHIVE", cdsArchive);
+    }
     return env;
   }
+
+  /**
+   * @return the class data sharing archive of the interpreter group, which is created by
+   *         bin/interpreter-cds.sh. null if there's no such archive. interpreter.sh only uses
+   *         it when the java of the interpreter has the version the archive was created with.
+   */
+  protected String getCdsArchive(String groupName) {
+    File archive = new File(zConf.getInterpreterCdsDir(), groupName + ".jsa");
+    if (!archive.isFile()) {
+      return null;
+    }
+    LOGGER.debug("Use class data sharing archive: {}", archive.getAbsolutePath());
+    return archive.getAbsolutePath();
+  }
 }
@@ -23,10 +23,13 @@ import org.apache.zeppelin.interpreter.remote.RemoteInterpreterManagedProcess;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Properties;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class StandardInterpreterLauncherTest {
@@ -83,4 +86,34 @@ public class StandardInterpreterLauncherTest {
     assertEquals(true, interpreterProcess.isUserImpersonated());
   }
 
+  @Test
+  public void testCdsArchive() throws IOException {
+    String cdsDirProperty =
+        ZeppelinConfiguration.ConfVars.ZEPPELIN_INTERPRETER_CDS_DIR.getVarName();
+    File cdsDir = Files.createTempDirectory("interpreter-cds").toFile();
+    File archive = new File(cdsDir, "groupName.jsa");
+    try {
+      System.setProperty(cdsDirProperty, cdsDir.getAbsolutePath());
+      ZeppelinConfiguration zConf = new ZeppelinConfiguration();
+      StandardInterpreterLauncher launcher = new StandardInterpreterLauncher(zConf, null);
+      InterpreterLaunchContext context = new InterpreterLaunchContext(new Properties(),
+          new InterpreterOption(), null, "user1", "intpGroupId", "groupId", "groupName", "name",
+          0, "host");
+
+      // no archive for this interpreter group
+      RemoteInterpreterManagedProcess interpreterProcess =
+          (RemoteInterpreterManagedProcess) launcher.launch(context);
+      assertNull(interpreterProcess.getEnv().get("ZEPPELIN_INTP_CDS_ARCHIVE"));
+
+      assertTrue(archive.createNewFile());
+      interpreterProcess = (RemoteInterpreterManagedProcess) launcher.launch(context);
+      assertEquals(archive.getAbsolutePath(),
+          interpreterProcess.getEnv().get("ZEPPELIN_INTP_CDS_ARCHIVE"));
+    } finally {
+      System.clearProperty(cdsDirProperty);
+      archive.delete();
+      cdsDir.delete();
+    }
+  }
+
 }
@@ -26,7 +26,11 @@ import org.apache.zeppelin.user.AuthenticationInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -40,6 +44,7 @@ public class FileSystemNotebookRepo implements NotebookRepo {
 
   private FileSystemStorage fs;
   private Path notebookDir;
+  private String encoding;
 
   public FileSystemNotebookRepo() {
 
@@ -47,6 +52,7 @@ public class FileSystemNotebookRepo implements NotebookRepo {
 
   public void init(ZeppelinConfiguration zConf) throws IOException {
     this.fs = new FileSystemStorage(zConf, zConf.getNotebookDir());
+    this.encoding = zConf.getString(ZeppelinConfiguration.ConfVars.ZEPPELIN_ENCODING);
     LOGGER.info("Creating FileSystem: " + this.fs.getFs().getClass().getName());
     this.notebookDir = this.fs.makeQualified(new Path(zConf.getNotebookDir()));
     LOGGER.info("Using folder {} to store notebook", notebookDir);
@@ -72,16 +78,28 @@ public class FileSystemNotebookRepo implements NotebookRepo {
 
   @Override
   public Note get(String noteId, String notePath, AuthenticationInfo subject) throws IOException {
-    String content = this.fs.readFile(
-        new Path(notebookDir, buildNoteFileName(noteId, notePath)));
-    return Note.fromJson(content);
+    return readNote(noteId, notePath, true);
+  }
+
+  @Override
+  public Note getWithoutResults(String noteId, String notePath, AuthenticationInfo subject)
+      throws IOException {
+    return readNote(noteId, notePath, false);
+  }
+
+  private Note readNote(String noteId, String notePath, boolean withResults)
+      throws IOException {
+    return this.fs.readFile(new Path(notebookDir, buildNoteFileName(noteId, notePath)),
+        in -> Note.fromJson(new InputStreamReader(in, encoding), withResults));
   }
 
   @Override
   public void save(Note note, AuthenticationInfo subject) throws IOException {
-    this.fs.writeFile(note.toJson(),
-        new Path(notebookDir, buildNoteFileName(note.getId(), note.getPath())),
-        true);
+    this.fs.writeFile(out -> {
+      Writer writer = new BufferedWriter(new OutputStreamWriter(out, encoding));
+      note.toJson(writer);
+      writer.flush();
+    }, new Path(notebookDir, buildNoteFileName(note.getId(), note.getPath())), true);
   }
 
   @Override
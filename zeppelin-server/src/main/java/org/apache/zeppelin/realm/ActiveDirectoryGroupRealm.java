@@ -232,18 +232,17 @@ public class ActiveDirectoryGroupRealm extends AbstractLdapRealm {
           LdapContextFactory ldapContextFactory) throws NamingException {
     String username = (String) getAvailablePrincipal(principals);
 
-    // Perform context search
-    LdapContext ldapContext = ldapContextFactory.getSystemLdapContext();
-
-    Set<String> roleNames;
-
-    try {
-      roleNames = getRoleNamesForUser(username, ldapContext);
-    } finally {
-      LdapUtils.closeContext(ldapContext);
-    }
+    RoleCache.Roles roles = RoleCache.get().get(getName(), username, () -> {
+      // Perform context search
+      LdapContext ldapContext = ldapContextFactory.getSystemLdapContext();
+      try {
+        return new RoleCache.Roles(getRoleNamesForUser(username, ldapContext));
+      } finally {
+        LdapUtils.closeContext(ldapContext);
+      }
+    });
 
-    return buildAuthorizationInfo(roleNames);
+    return buildAuthorizationInfo(new LinkedHashSet<>(roles.getRoleNames()));
   }
 
   protected AuthorizationInfo buildAuthorizationInfo(Set<String> roleNames) {
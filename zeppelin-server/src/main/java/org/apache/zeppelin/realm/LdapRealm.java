@@ -315,18 +315,34 @@ public class LdapRealm extends JndiLdapRealm {
   private Set<String> getRoles(PrincipalCollection principals,
           final LdapContextFactory ldapContextFactory) throws NamingException {
     final String username = (String) getAvailablePrincipal(principals);
+    final Session session = SecurityUtils.getSubject().getSession();
 
-    LdapContext systemLdapCtx = null;
+    RoleCache.Roles roles;
     try {
-      systemLdapCtx = ldapContextFactory.getSystemLdapContext();
-      return rolesFor(principals, username, systemLdapCtx,
-        ldapContextFactory, SecurityUtils.getSubject().getSession());
+      roles = RoleCache.get().get(getName(), username, () -> {
+        LdapContext systemLdapCtx = null;
+        try {
+          systemLdapCtx = ldapContextFactory.getSystemLdapContext();
+          Set<String> roleNames = rolesFor(principals, username, systemLdapCtx,
+              ldapContextFactory, session);
+          return new RoleCache.Roles(roleNames,
+              (Set<String>) session.getAttribute(SUBJECT_USER_GROUPS));
+        } finally {
+          LdapUtils.closeContext(systemLdapCtx);
+        }
+      });
     } catch (AuthenticationException ae) {
       ae.printStackTrace();
       return Collections.emptySet();
-    } finally {
-      LdapUtils.closeContext(systemLdapCtx);
     }
+
+    // same as rolesFor when the roles are cached
+    session.setAttribute(SUBJECT_USER_ROLES, roles.getRoleNames());
+    session.setAttribute(SUBJECT_USER_GROUPS, roles.getGroupNames());
+    if (!roles.getGroupNames().isEmpty() && (principals instanceof MutablePrincipalCollection)) {
+      ((MutablePrincipalCollection) principals).addAll(roles.getGroupNames(), getName());
+    }
+    return new HashSet<>(roles.getRoleNames());
   }
 
   protected Set<String> rolesFor(PrincipalCollection principals, String userNameIn,
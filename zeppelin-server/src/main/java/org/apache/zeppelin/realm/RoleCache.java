@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.zeppelin.realm;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import javax.naming.NamingException;
+import org.apache.zeppelin.conf.ZeppelinConfiguration;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Principal to roles cache shared by the LDAP and Active Directory realms, so that the roles of
+ * a user are not searched in the directory on every authorization check.
+ *
+ * The roles are cached for zeppelin.server.roles.cache.ttl, and a user without any role for
+ * zeppelin.server.roles.cache.negative.ttl. The concurrent lookups of the same user wait for a
+ * single search. Failed lookups are not cached.
+ */
+@ManagedObject("roleCache")
+public class RoleCache {
+  private static final Logger LOG = LoggerFactory.getLogger(RoleCache.class);
+
+  private static RoleCache instance;
+
+  private final long ttl;
+  private final long negativeTtl;
+  private final int maxSize;
+  private final LongSupplier clock;
+
+  // realm name and principal -> roles
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  /**
+   * Lookup of the roles of a principal in the directory.
+   */
+  public interface Loader {
+    Roles load() throws NamingException;
+  }
+
+  public static synchronized RoleCache get() {
+    if (instance == null) {
+      ZeppelinConfiguration conf = ZeppelinConfiguration.create();
+      instance = new RoleCache(
+          conf.getLong(ZeppelinConfiguration.ConfVars.ZEPPELIN_SERVER_ROLES_CACHE_TTL),
+          conf.getLong(ZeppelinConfiguration.ConfVars.ZEPPELIN_SERVER_ROLES_CACHE_NEGATIVE_TTL),
+          conf.getInt(ZeppelinConfiguration.ConfVars.ZEPPELIN_SERVER_ROLES_CACHE_SIZE),
+          System::currentTimeMillis);
+    }
+    return instance;
+  }
+
+  RoleCache(long ttl, long negativeTtl, int maxSize, LongSupplier clock) {
+    this.ttl = ttl;
+    this.negativeTtl = negativeTtl;
+    this.maxSize = maxSize;
+    this.clock = clock;
+  }
+
+  /**
+   * @return the cached roles of the principal in the realm, loaded by the loader if they are
+   *         not cached or expired
+   */
+  public Roles get(String realmName, String principal, Loader loader) throws NamingException {
+    if (ttl <= 0) {
+      misses.incrementAndGet();
+      return loader.load();
+    }
+    String key = realmName + "\u0000" + principal;
+    while (true) {
+      Entry entry = entries.get(key);
+      if (entry != null && !entry.isExpired(clock.getAsLong())) {
+        hits.incrementAndGet();
+        return entry.getRoles();
+      }
+      Entry loading = new Entry();
+      boolean isLoader = entry == null
+          ? entries.putIfAbsent(key, loading) == null
+          : entries.replace(key, entry, loading);
+      if (!isLoader) {
+        // another thread is loading or just loaded the roles
+        continue;
+      }
+      misses.incrementAndGet();
+      try {
+        Roles roles = loader.load();
+        loading.complete(roles, clock.getAsLong() + (roles.isEmpty() ? negativeTtl : ttl));
+        evictIfFull();
+        return roles;
+      } catch (NamingException | RuntimeException e) {
+        entries.remove(key, loading);
+        loading.fail(e);
+        throw e;
+      }
+    }
+  }
+
+  public void invalidate(String realmName, String principal) {
+    entries.remove(realmName + "\u0000" + principal);
+  }
+
+  public void invalidateAll() {
+    entries.clear();
+  }
+
+  private void evictIfFull() {
+    if (entries.size() <= maxSize) {
+      return;
+    }
+    long now = clock.getAsLong();
+    entries.values().removeIf(entry -> entry.isExpired(now));
+    // remove the entries expiring first
+    Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().stream()
+        .sorted((e1, e2) -> Long.compare(e1.getValue().expireTime, e2.getValue().expireTime))
+        .iterator();
+    while (entries.size() > maxSize && iterator.hasNext()) {
+      Map.Entry<String, Entry> entry = iterator.next();
+      if (entries.remove(entry.getKey(), entry.getValue())) {
+        evictions.incrementAndGet();
+      }
+    }
+  }
+
+  @ManagedAttribute
+  public long getHits() {
+    return hits.get();
+  }
+
+  @ManagedAttribute
+  public long getMisses() {
+    return misses.get();
+  }
+
+  @ManagedAttribute
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  @ManagedAttribute
+  public int getSize() {
+    return entries.size();
+  }
+
+  /**
+   * Roles of a principal, and the directory groups they are mapped from.
+   */
+  public static class Roles {
+    private final Set<String> roleNames;
+    private final Set<String> groupNames;
+
+    public Roles(Set<String> roleNames) {
+      this(roleNames, Collections.emptySet());
+    }
+
+    public Roles(Set<String> roleNames, Set<String> groupNames) {
+      this.roleNames = Collections.unmodifiableSet(new HashSet<>(roleNames));
+      this.groupNames = groupNames == null ? Collections.emptySet()
+          : Collections.unmodifiableSet(new HashSet<>(groupNames));
+    }
+
+    public Set<String> getRoleNames() {
+      return roleNames;
+    }
+
+    public Set<String> getGroupNames() {
+      return groupNames;
+    }
+
+    public boolean isEmpty() {
+      return roleNames.isEmpty();
+    }
+  }
+
+  private static class Entry {
+    private final CompletableFuture<Roles> roles = new CompletableFuture<>();
+    // not expired while loading
+    private volatile long expireTime = Long.MAX_VALUE;
+
+    void complete(Roles loaded, long expireTime) {
+      this.expireTime = expireTime;
+      roles.complete(loaded);
+    }
+
+    void fail(Exception e) {
+      roles.completeExceptionally(e);
+    }
+
+    boolean isExpired(long now) {
+      return now >= expireTime;
+    }
+
+    Roles getRoles() throws NamingException {
+      try {
+        return roles.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new NamingException("Interrupted while waiting for the roles");
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof NamingException) {
+          throw (NamingException) e.getCause();
+        }
+        LOG.debug("Fail to load the roles", e.getCause());
+        NamingException namingException = new NamingException("Fail to load the roles");
+        namingException.setRootCause(e.getCause());
+        throw namingException;
+      }
+    }
+  }
+}
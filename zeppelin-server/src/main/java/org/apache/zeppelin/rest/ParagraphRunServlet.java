@@ -0,0 +1,379 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.zeppelin.rest;
+
+import com.google.common.collect.Sets;
+import com.google.common.io.CharStreams;
+import com.google.gson.Gson;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import javax.inject.Inject;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response.Status;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.zeppelin.interpreter.InterpreterResult;
+import org.apache.zeppelin.notebook.Note;
+import org.apache.zeppelin.notebook.Notebook;
+import org.apache.zeppelin.notebook.Paragraph;
+import org.apache.zeppelin.rest.AbstractRestApi.RestServiceCallback;
+import org.apache.zeppelin.rest.exception.NoteNotFoundException;
+import org.apache.zeppelin.rest.exception.ParagraphNotFoundException;
+import org.apache.zeppelin.rest.message.RunParagraphWithParametersRequest;
+import org.apache.zeppelin.server.JsonResponse;
+import org.apache.zeppelin.service.AuthenticationService;
+import org.apache.zeppelin.service.NotebookService;
+import org.apache.zeppelin.service.ServiceContext;
+import org.apache.zeppelin.socket.NotebookServer;
+import org.apache.zeppelin.user.AuthenticationInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs paragraphs through the REST api without holding a server thread while they run, the
+ * response is completed by the paragraph job once it is completed.
+ *
+ * POST /api/notebook/async/run/{noteId}/{paragraphId}?timeout={ms}
+ *   runs the paragraph and responds with its result, like POST /api/notebook/run. If the
+ *   paragraph is still running after the timeout, responds 202 with the paragraph status.
+ * GET /api/notebook/async/job/{noteId}/{paragraphId}?timeout={ms}
+ *   long polls the result of the paragraph, responds 202 with the paragraph status on timeout.
+ * POST /api/notebook/async/stream/{noteId}/{paragraphId}
+ *   runs the paragraph and streams one json per line: {"index":0,"data":"..."} for each output
+ *   appended by the interpreter, then the result.
+ */
+public class ParagraphRunServlet extends HttpServlet {
+  private static final Logger LOG = LoggerFactory.getLogger(ParagraphRunServlet.class);
+  private static final Gson gson = new Gson();
+
+  public static final long DEFAULT_TIMEOUT = 60000;
+
+  private final Notebook notebook;
+  private final NotebookService notebookService;
+  private final NotebookServer notebookServer;
+  private final AuthenticationService authenticationService;
+
+  @Inject
+  public ParagraphRunServlet(Notebook notebook,
+                             NotebookService notebookService,
+                             NotebookServer notebookServer,
+                             AuthenticationService authenticationService) {
+    this.notebook = notebook;
+    this.notebookService = notebookService;
+    this.notebookServer = notebookServer;
+    this.authenticationService = authenticationService;
+  }
+
+  @Override
+  protected void doPost(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    String[] path = parsePath(request);
+    if (path == null || !(path[0].equals("run") || path[0].equals("stream"))) {
+      response.sendError(HttpServletResponse.SC_NOT_FOUND);
+      return;
+    }
+    try {
+      if (path[0].equals("run")) {
+        Paragraph paragraph = runParagraph(path[1], path[2], getParams(request));
+        if (paragraph != null) {
+          replyOnCompletion(request, response, paragraph, getTimeout(request));
+        } else {
+          reply(response, new JsonResponse<>(Status.INTERNAL_SERVER_ERROR,
+              "Fail to run paragraph"));
+        }
+      } else {
+        stream(request, response, path[1], path[2]);
+      }
+    } catch (WebApplicationException e) {
+      reply(response, new JsonResponse<>(Status.fromStatusCode(e.getResponse().getStatus()),
+          e.getMessage()));
+    }
+  }
+
+  @Override
+  protected void doGet(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    String[] path = parsePath(request);
+    if (path == null || !path[0].equals("job")) {
+      response.sendError(HttpServletResponse.SC_NOT_FOUND);
+      return;
+    }
+    try {
+      Note note = notebookService.getNote(path[1], getServiceContext(),
+          new RestServiceCallback<>());
+      Paragraph paragraph = note.getParagraph(path[2]);
+      if (paragraph == null) {
+        throw new ParagraphNotFoundException(path[2]);
+      }
+      replyOnCompletion(request, response, paragraph, getTimeout(request));
+    } catch (WebApplicationException e) {
+      reply(response, new JsonResponse<>(Status.fromStatusCode(e.getResponse().getStatus()),
+          e.getMessage()));
+    }
+  }
+
+  // {run|stream|job}/{noteId}/{paragraphId}
+  private static String[] parsePath(HttpServletRequest request) {
+    String pathInfo = request.getPathInfo();
+    if (pathInfo == null) {
+      return null;
+    }
+    String[] path = StringUtils.strip(pathInfo, "/").split("/");
+    return path.length == 3 ? path : null;
+  }
+
+  private static long getTimeout(HttpServletRequest request) {
+    String timeout = request.getParameter("timeout");
+    if (StringUtils.isBlank(timeout)) {
+      return DEFAULT_TIMEOUT;
+    }
+    try {
+      return Long.parseLong(timeout);
+    } catch (NumberFormatException e) {
+      return DEFAULT_TIMEOUT;
+    }
+  }
+
+  private static Map<String, Object> getParams(HttpServletRequest request) throws IOException {
+    String message = CharStreams.toString(request.getReader());
+    if (!StringUtils.isBlank(message)) {
+      RunParagraphWithParametersRequest runRequest =
+          RunParagraphWithParametersRequest.fromJson(message);
+      if (runRequest != null && runRequest.getParams() != null) {
+        return runRequest.getParams();
+      }
+    }
+    return new HashMap<>();
+  }
+
+  /**
+   * Submits the paragraph with the params, without waiting for it.
+   *
+   * @return the submitted paragraph, null if it fails to run
+   */
+  private Paragraph runParagraph(String noteId, String paragraphId, Map<String, Object> params)
+      throws IOException {
+    Note note = notebook.getNote(noteId);
+    if (note == null) {
+      throw new NoteNotFoundException(noteId);
+    }
+    Paragraph paragraph = note.getParagraph(paragraphId);
+    if (paragraph == null) {
+      throw new ParagraphNotFoundException(paragraphId);
+    }
+
+    if (!notebookService.runParagraph(noteId, paragraphId, paragraph.getTitle(),
+        paragraph.getText(), params, new HashMap<>(), false, false, getServiceContext(),
+        new RestServiceCallback<>())) {
+      return null;
+    }
+    return note.getParagraph(paragraphId);
+  }
+
+  private void replyOnCompletion(HttpServletRequest request, HttpServletResponse response,
+                                 Paragraph paragraph, long timeout) {
+    AsyncContext asyncContext = request.startAsync();
+    asyncContext.setTimeout(timeout);
+    AtomicBoolean replied = new AtomicBoolean(false);
+    // the result is written by a container thread, not by the thread completing the paragraph
+    Runnable onCompletion = () -> {
+      if (replied.get()) {
+        return;
+      }
+      asyncContext.start(() -> {
+        if (replied.compareAndSet(false, true)) {
+          try {
+            reply(response, getResult(paragraph));
+          } catch (IOException e) {
+            LOG.warn("Fail to reply the result of paragraph {}", paragraph.getId(), e);
+          } finally {
+            asyncContext.complete();
+          }
+        }
+      });
+    };
+    asyncContext.addListener(new AsyncListener() {
+      @Override
+      public void onComplete(AsyncEvent event) {
+        paragraph.removeCompletionCallback(onCompletion);
+      }
+
+      @Override
+      public void onTimeout(AsyncEvent event) throws IOException {
+        paragraph.removeCompletionCallback(onCompletion);
+        if (replied.compareAndSet(false, true)) {
+          try {
+            reply(response, new JsonResponse<>(Status.ACCEPTED, "Paragraph is still running",
+                paragraph.getNote().generateSingleParagraphInfo(paragraph.getId())));
+          } finally {
+            asyncContext.complete();
+          }
+        }
+      }
+
+      @Override
+      public void onError(AsyncEvent event) {
+        paragraph.removeCompletionCallback(onCompletion);
+        replied.set(true);
+      }
+
+      @Override
+      public void onStartAsync(AsyncEvent event) {
+      }
+    });
+
+    paragraph.onCompletion(onCompletion);
+  }
+
+  private void stream(HttpServletRequest request, HttpServletResponse response,
+                      String noteId, String paragraphId) throws IOException {
+    Map<String, Object> params = getParams(request);
+    AsyncContext asyncContext = request.startAsync();
+    asyncContext.setTimeout(0);
+    AtomicBoolean closed = new AtomicBoolean(false);
+    // removes the completion callback of the paragraph, once it's submitted
+    AtomicReference<Runnable> completion = new AtomicReference<>(() -> { });
+    // the output is appended by the threads of the interpreter events
+    BiConsumer<Integer, String> consumer = (index, output) -> {
+      Map<String, Object> append = new HashMap<>();
+      append.put("index", index);
+      append.put("data", output);
+      writeLine(response, closed, gson.toJson(append));
+    };
+    asyncContext.addListener(new AsyncListener() {
+      @Override
+      public void onComplete(AsyncEvent event) {
+        notebookServer.removeParagraphOutputConsumer(noteId, paragraphId, consumer);
+        completion.get().run();
+      }
+
+      @Override
+      public void onTimeout(AsyncEvent event) {
+      }
+
+      @Override
+      public void onError(AsyncEvent event) {
+        closed.set(true);
+        notebookServer.removeParagraphOutputConsumer(noteId, paragraphId, consumer);
+        completion.get().run();
+      }
+
+      @Override
+      public void onStartAsync(AsyncEvent event) {
+      }
+    });
+
+    response.setStatus(HttpServletResponse.SC_OK);
+    response.setContentType("application/json");
+    response.setCharacterEncoding("UTF-8");
+    // subscribe before running, not to miss the first output
+    notebookServer.addParagraphOutputConsumer(noteId, paragraphId, consumer);
+    Paragraph paragraph;
+    JsonResponse<?> error = null;
+    try {
+      paragraph = runParagraph(noteId, paragraphId, params);
+      if (paragraph == null) {
+        error = new JsonResponse<>(Status.INTERNAL_SERVER_ERROR, "Fail to run paragraph");
+      }
+    } catch (WebApplicationException e) {
+      paragraph = null;
+      error = new JsonResponse<>(Status.fromStatusCode(e.getResponse().getStatus()),
+          e.getMessage());
+    } catch (IOException | RuntimeException e) {
+      paragraph = null;
+      error = new JsonResponse<>(Status.INTERNAL_SERVER_ERROR, e.getMessage());
+    }
+    if (error != null) {
+      notebookServer.removeParagraphOutputConsumer(noteId, paragraphId, consumer);
+      try {
+        reply(response, error);
+      } finally {
+        asyncContext.complete();
+      }
+      return;
+    }
+
+    Paragraph submitted = paragraph;
+    Runnable onCompletion = () -> {
+      if (closed.get()) {
+        return;
+      }
+      asyncContext.start(() -> {
+        notebookServer.removeParagraphOutputConsumer(noteId, paragraphId, consumer);
+        writeLine(response, closed, getResult(submitted).toString());
+        closed.set(true);
+        asyncContext.complete();
+      });
+    };
+    completion.set(() -> submitted.removeCompletionCallback(onCompletion));
+    submitted.onCompletion(onCompletion);
+  }
+
+  private static void writeLine(HttpServletResponse response, AtomicBoolean closed,
+                                String line) {
+    synchronized (response) {
+      if (closed.get()) {
+        return;
+      }
+      try {
+        response.getWriter().write(line);
+        response.getWriter().write('\n');
+        response.flushBuffer();
+      } catch (IOException e) {
+        // the client is gone, the paragraph keeps running
+        LOG.debug("Fail to stream paragraph output", e);
+        closed.set(true);
+      }
+    }
+  }
+
+  private static JsonResponse<InterpreterResult> getResult(Paragraph paragraph) {
+    InterpreterResult result = paragraph.getReturn();
+    if (result != null && result.code() == InterpreterResult.Code.SUCCESS) {
+      return new JsonResponse<>(Status.OK, result);
+    } else {
+      return new JsonResponse<>(Status.INTERNAL_SERVER_ERROR, result);
+    }
+  }
+
+  private static void reply(HttpServletResponse response, JsonResponse<?> jsonResponse)
+      throws IOException {
+    response.setStatus(jsonResponse.getCode().getStatusCode());
+    response.setContentType("application/json");
+    response.setCharacterEncoding("UTF-8");
+    response.getWriter().write(jsonResponse.toString());
+    response.flushBuffer();
+  }
+
+  private ServiceContext getServiceContext() {
+    AuthenticationInfo authInfo = new AuthenticationInfo(authenticationService.getPrincipal());
+    Set<String> userAndRoles = Sets.newHashSet();
+    userAndRoles.add(authenticationService.getPrincipal());
+    userAndRoles.addAll(authenticationService.getAssociatedRoles());
+    return new ServiceContext(authInfo, userAndRoles);
+  }
+}
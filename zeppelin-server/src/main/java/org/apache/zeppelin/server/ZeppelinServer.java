@@ -53,6 +53,8 @@ import org.apache.zeppelin.notebook.repo.NotebookRepoSync;
 import org.apache.zeppelin.notebook.scheduler.NoSchedulerService;
 import org.apache.zeppelin.notebook.scheduler.QuartzSchedulerService;
 import org.apache.zeppelin.notebook.scheduler.SchedulerService;
+import org.apache.zeppelin.realm.RoleCache;
+import org.apache.zeppelin.rest.ParagraphRunServlet;
 import org.apache.zeppelin.rest.exception.WebApplicationExceptionMapper;
 import org.apache.zeppelin.search.LuceneSearch;
 import org.apache.zeppelin.search.SearchService;
@@ -162,6 +164,7 @@ public class ZeppelinServer extends ResourceConfig {
                 .to(NoteEventListener.class)
                 .to(WebSocketServlet.class)
                 .in(Singleton.class);
+            bindAsContract(ParagraphRunServlet.class).in(Singleton.class);
             bindAsContract(ClusterManagerServer.class)
                 .to(ClusterManager.class)
                 .to(ClusterManagerService.Iface.class)
@@ -193,6 +196,9 @@ public class ZeppelinServer extends ResourceConfig {
     // Notebook server
     setupNotebookServer(webApp, conf, sharedServiceLocator);
 
+    // Paragraph runs through async servlet requests
+    setupParagraphRunServlet(webApp, sharedServiceLocator);
+
     // Cluster Manager Server
     setupClusterManagerServer(sharedServiceLocator);
 
@@ -234,6 +240,8 @@ public class ZeppelinServer extends ResourceConfig {
                 jettyWebServer.addBean(
                     sharedServiceLocator.getService(InterpreterSettingManager.class));
                 jettyWebServer.addBean(sharedServiceLocator.getService(NotebookServer.class));
+                jettyWebServer.addBean(RoleCache.get());
+                jettyWebServer.addBean(sharedServiceLocator.getService(SearchService.class));
 
                 LOG.info("JMX Enabled with port: {}", port);
               } catch (Exception e) {
@@ -355,6 +363,14 @@ public class ZeppelinServer extends ResourceConfig {
     webapp.addServlet(servletHolder, "/ws/*");
   }
 
+  private static void setupParagraphRunServlet(
+      WebAppContext webapp, ServiceLocator serviceLocator) {
+    final ServletHolder servletHolder =
+        new ServletHolder(serviceLocator.getService(ParagraphRunServlet.class));
+    servletHolder.setAsyncSupported(true);
+    webapp.addServlet(servletHolder, "/api/notebook/async/*");
+  }
+
   private static void setupClusterManagerServer(ServiceLocator serviceLocator) {
     InterpreterFactory interpreterFactory
         = sharedServiceLocator.getService(InterpreterFactory.class);
@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.zeppelin.socket;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.apache.commons.lang.StringUtils;
+import org.apache.zeppelin.cluster.ClusterManagerServer;
+import org.apache.zeppelin.cluster.event.ClusterEvent;
+import org.apache.zeppelin.cluster.event.ClusterEventListener;
+import org.apache.zeppelin.cluster.event.ClusterMessage;
+import org.apache.zeppelin.conf.ZeppelinConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Forwards the websocket messages of the notes to the other zeppelin-servers of the cluster,
+ * so that the connections of a note on any server see the output of its paragraphs.
+ *
+ * Each server advertises the ids of the notes it has connections for, when they change and
+ * every subscription interval. The messages of a note are only forwarded to the servers
+ * advertising it, they are queued per server and sent in one batch every broadcast interval.
+ * An advertisement which is not refreshed for 3 subscription intervals expires.
+ */
+public class ClusterNoteBroadcaster implements ClusterEventListener {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ClusterNoteBroadcaster.class);
+  private static final Gson gson = new Gson();
+
+  private static final int SUBSCRIPTION_EXPIRE_INTERVALS = 3;
+
+  /**
+   * Sends the cluster messages to the other zeppelin-servers.
+   */
+  public interface Transport {
+    void send(String nodeName, String msg);
+
+    void broadcast(String msg);
+  }
+
+  // time given to a running flush when the broadcaster is stopped
+  private static final long STOP_TIMEOUT = 3000;
+
+  private final ConnectionManager connectionManager;
+  private final String nodeName;
+  private final Transport transport;
+  private final long subscriptionInterval;
+  private final LongSupplier clock;
+
+  // node name -> note ids advertised by the node
+  private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+  // node name -> messages waiting for the next batch
+  private final Map<String, List<NoteMessage>> pendingMessages = new HashMap<>();
+
+  private Set<String> advertisedNoteIds = Collections.emptySet();
+  private long lastAdvertiseTime = Long.MIN_VALUE;
+
+  private ScheduledExecutorService executor;
+
+  public ClusterNoteBroadcaster(ConnectionManager connectionManager, String nodeName,
+                                Transport transport, long subscriptionInterval,
+                                LongSupplier clock) {
+    this.connectionManager = connectionManager;
+    this.nodeName = nodeName;
+    this.transport = transport;
+    this.subscriptionInterval = subscriptionInterval;
+    this.clock = clock;
+  }
+
+  /**
+   * Broadcaster sending the cluster messages through the ClusterManagerServer.
+   */
+  public static ClusterNoteBroadcaster create(ConnectionManager connectionManager,
+                                              ZeppelinConfiguration zconf) {
+    ClusterManagerServer clusterManagerServer = ClusterManagerServer.getInstance();
+    Transport transport = new Transport() {
+      @Override
+      public void send(String nodeName, String msg) {
+        clusterManagerServer.sendClusterEvent(nodeName,
+            ClusterManagerServer.CLUSTER_CONNECTION_EVENT_TOPIC, msg);
+      }
+
+      @Override
+      public void broadcast(String msg) {
+        clusterManagerServer.broadcastClusterEvent(
+            ClusterManagerServer.CLUSTER_CONNECTION_EVENT_TOPIC, msg);
+      }
+    };
+
+    ClusterNoteBroadcaster broadcaster = new ClusterNoteBroadcaster(connectionManager,
+        clusterManagerServer.getClusterNodeName(), transport,
+        zconf.getClusterBroadcastSubscriptionInterval(), System::currentTimeMillis);
+    clusterManagerServer.addClusterEventListeners(
+        ClusterManagerServer.CLUSTER_CONNECTION_EVENT_TOPIC, broadcaster);
+    broadcaster.start(zconf.getClusterBroadcastInterval());
+    return broadcaster;
+  }
+
+  public void start(long broadcastInterval) {
+    executor = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "ClusterNoteBroadcaster");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.scheduleWithFixedDelay(() -> {
+      try {
+        flush();
+      } catch (Exception e) {
+        LOGGER.error("Fail to forward the note messages", e);
+      }
+    }, broadcastInterval, broadcastInterval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stop the flush thread, the messages still queued are sent before it returns.
+   */
+  public void stop() {
+    if (null == executor) {
+      return;
+    }
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(STOP_TIMEOUT, TimeUnit.MILLISECONDS)) {
+        executor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+    executor = null;
+    try {
+      flush();
+    } catch (Exception e) {
+      LOGGER.error("Fail to forward the note messages", e);
+    }
+  }
+
+  /**
+   * @return true if another zeppelin-server has connections of the note
+   */
+  public boolean isWatched(String noteId) {
+    long now = clock.getAsLong();
+    for (Subscription subscription : subscriptions.values()) {
+      if (!subscription.isExpired(now) && subscription.noteIds.contains(noteId)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Queue a serialized message of the note for the zeppelin-servers having connections of it.
+   */
+  public void forward(String noteId, String serialized) {
+    long now = clock.getAsLong();
+    NoteMessage message = new NoteMessage(noteId, serialized);
+    synchronized (pendingMessages) {
+      for (Map.Entry<String, Subscription> entry : subscriptions.entrySet()) {
+        Subscription subscription = entry.getValue();
+        if (!subscription.isExpired(now) && subscription.noteIds.contains(noteId)) {
+          pendingMessages.computeIfAbsent(entry.getKey(), node -> new ArrayList<>())
+              .add(message);
+        }
+      }
+    }
+  }
+
+  /**
+   * Send the pending messages, one batch per zeppelin-server, and advertise the notes
+   * having connections on this server if they changed or the subscription interval elapsed.
+   */
+  public void flush() {
+    Map<String, List<NoteMessage>> batches;
+    synchronized (pendingMessages) {
+      batches = new HashMap<>(pendingMessages);
+      pendingMessages.clear();
+    }
+    for (Map.Entry<String, List<NoteMessage>> entry : batches.entrySet()) {
+      transport.send(entry.getKey(), new ClusterMessage(ClusterEvent.NOTE_MESSAGES)
+          .put("node", nodeName)
+          .put("messages", gson.toJson(entry.getValue()))
+          .toJson());
+    }
+
+    long now = clock.getAsLong();
+    Set<String> noteIds = connectionManager.getConnectedNoteIds();
+    if (!noteIds.equals(advertisedNoteIds) || now - lastAdvertiseTime >= subscriptionInterval) {
+      transport.broadcast(new ClusterMessage(ClusterEvent.NOTE_SUBSCRIPTIONS)
+          .put("node", nodeName)
+          .put("noteIds", StringUtils.join(noteIds, ","))
+          .toJson());
+      advertisedNoteIds = noteIds;
+      lastAdvertiseTime = now;
+    }
+
+    // forget the servers which stopped advertising
+    subscriptions.values().removeIf(subscription -> subscription.isExpired(now));
+  }
+
+  @Override
+  public void onClusterEvent(String msg) {
+    ClusterMessage message = ClusterMessage.fromJson(msg);
+    String node = message.get("node");
+    switch (message.getClusterEvent()) {
+      case NOTE_SUBSCRIPTIONS:
+        String noteIds = message.get("noteIds");
+        Set<String> ids = StringUtils.isEmpty(noteIds) ? Collections.<String>emptySet()
+            : new HashSet<>(Arrays.asList(noteIds.split(",")));
+        subscriptions.put(node, new Subscription(ids, clock.getAsLong()));
+        break;
+      case NOTE_MESSAGES:
+        List<NoteMessage> messages = gson.fromJson(message.get("messages"),
+            new TypeToken<List<NoteMessage>>() {}.getType());
+        for (NoteMessage noteMessage : messages) {
+          connectionManager.broadcastSerialized(noteMessage.noteId, noteMessage.message);
+        }
+        break;
+      default:
+        LOGGER.warn("Unknown cluster event {} from {}", message.getClusterEvent(), node);
+    }
+  }
+
+  private class Subscription {
+    private final Set<String> noteIds;
+    private final long time;
+
+    Subscription(Set<String> noteIds, long time) {
+      this.noteIds = noteIds;
+      this.time = time;
+    }
+
+    boolean isExpired(long now) {
+      return now - time > SUBSCRIPTION_EXPIRE_INTERVALS * subscriptionInterval;
+    }
+  }
+
+  private static class NoteMessage {
+    private String noteId;
+    // websocket message serialized once by the ConnectionManager
+    private String message;
+
+    NoteMessage(String noteId, String message) {
+      this.noteId = noteId;
+      this.message = message;
+    }
+  }
+}
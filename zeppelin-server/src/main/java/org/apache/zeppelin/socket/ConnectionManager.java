@@ -87,11 +87,22 @@ public class ConnectionManager {
 
   private AuthorizationService authorizationService;
 
+  // Forwards the messages of the notes to the other zeppelin-servers in cluster mode
+  private ClusterNoteBroadcaster clusterNoteBroadcaster;
+
   public void setAuthorizationService(
           AuthorizationService authorizationService) {
     this.authorizationService = authorizationService;
   }
 
+  public void setClusterNoteBroadcaster(ClusterNoteBroadcaster clusterNoteBroadcaster) {
+    this.clusterNoteBroadcaster = clusterNoteBroadcaster;
+  }
+
+  public ClusterNoteBroadcaster getClusterNoteBroadcaster() {
+    return clusterNoteBroadcaster;
+  }
+
   public void addConnection(NotebookSocket conn) {
     connectedSockets.add(conn);
   }
@@ -155,6 +166,21 @@ public class ConnectionManager {
     }
   }
 
+  /**
+   * Ids of the notes having connections on this server.
+   */
+  public Set<String> getConnectedNoteIds() {
+    Set<String> noteIds = new HashSet<>();
+    synchronized (noteSocketMap) {
+      for (Map.Entry<String, List<NotebookSocket>> entry : noteSocketMap.entrySet()) {
+        if (!entry.getValue().isEmpty()) {
+          noteIds.add(entry.getKey());
+        }
+      }
+    }
+    return noteIds;
+  }
+
   public String getAssociatedNoteId(NotebookSocket socket) {
     String associatedNoteId = null;
     synchronized (noteSocketMap) {
@@ -219,10 +245,11 @@ public class ConnectionManager {
   }
 
   public void broadcast(Message m) {
+    String serialized = serializeMessage(m);
     synchronized (connectedSockets) {
       for (NotebookSocket ns : connectedSockets) {
         try {
-          ns.send(serializeMessage(m));
+          ns.send(serialized);
         } catch (IOException | WebSocketException e) {
           LOGGER.error("Send error: " + m, e);
         }
@@ -231,33 +258,74 @@ public class ConnectionManager {
   }
 
   public void broadcast(String noteId, Message m) {
+    if (!hasNoteConnections(noteId)) {
+      return;
+    }
+    LOGGER.debug("SEND >> " + m);
+    // serialized once for all the connections
+    broadcastSerialized(noteId, serializeMessage(m));
+  }
+
+  /**
+   * Broadcast to the connections of the note on this server, and in cluster mode to the
+   * other zeppelin-servers having connections of the note.
+   * This is used by the output, progress and paragraph updates of the running paragraphs.
+   */
+  public void broadcastToCluster(String noteId, Message m) {
+    boolean local = hasNoteConnections(noteId);
+    boolean remote = null != clusterNoteBroadcaster && clusterNoteBroadcaster.isWatched(noteId);
+    if (!local && !remote) {
+      return;
+    }
+    LOGGER.debug("SEND >> " + m);
+    String serialized = serializeMessage(m);
+    if (local) {
+      broadcastSerialized(noteId, serialized);
+    }
+    if (remote) {
+      clusterNoteBroadcaster.forward(noteId, serialized);
+    }
+  }
+
+  // the note has connections or there are watchers
+  private boolean hasNoteConnections(String noteId) {
+    if (!watcherSockets.isEmpty()) {
+      return true;
+    }
+    List<NotebookSocket> socketList = noteSocketMap.get(noteId);
+    return socketList != null && !socketList.isEmpty();
+  }
+
+  /**
+   * Send an already serialized message to the connections of the note on this server.
+   */
+  public void broadcastSerialized(String noteId, String serialized) {
     List<NotebookSocket> socketsToBroadcast = Collections.emptyList();
     synchronized (noteSocketMap) {
-      broadcastToWatchers(noteId, StringUtils.EMPTY, m);
+      broadcastToWatchers(noteId, StringUtils.EMPTY, serialized);
       List<NotebookSocket> socketLists = noteSocketMap.get(noteId);
       if (socketLists == null || socketLists.size() == 0) {
         return;
       }
       socketsToBroadcast = new ArrayList<>(socketLists);
     }
-    LOGGER.debug("SEND >> " + m);
     for (NotebookSocket conn : socketsToBroadcast) {
       try {
-        conn.send(serializeMessage(m));
+        conn.send(serialized);
       } catch (IOException | WebSocketException e) {
         LOGGER.error("socket error", e);
       }
     }
   }
 
-  private void broadcastToWatchers(String noteId, String subject, Message message) {
+  private void broadcastToWatchers(String noteId, String subject, String serialized) {
     synchronized (watcherSockets) {
       for (NotebookSocket watcher : watcherSockets) {
         try {
           watcher.send(
               WatcherMessage.builder(noteId)
                   .subject(subject)
-                  .message(serializeMessage(message))
+                  .message(serialized)
                   .build()
                   .toJson());
         } catch (IOException | WebSocketException e) {
@@ -268,9 +336,10 @@ public class ConnectionManager {
   }
 
   public void broadcastExcept(String noteId, Message m, NotebookSocket exclude) {
+    String serialized = serializeMessage(m);
     List<NotebookSocket> socketsToBroadcast = Collections.emptyList();
     synchronized (noteSocketMap) {
-      broadcastToWatchers(noteId, StringUtils.EMPTY, m);
+      broadcastToWatchers(noteId, StringUtils.EMPTY, serialized);
       List<NotebookSocket> socketLists = noteSocketMap.get(noteId);
       if (socketLists == null || socketLists.size() == 0) {
         return;
@@ -284,7 +353,7 @@ public class ConnectionManager {
         continue;
       }
       try {
-        conn.send(serializeMessage(m));
+        conn.send(serialized);
       } catch (IOException | WebSocketException e) {
         LOGGER.error("socket error", e);
       }
@@ -335,12 +404,13 @@ public class ConnectionManager {
   }
 
   public void unicast(Message m, NotebookSocket conn) {
+    String serialized = serializeMessage(m);
     try {
-      conn.send(serializeMessage(m));
+      conn.send(serialized);
     } catch (IOException | WebSocketException e) {
       LOGGER.error("socket error", e);
     }
-    broadcastToWatchers(StringUtils.EMPTY, StringUtils.EMPTY, m);
+    broadcastToWatchers(StringUtils.EMPTY, StringUtils.EMPTY, serialized);
   }
 
   public void unicastParagraph(Note note, Paragraph p, String user) {
@@ -401,7 +471,7 @@ public class ConnectionManager {
 
   private void broadcastNewParagraph(Note note, Paragraph para) {
     LOGGER.info("Broadcasting paragraph on run call instead of note.");
-    int paraIndex = note.getParagraphs().indexOf(para);
+    int paraIndex = note.indexOfParagraph(para.getId());
     broadcast(note.getId(),
         new Message(Message.OP.PARAGRAPH_ADDED).put("paragraph", para).put("index", paraIndex));
   }
@@ -33,9 +33,12 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 import javax.inject.Inject;
 import javax.inject.Provider;
 import javax.servlet.http.HttpServletRequest;
@@ -138,6 +141,11 @@ public class NotebookServer extends WebSocketServlet
 
   private ExecutorService executorService = Executors.newFixedThreadPool(10);
 
+  // consumers of the output appended to the paragraphs by noteId/paragraphId, e.g. the
+  // streaming REST api, called with the index of the result message and the appended output
+  private final Map<String, List<BiConsumer<Integer, String>>> paragraphOutputConsumers =
+      new ConcurrentHashMap<>();
+
   private Provider<Notebook> notebookProvider;
   private Provider<NotebookService> notebookServiceProvider;
   private Provider<AuthorizationService> authorizationServiceProvider;
@@ -146,6 +154,11 @@ public class NotebookServer extends WebSocketServlet
 
   public NotebookServer() {
     this.connectionManager = new ConnectionManager();
+    ZeppelinConfiguration zconf = ZeppelinConfiguration.create();
+    if (zconf.isClusterMode()) {
+      connectionManager.setClusterNoteBroadcaster(
+          ClusterNoteBroadcaster.create(connectionManager, zconf));
+    }
     NotebookServer.self.set(this);
     LOG.info("NotebookServer instantiated: {}", this);
   }
@@ -216,6 +229,16 @@ public class NotebookServer extends WebSocketServlet
     factory.setCreator(new NotebookWebSocketCreator(this));
   }
 
+  // called when the zeppelin-server shuts down
+  @Override
+  public void destroy() {
+    ClusterNoteBroadcaster clusterNoteBroadcaster = connectionManager.getClusterNoteBroadcaster();
+    if (null != clusterNoteBroadcaster) {
+      clusterNoteBroadcaster.stop();
+    }
+    super.destroy();
+  }
+
   public boolean checkOrigin(HttpServletRequest request, String origin) {
     try {
       return CorsUtils.isValidOrigin(origin, ZeppelinConfiguration.create());
@@ -534,7 +557,7 @@ public class NotebookServer extends WebSocketServlet
     if (note.isPersonalizedMode()) {
       broadcastParagraphs(p.getUserParagraphMap(), p);
     } else {
-      connectionManager.broadcast(note.getId(),
+      connectionManager.broadcastToCluster(note.getId(),
           new Message(OP.PARAGRAPH).put("paragraph", new ParagraphWithRuntimeInfo(p)));
     }
   }
@@ -551,7 +574,7 @@ public class NotebookServer extends WebSocketServlet
 
   private void broadcastNewParagraph(Note note, Paragraph para) {
     LOG.info("Broadcasting paragraph on run call instead of note.");
-    int paraIndex = note.getParagraphs().indexOf(para);
+    int paraIndex = note.indexOfParagraph(para.getId());
     connectionManager.broadcast(note.getId(),
         new Message(OP.PARAGRAPH_ADDED).put("paragraph", para).put("index", paraIndex));
   }
@@ -1437,7 +1460,36 @@ public class NotebookServer extends WebSocketServlet
   public void onOutputAppend(String noteId, String paragraphId, int index, String output) {
     Message msg = new Message(OP.PARAGRAPH_APPEND_OUTPUT).put("noteId", noteId)
         .put("paragraphId", paragraphId).put("index", index).put("data", output);
-    connectionManager.broadcast(noteId, msg);
+    connectionManager.broadcastToCluster(noteId, msg);
+    consumeParagraphOutput(noteId, paragraphId, index, output);
+  }
+
+  public void addParagraphOutputConsumer(String noteId, String paragraphId,
+                                         BiConsumer<Integer, String> consumer) {
+    paragraphOutputConsumers.computeIfAbsent(noteId + "/" + paragraphId,
+        key -> new CopyOnWriteArrayList<>()).add(consumer);
+  }
+
+  public void removeParagraphOutputConsumer(String noteId, String paragraphId,
+                                            BiConsumer<Integer, String> consumer) {
+    paragraphOutputConsumers.computeIfPresent(noteId + "/" + paragraphId, (key, consumers) -> {
+      consumers.remove(consumer);
+      return consumers.isEmpty() ? null : consumers;
+    });
+  }
+
+  private void consumeParagraphOutput(String noteId, String paragraphId, int index,
+                                      String output) {
+    if (paragraphOutputConsumers.isEmpty()) {
+      return;
+    }
+    List<BiConsumer<Integer, String>> consumers =
+        paragraphOutputConsumers.get(noteId + "/" + paragraphId);
+    if (consumers != null) {
+      for (BiConsumer<Integer, String> consumer : consumers) {
+        consumer.accept(index, output);
+      }
+    }
   }
 
   /**
@@ -1458,7 +1510,7 @@ public class NotebookServer extends WebSocketServlet
         connectionManager.multicastToUser(user, msg);
       }
     } else {
-      connectionManager.broadcast(noteId, msg);
+      connectionManager.broadcastToCluster(noteId, msg);
     }
   }
 
@@ -1483,7 +1535,7 @@ public class NotebookServer extends WebSocketServlet
     Message msg =
         new Message(OP.APP_APPEND_OUTPUT).put("noteId", noteId).put("paragraphId", paragraphId)
             .put("index", index).put("appId", appId).put("data", output);
-    connectionManager.broadcast(noteId, msg);
+    connectionManager.broadcastToCluster(noteId, msg);
   }
 
   /**
@@ -1495,14 +1547,14 @@ public class NotebookServer extends WebSocketServlet
     Message msg =
         new Message(OP.APP_UPDATE_OUTPUT).put("noteId", noteId).put("paragraphId", paragraphId)
             .put("index", index).put("type", type).put("appId", appId).put("data", output);
-    connectionManager.broadcast(noteId, msg);
+    connectionManager.broadcastToCluster(noteId, msg);
   }
 
   @Override
   public void onLoad(String noteId, String paragraphId, String appId, HeliumPackage pkg) {
     Message msg = new Message(OP.APP_LOAD).put("noteId", noteId).put("paragraphId", paragraphId)
         .put("appId", appId).put("pkg", pkg);
-    connectionManager.broadcast(noteId, msg);
+    connectionManager.broadcastToCluster(noteId, msg);
   }
 
   @Override
@@ -1510,7 +1562,7 @@ public class NotebookServer extends WebSocketServlet
     Message msg =
         new Message(OP.APP_STATUS_CHANGE).put("noteId", noteId).put("paragraphId", paragraphId)
             .put("appId", appId).put("status", status);
-    connectionManager.broadcast(noteId, msg);
+    connectionManager.broadcastToCluster(noteId, msg);
   }
 
 
@@ -1652,7 +1704,7 @@ public class NotebookServer extends WebSocketServlet
 
   @Override
   public void onProgressUpdate(Paragraph p, int progress) {
-    connectionManager.broadcast(p.getNote().getId(),
+    connectionManager.broadcastToCluster(p.getNote().getId(),
         new Message(OP.PROGRESS).put("id", p.getId()).put("progress", progress));
   }
 
@@ -1701,7 +1753,8 @@ public class NotebookServer extends WebSocketServlet
     Message msg =
         new Message(OP.PARAGRAPH_APPEND_OUTPUT).put("noteId", paragraph.getNote().getId())
             .put("paragraphId", paragraph.getId()).put("data", output);
-    connectionManager.broadcast(paragraph.getNote().getId(), msg);
+    connectionManager.broadcastToCluster(paragraph.getNote().getId(), msg);
+    consumeParagraphOutput(paragraph.getNote().getId(), paragraph.getId(), idx, output);
   }
 
   /**
@@ -1712,7 +1765,7 @@ public class NotebookServer extends WebSocketServlet
     Message msg =
         new Message(OP.PARAGRAPH_UPDATE_OUTPUT).put("noteId", paragraph.getNote().getId())
             .put("paragraphId", paragraph.getId()).put("data", result.getData());
-    connectionManager.broadcast(paragraph.getNote().getId(), msg);
+    connectionManager.broadcastToCluster(paragraph.getNote().getId(), msg);
   }
 
   @Override
@@ -1722,7 +1775,7 @@ public class NotebookServer extends WebSocketServlet
 
   @Override
   public void noteRunningStatusChange(String noteId, boolean newStatus) {
-    connectionManager.broadcast(
+    connectionManager.broadcastToCluster(
         noteId,
         new Message(OP.NOTE_RUNNING_STATUS
         ).put("status", newStatus));
@@ -21,12 +21,16 @@ package org.apache.zeppelin.realm;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import org.apache.shiro.authz.AuthorizationInfo;
 import org.apache.shiro.realm.ldap.LdapContextFactory;
 import org.apache.shiro.session.Session;
 import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
 import org.junit.Test;
 
 import java.util.Arrays;
@@ -119,6 +123,45 @@ public class LdapRealmTest {
     assertEquals(new HashSet(Arrays.asList("group-one", "zeppelin-role")), roles);
   }
 
+  @Test
+  public void testRolesCached() throws NamingException {
+    LdapRealm realm = new LdapRealm();
+    realm.setName("ldapRealmCacheTest");
+    realm.setAuthorizationEnabled(true);
+    realm.setGroupSearchBase("cn=groups,dc=apache");
+    realm.setGroupObjectClass("posixGroup");
+    realm.setMemberAttributeValueTemplate("cn={0},ou=people,dc=apache");
+
+    LdapContextFactory ldapContextFactory = mock(LdapContextFactory.class);
+    LdapContext ldapCtx = mock(LdapContext.class);
+    when(ldapContextFactory.getSystemLdapContext()).thenReturn(ldapCtx);
+    BasicAttributes group1 = new BasicAttributes();
+    group1.put(realm.getGroupIdAttribute(), "group-one");
+    group1.put(realm.getMemberAttribute(), "principal");
+    when(ldapCtx.search(any(String.class), any(String.class), any(SearchControls.class)))
+            .thenAnswer(invocation -> enumerationOf(group1));
+
+    Subject subject = mock(Subject.class);
+    when(subject.getSession()).thenReturn(mock(Session.class));
+    ThreadContext.bind(subject);
+    try {
+      RoleCache.get().invalidateAll();
+      for (int i = 0; i < 3; i++) {
+        AuthorizationInfo info = realm.queryForAuthorizationInfo(
+                new SimplePrincipalCollection("principal", "ldapRealmCacheTest"),
+                ldapContextFactory);
+        assertEquals(new HashSet(Arrays.asList("group-one")), info.getRoles());
+      }
+    } finally {
+      ThreadContext.unbindSubject();
+    }
+
+    // the groups are only searched once
+    verify(ldapContextFactory, times(1)).getSystemLdapContext();
+    verify(ldapCtx, times(1)).search(any(String.class), any(String.class),
+            any(SearchControls.class));
+  }
+
   private NamingEnumeration<SearchResult> enumerationOf(BasicAttributes... attrs) {
     final Iterator<BasicAttributes> iterator = Arrays.asList(attrs).iterator();
     return new NamingEnumeration<SearchResult>() {
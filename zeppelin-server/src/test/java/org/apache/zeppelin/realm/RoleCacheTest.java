@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.zeppelin.realm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.naming.NamingException;
+import org.junit.Test;
+
+public class RoleCacheTest {
+
+  private final AtomicLong now = new AtomicLong();
+  private final AtomicInteger lookups = new AtomicInteger();
+
+  private RoleCache.Loader loader(String... roles) {
+    return () -> {
+      lookups.incrementAndGet();
+      return new RoleCache.Roles(new HashSet<>(Arrays.asList(roles)));
+    };
+  }
+
+  @Test
+  public void testExpire() throws NamingException {
+    RoleCache cache = new RoleCache(1000, 100, 10, now::get);
+
+    assertEquals(Collections.singleton("admin"),
+        cache.get("ldapRealm", "user1", loader("admin")).getRoleNames());
+    now.addAndGet(999);
+    assertEquals(Collections.singleton("admin"),
+        cache.get("ldapRealm", "user1", loader("admin")).getRoleNames());
+    assertEquals(1, lookups.get());
+
+    // the same principal of another realm
+    cache.get("adRealm", "user1", loader("admin"));
+    assertEquals(2, lookups.get());
+
+    now.addAndGet(1);
+    cache.get("ldapRealm", "user1", loader("admin"));
+    assertEquals(3, lookups.get());
+    assertEquals(1, cache.getHits());
+    assertEquals(3, cache.getMisses());
+  }
+
+  @Test
+  public void testNegativeCache() throws NamingException {
+    RoleCache cache = new RoleCache(1000, 100, 10, now::get);
+
+    cache.get("ldapRealm", "user1", loader());
+    now.addAndGet(99);
+    cache.get("ldapRealm", "user1", loader());
+    assertEquals(1, lookups.get());
+    now.addAndGet(1);
+    cache.get("ldapRealm", "user1", loader());
+    assertEquals(2, lookups.get());
+  }
+
+  @Test
+  public void testFailureNotCached() throws NamingException {
+    RoleCache cache = new RoleCache(1000, 100, 10, now::get);
+
+    try {
+      cache.get("ldapRealm", "user1", () -> {
+        throw new NamingException("directory is down");
+      });
+      fail("NamingException expected");
+    } catch (NamingException e) {
+      assertEquals("directory is down", e.getExplanation());
+    }
+    cache.get("ldapRealm", "user1", loader("admin"));
+    assertEquals(1, lookups.get());
+    assertEquals(1, cache.getSize());
+  }
+
+  @Test
+  public void testBounded() throws NamingException {
+    RoleCache cache = new RoleCache(1000, 100, 2, now::get);
+
+    cache.get("ldapRealm", "user1", loader("admin"));
+    now.addAndGet(10);
+    cache.get("ldapRealm", "user2", loader("admin"));
+    now.addAndGet(10);
+    cache.get("ldapRealm", "user3", loader("admin"));
+    assertEquals(2, cache.getSize());
+    assertEquals(1, cache.getEvictions());
+
+    // user1 expires first, so it is evicted
+    cache.get("ldapRealm", "user2", loader("admin"));
+    cache.get("ldapRealm", "user3", loader("admin"));
+    assertEquals(3, lookups.get());
+    cache.get("ldapRealm", "user1", loader("admin"));
+    assertEquals(4, lookups.get());
+  }
+
+  @Test
+  public void testSingleFlight() throws Exception {
+    RoleCache cache = new RoleCache(1000, 100, 10, now::get);
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    RoleCache.Loader slowLoader = () -> {
+      lookups.incrementAndGet();
+      loading.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        throw new NamingException("interrupted");
+      }
+      return new RoleCache.Roles(Collections.singleton("admin"));
+    };
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      Future<RoleCache.Roles> first =
+          executor.submit(() -> cache.get("ldapRealm", "user1", slowLoader));
+      loading.await();
+      List<Future<RoleCache.Roles>> others = new ArrayList<>();
+      for (int i = 0; i < 7; i++) {
+        others.add(executor.submit(() -> cache.get("ldapRealm", "user1", slowLoader)));
+      }
+      release.countDown();
+
+      assertEquals(Collections.singleton("admin"), first.get(10, TimeUnit.SECONDS).getRoleNames());
+      for (Future<RoleCache.Roles> other : others) {
+        assertEquals(Collections.singleton("admin"),
+            other.get(10, TimeUnit.SECONDS).getRoleNames());
+      }
+      assertEquals(1, lookups.get());
+      assertEquals(1, cache.getMisses());
+      assertEquals(7, cache.getHits());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testDisabled() throws NamingException {
+    RoleCache cache = new RoleCache(0, 0, 10, now::get);
+
+    cache.get("ldapRealm", "user1", loader("admin"));
+    cache.get("ldapRealm", "user1", loader("admin"));
+    assertEquals(2, lookups.get());
+    assertEquals(0, cache.getSize());
+  }
+}
@@ -21,6 +21,7 @@ import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
@@ -167,6 +168,87 @@ public class NotebookRestApiTest extends AbstractTestRestApi {
     }
   }
 
+  @Test
+  public void testRunParagraphAsync() throws IOException {
+    Note note1 = null;
+    try {
+      note1 = TestUtils.getInstance(Notebook.class).createNote("note1", anonymous);
+      Paragraph p = note1.addNewParagraph(AuthenticationInfo.ANONYMOUS);
+      p.setText("%sh\n echo hello");
+
+      // run and wait for the result
+      PostMethod post = httpPost("/notebook/async/run/" + note1.getId() + "/" + p.getId(), "");
+      assertThat(post, isAllowed());
+      Map<String, Object> resp = gson.fromJson(post.getResponseBodyAsString(),
+          new TypeToken<Map<String, Object>>() {}.getType());
+      assertEquals("OK", resp.get("status"));
+      assertTrue(post.getResponseBodyAsString().contains("hello"));
+      post.releaseConnection();
+      assertEquals(Job.Status.FINISHED, p.getStatus());
+
+      // the paragraph is completed, the long poll returns right away
+      GetMethod get = httpGet("/notebook/async/job/" + note1.getId() + "/" + p.getId());
+      assertThat(get, isAllowed());
+      assertTrue(get.getResponseBodyAsString().contains("hello"));
+      get.releaseConnection();
+
+      // the paragraph is still running on timeout
+      p.setText("%sh\n sleep 5");
+      post = httpPost("/notebook/async/run/" + note1.getId() + "/" + p.getId() + "?timeout=100",
+          "");
+      assertEquals(202, post.getStatusCode());
+      post.releaseConnection();
+      get = httpGet("/notebook/async/job/" + note1.getId() + "/" + p.getId());
+      assertThat(get, isAllowed());
+      get.releaseConnection();
+      assertEquals(Job.Status.FINISHED, p.getStatus());
+
+      // unknown paragraph
+      post = httpPost("/notebook/async/run/" + note1.getId() + "/unknown", "");
+      assertEquals(404, post.getStatusCode());
+      post.releaseConnection();
+    } finally {
+      // cleanup
+      if (null != note1) {
+        TestUtils.getInstance(Notebook.class).removeNote(note1.getId(), anonymous);
+      }
+    }
+  }
+
+  @Test
+  public void testStreamParagraph() throws IOException {
+    Note note1 = null;
+    try {
+      note1 = TestUtils.getInstance(Notebook.class).createNote("note1", anonymous);
+      Paragraph p = note1.addNewParagraph(AuthenticationInfo.ANONYMOUS);
+      p.setText("%sh\n echo hello\n sleep 1\n echo world");
+
+      PostMethod post =
+          httpPost("/notebook/async/stream/" + note1.getId() + "/" + p.getId(), "");
+      assertThat(post, isAllowed());
+      String[] lines = post.getResponseBodyAsString().trim().split("\n");
+      post.releaseConnection();
+
+      // the appended output, then the result
+      StringBuilder output = new StringBuilder();
+      for (int i = 0; i < lines.length - 1; i++) {
+        Map<String, Object> append = gson.fromJson(lines[i],
+            new TypeToken<Map<String, Object>>() {}.getType());
+        output.append(append.get("data"));
+      }
+      assertTrue(output.toString().contains("hello"));
+      Map<String, Object> resp = gson.fromJson(lines[lines.length - 1],
+          new TypeToken<Map<String, Object>>() {}.getType());
+      assertEquals("OK", resp.get("status"));
+      assertTrue(lines[lines.length - 1].contains("world"));
+    } finally {
+      // cleanup
+      if (null != note1) {
+        TestUtils.getInstance(Notebook.class).removeNote(note1.getId(), anonymous);
+      }
+    }
+  }
+
   @Test
   public void testRunAllParagraph_AllSuccess() throws IOException {
     Note note1 = null;
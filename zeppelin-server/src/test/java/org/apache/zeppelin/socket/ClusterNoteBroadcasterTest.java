@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.zeppelin.socket;
+
+import org.apache.zeppelin.notebook.socket.Message;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ClusterNoteBroadcasterTest {
+  private static final long SUBSCRIPTION_INTERVAL = 5000;
+
+  private long now = 0;
+  private Map<String, ClusterNoteBroadcaster> broadcasters = new HashMap<>();
+  private Map<String, ConnectionManager> connectionManagers = new HashMap<>();
+  private List<String> sentMessages = new ArrayList<>();
+
+  @Before
+  public void setUp() {
+    for (String node : new String[]{"node1", "node2", "node3"}) {
+      ConnectionManager connectionManager = new ConnectionManager();
+      ClusterNoteBroadcaster broadcaster = new ClusterNoteBroadcaster(connectionManager, node,
+          new ClusterNoteBroadcaster.Transport() {
+            @Override
+            public void send(String nodeName, String msg) {
+              sentMessages.add(nodeName);
+              broadcasters.get(nodeName).onClusterEvent(msg);
+            }
+
+            @Override
+            public void broadcast(String msg) {
+              for (String other : broadcasters.keySet()) {
+                if (!other.equals(node)) {
+                  broadcasters.get(other).onClusterEvent(msg);
+                }
+              }
+            }
+          }, SUBSCRIPTION_INTERVAL, () -> now);
+      connectionManager.setClusterNoteBroadcaster(broadcaster);
+      broadcasters.put(node, broadcaster);
+      connectionManagers.put(node, connectionManager);
+    }
+  }
+
+  private void flushAll() {
+    for (ClusterNoteBroadcaster broadcaster : broadcasters.values()) {
+      broadcaster.flush();
+    }
+  }
+
+  @Test
+  public void forwardToWatchingServers() throws IOException {
+    NotebookSocket socket = mock(NotebookSocket.class);
+    connectionManagers.get("node2").addNoteConnection("note1", socket);
+    flushAll();
+
+    assertTrue(broadcasters.get("node1").isWatched("note1"));
+    assertFalse(broadcasters.get("node1").isWatched("note2"));
+    assertFalse(broadcasters.get("node2").isWatched("note1"));
+    // collaborative mode status
+    reset(socket);
+
+    // output of paragraphs running on node1, sent in one batch to node2 only
+    ConnectionManager connectionManager = connectionManagers.get("node1");
+    connectionManager.broadcastToCluster("note1", new Message(Message.OP.PROGRESS)
+        .put("id", "paragraph1").put("progress", 10));
+    connectionManager.broadcastToCluster("note1", new Message(Message.OP.PROGRESS)
+        .put("id", "paragraph1").put("progress", 20));
+    connectionManager.broadcastToCluster("note2", new Message(Message.OP.PROGRESS)
+        .put("id", "paragraph2").put("progress", 10));
+    verify(socket, never()).send(anyString());
+
+    broadcasters.get("node1").flush();
+    assertEquals(1, sentMessages.size());
+    assertEquals("node2", sentMessages.get(0));
+    verify(socket, times(2)).send(anyString());
+  }
+
+  @Test
+  public void subscriptionChanges() throws IOException {
+    NotebookSocket socket = mock(NotebookSocket.class);
+    connectionManagers.get("node2").addNoteConnection("note1", socket);
+    flushAll();
+    assertTrue(broadcasters.get("node1").isWatched("note1"));
+
+    // the connection leaves the note
+    connectionManagers.get("node2").removeNoteConnection("note1", socket);
+    broadcasters.get("node2").flush();
+    assertFalse(broadcasters.get("node1").isWatched("note1"));
+
+    // the subscriptions of a server which stops advertising expire
+    connectionManagers.get("node3").addNoteConnection("note1", socket);
+    flushAll();
+    assertTrue(broadcasters.get("node1").isWatched("note1"));
+    now += 3 * SUBSCRIPTION_INTERVAL + 1;
+    broadcasters.get("node1").flush();
+    broadcasters.get("node2").flush();
+    assertFalse(broadcasters.get("node2").isWatched("note1"));
+    // refreshed every subscription interval
+    broadcasters.get("node3").flush();
+    assertTrue(broadcasters.get("node1").isWatched("note1"));
+  }
+
+  @Test
+  public void stopSendsQueuedMessages() throws IOException {
+    NotebookSocket socket = mock(NotebookSocket.class);
+    connectionManagers.get("node2").addNoteConnection("note1", socket);
+    flushAll();
+    reset(socket);
+
+    // the flush thread of node1 waits longer than the test
+    ClusterNoteBroadcaster broadcaster = broadcasters.get("node1");
+    broadcaster.start(60000);
+    connectionManagers.get("node1").broadcastToCluster("note1",
+        new Message(Message.OP.PROGRESS).put("id", "paragraph1").put("progress", 10));
+    broadcaster.stop();
+    assertEquals(1, sentMessages.size());
+    verify(socket, times(1)).send(anyString());
+    // stopping again does nothing
+    broadcaster.stop();
+  }
+}
@@ -0,0 +1,324 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.interpreter;
+
+import org.apache.zeppelin.interpreter.remote.RemoteInterpreterProcess;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of interpreter processes launched in advance for an InterpreterSetting.
+ *
+ * The pooled processes are started with a placeholder interpreter group id, and are bound to the
+ * InterpreterGroup which claims them when its first interpreter is created in the process
+ * (RemoteInterpreterServer#createInterpreter). The pool is replenished in the background after
+ * each claim.
+ *
+ * The processes of an impersonated InterpreterSetting are started as the user, so they are pooled
+ * per user. Otherwise all the users share the same pool.
+ */
+public class InterpreterProcessPool {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(InterpreterProcessPool.class);
+
+  private static final String SHARED_POOL = "";
+
+  /**
+   * Creates the interpreter process of the given placeholder interpreter group id,
+   * the process is started by the pool.
+   */
+  public interface ProcessFactory {
+    RemoteInterpreterProcess create(String interpreterGroupId, String userName)
+        throws IOException;
+  }
+
+  private final String interpreterSettingName;
+  private final int size;
+  private final boolean perUser;
+  private final ProcessFactory processFactory;
+  private final ExecutorService replenishExecutor;
+
+  // user (or SHARED_POOL) -> started processes waiting to be claimed
+  private final Map<String, Deque<PooledProcess>> idleProcesses = new HashMap<>();
+  // user (or SHARED_POOL) -> number of processes being started
+  private final Map<String, Integer> launchingProcesses = new HashMap<>();
+  private final Set<String> pendingReplenishments = new HashSet<>();
+  // placeholder interpreter group id -> process, until the process is claimed
+  private final Map<String, RemoteInterpreterProcess> pooledProcesses = new ConcurrentHashMap<>();
+
+  private final AtomicInteger processCounter = new AtomicInteger();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong claimTimeNanos = new AtomicLong();
+  private final AtomicLong coldStartTimeNanos = new AtomicLong();
+  private volatile boolean closed = false;
+
+  public InterpreterProcessPool(String interpreterSettingName, int size, boolean perUser,
+                                ProcessFactory processFactory) {
+    this.interpreterSettingName = interpreterSettingName;
+    this.size = size;
+    this.perUser = perUser;
+    this.processFactory = processFactory;
+    this.replenishExecutor = Executors.newSingleThreadExecutor(r -> {
+      Thread thread = new Thread(r, interpreterSettingName + "-process-pool");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * Claims a started interpreter process of the pool, and replenishes the pool.
+   *
+   * @return the process, null if there's no started process for this user in the pool
+   */
+  public RemoteInterpreterProcess claim(String userName) {
+    long start = System.nanoTime();
+    String key = getPoolKey(userName);
+    PooledProcess pooledProcess = null;
+    synchronized (this) {
+      if (closed) {
+        return null;
+      }
+      Deque<PooledProcess> processes = idleProcesses.get(key);
+      while (processes != null && !processes.isEmpty() && pooledProcess == null) {
+        PooledProcess candidate = processes.poll();
+        pooledProcesses.remove(candidate.interpreterGroupId);
+        if (candidate.process.isRunning()) {
+          pooledProcess = candidate;
+        } else {
+          LOGGER.warn("Discard pooled interpreter process {} of {} as it is not running",
+              candidate.interpreterGroupId, interpreterSettingName);
+        }
+      }
+    }
+    replenish(userName);
+
+    if (pooledProcess == null) {
+      misses.incrementAndGet();
+      return null;
+    }
+    hits.incrementAndGet();
+    claimTimeNanos.addAndGet(System.nanoTime() - start);
+    LOGGER.info("Claim pooled interpreter process {} of {}",
+        pooledProcess.interpreterGroupId, interpreterSettingName);
+    return pooledProcess.process;
+  }
+
+  /**
+   * Records the time taken to start an interpreter process when the pool was missed.
+   */
+  public void onColdStart(long nanos) {
+    coldStartTimeNanos.addAndGet(nanos);
+  }
+
+  /**
+   * @return the pooled process started with this placeholder interpreter group id,
+   *         null if it is not a pooled process or if it is already claimed
+   */
+  public RemoteInterpreterProcess getPooledProcess(String interpreterGroupId) {
+    return pooledProcesses.get(interpreterGroupId);
+  }
+
+  /**
+   * Starts processes in background until there are size processes for this user in the pool.
+   */
+  public void replenish(String userName) {
+    String key = getPoolKey(userName);
+    synchronized (this) {
+      if (closed || !pendingReplenishments.add(key)) {
+        return;
+      }
+    }
+    replenishExecutor.submit(() -> {
+      while (true) {
+        String interpreterGroupId;
+        synchronized (this) {
+          int count = getIdleCount(key) + launchingProcesses.getOrDefault(key, 0);
+          if (closed || count >= size) {
+            pendingReplenishments.remove(key);
+            return;
+          }
+          launchingProcesses.merge(key, 1, Integer::sum);
+          interpreterGroupId = interpreterSettingName + "-pool-" + processCounter.incrementAndGet()
+              + "-" + System.currentTimeMillis();
+        }
+        RemoteInterpreterProcess process = launch(interpreterGroupId, userName);
+        boolean pooled;
+        synchronized (this) {
+          launchingProcesses.merge(key, -1, Integer::sum);
+          if (process == null) {
+            // don't keep on launching processes which fail to start
+            pendingReplenishments.remove(key);
+            return;
+          }
+          pooled = !closed;
+          if (pooled) {
+            idleProcesses.computeIfAbsent(key, k -> new ArrayDeque<>())
+                .add(new PooledProcess(interpreterGroupId, process));
+          } else {
+            pooledProcesses.remove(interpreterGroupId);
+          }
+        }
+        if (!pooled) {
+          process.stop();
+          return;
+        }
+      }
+    });
+  }
+
+  private RemoteInterpreterProcess launch(String interpreterGroupId, String userName) {
+    LOGGER.info("Start pooled interpreter process {} of {}", interpreterGroupId,
+        interpreterSettingName);
+    RemoteInterpreterProcess process = null;
+    try {
+      process = processFactory.create(interpreterGroupId, userName);
+      // the process registers itself with the placeholder interpreter group id once started
+      pooledProcesses.put(interpreterGroupId, process);
+      process.start(userName);
+      return process;
+    } catch (Exception e) {
+      LOGGER.warn("Fail to start pooled interpreter process " + interpreterGroupId
+          + " of " + interpreterSettingName, e);
+      pooledProcesses.remove(interpreterGroupId);
+      if (process != null) {
+        process.stop();
+      }
+      return null;
+    }
+  }
+
+  private String getPoolKey(String userName) {
+    return perUser ? userName : SHARED_POOL;
+  }
+
+  private synchronized int getIdleCount(String key) {
+    Deque<PooledProcess> processes = idleProcesses.get(key);
+    return processes == null ? 0 : processes.size();
+  }
+
+  public synchronized int getIdleCount() {
+    int count = 0;
+    for (Deque<PooledProcess> processes : idleProcesses.values()) {
+      count += processes.size();
+    }
+    return count;
+  }
+
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  public double getHitRate() {
+    long total = hits.get() + misses.get();
+    return total == 0 ? 0 : (double) hits.get() / total;
+  }
+
+  /**
+   * @return average milliseconds to claim a pooled process
+   */
+  public double getAverageClaimTime() {
+    long count = hits.get();
+    return count == 0 ? 0 : claimTimeNanos.get() / 1e6 / count;
+  }
+
+  /**
+   * @return average milliseconds to start an interpreter process when the pool was missed
+   */
+  public double getAverageColdStartTime() {
+    long count = misses.get();
+    return count == 0 ? 0 : coldStartTimeNanos.get() / 1e6 / count;
+  }
+
+  public Map<String, Object> getMetrics() {
+    Map<String, Object> metrics = new HashMap<>();
+    metrics.put("size", size);
+    metrics.put("idle", getIdleCount());
+    metrics.put("hits", getHitCount());
+    metrics.put("misses", getMissCount());
+    metrics.put("hitRate", getHitRate());
+    metrics.put("averageClaimTime", getAverageClaimTime());
+    metrics.put("averageColdStartTime", getAverageColdStartTime());
+    return metrics;
+  }
+
+  /**
+   * Stops the replenishment and all the processes which are not claimed.
+   */
+  public void close() {
+    List<PooledProcess> processes = new ArrayList<>();
+    synchronized (this) {
+      closed = true;
+      for (Deque<PooledProcess> idle : idleProcesses.values()) {
+        processes.addAll(idle);
+      }
+      idleProcesses.clear();
+    }
+    replenishExecutor.shutdownNow();
+    LOGGER.info("Close interpreter process pool of {}, stop {} pooled processes",
+        interpreterSettingName, processes.size());
+    for (PooledProcess pooledProcess : processes) {
+      pooledProcesses.remove(pooledProcess.interpreterGroupId);
+      try {
+        pooledProcess.process.stop();
+      } catch (Exception e) {
+        LOGGER.warn("Fail to stop pooled interpreter process " + pooledProcess.interpreterGroupId,
+            e);
+      }
+    }
+    try {
+      replenishExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static class PooledProcess {
+    private final String interpreterGroupId;
+    private final RemoteInterpreterProcess process;
+
+    PooledProcess(String interpreterGroupId, RemoteInterpreterProcess process) {
+      this.interpreterGroupId = interpreterGroupId;
+      this.process = process;
+    }
+  }
+}
@@ -27,6 +27,9 @@ import com.google.gson.annotations.SerializedName;
 import com.google.gson.internal.StringMap;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
+import org.apache.zeppelin.cluster.ClusterManagerServer;
+import org.apache.zeppelin.cluster.ClusterPlacementRequest;
+import org.apache.zeppelin.cluster.ClusterPlacementScheduler;
 import org.apache.zeppelin.conf.ZeppelinConfiguration;
 import org.apache.zeppelin.dep.Dependency;
 import org.apache.zeppelin.dep.DependencyResolver;
@@ -63,6 +66,8 @@ import java.util.stream.Collectors;
 
 import static org.apache.zeppelin.conf.ZeppelinConfiguration.ConfVars.ZEPPELIN_INTERPRETER_MAX_POOL_SIZE;
 import static org.apache.zeppelin.conf.ZeppelinConfiguration.ConfVars.ZEPPELIN_INTERPRETER_OUTPUT_LIMIT;
+import static org.apache.zeppelin.conf.ZeppelinConfiguration.ConfVars.ZEPPELIN_INTERPRETER_ANGULAR_OBJECT_UPDATE_BATCH_INTERVAL;
+import static org.apache.zeppelin.conf.ZeppelinConfiguration.ConfVars.ZEPPELIN_INTERPRETER_PROCESS_POOL_SIZE;
 import static org.apache.zeppelin.util.IdHashes.generateId;
 
 /**
@@ -73,6 +78,11 @@ public class InterpreterSetting {
   private static final Logger LOGGER = LoggerFactory.getLogger(InterpreterSetting.class);
   private static final String SHARED_PROCESS = "shared_process";
   private static final String SHARED_SESSION = "shared_session";
+
+  // Resources reserved for an interpreter process in cluster mode, in MB and in percent of a core
+  public static final String CLUSTER_PLACEMENT_MEMORY = "zeppelin.cluster.placement.memory";
+  public static final String CLUSTER_PLACEMENT_CPU = "zeppelin.cluster.placement.cpu";
+
   private static final Map<String, Object> DEFAULT_EDITOR = ImmutableMap.of(
       "language", (Object) "text",
       "editOnDblClick", false);
@@ -130,6 +140,7 @@ public class InterpreterSetting {
   private transient LifecycleManager lifecycleManager;
   private transient RecoveryStorage recoveryStorage;
   private transient RemoteInterpreterEventServer interpreterEventServer;
+  private transient InterpreterProcessPool interpreterProcessPool;
   ///////////////////////////////////////////////////////////////////////////////////////////
 
   /**
@@ -484,6 +495,7 @@ public class InterpreterSetting {
 
   public void close() {
     LOGGER.info("Close InterpreterSetting: " + name);
+    closeInterpreterProcessPool();
     List<Thread> closeThreads = interpreterGroups.values().stream()
             .map(g -> new Thread(g::close, name + "-close"))
             .peek(t -> t.setUncaughtExceptionHandler((th, e) ->
@@ -542,6 +554,11 @@ public class InterpreterSetting {
           conf.getInt(ZEPPELIN_INTERPRETER_OUTPUT_LIMIT) + "");
     }
 
+    if (!jProperties.containsKey("zeppelin.interpreter.angularObject.update.batch.interval")) {
+      jProperties.setProperty("zeppelin.interpreter.angularObject.update.batch.interval",
+          conf.getLong(ZEPPELIN_INTERPRETER_ANGULAR_OBJECT_UPDATE_BATCH_INTERVAL) + "");
+    }
+
     if (!jProperties.containsKey("zeppelin.interpreter.max.poolsize")) {
       jProperties.setProperty("zeppelin.interpreter.max.poolsize",
           conf.getInt(ZEPPELIN_INTERPRETER_MAX_POOL_SIZE) + "");
@@ -719,14 +736,101 @@ public class InterpreterSetting {
     if (launcher == null) {
       createLauncher();
     }
+    boolean placed = conf.isClusterMode() && !option.isExistingProcess()
+        && placeInterpreterProcess(interpreterGroupId, userName, properties);
     InterpreterLaunchContext launchContext = new
         InterpreterLaunchContext(properties, option, interpreterRunner, userName,
         interpreterGroupId, id, group, name, interpreterEventServer.getPort(), interpreterEventServer.getHost());
-    RemoteInterpreterProcess process = (RemoteInterpreterProcess) launcher.launch(launchContext);
+    RemoteInterpreterProcess process;
+    try {
+      process = (RemoteInterpreterProcess) launcher.launch(launchContext);
+    } catch (IOException | RuntimeException e) {
+      if (placed) {
+        ClusterManagerServer.getInstance().releaseIntpProcess(interpreterGroupId);
+      }
+      throw e;
+    }
     recoveryStorage.onInterpreterClientStart(process);
     return process;
   }
 
+  // The resources of the interpreter process are reserved in the cluster until it stops,
+  // and its interpreter setting and user are published when it registers.
+  // The process is still launched on this node, launching it on the node chosen by the
+  // placement is not supported yet (ZEPPELIN-3623).
+  private boolean placeInterpreterProcess(String interpreterGroupId, String userName,
+                                          Properties properties) {
+    ClusterManagerServer clusterManagerServer = ClusterManagerServer.getInstance();
+    long memory = getLongProperty(properties, CLUSTER_PLACEMENT_MEMORY,
+        ClusterPlacementRequest.DEFAULT_MEMORY / 1024 / 1024) * 1024 * 1024;
+    long cpu = getLongProperty(properties, CLUSTER_PLACEMENT_CPU,
+        ClusterPlacementRequest.DEFAULT_CPU);
+    HashMap<String, Object> nodeMeta = clusterManagerServer.getIdleNodeMeta(
+        new ClusterPlacementRequest(interpreterGroupId, name, userName, memory, cpu));
+    if (nodeMeta == null) {
+      return false;
+    }
+    String nodeName = ClusterPlacementScheduler.getNodeName(nodeMeta);
+    if (!nodeName.equals(clusterManagerServer.getClusterNodeName())) {
+      LOGGER.warn("Interpreter process {} is placed on node {}, but launched on this node",
+          interpreterGroupId, nodeName);
+    }
+    return true;
+  }
+
+  private static long getLongProperty(Properties properties, String key, long defaultValue) {
+    String value = properties.getProperty(key);
+    if (StringUtils.isBlank(value)) {
+      return defaultValue;
+    }
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      LOGGER.warn("Invalid value of {}: {}, use {}", key, value, defaultValue);
+      return defaultValue;
+    }
+  }
+
+  /**
+   * The interpreter processes are only pooled in isolated mode, where a process is started for
+   * each new user or note. The pool size is zeppelin.interpreter.process.pool.size of the
+   * interpreter properties, or of zeppelin-site.xml.
+   *
+   * @return the pool of interpreter processes, null if the processes are not pooled
+   */
+  public synchronized InterpreterProcessPool getInterpreterProcessPool() {
+    if (interpreterProcessPool == null && option.isIsolated() && !option.isExistingProcess()) {
+      int poolSize = conf.getInt(ZEPPELIN_INTERPRETER_PROCESS_POOL_SIZE);
+      String poolSizeProperty = getJavaProperties()
+          .getProperty(ZEPPELIN_INTERPRETER_PROCESS_POOL_SIZE.getVarName());
+      if (StringUtils.isNotBlank(poolSizeProperty)) {
+        poolSize = Integer.parseInt(poolSizeProperty);
+      }
+      if (poolSize > 0) {
+        LOGGER.info("Create interpreter process pool of {} with size {}", name, poolSize);
+        interpreterProcessPool = new InterpreterProcessPool(name, poolSize,
+            option.isUserImpersonate(), (interpreterGroupId, userName) ->
+            createInterpreterProcess(interpreterGroupId, userName, getJavaProperties()));
+      }
+    }
+    return interpreterProcessPool;
+  }
+
+  synchronized InterpreterProcessPool getInterpreterProcessPoolIfExists() {
+    return interpreterProcessPool;
+  }
+
+  private void closeInterpreterProcessPool() {
+    InterpreterProcessPool pool;
+    synchronized (this) {
+      pool = interpreterProcessPool;
+      interpreterProcessPool = null;
+    }
+    if (pool != null) {
+      pool.close();
+    }
+  }
+
   List<Interpreter> getOrCreateSession(String user, String noteId) {
     ManagedInterpreterGroup interpreterGroup = getOrCreateInterpreterGroup(user, noteId);
     Preconditions.checkNotNull(interpreterGroup, "No InterpreterGroup existed for user {}, " +
@@ -47,6 +47,7 @@ import org.apache.zeppelin.notebook.ApplicationState;
 import org.apache.zeppelin.notebook.Note;
 import org.apache.zeppelin.notebook.NoteEventListener;
 import org.apache.zeppelin.notebook.Paragraph;
+import org.apache.zeppelin.plugin.PluginManager;
 import org.apache.zeppelin.resource.Resource;
 import org.apache.zeppelin.resource.ResourcePool;
 import org.apache.zeppelin.resource.ResourceSet;
@@ -467,6 +468,23 @@ public class InterpreterSettingManager implements NoteEventListener {
     return null;
   }
 
+  /**
+   * @return the pooled interpreter process which is started with this placeholder
+   *         interpreter group id and not claimed yet, null if there's no such process
+   */
+  public RemoteInterpreterProcess getPooledInterpreterProcess(String groupId) {
+    for (InterpreterSetting setting : interpreterSettings.values()) {
+      InterpreterProcessPool pool = setting.getInterpreterProcessPoolIfExists();
+      if (pool != null) {
+        RemoteInterpreterProcess process = pool.getPooledProcess(groupId);
+        if (process != null) {
+          return process;
+        }
+      }
+    }
+    return null;
+  }
+
   //TODO(zjffdu) logic here is a little ugly
   public Map<String, Object> getEditorSetting(Interpreter interpreter, String user, String noteId,
       String replName) {
@@ -889,6 +907,24 @@ public class InterpreterSettingManager implements NoteEventListener {
         break;
       }
     }
+    PluginManager.get().closeInterpreterLaunchers();
+  }
+
+  @ManagedAttribute
+  public Map<String, Map<String, Object>> getInterpreterProcessPoolMetrics() {
+    Map<String, Map<String, Object>> metrics = new HashMap<>();
+    for (InterpreterSetting setting : interpreterSettings.values()) {
+      InterpreterProcessPool pool = setting.getInterpreterProcessPoolIfExists();
+      if (pool != null) {
+        metrics.put(setting.getName(), pool.getMetrics());
+      }
+    }
+    return metrics;
+  }
+
+  @ManagedAttribute
+  public Map<String, Object> getLifecycleManagerMetrics() {
+    return lifecycleManager.getMetrics();
   }
 
   @ManagedAttribute
@@ -18,6 +18,8 @@
 
 package org.apache.zeppelin.interpreter;
 
+import java.util.Collections;
+import java.util.Map;
 
 /**
  * Interface for managing the lifecycle of interpreters
@@ -29,4 +31,11 @@ public interface LifecycleManager {
   void onInterpreterUse(ManagedInterpreterGroup interpreterGroup,
                         String sessionId);
 
+  /**
+   * Metrics of the lifecycle manager, exposed through JMX.
+   */
+  default Map<String, Object> getMetrics() {
+    return Collections.emptyMap();
+  }
+
 }
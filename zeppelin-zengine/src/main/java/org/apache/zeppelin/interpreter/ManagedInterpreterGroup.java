@@ -59,10 +59,25 @@ public class ManagedInterpreterGroup extends InterpreterGroup {
                                                                              Properties properties)
       throws IOException {
     if (remoteInterpreterProcess == null) {
-      LOGGER.info("Create InterpreterProcess for InterpreterGroup: " + getId());
-      remoteInterpreterProcess = interpreterSetting.createInterpreterProcess(id, userName,
-          properties);
-      remoteInterpreterProcess.start(userName);
+      InterpreterProcessPool pool = interpreterSetting.getInterpreterProcessPool();
+      // the pooled processes are started with the properties of the interpreter setting,
+      // they can't be used when the properties are changed by ConfInterpreter
+      if (pool != null && properties.equals(interpreterSetting.getJavaProperties())) {
+        // the pooled process is bound to this InterpreterGroup by its first created interpreter
+        remoteInterpreterProcess = pool.claim(userName);
+      }
+      if (remoteInterpreterProcess == null) {
+        LOGGER.info("Create InterpreterProcess for InterpreterGroup: " + getId());
+        long start = System.nanoTime();
+        remoteInterpreterProcess = interpreterSetting.createInterpreterProcess(id, userName,
+            properties);
+        remoteInterpreterProcess.start(userName);
+        if (pool != null) {
+          pool.onColdStart(System.nanoTime() - start);
+        }
+      } else {
+        LOGGER.info("Use pooled InterpreterProcess for InterpreterGroup: " + getId());
+      }
       interpreterSetting.getLifecycleManager().onInterpreterProcessStarted(this);
       getInterpreterSetting().getRecoveryStorage()
           .onInterpreterClientStart(remoteInterpreterProcess);
@@ -22,6 +22,7 @@ import com.google.gson.reflect.TypeToken;
 import org.apache.thrift.TException;
 import org.apache.thrift.server.TThreadPoolServer;
 import org.apache.thrift.transport.TServerSocket;
+import org.apache.zeppelin.cluster.ClusterManagerServer;
 import org.apache.zeppelin.conf.ZeppelinConfiguration;
 import org.apache.zeppelin.display.AngularObject;
 import org.apache.zeppelin.helium.ApplicationEventListener;
@@ -80,6 +81,10 @@ public class RemoteInterpreterEventServer implements RemoteInterpreterEventServi
   private final RemoteInterpreterProcessListener listener;
   private final ApplicationEventListener appListener;
   private final Gson gson = new Gson();
+  private final int appendFlushSize;
+  private final int appendBufferSize;
+  private final AppendOutputRunner.OverflowPolicy appendOverflowPolicy;
+  private final boolean clusterMode;
 
   public RemoteInterpreterEventServer(ZeppelinConfiguration zConf,
                                       InterpreterSettingManager interpreterSettingManager) {
@@ -87,6 +92,11 @@ public class RemoteInterpreterEventServer implements RemoteInterpreterEventServi
     this.interpreterSettingManager = interpreterSettingManager;
     this.listener = interpreterSettingManager.getRemoteInterpreterProcessListener();
     this.appListener = interpreterSettingManager.getAppEventListener();
+    this.appendFlushSize = zConf.getInterpreterOutputAppendFlushSize();
+    this.appendBufferSize = zConf.getInterpreterOutputAppendBufferSize();
+    this.appendOverflowPolicy = AppendOutputRunner.OverflowPolicy.fromString(
+        zConf.getInterpreterOutputAppendOverflowPolicy());
+    this.clusterMode = zConf.isClusterMode();
   }
 
   public void start() throws IOException {
@@ -128,9 +138,11 @@ public class RemoteInterpreterEventServer implements RemoteInterpreterEventServi
     }
     LOGGER.info("RemoteInterpreterEventServer is started");
 
-    runner = new AppendOutputRunner(listener);
+    runner = new AppendOutputRunner(
+        listener, appendFlushSize, appendBufferSize, appendOverflowPolicy);
+    // The runner waits for the buffer time or a full buffer itself
     appendFuture = appendService.scheduleWithFixedDelay(
-        runner, 0, AppendOutputRunner.BUFFER_TIME_MS, TimeUnit.MILLISECONDS);
+        runner, 0, 1, TimeUnit.MILLISECONDS);
   }
 
   public void stop() {
@@ -154,9 +166,20 @@ public class RemoteInterpreterEventServer implements RemoteInterpreterEventServi
 
   @Override
   public void registerInterpreterProcess(RegisterInfo registerInfo) throws TException {
+    if (clusterMode) {
+      ClusterManagerServer.getInstance().putIntpProcessMeta(
+          registerInfo.getInterpreterGroupId(), registerInfo.host, registerInfo.port);
+    }
     InterpreterGroup interpreterGroup =
         interpreterSettingManager.getInterpreterGroupById(registerInfo.getInterpreterGroupId());
     if (interpreterGroup == null) {
+      // process started in advance by an InterpreterProcessPool
+      RemoteInterpreterProcess pooledProcess = interpreterSettingManager
+          .getPooledInterpreterProcess(registerInfo.getInterpreterGroupId());
+      if (pooledProcess != null) {
+        pooledProcess.processStarted(registerInfo.port, registerInfo.host);
+        return;
+      }
       LOGGER.warn("No such interpreterGroup: " + registerInfo.getInterpreterGroupId());
       return;
     }
@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.interpreter.lifecycle;
+
+import org.apache.zeppelin.conf.ZeppelinConfiguration;
+import org.apache.zeppelin.interpreter.LifecycleManager;
+import org.apache.zeppelin.interpreter.ManagedInterpreterGroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * This lifecycle manager keeps the interpreters running as long as there's enough memory, and
+ * closes the least recently used idle interpreter groups when the memory is short, i.e. when:
+ * - the resident memory of all the interpreter processes exceeds
+ *   zeppelin.interpreter.lifecyclemanager.memory.budget (MB, 0 for no budget)
+ * - or the memory available on the host falls below
+ *   zeppelin.interpreter.lifecyclemanager.memory.minAvailable (ratio of the host memory)
+ *
+ * An interpreter group is idle once it is not used for
+ * zeppelin.interpreter.lifecyclemanager.memory.idle.threshold. Like in TimeoutLifecycleManager,
+ * a running paragraph keeps using its interpreter group as its status is polled.
+ *
+ * The memory of the interpreter processes is read from /proc, so only the interpreter processes
+ * running on the host of zeppelin server are closed.
+ */
+public class MemoryAwareLifecycleManager implements LifecycleManager {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MemoryAwareLifecycleManager.class);
+
+  // ManagerInterpreterGroup -> LastTimeUsing timestamp
+  private final Map<ManagedInterpreterGroup, Long> interpreterGroups = new ConcurrentHashMap<>();
+
+  private final ProcessMemoryReader memoryReader;
+  private final LongSupplier clock;
+  private final long idleThreshold;
+  private final long memoryBudget;
+  private final float minAvailableRatio;
+  private ScheduledExecutorService checkScheduler;
+
+  // metrics
+  private final AtomicLong evictionCount = new AtomicLong();
+  private volatile long residentMemory = 0;
+  private volatile long hostMemoryAvailable = -1;
+  private volatile long hostMemoryTotal = -1;
+  private volatile String lastEviction;
+
+  public MemoryAwareLifecycleManager(ZeppelinConfiguration zConf) {
+    this(zConf, new ProcessMemoryReader(), System::currentTimeMillis);
+    long checkInterval = zConf.getLong(ZeppelinConfiguration.ConfVars
+        .ZEPPELIN_INTERPRETER_LIFECYCLE_MANAGER_MEMORY_CHECK_INTERVAL);
+    this.checkScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "MemoryAwareLifecycleManager");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.checkScheduler.scheduleWithFixedDelay(() -> {
+      try {
+        checkMemory();
+      } catch (Exception e) {
+        LOGGER.warn("Fail to check the memory of the interpreters", e);
+      }
+    }, checkInterval, checkInterval, MILLISECONDS);
+    LOGGER.info("MemoryAwareLifecycleManager is started with checkinterval: " + checkInterval
+        + ", idleThreshold: " + idleThreshold + ", memoryBudget: " + memoryBudget
+        + ", minAvailable: " + minAvailableRatio);
+  }
+
+  MemoryAwareLifecycleManager(ZeppelinConfiguration zConf, ProcessMemoryReader memoryReader,
+                              LongSupplier clock) {
+    this.memoryReader = memoryReader;
+    this.clock = clock;
+    this.idleThreshold = zConf.getLong(ZeppelinConfiguration.ConfVars
+        .ZEPPELIN_INTERPRETER_LIFECYCLE_MANAGER_MEMORY_IDLE_THRESHOLD);
+    this.memoryBudget = zConf.getLong(ZeppelinConfiguration.ConfVars
+        .ZEPPELIN_INTERPRETER_LIFECYCLE_MANAGER_MEMORY_BUDGET) * 1024 * 1024;
+    this.minAvailableRatio = zConf.getFloat(ZeppelinConfiguration.ConfVars
+        .ZEPPELIN_INTERPRETER_LIFECYCLE_MANAGER_MEMORY_MIN_AVAILABLE);
+  }
+
+  @Override
+  public void onInterpreterProcessStarted(ManagedInterpreterGroup interpreterGroup) {
+    LOGGER.info("Process of InterpreterGroup {} is started", interpreterGroup.getId());
+    interpreterGroups.put(interpreterGroup, clock.getAsLong());
+  }
+
+  @Override
+  public void onInterpreterUse(ManagedInterpreterGroup interpreterGroup, String sessionId) {
+    LOGGER.debug("InterpreterGroup {} is used in session {}", interpreterGroup.getId(), sessionId);
+    interpreterGroups.put(interpreterGroup, clock.getAsLong());
+  }
+
+  /**
+   * Closes the least recently used idle interpreter groups until the memory is not short anymore.
+   */
+  void checkMemory() {
+    long now = clock.getAsLong();
+    List<GroupUsage> usages = new ArrayList<>();
+    long totalResident = 0;
+    for (Map.Entry<ManagedInterpreterGroup, Long> entry : interpreterGroups.entrySet()) {
+      ManagedInterpreterGroup interpreterGroup = entry.getKey();
+      if (interpreterGroup.getRemoteInterpreterProcess() == null) {
+        // closed by the user or by the interpreter setting
+        interpreterGroups.remove(interpreterGroup, entry.getValue());
+        continue;
+      }
+      long resident = memoryReader.getResidentMemory(interpreterGroup);
+      if (resident > 0) {
+        totalResident += resident;
+      }
+      usages.add(new GroupUsage(interpreterGroup, entry.getValue(), resident));
+    }
+    long available = memoryReader.getHostMemoryAvailable();
+    long total = memoryReader.getHostMemoryTotal();
+    residentMemory = totalResident;
+    hostMemoryAvailable = available;
+    hostMemoryTotal = total;
+
+    if (getShortage(totalResident, available, total) == null) {
+      return;
+    }
+
+    // least recently used first
+    usages.sort(Comparator.comparingLong(usage -> usage.lastUse));
+    for (GroupUsage usage : usages) {
+      String shortage = getShortage(totalResident, available, total);
+      if (shortage == null) {
+        break;
+      }
+      long idleTime = now - usage.lastUse;
+      if (idleTime < idleThreshold || usage.resident <= 0) {
+        // closing a process whose memory is unknown may not free any memory on this host
+        continue;
+      }
+      if (!interpreterGroups.remove(usage.interpreterGroup, usage.lastUse)) {
+        // used meanwhile
+        continue;
+      }
+      String eviction = String.format("InterpreterGroup %s is closed as %s, it uses %d MB and " +
+          "is idle for %d seconds", usage.interpreterGroup.getId(), shortage,
+          usage.resident / 1024 / 1024, idleTime / 1000);
+      LOGGER.info(eviction);
+      try {
+        usage.interpreterGroup.close();
+      } catch (Exception e) {
+        LOGGER.warn("Fail to close interpreterGroup: " + usage.interpreterGroup.getId(), e);
+      }
+      evictionCount.incrementAndGet();
+      lastEviction = eviction;
+      totalResident -= usage.resident;
+      if (available >= 0) {
+        available += usage.resident;
+      }
+    }
+
+    String shortage = getShortage(totalResident, available, total);
+    if (shortage != null) {
+      LOGGER.warn("Memory is still short as {}, but no idle interpreter group can be closed",
+          shortage);
+    }
+  }
+
+  // reason of the memory shortage, null if there's enough memory
+  private String getShortage(long totalResident, long available, long total) {
+    if (memoryBudget > 0 && totalResident > memoryBudget) {
+      return String.format("the interpreters use %d MB, more than the budget of %d MB",
+          totalResident / 1024 / 1024, memoryBudget / 1024 / 1024);
+    }
+    if (minAvailableRatio > 0 && available >= 0 && total > 0
+        && available < total * minAvailableRatio) {
+      return String.format("only %d MB of %d MB is available on the host",
+          available / 1024 / 1024, total / 1024 / 1024);
+    }
+    return null;
+  }
+
+  @Override
+  public Map<String, Object> getMetrics() {
+    Map<String, Object> metrics = new HashMap<>();
+    metrics.put("interpreterGroups", interpreterGroups.size());
+    metrics.put("residentMemory", residentMemory);
+    metrics.put("hostMemoryAvailable", hostMemoryAvailable);
+    metrics.put("hostMemoryTotal", hostMemoryTotal);
+    metrics.put("evictions", evictionCount.get());
+    if (lastEviction != null) {
+      metrics.put("lastEviction", lastEviction);
+    }
+    return metrics;
+  }
+
+  private static class GroupUsage {
+    private final ManagedInterpreterGroup interpreterGroup;
+    private final long lastUse;
+    private final long resident;
+
+    GroupUsage(ManagedInterpreterGroup interpreterGroup, long lastUse, long resident) {
+      this.interpreterGroup = interpreterGroup;
+      this.lastUse = lastUse;
+      this.resident = resident;
+    }
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.interpreter.lifecycle;
+
+import org.apache.zeppelin.interpreter.ManagedInterpreterGroup;
+import org.apache.zeppelin.interpreter.remote.RemoteInterpreterProcess;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads the memory usage of the host and of the interpreter processes from /proc.
+ *
+ * The interpreter process is found by the thrift port it listens on, so only the processes
+ * running on this host, and readable by the user of zeppelin server, are measured.
+ */
+public class ProcessMemoryReader {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ProcessMemoryReader.class);
+
+  private static final String LISTEN_STATE = "0A";
+
+  private final Path procDir;
+  // thrift port of the interpreter process -> pid
+  private final Map<Integer, Long> pids = new ConcurrentHashMap<>();
+
+  public ProcessMemoryReader() {
+    this(Paths.get("/proc"));
+  }
+
+  ProcessMemoryReader(Path procDir) {
+    this.procDir = procDir;
+  }
+
+  /**
+   * @return the resident memory in bytes of the interpreter process of this group,
+   *         -1 if it is unknown
+   */
+  public long getResidentMemory(ManagedInterpreterGroup interpreterGroup) {
+    RemoteInterpreterProcess process = interpreterGroup.getRemoteInterpreterProcess();
+    if (process == null || !process.isRunning() || !isLocalHost(process.getHost())) {
+      return -1;
+    }
+    int port = process.getPort();
+    Long pid = pids.get(port);
+    if (pid == null || !Files.isDirectory(procDir.resolve(pid.toString()))) {
+      pid = findListeningProcess(port);
+      if (pid == null) {
+        pids.remove(port);
+        return -1;
+      }
+      pids.put(port, pid);
+    }
+    return readStatusValue(procDir.resolve(pid + "/status"), "VmRSS:");
+  }
+
+  /**
+   * @return the total memory of the host in bytes, -1 if it is unknown
+   */
+  public long getHostMemoryTotal() {
+    return readStatusValue(procDir.resolve("meminfo"), "MemTotal:");
+  }
+
+  /**
+   * @return the memory available for new processes in bytes, -1 if it is unknown
+   */
+  public long getHostMemoryAvailable() {
+    return readStatusValue(procDir.resolve("meminfo"), "MemAvailable:");
+  }
+
+  Long findListeningProcess(int port) {
+    String inode = findListeningSocket(port);
+    if (inode == null) {
+      return null;
+    }
+    String socket = "socket:[" + inode + "]";
+    try (DirectoryStream<Path> processes = Files.newDirectoryStream(procDir, "[0-9]*")) {
+      for (Path process : processes) {
+        if (hasFileDescriptor(process.resolve("fd"), socket)) {
+          return Long.parseLong(process.getFileName().toString());
+        }
+      }
+    } catch (IOException e) {
+      LOGGER.debug("Fail to list processes", e);
+    }
+    return null;
+  }
+
+  private static boolean hasFileDescriptor(Path fdDir, String target) {
+    try (DirectoryStream<Path> fds = Files.newDirectoryStream(fdDir)) {
+      for (Path fd : fds) {
+        try {
+          if (target.equals(Files.readSymbolicLink(fd).toString())) {
+            return true;
+          }
+        } catch (IOException | UnsupportedOperationException e) {
+          // the file descriptor is closed meanwhile
+        }
+      }
+    } catch (IOException e) {
+      // process of another user, or terminated
+    }
+    return false;
+  }
+
+  // inode of the socket listening on this port, from /proc/net/tcp and /proc/net/tcp6
+  private String findListeningSocket(int port) {
+    String hexPort = String.format(":%04X", port);
+    for (String table : new String[]{"net/tcp", "net/tcp6"}) {
+      File file = procDir.resolve(table).toFile();
+      if (!file.exists()) {
+        continue;
+      }
+      try {
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        // sl local_address rem_address st tx_queue:rx_queue tr:tm->when retrnsmt uid timeout inode
+        for (String line : lines.subList(Math.min(1, lines.size()), lines.size())) {
+          String[] columns = line.trim().split("\\s+");
+          if (columns.length > 9 && columns[1].endsWith(hexPort)
+              && LISTEN_STATE.equals(columns[3])) {
+            return columns[9];
+          }
+        }
+      } catch (IOException e) {
+        LOGGER.debug("Fail to read {}", file, e);
+      }
+    }
+    return null;
+  }
+
+  // value of the "<key> <value> kB" line, in bytes
+  private static long readStatusValue(Path file, String key) {
+    try {
+      for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+        if (line.startsWith(key)) {
+          String[] columns = line.substring(key.length()).trim().split("\\s+");
+          long value = Long.parseLong(columns[0]);
+          return columns.length > 1 && "kB".equals(columns[1]) ? value * 1024 : value;
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      LOGGER.debug("Fail to read {} of {}", key, file, e);
+    }
+    return -1;
+  }
+
+  private static boolean isLocalHost(String host) {
+    try {
+      InetAddress address = InetAddress.getByName(host);
+      return address.isLoopbackAddress() || address.isAnyLocalAddress()
+          || NetworkInterface.getByInetAddress(address) != null;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+}
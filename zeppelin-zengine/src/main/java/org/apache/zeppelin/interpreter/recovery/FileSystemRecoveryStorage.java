@@ -24,8 +24,8 @@ import org.apache.zeppelin.interpreter.InterpreterSetting;
 import org.apache.zeppelin.interpreter.InterpreterSettingManager;
 import org.apache.zeppelin.interpreter.ManagedInterpreterGroup;
 import org.apache.zeppelin.interpreter.launcher.InterpreterClient;
-import org.apache.zeppelin.interpreter.remote.RemoteInterpreterProcess;
 import org.apache.zeppelin.interpreter.remote.RemoteInterpreterRunningProcess;
+import org.apache.zeppelin.interpreter.remote.RemoteInterpreterUtils;
 import org.apache.zeppelin.notebook.FileSystemStorage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,24 +33,47 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 
 /**
  * Hadoop compatible FileSystem based RecoveryStorage implementation.
  *
- * Save InterpreterProcess in the format of:
+ * Each interpreter setting has a journal file {interpreterSettingName}.recovery, where the
+ * started InterpreterProcess are appended in the format of:
  * InterpreterGroupId host:port
+ * and the stopped InterpreterProcess in the format of:
+ * InterpreterGroupId
+ *
+ * The journal is compacted to the running InterpreterProcess when it grows, and when
+ * Zeppelin Server is started. The recovered InterpreterProcess are probed in parallel, the ones
+ * which are not accessible anymore are dropped.
  */
 public class FileSystemRecoveryStorage extends RecoveryStorage {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(FileSystemRecoveryStorage.class);
+  private static final String RECOVERY_FILE_SUFFIX = ".recovery";
+  // minimum number of journal records before compaction
+  private static final int COMPACTION_THRESHOLD = 100;
 
   private InterpreterSettingManager interpreterSettingManager;
   private FileSystemStorage fs;
   private Path recoveryDir;
 
+  // interpreterSettingName -> (InterpreterGroupId -> host:port) of the running InterpreterProcess
+  private final Map<String, Map<String, String>> recoveryData = new HashMap<>();
+  // interpreterSettingName -> number of records in the journal
+  private final Map<String, Integer> journalSizes = new HashMap<>();
+  private final Map<InterpreterClient, String> clientGroupIds = new IdentityHashMap<>();
+
   public FileSystemRecoveryStorage(ZeppelinConfiguration zConf,
                                    InterpreterSettingManager interpreterSettingManager)
       throws IOException {
@@ -66,59 +89,200 @@ public class FileSystemRecoveryStorage extends RecoveryStorage {
   }
 
   @Override
-  public void onInterpreterClientStart(InterpreterClient client) throws IOException {
-    save(client.getInterpreterSettingName());
+  public synchronized void init() throws IOException {
+    super.init();
+    // only keep the InterpreterProcess which are still running
+    Map<String, Map<String, String>> journals = readRecoveryData();
+    for (String interpreterSettingName : journals.keySet()) {
+      recoveryData.put(interpreterSettingName, new LinkedHashMap<>());
+    }
+    for (Map.Entry<String, InterpreterClient> entry : restoredClients.entrySet()) {
+      InterpreterClient client = entry.getValue();
+      recoveryData.computeIfAbsent(client.getInterpreterSettingName(), k -> new LinkedHashMap<>())
+          .put(entry.getKey(), client.getHost() + ":" + client.getPort());
+      clientGroupIds.put(client, entry.getKey());
+    }
+    for (String interpreterSettingName : recoveryData.keySet()) {
+      compact(interpreterSettingName);
+    }
   }
 
   @Override
-  public void onInterpreterClientStop(InterpreterClient client) throws IOException {
-    save(client.getInterpreterSettingName());
+  public synchronized void onInterpreterClientStart(InterpreterClient client) throws IOException {
+    // the InterpreterProcess is recorded once it is bound to its InterpreterGroup
+    String groupId = findInterpreterGroupId(client);
+    if (groupId == null) {
+      return;
+    }
+    String hostPort = client.getHost() + ":" + client.getPort();
+    clientGroupIds.put(client, groupId);
+    recoveryData.computeIfAbsent(client.getInterpreterSettingName(), k -> new LinkedHashMap<>())
+        .put(groupId, hostPort);
+    appendJournal(client.getInterpreterSettingName(), groupId + "\t" + hostPort);
   }
 
-  private void save(String interpreterSettingName) throws IOException {
+  @Override
+  public synchronized void onInterpreterClientStop(InterpreterClient client) throws IOException {
+    String groupId = clientGroupIds.remove(client);
+    if (groupId == null) {
+      return;
+    }
+    Map<String, String> processes = recoveryData.get(client.getInterpreterSettingName());
+    if (processes != null) {
+      processes.remove(groupId);
+    }
+    appendJournal(client.getInterpreterSettingName(), groupId);
+  }
+
+  private String findInterpreterGroupId(InterpreterClient client) {
     InterpreterSetting interpreterSetting =
-        interpreterSettingManager.getInterpreterSettingByName(interpreterSettingName);
-    List<String> recoveryContent = new ArrayList<>();
+        interpreterSettingManager.getInterpreterSettingByName(client.getInterpreterSettingName());
+    if (interpreterSetting == null) {
+      return null;
+    }
     for (ManagedInterpreterGroup interpreterGroup : interpreterSetting.getAllInterpreterGroups()) {
-      RemoteInterpreterProcess interpreterProcess = interpreterGroup.getInterpreterProcess();
-      if (interpreterProcess != null) {
-        recoveryContent.add(interpreterGroup.getId() + "\t" + interpreterProcess.getHost() + ":" +
-            interpreterProcess.getPort());
+      if (interpreterGroup.getInterpreterProcess() == client) {
+        return interpreterGroup.getId();
       }
     }
-    LOGGER.debug("Updating recovery data for interpreterSetting: " + interpreterSettingName);
+    return null;
+  }
+
+  private void appendJournal(String interpreterSettingName, String record) throws IOException {
+    int journalSize = journalSizes.getOrDefault(interpreterSettingName, 0) + 1;
+    int runningSize = recoveryData.get(interpreterSettingName).size();
+    if (journalSize > COMPACTION_THRESHOLD && journalSize > 2 * runningSize) {
+      compact(interpreterSettingName);
+      return;
+    }
+    LOGGER.debug("Updating recovery data for interpreterSetting: {}, {}",
+        interpreterSettingName, record);
+    try {
+      // the previous record may not end with a line separator
+      fs.appendFile(System.lineSeparator() + record, getRecoveryFile(interpreterSettingName));
+      journalSizes.put(interpreterSettingName, journalSize);
+    } catch (IOException | UnsupportedOperationException e) {
+      LOGGER.debug("Fail to append the recovery data, rewrite it", e);
+      compact(interpreterSettingName);
+    }
+  }
+
+  /**
+   * Rewrite the journal of the interpreter setting with its running InterpreterProcess.
+   */
+  private void compact(String interpreterSettingName) throws IOException {
+    List<String> recoveryContent = new ArrayList<>();
+    Map<String, String> processes =
+        recoveryData.getOrDefault(interpreterSettingName, new HashMap<>());
+    for (Map.Entry<String, String> entry : processes.entrySet()) {
+      recoveryContent.add(entry.getKey() + "\t" + entry.getValue());
+    }
+    LOGGER.debug("Compacting recovery data for interpreterSetting: " + interpreterSettingName);
     LOGGER.debug("Recovery Data: " + StringUtils.join(recoveryContent, System.lineSeparator()));
-    Path recoveryFile = new Path(recoveryDir, interpreterSettingName + ".recovery");
-    fs.writeFile(StringUtils.join(recoveryContent, System.lineSeparator()), recoveryFile, true);
+    fs.writeFile(StringUtils.join(recoveryContent, System.lineSeparator()),
+        getRecoveryFile(interpreterSettingName), true);
+    journalSizes.put(interpreterSettingName, recoveryContent.size());
   }
 
-  @Override
-  public Map<String, InterpreterClient> restore() throws IOException {
-    Map<String, InterpreterClient> clients = new HashMap<>();
-    List<Path> paths = fs.list(new Path(recoveryDir + "/*.recovery"));
+  private Path getRecoveryFile(String interpreterSettingName) {
+    return new Path(recoveryDir, interpreterSettingName + RECOVERY_FILE_SUFFIX);
+  }
 
+  /**
+   * Replay the journal files.
+   *
+   * @return interpreterSettingName -> (InterpreterGroupId -> host:port)
+   */
+  private Map<String, Map<String, String>> readRecoveryData() throws IOException {
+    Map<String, Map<String, String>> result = new HashMap<>();
+    List<Path> paths = fs.list(new Path(recoveryDir + "/*" + RECOVERY_FILE_SUFFIX));
     for (Path path : paths) {
       String fileName = path.getName();
       String interpreterSettingName = fileName.substring(0,
-          fileName.length() - ".recovery".length());
+          fileName.length() - RECOVERY_FILE_SUFFIX.length());
+      Map<String, String> processes = new LinkedHashMap<>();
       String recoveryContent = fs.readFile(path);
       if (!StringUtils.isBlank(recoveryContent)) {
         for (String line : recoveryContent.split(System.lineSeparator())) {
+          if (StringUtils.isBlank(line)) {
+            continue;
+          }
           String[] tokens = line.split("\t");
-          String groupId = tokens[0];
-          String[] hostPort = tokens[1].split(":");
-          int connectTimeout =
-              zConf.getInt(ZeppelinConfiguration.ConfVars.ZEPPELIN_INTERPRETER_CONNECT_TIMEOUT);
-          RemoteInterpreterRunningProcess client = new RemoteInterpreterRunningProcess(
-              interpreterSettingName, connectTimeout, hostPort[0], Integer.parseInt(hostPort[1]));
-          // interpreterSettingManager may be null when this class is used when it is used
-          // stop-interpreter.sh
-          clients.put(groupId, client);
-          LOGGER.info("Recovering Interpreter Process: " + hostPort[0] + ":" + hostPort[1]);
+          if (tokens.length == 1) {
+            processes.remove(tokens[0]);
+          } else {
+            processes.put(tokens[0], tokens[1]);
+          }
         }
       }
+      result.put(interpreterSettingName, processes);
     }
+    return result;
+  }
 
+  @Override
+  public Map<String, InterpreterClient> restore() throws IOException {
+    int connectTimeout =
+        zConf.getInt(ZeppelinConfiguration.ConfVars.ZEPPELIN_INTERPRETER_CONNECT_TIMEOUT);
+    Map<String, RemoteInterpreterRunningProcess> recoveredClients = new HashMap<>();
+    for (Map.Entry<String, Map<String, String>> entry : readRecoveryData().entrySet()) {
+      for (Map.Entry<String, String> process : entry.getValue().entrySet()) {
+        String[] hostPort = process.getValue().split(":");
+        // interpreterSettingManager may be null when this class is used when it is used
+        // stop-interpreter.sh
+        recoveredClients.put(process.getKey(), new RemoteInterpreterRunningProcess(
+            entry.getKey(), connectTimeout, hostPort[0], Integer.parseInt(hostPort[1])));
+      }
+    }
+    return probe(recoveredClients);
+  }
+
+  /**
+   * Check in parallel whether the recovered InterpreterProcess are still running.
+   *
+   * @return the running InterpreterProcess
+   */
+  private Map<String, InterpreterClient> probe(
+      Map<String, RemoteInterpreterRunningProcess> recoveredClients) throws IOException {
+    Map<String, InterpreterClient> clients = new HashMap<>();
+    if (recoveredClients.isEmpty()) {
+      return clients;
+    }
+    long start = System.currentTimeMillis();
+    int probeTimeout = zConf.getRecoveryProbeTimeout();
+    int parallelism = Math.max(1,
+        Math.min(zConf.getRecoveryProbeParallelism(), recoveredClients.size()));
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+    try {
+      Map<String, Future<Boolean>> probes = new HashMap<>();
+      for (Map.Entry<String, RemoteInterpreterRunningProcess> entry :
+          recoveredClients.entrySet()) {
+        RemoteInterpreterRunningProcess client = entry.getValue();
+        Callable<Boolean> probe = () -> RemoteInterpreterUtils.checkIfRemoteEndpointAccessible(
+            client.getHost(), client.getPort(), probeTimeout);
+        probes.put(entry.getKey(), executor.submit(probe));
+      }
+      for (Map.Entry<String, Future<Boolean>> entry : probes.entrySet()) {
+        InterpreterClient client = recoveredClients.get(entry.getKey());
+        if (entry.getValue().get()) {
+          LOGGER.info("Recovering Interpreter Process: " + client.getHost() + ":" +
+              client.getPort());
+          clients.put(entry.getKey(), client);
+        } else {
+          LOGGER.warn("Drop Interpreter Process: " + client.getHost() + ":" + client.getPort() +
+              " of InterpreterGroup: " + entry.getKey() + ", as it is not accessible");
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while probing the recovered interpreter processes", e);
+    } catch (ExecutionException e) {
+      throw new IOException("Fail to probe the recovered interpreter processes", e);
+    } finally {
+      executor.shutdownNow();
+    }
+    LOGGER.info("Recovered {} of {} Interpreter Processes in {} ms", clients.size(),
+        recoveredClients.size(), System.currentTimeMillis() - start);
     return clients;
   }
 }
@@ -14,41 +14,156 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package org.apache.zeppelin.interpreter.remote;
 
+import java.util.Objects;
+
 /**
  * This element stores the buffered
- * append-data of paragraph's output.
+ * append-data of one paragraph's output, up to its capacity.
+ * It is guarded by its own monitor.
  */
 public class AppendOutputBuffer {
 
-  private String noteId;
-  private String paragraphId;
-  private int index;
-  private String data;
+  // capacity of the data kept after a drain, a burst of output doesn't hold its memory
+  private static final int MAX_RETAINED_CAPACITY = 8 * 1024;
+
+  private final Key key;
+  private StringBuilder data = new StringBuilder();
+  // characters dropped by the overflow policy since the last drain
+  private long dropped;
+  // removed from the runner, the output must be appended to a new buffer
+  private boolean closed;
+
+  public AppendOutputBuffer(String noteId, String paragraphId, int index) {
+    this(new Key(noteId, paragraphId, index));
+  }
+
+  AppendOutputBuffer(Key key) {
+    this.key = key;
+  }
 
-  public AppendOutputBuffer(String noteId, String paragraphId, int index, String data) {
-    this.noteId = noteId;
-    this.paragraphId = paragraphId;
-    this.index = index;
-    this.data = data;
+  public Key getKey() {
+    return key;
   }
 
   public String getNoteId() {
-    return noteId;
+    return key.noteId;
   }
 
   public String getParagraphId() {
-    return paragraphId;
+    return key.paragraphId;
   }
 
   public int getIndex() {
-    return index;
+    return key.index;
+  }
+
+  public int length() {
+    return data.length();
+  }
+
+  public long getDropped() {
+    return dropped;
+  }
+
+  boolean isClosed() {
+    return closed;
   }
 
-  public String getData() {
-    return data;
+  void close() {
+    closed = true;
   }
 
+  void append(String output) {
+    data.append(output);
+  }
+
+  // Keeps the head of the output and drops the rest
+  void truncate(String output, int capacity) {
+    int room = Math.max(0, capacity - data.length());
+    if (output.length() <= room) {
+      data.append(output);
+    } else {
+      data.append(output, 0, room);
+      dropped += output.length() - room;
+    }
+  }
+
+  // Keeps the tail of the output and drops its oldest characters
+  void coalesce(String output, int capacity) {
+    if (output.length() >= capacity) {
+      dropped += data.length() + output.length() - capacity;
+      data.setLength(0);
+      data.append(output, output.length() - capacity, output.length());
+      return;
+    }
+    int overflow = data.length() + output.length() - capacity;
+    if (overflow > 0) {
+      data.delete(0, overflow);
+      dropped += overflow;
+    }
+    data.append(output);
+  }
+
+  /**
+   * @return the buffered data, null if nothing is buffered
+   */
+  String drain(boolean tail) {
+    if (data.length() == 0 && dropped == 0) {
+      return null;
+    }
+    String output;
+    if (dropped == 0) {
+      output = data.toString();
+    } else {
+      String marker = String.format(AppendOutputRunner.TRUNCATION_MARKER, dropped);
+      output = tail ? marker + data : data + marker;
+    }
+    if (data.capacity() > MAX_RETAINED_CAPACITY) {
+      data = new StringBuilder();
+    } else {
+      data.setLength(0);
+    }
+    dropped = 0;
+    return output;
+  }
+
+  /**
+   * Identifies an output of a paragraph.
+   */
+  public static final class Key {
+    private final String noteId;
+    private final String paragraphId;
+    private final int index;
+
+    public Key(String noteId, String paragraphId, int index) {
+      this.noteId = noteId;
+      this.paragraphId = paragraphId;
+      this.index = index;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return index == key.index && Objects.equals(noteId, key.noteId)
+          && Objects.equals(paragraphId, key.paragraphId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(noteId, paragraphId, index);
+    }
+
+    @Override
+    public String toString() {
+      return noteId + ":" + paragraphId + ":" + index;
+    }
+  }
 }
@@ -14,75 +14,142 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package org.apache.zeppelin.interpreter.remote;
 
+import com.google.common.annotations.VisibleForTesting;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This thread sends paragraph's append-data
- * periodically, rather than continously, with
- * a period of BUFFER_TIME_MS. It handles append-data
- * for all paragraphs across all notebooks.
+ * periodically, rather than continously. Each output of a paragraph
+ * has its own buffer, sent BUFFER_TIME_MS after its data is buffered or
+ * once it holds flushSize characters, whichever comes first.
+ * It handles append-data for all paragraphs across all notebooks.
+ *
+ * A buffer holds at most capacity characters. When a paragraph prints faster than
+ * its output is sent, the overflow policy either blocks the interpreter until the
+ * buffer is flushed, for at most BUFFER_TIME_MS before the new output is truncated, or
+ * drops the new output (truncate), or drops the oldest buffered output (coalesce).
+ * The dropped output is replaced by TRUNCATION_MARKER.
  */
 public class AppendOutputRunner implements Runnable {
 
   private static final Logger logger =
       LoggerFactory.getLogger(AppendOutputRunner.class);
   public static final Long BUFFER_TIME_MS = new Long(100);
+  public static final int DEFAULT_FLUSH_SIZE = 64 * 1024;
+  public static final int DEFAULT_CAPACITY = 1024 * 1024;
+  public static final String TRUNCATION_MARKER = "\n... %d characters of output dropped ...\n";
   private static final Long SAFE_PROCESSING_TIME = new Long(10);
   private static final Long SAFE_PROCESSING_STRING_SIZE = new Long(100000);
 
-  private final BlockingQueue<AppendOutputBuffer> queue = new LinkedBlockingQueue<>();
+  /**
+   * What to do with the output appended to a full buffer.
+   */
+  public enum OverflowPolicy {
+    BLOCK,
+    TRUNCATE,
+    COALESCE;
+
+    public static OverflowPolicy fromString(String policy) {
+      try {
+        return valueOf(policy.trim().toUpperCase());
+      } catch (IllegalArgumentException | NullPointerException e) {
+        logger.warn("Invalid output overflow policy: {}, use block", policy);
+        return BLOCK;
+      }
+    }
+  }
+
+  private final Map<AppendOutputBuffer.Key, AppendOutputBuffer> buffers =
+      new ConcurrentHashMap<>();
   private final RemoteInterpreterProcessListener listener;
+  private final int flushSize;
+  private final int capacity;
+  private final OverflowPolicy overflowPolicy;
+
+  // Some output is buffered since firstBufferedTime
+  private volatile boolean pending;
+  // guarded by this
+  private long firstBufferedTime;
+  private boolean flushRequested;
+  // flushes requested by a full buffer before the buffer time
+  private long sizeFlushCount;
+  // appends which waited the whole buffer time for room, and were truncated
+  private final AtomicLong blockTimeoutCount = new AtomicLong();
 
   public AppendOutputRunner(RemoteInterpreterProcessListener listener) {
+    this(listener, DEFAULT_FLUSH_SIZE, DEFAULT_CAPACITY, OverflowPolicy.BLOCK);
+  }
+
+  public AppendOutputRunner(RemoteInterpreterProcessListener listener, int flushSize,
+                            int capacity, OverflowPolicy overflowPolicy) {
     this.listener = listener;
+    this.capacity = Math.max(1, capacity);
+    this.flushSize = Math.min(Math.max(1, flushSize), this.capacity);
+    this.overflowPolicy = overflowPolicy;
   }
 
   @Override
   public void run() {
-
-    Map<String, StringBuilder> stringBufferMap = new HashMap<>();
-    List<AppendOutputBuffer> list = new LinkedList<>();
-
-    /* "drainTo" method does not wait for any element
-     * to be present in the queue, and thus this loop would
-     * continuosly run (with period of BUFFER_TIME_MS). "take()" method
-     * waits for the queue to become non-empty and then removes
-     * one element from it. Rest elements from queue (if present) are
-     * removed using "drainTo" method. Thus we save on some un-necessary
-     * cpu-cycles.
-     */
     try {
-      list.add(queue.take());
+      awaitFlush();
     } catch (InterruptedException e) {
-      logger.error("Wait for OutputBuffer queue interrupted: " + e.getMessage());
+      logger.error("Wait for OutputBuffer interrupted: " + e.getMessage());
+      Thread.currentThread().interrupt();
+      return;
     }
-    Long processingStartTime = System.currentTimeMillis();
-    queue.drainTo(list);
-
-    for (AppendOutputBuffer buffer: list) {
-      String noteId = buffer.getNoteId();
-      String paragraphId = buffer.getParagraphId();
-      int index = buffer.getIndex();
-      String stringBufferKey = noteId + ":" + paragraphId + ":" + index;
+    flush();
+  }
 
-      StringBuilder builder = stringBufferMap.containsKey(stringBufferKey) ?
-          stringBufferMap.get(stringBufferKey) : new StringBuilder();
+  /* Waits for some output to be buffered, as the runner would
+   * otherwise continuously run, then for the buffer time or a full buffer.
+   */
+  private synchronized void awaitFlush() throws InterruptedException {
+    while (!pending) {
+      wait();
+    }
+    long remaining = firstBufferedTime + BUFFER_TIME_MS - System.currentTimeMillis();
+    while (!flushRequested && remaining > 0) {
+      wait(remaining);
+      remaining = firstBufferedTime + BUFFER_TIME_MS - System.currentTimeMillis();
+    }
+    if (flushRequested) {
+      sizeFlushCount++;
+    }
+    pending = false;
+    flushRequested = false;
+  }
 
-      builder.append(buffer.getData());
-      stringBufferMap.put(stringBufferKey, builder);
+  /**
+   * Sends the output of all the buffers.
+   */
+  void flush() {
+    long processingStartTime = System.currentTimeMillis();
+    long sizeProcessed = 0;
+    for (AppendOutputBuffer buffer : buffers.values()) {
+      String output;
+      synchronized (buffer) {
+        output = buffer.drain(overflowPolicy == OverflowPolicy.COALESCE);
+        if (null == output) {
+          // nothing appended since the last flush, the paragraph is likely done
+          buffer.close();
+          buffers.remove(buffer.getKey(), buffer);
+        }
+        buffer.notifyAll();
+      }
+      if (null != output) {
+        sizeProcessed += output.length();
+        listener.onOutputAppend(
+            buffer.getNoteId(), buffer.getParagraphId(), buffer.getIndex(), output);
+      }
     }
-    Long processingTime = System.currentTimeMillis() - processingStartTime;
+    long processingTime = System.currentTimeMillis() - processingStartTime;
 
     if (processingTime > SAFE_PROCESSING_TIME) {
       logger.warn("Processing time for buffered append-output is high: " +
@@ -92,14 +159,6 @@ public class AppendOutputRunner implements Runnable {
           + processingTime + " milliseconds");
     }
 
-    Long sizeProcessed = new Long(0);
-    for (String stringBufferKey : stringBufferMap.keySet()) {
-      StringBuilder buffer = stringBufferMap.get(stringBufferKey);
-      sizeProcessed += buffer.length();
-      String[] keys = stringBufferKey.split(":");
-      listener.onOutputAppend(keys[0], keys[1], Integer.parseInt(keys[2]), buffer.toString());
-    }
-
     if (sizeProcessed > SAFE_PROCESSING_STRING_SIZE) {
       logger.warn("Processing size for buffered append-output is high: " +
           sizeProcessed + " characters.");
@@ -110,7 +169,87 @@ public class AppendOutputRunner implements Runnable {
   }
 
   public void appendBuffer(String noteId, String paragraphId, int index, String outputToAppend) {
-    queue.offer(new AppendOutputBuffer(noteId, paragraphId, index, outputToAppend));
+    if (null == outputToAppend || outputToAppend.isEmpty()) {
+      return;
+    }
+    AppendOutputBuffer.Key key = new AppendOutputBuffer.Key(noteId, paragraphId, index);
+    boolean full;
+    while (true) {
+      AppendOutputBuffer buffer = buffers.computeIfAbsent(key, AppendOutputBuffer::new);
+      synchronized (buffer) {
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+          awaitRoom(buffer, outputToAppend.length());
+        }
+        if (buffer.isClosed()) {
+          continue;
+        }
+        full = write(buffer, outputToAppend);
+      }
+      break;
+    }
+    signal(full);
   }
 
+  // guarded by buffer. The thrift worker of the interpreter waits at most one flush
+  // interval, a flush that takes longer doesn't park it.
+  private void awaitRoom(AppendOutputBuffer buffer, int length) {
+    long deadline = System.currentTimeMillis() + BUFFER_TIME_MS;
+    while (!buffer.isClosed() && buffer.length() > 0 && buffer.length() + length > capacity) {
+      long remaining = deadline - System.currentTimeMillis();
+      if (remaining <= 0) {
+        blockTimeoutCount.incrementAndGet();
+        logger.debug("Output of {} is not flushed in {} ms, truncate it",
+            buffer.getKey(), BUFFER_TIME_MS);
+        return;
+      }
+      signal(true);
+      try {
+        buffer.wait(remaining);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  // guarded by buffer, returns whether the buffer needs to be flushed now
+  private boolean write(AppendOutputBuffer buffer, String output) {
+    if (overflowPolicy == OverflowPolicy.COALESCE) {
+      buffer.coalesce(output, capacity);
+    } else if (overflowPolicy == OverflowPolicy.BLOCK && buffer.length() == 0) {
+      // a single output larger than the capacity is not split
+      buffer.append(output);
+    } else {
+      buffer.truncate(output, capacity);
+    }
+    return buffer.length() >= flushSize || buffer.getDropped() > 0;
+  }
+
+  private void signal(boolean full) {
+    if (pending && !full) {
+      return;
+    }
+    synchronized (this) {
+      if (!pending) {
+        pending = true;
+        firstBufferedTime = System.currentTimeMillis();
+      }
+      flushRequested |= full;
+      notifyAll();
+    }
+  }
+
+  public int getBufferCount() {
+    return buffers.size();
+  }
+
+  @VisibleForTesting
+  synchronized long getSizeFlushCount() {
+    return sizeFlushCount;
+  }
+
+  @VisibleForTesting
+  long getBlockTimeoutCount() {
+    return blockTimeoutCount.get();
+  }
 }
@@ -21,6 +21,8 @@ import com.google.common.annotations.VisibleForTesting;
 import org.apache.commons.exec.CommandLine;
 import org.apache.commons.exec.ExecuteException;
 import org.apache.commons.exec.environment.EnvironmentUtils;
+import org.apache.zeppelin.cluster.ClusterManagerServer;
+import org.apache.zeppelin.conf.ZeppelinConfiguration;
 import org.apache.zeppelin.interpreter.thrift.RemoteInterpreterService;
 import org.apache.zeppelin.util.ProcessLauncher;
 import org.slf4j.Logger;
@@ -144,6 +146,9 @@ public class RemoteInterpreterManagedProcess extends RemoteInterpreterProcess {
     }
 
     interpreterProcessLauncher = null;
+    if (ZeppelinConfiguration.create().isClusterMode()) {
+      ClusterManagerServer.getInstance().releaseIntpProcess(interpreterGroupId);
+    }
     LOGGER.info("Remote process terminated");
   }
 
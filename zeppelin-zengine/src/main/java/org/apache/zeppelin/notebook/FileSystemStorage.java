@@ -16,6 +16,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.security.PrivilegedExceptionAction;
@@ -189,6 +190,53 @@ public class FileSystemStorage {
     });
   }
 
+  /**
+   * Reads the file as a stream, so that its content is never held as a single string.
+   */
+  public <T> T readFile(final Path file, final ContentReader<T> reader) throws IOException {
+    return callHdfsOperation(new HdfsOperation<T>() {
+      @Override
+      public T call() throws IOException {
+        LOGGER.debug("Read from file: " + file);
+        try (InputStream in = fs.open(file)) {
+          return reader.read(in);
+        }
+      }
+    });
+  }
+
+  /**
+   * Writes the file as a stream, to a temp file first which is then renamed to the file.
+   */
+  public void writeFile(final ContentWriter writer, final Path file, boolean writeTempFileFirst)
+      throws IOException {
+    callHdfsOperation(new HdfsOperation<Void>() {
+      @Override
+      public Void call() throws IOException {
+        Path tmpFile = new Path(file.toString() + ".tmp");
+        try (OutputStream out = fs.create(tmpFile)) {
+          writer.write(out);
+        }
+        fs.delete(file, true);
+        fs.rename(tmpFile, file);
+        return null;
+      }
+    });
+  }
+
+  public void appendFile(final String content, final Path file) throws IOException {
+    callHdfsOperation(new HdfsOperation<Void>() {
+      @Override
+      public Void call() throws IOException {
+        try (OutputStream out = fs.exists(file) ? fs.append(file) : fs.create(file)) {
+          out.write(content.getBytes(
+              zConf.getString(ZeppelinConfiguration.ConfVars.ZEPPELIN_ENCODING)));
+        }
+        return null;
+      }
+    });
+  }
+
   public void move(Path src, Path dest) throws IOException {
     callHdfsOperation(() -> {
       fs.rename(src, dest);
@@ -196,6 +244,20 @@ public class FileSystemStorage {
     });
   }
 
+  /**
+   * Reads the content of a file from its stream.
+   */
+  public interface ContentReader<T> {
+    T read(InputStream in) throws IOException;
+  }
+
+  /**
+   * Writes the content of a file to its stream.
+   */
+  public interface ContentWriter {
+    void write(OutputStream out) throws IOException;
+  }
+
   private interface HdfsOperation<T> {
     T call() throws IOException;
   }
@@ -18,8 +18,11 @@
 package org.apache.zeppelin.notebook;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
 import org.apache.commons.lang.StringUtils;
 import org.apache.zeppelin.common.JsonSerializable;
 import org.apache.zeppelin.conf.ZeppelinConfiguration;
@@ -43,6 +46,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
@@ -61,14 +66,23 @@ import java.util.Set;
  */
 public class Note implements JsonSerializable {
   private static final Logger logger = LoggerFactory.getLogger(Note.class);
-  private static Gson gson = new GsonBuilder()
-      .setPrettyPrinting()
-      .setDateFormat("yyyy-MM-dd HH:mm:ss.SSS")
-      .registerTypeAdapter(Date.class, new NotebookImportDeserializer())
-      .registerTypeAdapterFactory(Input.TypeAdapterFactory)
+  private static Gson gson = newGsonBuilder().create();
+  // The results of the paragraphs are skipped while reading, without building them
+  private static Gson gsonWithoutResults = newGsonBuilder()
+      .addDeserializationExclusionStrategy(new ExclusionStrategy() {
+        @Override
+        public boolean shouldSkipField(FieldAttributes f) {
+          return f.getDeclaringClass() == Paragraph.class && "results".equals(f.getName());
+        }
+
+        @Override
+        public boolean shouldSkipClass(Class<?> clazz) {
+          return false;
+        }
+      })
       .create();
 
-  private List<Paragraph> paragraphs = new LinkedList<>();
+  private List<Paragraph> paragraphs = new ArrayList<>();
 
   private String name = "";
   private String id;
@@ -102,6 +116,14 @@ public class Note implements JsonSerializable {
   private transient ParagraphJobListener paragraphJobListener;
   private transient List<NoteEventListener> noteEventListeners = new ArrayList<>();
   private transient Credentials credentials;
+  // version of the last write of the note this object is based on, see NoteManager
+  private transient long clusterVersion = -1;
+  // id -> paragraph and id -> index of the paragraphs, guarded by paragraphs.
+  // They are built on first use, as the paragraphs of a loaded note are set by Gson.
+  // After a paragraph is inserted, moved or removed, only the indexes between the old and the
+  // new positions are updated.
+  private transient Map<String, Paragraph> paragraphsById;
+  private transient Map<String, Integer> paragraphIndexes;
 
 
   public Note() {
@@ -159,6 +181,64 @@ public class Note implements JsonSerializable {
     this.loaded = loaded;
   }
 
+  public long getClusterVersion() {
+    return clusterVersion;
+  }
+
+  public void setClusterVersion(long clusterVersion) {
+    this.clusterVersion = clusterVersion;
+  }
+
+  /**
+   * Merge the last write of this note by another zeppelin-server into this note object,
+   * which is based on an older write. The note is the one of the last write, except the
+   * paragraphs running here and the ones changed here since the last write.
+   */
+  void mergeRemoteWrite(Note remote) {
+    this.name = remote.name;
+    this.defaultInterpreterGroup = remote.defaultInterpreterGroup;
+    this.version = remote.version;
+    this.permissions = remote.permissions;
+    this.noteParams = remote.noteParams;
+    this.noteForms = remote.noteForms;
+    this.angularObjects = remote.angularObjects;
+    this.config = remote.config;
+    this.info = remote.info;
+
+    synchronized (paragraphs) {
+      List<Paragraph> merged = new ArrayList<>();
+      for (Paragraph remoteParagraph : remote.paragraphs) {
+        Paragraph p = getParagraphsById().get(remoteParagraph.getId());
+        if (null == p || !isLocalChange(p, remoteParagraph)) {
+          p = remoteParagraph;
+          p.setNote(this);
+        }
+        merged.add(p);
+      }
+      // the paragraphs running here are kept, even if they have been removed by the last write
+      for (int i = 0; i < paragraphs.size(); i++) {
+        Paragraph p = paragraphs.get(i);
+        if (!remote.getParagraphsById().containsKey(p.getId())
+            && (p.getStatus().isRunning() || p.getStatus().isPending())) {
+          merged.add(Math.min(i, merged.size()), p);
+        }
+      }
+      paragraphs.clear();
+      paragraphs.addAll(merged);
+      paragraphsById = null;
+      paragraphIndexes = null;
+    }
+  }
+
+  private static boolean isLocalChange(Paragraph local, Paragraph remote) {
+    if (local.getStatus().isRunning() || local.getStatus().isPending()) {
+      return true;
+    }
+    Date localDate = local.getLastModificationDate();
+    Date remoteDate = remote.getLastModificationDate();
+    return null != localDate && (null == remoteDate || localDate.after(remoteDate));
+  }
+
   public boolean isPersonalizedMode() {
     Object v = getConfig().get("personalizedMode");
     return null != v && "true".equals(v);
@@ -525,7 +605,7 @@ public class Note implements JsonSerializable {
     }
 
     synchronized (paragraphs) {
-      paragraphs.add(newParagraph);
+      addParagraphAt(paragraphs.size(), newParagraph);
     }
 
     try {
@@ -581,7 +661,7 @@ public class Note implements JsonSerializable {
 
   private void insertParagraph(Paragraph paragraph, int index) {
     synchronized (paragraphs) {
-      paragraphs.add(index, paragraph);
+      addParagraphAt(index, paragraph);
     }
     try {
       fireParagraphCreateEvent(paragraph);
@@ -600,23 +680,70 @@ public class Note implements JsonSerializable {
     removeAllAngularObjectInParagraph(user, paragraphId);
     interpreterSettingManager.removeResourcesBelongsToParagraph(getId(), paragraphId);
     synchronized (paragraphs) {
-      Iterator<Paragraph> i = paragraphs.iterator();
-      while (i.hasNext()) {
-        Paragraph p = i.next();
-        if (p.getId().equals(paragraphId)) {
-          i.remove();
-          try {
-            fireParagraphRemoveEvent(p);
-          } catch (IOException e) {
-            e.printStackTrace();
-          }
-          return p;
+      int index = indexOfParagraph(paragraphId);
+      if (index >= 0) {
+        Paragraph p = paragraphs.remove(index);
+        getParagraphsById().remove(paragraphId);
+        if (null != paragraphIndexes) {
+          paragraphIndexes.remove(paragraphId);
+          updateParagraphIndexes(index, paragraphs.size() - 1);
+        }
+        try {
+          fireParagraphRemoveEvent(p);
+        } catch (IOException e) {
+          e.printStackTrace();
         }
+        return p;
       }
     }
     return null;
   }
 
+  // paragraphs must be locked
+  private void addParagraphAt(int index, Paragraph paragraph) {
+    paragraphs.add(index, paragraph);
+    getParagraphsById().putIfAbsent(paragraph.getId(), paragraph);
+    updateParagraphIndexes(index, paragraphs.size() - 1);
+  }
+
+  // paragraphs must be locked, updates the indexes of the paragraphs from..to (inclusive)
+  private void updateParagraphIndexes(int from, int to) {
+    if (null == paragraphIndexes) {
+      // not built yet, it will be on first use
+      return;
+    }
+    for (int i = from; i <= to; i++) {
+      paragraphIndexes.put(paragraphs.get(i).getId(), i);
+    }
+  }
+
+  // paragraphs must be locked
+  private Map<String, Paragraph> getParagraphsById() {
+    if (null == paragraphsById) {
+      paragraphsById = new HashMap<>();
+      for (Paragraph p : paragraphs) {
+        paragraphsById.putIfAbsent(p.getId(), p);
+      }
+    }
+    return paragraphsById;
+  }
+
+  /**
+   * @return the index of the paragraph in the note, -1 if it doesn't exist
+   */
+  public int indexOfParagraph(String paragraphId) {
+    synchronized (paragraphs) {
+      if (null == paragraphIndexes) {
+        paragraphIndexes = new HashMap<>();
+        for (int i = 0; i < paragraphs.size(); i++) {
+          paragraphIndexes.putIfAbsent(paragraphs.get(i).getId(), i);
+        }
+      }
+      Integer index = paragraphIndexes.get(paragraphId);
+      return null == index ? -1 : index;
+    }
+  }
+
   public void clearParagraphOutputFields(Paragraph p) {
     p.setReturn(null, null);
     p.cleanRuntimeInfos();
@@ -624,11 +751,8 @@ public class Note implements JsonSerializable {
 
   public Paragraph clearPersonalizedParagraphOutput(String paragraphId, String user) {
     synchronized (paragraphs) {
-      for (Paragraph p : paragraphs) {
-        if (!p.getId().equals(paragraphId)) {
-          continue;
-        }
-
+      Paragraph p = getParagraphsById().get(paragraphId);
+      if (null != p) {
         p = p.getUserParagraphMap().get(user);
         clearParagraphOutputFields(p);
         return p;
@@ -645,11 +769,8 @@ public class Note implements JsonSerializable {
    */
   public Paragraph clearParagraphOutput(String paragraphId) {
     synchronized (paragraphs) {
-      for (Paragraph p : paragraphs) {
-        if (!p.getId().equals(paragraphId)) {
-          continue;
-        }
-
+      Paragraph p = getParagraphsById().get(paragraphId);
+      if (null != p) {
         clearParagraphOutputFields(p);
         return p;
       }
@@ -688,9 +809,6 @@ public class Note implements JsonSerializable {
    */
   public void moveParagraph(String paragraphId, int index, boolean throwWhenIndexIsOutOfBound) {
     synchronized (paragraphs) {
-      int oldIndex;
-      Paragraph p = null;
-
       if (index < 0 || index >= paragraphs.size()) {
         if (throwWhenIndexIsOutOfBound) {
           throw new IndexOutOfBoundsException(
@@ -700,19 +818,12 @@ public class Note implements JsonSerializable {
         }
       }
 
-      for (int i = 0; i < paragraphs.size(); i++) {
-        if (paragraphs.get(i).getId().equals(paragraphId)) {
-          oldIndex = i;
-          if (oldIndex == index) {
-            return;
-          }
-          p = paragraphs.remove(i);
-        }
-      }
-
-      if (p != null) {
-        paragraphs.add(index, p);
+      int oldIndex = indexOfParagraph(paragraphId);
+      if (oldIndex < 0 || oldIndex == index) {
+        return;
       }
+      paragraphs.add(index, paragraphs.remove(oldIndex));
+      updateParagraphIndexes(Math.min(oldIndex, index), Math.max(oldIndex, index));
     }
   }
 
@@ -735,13 +846,8 @@ public class Note implements JsonSerializable {
 
   public Paragraph getParagraph(String paragraphId) {
     synchronized (paragraphs) {
-      for (Paragraph p : paragraphs) {
-        if (p.getId().equals(paragraphId)) {
-          return p;
-        }
-      }
+      return getParagraphsById().get(paragraphId);
     }
-    return null;
   }
 
   public Paragraph getParagraph(int index) {
@@ -767,10 +873,9 @@ public class Note implements JsonSerializable {
 
   public Map<String, String> generateSingleParagraphInfo(String paragraphId) {
     synchronized (paragraphs) {
-      for (Paragraph p : paragraphs) {
-        if (p.getId().equals(paragraphId)) {
-          return populateParagraphInfo(p);
-        }
+      Paragraph p = getParagraphsById().get(paragraphId);
+      if (null != p) {
+        return populateParagraphInfo(p);
       }
       return new HashMap<>();
     }
@@ -873,7 +978,7 @@ public class Note implements JsonSerializable {
 
   public List<Paragraph> getParagraphs() {
     synchronized (paragraphs) {
-      return new LinkedList<>(paragraphs);
+      return new ArrayList<>(paragraphs);
     }
   }
 
@@ -955,7 +1060,7 @@ public class Note implements JsonSerializable {
       if (null == newParagraph) {
         newParagraph = p.cloneParagraphForUser(user);
       }
-      newNote.paragraphs.add(newParagraph);
+      newNote.addParagraphAt(newNote.paragraphs.size(), newParagraph);
     }
 
     return newNote;
@@ -1012,8 +1117,42 @@ public class Note implements JsonSerializable {
     return gson.toJson(this);
   }
 
+  /**
+   * Writes the note to the writer as it is serialized, without building the whole json first.
+   */
+  public void toJson(Writer writer) throws IOException {
+    try {
+      gson.toJson(this, writer);
+    } catch (JsonIOException e) {
+      throw new IOException(e.getCause() != null ? e.getCause() : e);
+    }
+  }
+
   public static Note fromJson(String json) {
-    Note note = gson.fromJson(json, Note.class);
+    return afterLoad(gson.fromJson(json, Note.class));
+  }
+
+  public static Note fromJson(Reader reader) throws IOException {
+    return fromJson(reader, true);
+  }
+
+  /**
+   * Reads the note from the reader as it is parsed.
+   *
+   * @param withResults false to skip the results of the paragraphs, e.g. when only the
+   *                    paragraph texts and dates are needed. They are the bulk of large notes.
+   */
+  public static Note fromJson(Reader reader, boolean withResults) throws IOException {
+    Note note;
+    try {
+      note = (withResults ? gson : gsonWithoutResults).fromJson(reader, Note.class);
+    } catch (JsonIOException e) {
+      throw new IOException(e.getCause() != null ? e.getCause() : e);
+    }
+    return afterLoad(note);
+  }
+
+  private static Note afterLoad(Note note) {
     convertOldInput(note);
     note.info.remove("isRunning");
     note.postProcessParagraphs();
@@ -1087,6 +1226,14 @@ public class Note implements JsonSerializable {
     return result;
   }
 
+  private static GsonBuilder newGsonBuilder() {
+    return new GsonBuilder()
+        .setPrettyPrinting()
+        .setDateFormat("yyyy-MM-dd HH:mm:ss.SSS")
+        .registerTypeAdapter(Date.class, new NotebookImportDeserializer())
+        .registerTypeAdapterFactory(Input.TypeAdapterFactory);
+  }
+
   @VisibleForTesting
   public static Gson getGson() {
     return gson;
@@ -19,23 +19,58 @@ package org.apache.zeppelin.notebook;
 
 import org.apache.zeppelin.scheduler.Job;
 import org.apache.zeppelin.user.AuthenticationInfo;
-
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * An special NoteEventListener which handle events asynchronously
+ *
+ * The events are partitioned by note id across a few threads, so that the events of a busy
+ * note don't hold back the events of the other notes, while the events of a note are still
+ * handled in order. An update of a paragraph or note is skipped when the same update is already
+ * pending, with only updates of the note queued after it.
+ * On close, the events already queued are handled before the threads stop.
  */
+@ManagedObject
 public abstract class NoteEventAsyncListener implements NoteEventListener {
+  private static final Logger LOGGER = LoggerFactory.getLogger(NoteEventAsyncListener.class);
+  // time for the threads to handle the queued events on close, before they are interrupted
+  private static final long CLOSE_TIMEOUT_MS = 10 * 1000;
 
-  private BlockingQueue<NoteEvent> eventsQueue = new LinkedBlockingQueue<>();
+  private final Partition[] partitions;
 
-  private Thread eventHandlerThread;
+  // events queued and not handled yet, notified when it drops to 0
+  private final AtomicLong unhandledEvents = new AtomicLong();
+  private final AtomicLong handledEvents = new AtomicLong();
+  private final AtomicLong coalescedEvents = new AtomicLong();
+  private volatile boolean closed = false;
 
   public NoteEventAsyncListener(String name) {
-    this.eventHandlerThread = new EventHandlingThread();
-    this.eventHandlerThread.setName(name);
-    this.eventHandlerThread.start();
+    this(name, 1);
+  }
+
+  public NoteEventAsyncListener(String name, int threads) {
+    this.partitions = new Partition[Math.max(1, threads)];
+    for (int i = 0; i < partitions.length; i++) {
+      partitions[i] = new Partition();
+      Thread thread = new EventHandlingThread(partitions[i]);
+      thread.setName(partitions.length == 1 ? name : name + "-" + i);
+      thread.setDaemon(true);
+      thread.start();
+      partitions[i].thread = thread;
+    }
   }
 
   public abstract void handleNoteCreateEvent(NoteCreateEvent noteCreateEvent);
@@ -50,89 +85,279 @@ public abstract class NoteEventAsyncListener implements NoteEventListener {
 
   public abstract void handleParagraphUpdateEvent(ParagraphUpdateEvent paragraphUpdateEvent);
 
+  public void handleParagraphStatusChangeEvent(
+      ParagraphStatusChangeEvent paragraphStatusChangeEvent) {
+    // nothing to do by default
+  }
 
+  /**
+   * Stops the threads once they handled the queued events, the events added afterwards are
+   * dropped.
+   */
   public void close() {
-    this.eventHandlerThread.interrupt();
+    synchronized (partitions) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+    }
+    for (Partition partition : partitions) {
+      partition.stop();
+    }
+    long deadline = System.currentTimeMillis() + CLOSE_TIMEOUT_MS;
+    for (Partition partition : partitions) {
+      try {
+        partition.thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+        if (partition.thread.isAlive()) {
+          LOGGER.warn("{} doesn't stop in {} ms, interrupt it", partition.thread.getName(),
+              CLOSE_TIMEOUT_MS);
+          partition.thread.interrupt();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
   }
 
   @Override
   public void onNoteCreate(Note note, AuthenticationInfo subject) {
-    eventsQueue.add(new NoteCreateEvent(note, subject));
+    addEvent(new NoteCreateEvent(note, subject));
   }
 
   @Override
   public void onNoteRemove(Note note, AuthenticationInfo subject) {
-    eventsQueue.add(new NoteRemoveEvent(note, subject));
+    addEvent(new NoteRemoveEvent(note, subject));
   }
 
   @Override
   public void onNoteUpdate(Note note, AuthenticationInfo subject) {
-    eventsQueue.add(new NoteUpdateEvent(note, subject));
+    addEvent(new NoteUpdateEvent(note, subject));
   }
 
   @Override
   public void onParagraphCreate(Paragraph p) {
-    eventsQueue.add(new ParagraphCreateEvent(p));
+    addEvent(new ParagraphCreateEvent(p));
   }
 
   @Override
   public void onParagraphRemove(Paragraph p) {
-    eventsQueue.add(new ParagraphRemoveEvent(p));
+    addEvent(new ParagraphRemoveEvent(p));
   }
 
   @Override
   public void onParagraphUpdate(Paragraph p) {
-    eventsQueue.add(new ParagraphUpdateEvent(p));
+    addEvent(new ParagraphUpdateEvent(p));
   }
 
   @Override
   public void onParagraphStatusChange(Paragraph p, Job.Status status) {
-    eventsQueue.add(new ParagraphStatusChangeEvent(p));
+    addEvent(new ParagraphStatusChangeEvent(p));
   }
 
-  class EventHandlingThread extends Thread {
+  private void addEvent(NoteEvent event) {
+    String noteId = Objects.toString(event.getNoteId(), "");
+    partitions[Math.floorMod(noteId.hashCode(), partitions.length)].add(noteId, event);
+  }
 
-    @Override
-    public void run() {
-      while(!Thread.interrupted()) {
-        try {
-          NoteEvent event = eventsQueue.take();
-          if (event instanceof NoteCreateEvent) {
-            handleNoteCreateEvent((NoteCreateEvent) event);
-          } else if (event instanceof NoteRemoveEvent) {
-            handleNoteRemoveEvent((NoteRemoveEvent) event);
-          } else if (event instanceof NoteUpdateEvent) {
-            handleNoteUpdateEvent((NoteUpdateEvent) event);
-          } else if (event instanceof ParagraphCreateEvent) {
-            handleParagraphCreateEvent((ParagraphCreateEvent) event);
-          } else if (event instanceof ParagraphRemoveEvent) {
-            handleParagraphRemoveEvent((ParagraphRemoveEvent) event);
-          } else if (event instanceof ParagraphUpdateEvent) {
-            handleParagraphUpdateEvent((ParagraphUpdateEvent) event);
-          } else {
-            throw new RuntimeException("Unknown event: " + event.getClass().getSimpleName());
-          }
-        } catch (InterruptedException e) {
-          e.printStackTrace();
-        }
+  private void handleEvent(NoteEvent event) {
+    if (event instanceof NoteCreateEvent) {
+      handleNoteCreateEvent((NoteCreateEvent) event);
+    } else if (event instanceof NoteRemoveEvent) {
+      handleNoteRemoveEvent((NoteRemoveEvent) event);
+    } else if (event instanceof NoteUpdateEvent) {
+      handleNoteUpdateEvent((NoteUpdateEvent) event);
+    } else if (event instanceof ParagraphCreateEvent) {
+      handleParagraphCreateEvent((ParagraphCreateEvent) event);
+    } else if (event instanceof ParagraphRemoveEvent) {
+      handleParagraphRemoveEvent((ParagraphRemoveEvent) event);
+    } else if (event instanceof ParagraphUpdateEvent) {
+      handleParagraphUpdateEvent((ParagraphUpdateEvent) event);
+    } else if (event instanceof ParagraphStatusChangeEvent) {
+      handleParagraphStatusChangeEvent((ParagraphStatusChangeEvent) event);
+    } else {
+      throw new RuntimeException("Unknown event: " + event.getClass().getSimpleName());
+    }
+  }
+
+  // Updates only read the current state of the note, so they can be reordered between them
+  private static boolean isUpdate(NoteEvent event) {
+    return event instanceof NoteUpdateEvent || event instanceof ParagraphUpdateEvent
+        || event instanceof ParagraphStatusChangeEvent;
+  }
+
+  private static boolean isSameUpdate(NoteEvent pending, NoteEvent event) {
+    if (pending.getClass() != event.getClass()) {
+      return false;
+    }
+    if (event instanceof ParagraphUpdateEvent) {
+      return Objects.equals(((ParagraphUpdateEvent) pending).getParagraph().getId(),
+          ((ParagraphUpdateEvent) event).getParagraph().getId());
+    } else if (event instanceof ParagraphStatusChangeEvent) {
+      return Objects.equals(((ParagraphStatusChangeEvent) pending).getParagraph().getId(),
+          ((ParagraphStatusChangeEvent) event).getParagraph().getId());
+    }
+    // update of the same note
+    return event instanceof NoteUpdateEvent;
+  }
+
+  @ManagedAttribute("number of events waiting to be handled")
+  public int getQueueSize() {
+    int size = 0;
+    for (Partition partition : partitions) {
+      size += partition.queue.size();
+    }
+    return size;
+  }
+
+  @ManagedAttribute("milliseconds the oldest waiting event is queued")
+  public long getLag() {
+    long now = System.currentTimeMillis();
+    long lag = 0;
+    for (Partition partition : partitions) {
+      PendingEvent head = partition.queue.peek();
+      if (head != null && head != PendingEvent.STOP) {
+        lag = Math.max(lag, now - head.time);
       }
     }
+    return lag;
+  }
+
+  @ManagedAttribute("number of handled events")
+  public long getHandledEvents() {
+    return handledEvents.get();
+  }
+
+  @ManagedAttribute("number of events skipped as the same update is already pending")
+  public long getCoalescedEvents() {
+    return coalescedEvents.get();
   }
 
   /**
-   * Used for testing
+   * Used for testing, waits until all the queued events are handled.
    *
    * @throws InterruptedException
    */
   public void drainEvents() throws InterruptedException {
-    while(!eventsQueue.isEmpty()) {
-      Thread.sleep(1000);
+    synchronized (unhandledEvents) {
+      while (unhandledEvents.get() > 0) {
+        unhandledEvents.wait();
+      }
     }
-    Thread.sleep(5000);
   }
 
-  interface NoteEvent {
+  private static class PendingEvent {
+    // queued last on close, the thread stops when it takes it
+    private static final PendingEvent STOP = new PendingEvent(null, null);
+
+    private final String noteId;
+    private final long time;
+    // replaced by the latest of the coalesced events
+    private NoteEvent event;
+
+    PendingEvent(String noteId, NoteEvent event) {
+      this.noteId = noteId;
+      this.event = event;
+      this.time = System.currentTimeMillis();
+    }
+  }
+
+  /**
+   * The events of the notes handled by one thread.
+   */
+  private class Partition {
+    private final BlockingQueue<PendingEvent> queue = new LinkedBlockingQueue<>();
+    // events not taken yet by note id, in queue order, guarded by this
+    private final Map<String, Deque<PendingEvent>> pendingEvents = new HashMap<>();
+    private Thread thread;
+
+    synchronized void add(String noteId, NoteEvent event) {
+      if (closed) {
+        LOGGER.debug("Drop event {} of closed listener", event.getClass().getSimpleName());
+        return;
+      }
+      Deque<PendingEvent> notePendingEvents =
+          pendingEvents.computeIfAbsent(noteId, id -> new ArrayDeque<>());
+      if (isUpdate(event)) {
+        Iterator<PendingEvent> iterator = notePendingEvents.descendingIterator();
+        while (iterator.hasNext()) {
+          PendingEvent pending = iterator.next();
+          if (!isUpdate(pending.event)) {
+            break;
+          }
+          if (isSameUpdate(pending.event, event)) {
+            pending.event = event;
+            coalescedEvents.incrementAndGet();
+            return;
+          }
+        }
+      }
+      PendingEvent pending = new PendingEvent(noteId, event);
+      notePendingEvents.addLast(pending);
+      unhandledEvents.incrementAndGet();
+      queue.add(pending);
+    }
+
+    synchronized void stop() {
+      queue.add(PendingEvent.STOP);
+    }
+
+    /**
+     * @return the next event, null when the listener is closed
+     */
+    NoteEvent take() throws InterruptedException {
+      PendingEvent pending = queue.take();
+      if (pending == PendingEvent.STOP) {
+        return null;
+      }
+      synchronized (this) {
+        Deque<PendingEvent> notePendingEvents = pendingEvents.get(pending.noteId);
+        notePendingEvents.remove(pending);
+        if (notePendingEvents.isEmpty()) {
+          pendingEvents.remove(pending.noteId);
+        }
+        return pending.event;
+      }
+    }
+  }
+
+  class EventHandlingThread extends Thread {
+    private final Partition partition;
+
+    EventHandlingThread(Partition partition) {
+      this.partition = partition;
+    }
+
+    @Override
+    public void run() {
+      while (!Thread.interrupted()) {
+        NoteEvent event;
+        try {
+          event = partition.take();
+        } catch (InterruptedException e) {
+          break;
+        }
+        if (event == null) {
+          break;
+        }
+        try {
+          handleEvent(event);
+        } catch (Exception e) {
+          LOGGER.error("Fail to handle event " + event.getClass().getSimpleName(), e);
+        } finally {
+          handledEvents.incrementAndGet();
+          if (unhandledEvents.decrementAndGet() == 0) {
+            synchronized (unhandledEvents) {
+              unhandledEvents.notifyAll();
+            }
+          }
+        }
+      }
+    }
+  }
 
+  interface NoteEvent {
+    String getNoteId();
   }
 
   public static class NoteCreateEvent implements NoteEvent {
@@ -147,6 +372,11 @@ public abstract class NoteEventAsyncListener implements NoteEventListener {
     public Note getNote() {
       return note;
     }
+
+    @Override
+    public String getNoteId() {
+      return note.getId();
+    }
   }
 
   public static class NoteUpdateEvent implements NoteEvent {
@@ -161,6 +391,11 @@ public abstract class NoteEventAsyncListener implements NoteEventListener {
     public Note getNote() {
       return note;
     }
+
+    @Override
+    public String getNoteId() {
+      return note.getId();
+    }
   }
 
 
@@ -176,6 +411,11 @@ public abstract class NoteEventAsyncListener implements NoteEventListener {
     public Note getNote() {
       return note;
     }
+
+    @Override
+    public String getNoteId() {
+      return note.getId();
+    }
   }
 
   public static class ParagraphCreateEvent implements NoteEvent {
@@ -188,6 +428,11 @@ public abstract class NoteEventAsyncListener implements NoteEventListener {
     public Paragraph getParagraph() {
       return p;
     }
+
+    @Override
+    public String getNoteId() {
+      return p.getNote() == null ? null : p.getNote().getId();
+    }
   }
 
   public static class ParagraphUpdateEvent implements NoteEvent {
@@ -200,6 +445,11 @@ public abstract class NoteEventAsyncListener implements NoteEventListener {
     public Paragraph getParagraph() {
       return p;
     }
+
+    @Override
+    public String getNoteId() {
+      return p.getNote() == null ? null : p.getNote().getId();
+    }
   }
 
   public static class ParagraphRemoveEvent implements NoteEvent {
@@ -212,6 +462,11 @@ public abstract class NoteEventAsyncListener implements NoteEventListener {
     public Paragraph getParagraph() {
       return p;
     }
+
+    @Override
+    public String getNoteId() {
+      return p.getNote() == null ? null : p.getNote().getId();
+    }
   }
 
   public static class ParagraphStatusChangeEvent implements NoteEvent {
@@ -224,5 +479,10 @@ public abstract class NoteEventAsyncListener implements NoteEventListener {
     public Paragraph getParagraph() {
       return p;
     }
+
+    @Override
+    public String getNoteId() {
+      return p.getNote() == null ? null : p.getNote().getId();
+    }
   }
 }
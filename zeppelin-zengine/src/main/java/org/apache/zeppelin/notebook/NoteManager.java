@@ -30,6 +30,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -43,6 +44,11 @@ import java.util.stream.Collectors;
  * Note will be loaded lazily. Initially only noteId nad note name is loaded,
  * other note content is loaded until getNote is called.
  *
+ * In cluster mode, the writes made by the other zeppelin-servers are applied through the
+ * applyRemote* methods. Each write of a note is stamped with a version, a note object based
+ * on an older version than the last write is stale, the last write is merged into it before
+ * it is saved. The local and remote changes of a note are serialized by a lock per note.
+ *
  * TODO(zjffdu) implement the lifecycle manager of Note
  * (release memory if note is not used for some period)
  */
@@ -54,6 +60,10 @@ public class NoteManager {
 
   private NotebookRepo notebookRepo;
   private Map<String, String> notesInfo;
+  // noteId -> version of the last write of the note
+  private Map<String, Long> noteVersions = new ConcurrentHashMap<>();
+  // noteId -> lock of the changes of the note
+  private Map<String, Object> noteLocks = new ConcurrentHashMap<>();
 
   public NoteManager(NotebookRepo notebookRepo) throws IOException {
     this.notebookRepo = notebookRepo;
@@ -64,8 +74,10 @@ public class NoteManager {
 
   // build the tree structure of notes
   private void init() throws IOException {
-    this.notesInfo = notebookRepo.list(AuthenticationInfo.ANONYMOUS).values().stream()
-        .collect(Collectors.toMap(noteInfo -> noteInfo.getId(), notesInfo -> notesInfo.getPath()));
+    this.notesInfo = new ConcurrentHashMap<>(
+        notebookRepo.list(AuthenticationInfo.ANONYMOUS).values().stream()
+            .collect(Collectors.toMap(noteInfo -> noteInfo.getId(),
+                notesInfo -> notesInfo.getPath())));
     this.notesInfo.entrySet().stream()
         .forEach(entry ->
         {
@@ -86,7 +98,7 @@ public class NoteManager {
     List<Note> notes = new ArrayList<>();
     for (String notePath : notesInfo.values()) {
       try {
-        notes.add(getNoteNode(notePath).getNote());
+        notes.add(stampVersion(getNoteNode(notePath).getNote()));
       } catch (IOException e) {
         LOGGER.warn("Fail to load note: " + notePath, e);
       }
@@ -162,15 +174,47 @@ public class NoteManager {
    * @throws IOException
    */
   public void saveNote(Note note, AuthenticationInfo subject) throws IOException {
-    addOrUpdateNoteNode(note);
-    this.notebookRepo.save(note, subject);
-    note.setLoaded(true);
+    synchronized (getNoteLock(note.getId())) {
+      addOrUpdateNoteNode(note);
+      this.notebookRepo.save(note, subject);
+      note.setLoaded(true);
+      note.setClusterVersion(nextNoteVersion(note.getId()));
+    }
+  }
+
+  /**
+   * Save note to NoteManager in cluster mode. If the note has been written by another
+   * zeppelin-server since the note object was loaded, that write is merged into the note
+   * object first.
+   *
+   * @param note
+   * @param subject
+   * @throws IOException if the note has been removed
+   */
+  public void mergeAndSaveNote(Note note, AuthenticationInfo subject) throws IOException {
+    synchronized (getNoteLock(note.getId())) {
+      String notePath = this.notesInfo.get(note.getId());
+      if (notePath == null) {
+        throw new IOException("Note " + note.getId() + " has been removed");
+      }
+      long version = getNoteVersion(note.getId());
+      if (note.getClusterVersion() >= 0 && note.getClusterVersion() < version) {
+        LOGGER.info("Merge version {} of note {} into local version {}", version, notePath,
+            note.getClusterVersion());
+        note.mergeRemoteWrite(this.notebookRepo.get(note.getId(), notePath, subject));
+        note.setPath(notePath);
+      }
+      saveNote(note, subject);
+    }
   }
 
   public void addNote(Note note, AuthenticationInfo subject) throws IOException {
-    addOrUpdateNoteNode(note, true);
-    this.notebookRepo.save(note, subject);
-    note.setLoaded(true);
+    synchronized (getNoteLock(note.getId())) {
+      addOrUpdateNoteNode(note, true);
+      this.notebookRepo.save(note, subject);
+      note.setLoaded(true);
+      note.setClusterVersion(nextNoteVersion(note.getId()));
+    }
   }
 
   /**
@@ -191,20 +235,38 @@ public class NoteManager {
    * @throws IOException
    */
   public void removeNote(String noteId, AuthenticationInfo subject) throws IOException {
+    synchronized (getNoteLock(noteId)) {
+      String notePath = removeNoteNode(noteId);
+      this.notebookRepo.remove(noteId, notePath, subject);
+    }
+  }
+
+  private String removeNoteNode(String noteId) {
     String notePath = this.notesInfo.remove(noteId);
+    this.noteVersions.remove(noteId);
     Folder folder = getOrCreateFolder(getFolderName(notePath));
     folder.removeNote(getNoteName(notePath));
-    this.notebookRepo.remove(noteId, notePath, subject);
+    return notePath;
   }
 
   public void moveNote(String noteId,
                        String newNotePath,
                        AuthenticationInfo subject) throws IOException {
-    String notePath = this.notesInfo.get(noteId);
-    if (noteId == null) {
-      throw new IOException("No metadata found for this note: " + noteId);
+    synchronized (getNoteLock(noteId)) {
+      String notePath = this.notesInfo.get(noteId);
+      if (noteId == null) {
+        throw new IOException("No metadata found for this note: " + noteId);
+      }
+
+      moveNoteNode(noteId, notePath, newNotePath);
+
+      // update notebookrepo
+      this.notebookRepo.move(noteId, notePath, newNotePath, subject);
     }
+  }
 
+  private void moveNoteNode(String noteId, String notePath, String newNotePath)
+      throws IOException {
     // move the old NoteNode from notePath to newNotePath
     NoteNode noteNode = getNoteNode(notePath);
     noteNode.getParent().removeNote(getNoteName(notePath));
@@ -215,19 +277,21 @@ public class NoteManager {
 
     // update noteInfo mapping
     this.notesInfo.put(noteId, newNotePath);
-
-    // update notebookrepo
-    this.notebookRepo.move(noteId, notePath, newNotePath, subject);
   }
 
 
-  public void moveFolder(String folderPath,
-                         String newFolderPath,
-                         AuthenticationInfo subject) throws IOException {
+  public synchronized void moveFolder(String folderPath,
+                                      String newFolderPath,
+                                      AuthenticationInfo subject) throws IOException {
 
     // update notebookrepo
     this.notebookRepo.move(folderPath, newFolderPath, subject);
 
+    moveFolderNode(folderPath, newFolderPath, subject);
+  }
+
+  private void moveFolderNode(String folderPath, String newFolderPath,
+                              AuthenticationInfo subject) throws IOException {
     // update filesystem tree
     Folder folder = getFolder(folderPath);
     folder.getParent().removeFolder(folder.getName(), subject);
@@ -248,11 +312,17 @@ public class NoteManager {
    * @return
    * @throws IOException
    */
-  public List<Note> removeFolder(String folderPath, AuthenticationInfo subject) throws IOException {
+  public synchronized List<Note> removeFolder(String folderPath, AuthenticationInfo subject)
+      throws IOException {
 
     // update notebookrepo
     this.notebookRepo.remove(folderPath, subject);
 
+    return removeFolderNode(folderPath, subject);
+  }
+
+  private List<Note> removeFolderNode(String folderPath, AuthenticationInfo subject)
+      throws IOException {
     // update filesystem tree
     Folder folder = getFolder(folderPath);
     List<Note> notes = folder.getParent().removeFolder(folder.getName(), subject);
@@ -260,6 +330,7 @@ public class NoteManager {
     // update notesInfo
     for (Note note : notes) {
       this.notesInfo.remove(note.getId());
+      this.noteVersions.remove(note.getId());
     }
 
     return notes;
@@ -271,7 +342,119 @@ public class NoteManager {
       return null;
     }
     NoteNode noteNode = getNoteNode(notePath);
-    return noteNode.getNote();
+    return stampVersion(noteNode.getNote());
+  }
+
+  /**
+   * Version of the last write of the note, 0 if it is not written since it is listed.
+   */
+  public long getNoteVersion(String noteId) {
+    return noteVersions.getOrDefault(noteId, 0L);
+  }
+
+  private Object getNoteLock(String noteId) {
+    return noteLocks.computeIfAbsent(noteId, id -> new Object());
+  }
+
+  private long nextNoteVersion(String noteId) {
+    return noteVersions.merge(noteId, 1L, Long::sum);
+  }
+
+  // the note object is based on the last write of the note when it is loaded
+  private Note stampVersion(Note note) {
+    if (note.getClusterVersion() < 0) {
+      note.setClusterVersion(getNoteVersion(note.getId()));
+    }
+    return note;
+  }
+
+  /**
+   * Apply the write of a note by another zeppelin-server: the note is added to the tree if
+   * it is new, otherwise its cached content is dropped and will be reloaded from
+   * NotebookRepo the next time it is read.
+   *
+   * Both servers see a conflict when they write the note concurrently (the version of the
+   * remote write is not newer than the local one), both drop the note and
+   * agree on the next version, so that the note objects based on either write are stale.
+   *
+   * @return false if the remote write conflicts with a local write
+   */
+  public boolean applyRemoteNoteUpdate(String noteId, String notePath,
+                                       long version) throws IOException {
+    synchronized (getNoteLock(noteId)) {
+      return applyRemoteNoteUpdateLocked(noteId, notePath, version);
+    }
+  }
+
+  private boolean applyRemoteNoteUpdateLocked(String noteId, String notePath,
+                                              long version) throws IOException {
+    long localVersion = getNoteVersion(noteId);
+    boolean conflict = version <= localVersion;
+    if (conflict) {
+      LOGGER.warn("Conflicting writes of note {}, remote version {}, local version {}",
+          notePath, version, localVersion);
+      version = localVersion + 1;
+    }
+
+    String localNotePath = this.notesInfo.get(noteId);
+    if (localNotePath == null) {
+      addOrUpdateNoteNode(new Note(new NoteInfo(noteId, notePath)));
+    } else {
+      if (!localNotePath.equals(notePath)) {
+        moveNoteNode(noteId, localNotePath, notePath);
+      }
+      getNoteNode(notePath).invalidate();
+    }
+    this.noteVersions.put(noteId, version);
+    return !conflict;
+  }
+
+  /**
+   * Apply the move of a note by another zeppelin-server.
+   */
+  public void applyRemoteNoteMove(String noteId, String newNotePath)
+      throws IOException {
+    synchronized (getNoteLock(noteId)) {
+      String notePath = this.notesInfo.get(noteId);
+      if (notePath == null) {
+        addOrUpdateNoteNode(new Note(new NoteInfo(noteId, newNotePath)));
+      } else if (!notePath.equals(newNotePath)) {
+        moveNoteNode(noteId, notePath, newNotePath);
+      }
+    }
+  }
+
+  /**
+   * Apply the removal of a note by another zeppelin-server.
+   */
+  public void applyRemoteNoteRemove(String noteId) {
+    synchronized (getNoteLock(noteId)) {
+      if (this.notesInfo.containsKey(noteId)) {
+        removeNoteNode(noteId);
+      }
+    }
+  }
+
+  /**
+   * Apply the move of a folder by another zeppelin-server.
+   */
+  public synchronized void applyRemoteFolderMove(String folderPath, String newFolderPath)
+      throws IOException {
+    if (containsFolder(folderPath)) {
+      moveFolderNode(folderPath, newFolderPath, AuthenticationInfo.ANONYMOUS);
+    }
+  }
+
+  /**
+   * Apply the removal of a folder by another zeppelin-server.
+   *
+   * @return the notes under this folder
+   */
+  public synchronized List<Note> applyRemoteFolderRemove(String folderPath) throws IOException {
+    if (!containsFolder(folderPath)) {
+      return new ArrayList<>();
+    }
+    return removeFolderNode(folderPath, AuthenticationInfo.ANONYMOUS);
   }
 
   /**
@@ -520,6 +703,16 @@ public class NoteManager {
       return note;
     }
 
+    /**
+     * Drop the loaded content of the note, it is loaded again from NotebookRepo
+     * the next time getNote is called.
+     */
+    public synchronized void invalidate() {
+      if (note.isLoaded()) {
+        note = new Note(new NoteInfo(note.getId(), note.getPath()));
+      }
+    }
+
     public String getNoteId() {
       return this.note.getId();
     }
@@ -32,6 +32,10 @@ import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
+import org.apache.zeppelin.cluster.ClusterManagerServer;
+import org.apache.zeppelin.cluster.event.ClusterEvent;
+import org.apache.zeppelin.cluster.event.ClusterEventListener;
+import org.apache.zeppelin.cluster.event.ClusterMessage;
 import org.apache.zeppelin.conf.ZeppelinConfiguration;
 import org.apache.zeppelin.conf.ZeppelinConfiguration.ConfVars;
 import org.apache.zeppelin.display.AngularObject;
@@ -59,8 +63,10 @@ import org.slf4j.LoggerFactory;
  * It will also do other thing which is caused by these operation, such as update index,
  * refresh cron and update InterpreterSetting, these are done through NoteEventListener.
  *
+ * In cluster mode, the changes of notes and folders are broadcast to the other
+ * zeppelin-servers, which apply them to their NoteManager.
  */
-public class Notebook {
+public class Notebook implements ClusterEventListener {
   private static final Logger LOGGER = LoggerFactory.getLogger(Notebook.class);
 
   private NoteManager noteManager;
@@ -98,6 +104,11 @@ public class Notebook {
 
     this.noteEventListeners.add(this.noteSearchService);
     this.noteEventListeners.add(this.interpreterSettingManager);
+
+    if (conf.isClusterMode()) {
+      ClusterManagerServer.getInstance().addClusterEventListeners(
+          ClusterManagerServer.CLUSTER_NOTE_EVENT_TOPIC, this);
+    }
   }
 
   @Inject
@@ -164,6 +175,7 @@ public class Notebook {
     note.initPermissions(subject);
     noteManager.addNote(note, subject);
     fireNoteCreateEvent(note, subject);
+    broadcastNoteUpdate(note);
     return note;
   }
 
@@ -233,6 +245,8 @@ public class Notebook {
     if (null != note) {
       noteManager.removeNote(noteId, subject);
       fireNoteRemoveEvent(note, subject);
+      broadcastClusterEvent(new ClusterMessage(ClusterEvent.REMOVE_NOTE)
+          .put("noteId", noteId));
     }
   }
 
@@ -258,8 +272,14 @@ public class Notebook {
   }
 
   public void saveNote(Note note, AuthenticationInfo subject) throws IOException {
-    noteManager.saveNote(note, subject);
+    if (conf.isClusterMode()) {
+      // don't overwrite the writes of the other zeppelin-servers
+      noteManager.mergeAndSaveNote(note, subject);
+    } else {
+      noteManager.saveNote(note, subject);
+    }
     fireNoteUpdateEvent(note, subject);
+    broadcastNoteUpdate(note);
   }
 
   public boolean containsNote(String notePath) {
@@ -273,11 +293,17 @@ public class Notebook {
   public void moveNote(String noteId, String newNotePath, AuthenticationInfo subject) throws IOException {
     LOGGER.info("Move note " + noteId + " to " + newNotePath);
     noteManager.moveNote(noteId, newNotePath, subject);
+    broadcastClusterEvent(new ClusterMessage(ClusterEvent.MOVE_NOTE)
+        .put("noteId", noteId)
+        .put("newNotePath", newNotePath));
   }
 
   public void moveFolder(String folderPath, String newFolderPath, AuthenticationInfo subject) throws IOException {
     LOGGER.info("Move folder from " + folderPath + " to " + newFolderPath);
     noteManager.moveFolder(folderPath, newFolderPath, subject);
+    broadcastClusterEvent(new ClusterMessage(ClusterEvent.MOVE_FOLDER)
+        .put("folderPath", folderPath)
+        .put("newFolderPath", newFolderPath));
   }
 
   public void removeFolder(String folderPath, AuthenticationInfo subject) throws IOException {
@@ -287,6 +313,8 @@ public class Notebook {
     for (Note note : notes) {
       fireNoteRemoveEvent(note, subject);
     }
+    broadcastClusterEvent(new ClusterMessage(ClusterEvent.REMOVE_FOLDER)
+        .put("folderPath", folderPath));
   }
 
   public void emptyTrash(AuthenticationInfo subject) throws IOException {
@@ -578,6 +606,57 @@ public class Notebook {
     }
   }
 
+  private void broadcastNoteUpdate(Note note) {
+    broadcastClusterEvent(new ClusterMessage(ClusterEvent.UPDATE_NOTE)
+        .put("noteId", note.getId())
+        .put("notePath", note.getPath())
+        .put("version", String.valueOf(note.getClusterVersion())));
+  }
+
+  private void broadcastClusterEvent(ClusterMessage message) {
+    if (!conf.isClusterMode()) {
+      return;
+    }
+    ClusterManagerServer.getInstance().broadcastClusterEvent(
+        ClusterManagerServer.CLUSTER_NOTE_EVENT_TOPIC, message.toJson());
+  }
+
+  /**
+   * Apply the changes of notes and folders made by the other zeppelin-servers.
+   * Only the notes and the folder tree are updated, the NoteEventListeners are notified
+   * on the server where the change is made.
+   */
+  @Override
+  public void onClusterEvent(String msg) {
+    ClusterMessage message = ClusterMessage.fromJson(msg);
+    LOGGER.debug("Receive cluster event {}", message);
+    try {
+      switch (message.getClusterEvent()) {
+        case UPDATE_NOTE:
+          noteManager.applyRemoteNoteUpdate(message.get("noteId"), message.get("notePath"),
+              Long.parseLong(message.get("version")));
+          break;
+        case MOVE_NOTE:
+          noteManager.applyRemoteNoteMove(message.get("noteId"), message.get("newNotePath"));
+          break;
+        case REMOVE_NOTE:
+          noteManager.applyRemoteNoteRemove(message.get("noteId"));
+          break;
+        case MOVE_FOLDER:
+          noteManager.applyRemoteFolderMove(message.get("folderPath"),
+              message.get("newFolderPath"));
+          break;
+        case REMOVE_FOLDER:
+          noteManager.applyRemoteFolderRemove(message.get("folderPath"));
+          break;
+        default:
+          LOGGER.warn("Unknown cluster event {}", message);
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Fail to apply cluster event " + message, e);
+    }
+  }
+
   public Boolean isRevisionSupported() {
     if (notebookRepo instanceof NotebookRepoSync) {
       return ((NotebookRepoSync) notebookRepo).isRevisionSupportedInDefaultRepo();
@@ -196,6 +196,17 @@ public class Paragraph extends JobWithProgressPoller<InterpreterResult> implemen
     parseText();
   }
 
+  // the last time the paragraph was edited or run
+  Date getLastModificationDate() {
+    Date latest = dateUpdated;
+    for (Date date : new Date[] {getDateCreated(), getDateStarted(), getDateFinished()}) {
+      if (null != date && (null == latest || date.after(latest))) {
+        latest = date;
+      }
+    }
+    return latest;
+  }
+
   public void parseText() {
     // parse text to get interpreter component
     if (this.text != null) {
@@ -358,15 +369,18 @@ public class Paragraph extends JobWithProgressPoller<InterpreterResult> implemen
       this.interpreter = getBindedInterpreter();
       setStatus(Status.READY);
 
+      boolean submitted = false;
       if (getConfig().get("enabled") == null || (Boolean) getConfig().get("enabled")) {
         setAuthenticationInfo(getAuthenticationInfo());
         interpreter.getScheduler().submit(this);
+        submitted = true;
       }
 
       if (blocking) {
-        while (!getStatus().isCompleted()) {
+        // a disabled paragraph is never completed
+        if (submitted) {
           try {
-            Thread.sleep(100);
+            waitForCompletion(0);
           } catch (InterruptedException e) {
             throw new RuntimeException(e);
           }
@@ -57,6 +57,21 @@ public interface NotebookRepo {
   @ZeppelinApi
   Note get(String noteId, String notePath, AuthenticationInfo subject) throws IOException;
 
+  /**
+   * Get the notebook with the given id and given notePath, without the results of its
+   * paragraphs. Storages able to skip them while reading should override it.
+   *
+   * @param noteId   is note id.
+   * @param notePath is note path
+   * @param subject  contains user information.
+   * @return
+   * @throws IOException
+   */
+  default Note getWithoutResults(String noteId, String notePath, AuthenticationInfo subject)
+      throws IOException {
+    return get(noteId, notePath, subject);
+  }
+
   /**
    * Save given note in storage
    *
@@ -215,6 +215,12 @@ public class NotebookRepoSync implements NotebookRepoWithVersionControl {
     return getRepo(0).get(noteId, notePath, subject);
   }
 
+  @Override
+  public Note getWithoutResults(String noteId, String notePath, AuthenticationInfo subject)
+      throws IOException {
+    return getRepo(0).getWithoutResults(noteId, notePath, subject);
+  }
+
   /* get note from specific repo (for tests) */
   Note get(int repoIndex, String noteId, String noteName, AuthenticationInfo subject) throws IOException {
     return getRepo(repoIndex).get(noteId, noteName, subject);
@@ -384,9 +390,12 @@ public class NotebookRepoSync implements NotebookRepoWithVersionControl {
       dnote = containsID(destNotes, snote.getId());
       if (dnote != null) {
         try {
-          /* note exists in source and destination storage systems */
-          sdate = lastModificationDate(sourceRepo.get(snote.getId(), snote.getPath(), subject));
-          ddate = lastModificationDate(destRepo.get(dnote.getId(), dnote.getPath(), subject));
+          /* note exists in source and destination storage systems,
+           * only the dates of the paragraphs are compared, so their results are not read */
+          sdate = lastModificationDate(
+              sourceRepo.getWithoutResults(snote.getId(), snote.getPath(), subject));
+          ddate = lastModificationDate(
+              destRepo.getWithoutResults(dnote.getId(), dnote.getPath(), subject));
         } catch (IOException e) {
           LOGGER.error("Cannot access previously listed note {} from storage ", dnote.getId(), e);
           continue;
@@ -17,9 +17,13 @@
 
 package org.apache.zeppelin.notebook.repo;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
@@ -27,7 +31,6 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
@@ -125,11 +128,24 @@ public class VFSNotebookRepo implements NotebookRepo {
 
   @Override
   public Note get(String noteId, String notePath, AuthenticationInfo subject) throws IOException {
+    return readNote(noteId, notePath, true);
+  }
+
+  @Override
+  public Note getWithoutResults(String noteId, String notePath, AuthenticationInfo subject)
+      throws IOException {
+    return readNote(noteId, notePath, false);
+  }
+
+  private Note readNote(String noteId, String notePath, boolean withResults) throws IOException {
     FileObject noteFile = rootNotebookFileObject.resolveFile(buildNoteFileName(noteId, notePath),
         NameScope.DESCENDENT);
-    String json = IOUtils.toString(noteFile.getContent().getInputStream(),
-        conf.getString(ConfVars.ZEPPELIN_ENCODING));
-    Note note = Note.fromJson(json);
+    Note note;
+    // parse the note while it is read, large results are never held as a single string
+    try (Reader reader = new InputStreamReader(noteFile.getContent().getInputStream(),
+        conf.getString(ConfVars.ZEPPELIN_ENCODING))) {
+      note = Note.fromJson(reader, withResults);
+    }
     // setPath here just for testing, because actually NoteManager will setPath
     note.setPath(notePath);
     return note;
@@ -141,14 +157,10 @@ public class VFSNotebookRepo implements NotebookRepo {
     // write to tmp file first, then rename it to the {note_name}_{note_id}.zpln
     FileObject noteJson = rootNotebookFileObject.resolveFile(
         buildNoteTempFileName(note), NameScope.DESCENDENT);
-    OutputStream out = null;
-    try {
-      out = noteJson.getContent().getOutputStream(false);
-      IOUtils.write(note.toJson().getBytes(conf.getString(ConfVars.ZEPPELIN_ENCODING)), out);
-    } finally {
-      if (out != null) {
-        out.close();
-      }
+    try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+        noteJson.getContent().getOutputStream(false),
+        conf.getString(ConfVars.ZEPPELIN_ENCODING)))) {
+      note.toJson(writer);
     }
     noteJson.moveTo(rootNotebookFileObject.resolveFile(
         buildNoteFileName(note), NameScope.DESCENDENT));
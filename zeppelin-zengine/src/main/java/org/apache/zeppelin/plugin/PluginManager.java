@@ -159,6 +159,20 @@ public class PluginManager {
     return launcher;
   }
 
+  /**
+   * Close the loaded interpreter launchers, they are loaded again when used afterwards.
+   */
+  public synchronized void closeInterpreterLaunchers() {
+    for (Map.Entry<String, InterpreterLauncher> entry : cachedLaunchers.entrySet()) {
+      try {
+        entry.getValue().close();
+      } catch (Exception e) {
+        LOGGER.warn("Fail to close Launcher: " + entry.getKey(), e);
+      }
+    }
+    cachedLaunchers.clear();
+  }
+
   private URLClassLoader getPluginClassLoader(String pluginsDir,
                                               String pluginType,
                                               String pluginName) throws IOException {
@@ -87,7 +87,7 @@ public class LuceneSearch extends SearchService {
 
   @Inject
   public LuceneSearch(ZeppelinConfiguration zeppelinConfiguration) {
-    super("LuceneSearch-Thread");
+    super("LuceneSearch-Thread", zeppelinConfiguration.getZeppelinSearchIndexThreads());
     this.zeppelinConfiguration = zeppelinConfiguration;
     if (zeppelinConfiguration.isZeppelinSearchUseDisk()) {
       try {
@@ -394,6 +394,8 @@ public class LuceneSearch extends SearchService {
    */
   @Override
   public void close() {
+    // the queued events are indexed before the index is closed
+    super.close();
     try {
       indexWriter.close();
       if (zeppelinConfiguration.isZeppelinNotebookCronEnable() && null != directoryPath) {
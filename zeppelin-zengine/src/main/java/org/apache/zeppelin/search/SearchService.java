@@ -38,6 +38,10 @@ public abstract class SearchService extends NoteEventAsyncListener {
     super(name);
   }
 
+  public SearchService(String name, int threads) {
+    super(name, threads);
+  }
+
   /**
    * Full-text search in all the notes
    *
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.interpreter;
+
+import org.apache.zeppelin.interpreter.remote.RemoteInterpreterProcess;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class InterpreterProcessPoolTest {
+
+  private final List<String> launchedGroupIds = Collections.synchronizedList(new ArrayList<>());
+  private final List<String> launchedUsers = Collections.synchronizedList(new ArrayList<>());
+  private final List<RemoteInterpreterProcess> processes =
+      Collections.synchronizedList(new ArrayList<>());
+  private InterpreterProcessPool pool;
+
+  @After
+  public void tearDown() {
+    if (pool != null) {
+      pool.close();
+    }
+  }
+
+  private InterpreterProcessPool createPool(int size, boolean perUser) {
+    return new InterpreterProcessPool("test", size, perUser, (interpreterGroupId, userName) -> {
+      RemoteInterpreterProcess process = mock(RemoteInterpreterProcess.class);
+      when(process.isRunning()).thenReturn(true);
+      launchedGroupIds.add(interpreterGroupId);
+      launchedUsers.add(userName);
+      processes.add(process);
+      return process;
+    });
+  }
+
+  private void waitForIdle(int count) throws InterruptedException {
+    long start = System.currentTimeMillis();
+    while (pool.getIdleCount() < count && System.currentTimeMillis() - start < 10000) {
+      Thread.sleep(10);
+    }
+    assertEquals(count, pool.getIdleCount());
+  }
+
+  @Test
+  public void testClaimAndReplenish() throws Exception {
+    pool = createPool(2, false);
+
+    // the first claim misses and starts filling the pool
+    assertNull(pool.claim("user1"));
+    waitForIdle(2);
+    assertEquals(2, launchedGroupIds.size());
+    RemoteInterpreterProcess first = processes.get(0);
+    verify(first).start("user1");
+    // the pooled process can register itself with its placeholder group id
+    assertSame(first, pool.getPooledProcess(launchedGroupIds.get(0)));
+
+    // processes are shared by all the users of a non impersonated setting
+    assertSame(first, pool.claim("user2"));
+    assertNull(pool.getPooledProcess(launchedGroupIds.get(0)));
+    waitForIdle(2);
+    assertEquals(3, launchedGroupIds.size());
+
+    assertEquals(1, pool.getHitCount());
+    assertEquals(1, pool.getMissCount());
+    assertEquals(0.5, pool.getHitRate(), 0.001);
+    assertEquals(2, pool.getMetrics().get("idle"));
+
+    pool.close();
+    verify(first, never()).stop();
+    verify(processes.get(1)).stop();
+    verify(processes.get(2)).stop();
+    assertNull(pool.claim("user1"));
+  }
+
+  @Test
+  public void testDiscardStoppedProcess() throws Exception {
+    pool = createPool(1, false);
+    assertNull(pool.claim("user1"));
+    waitForIdle(1);
+
+    when(processes.get(0).isRunning()).thenReturn(false);
+    assertNull(pool.claim("user1"));
+    assertEquals(2, pool.getMissCount());
+    waitForIdle(1);
+    assertSame(processes.get(1), pool.claim("user1"));
+  }
+
+  @Test
+  public void testPerUserPool() throws Exception {
+    pool = createPool(1, true);
+    assertNull(pool.claim("user1"));
+    waitForIdle(1);
+    assertEquals("user1", launchedUsers.get(0));
+
+    // the processes of user1 are started as user1, so they can't be claimed by user2
+    assertNull(pool.claim("user2"));
+    waitForIdle(2);
+    assertEquals("user2", launchedUsers.get(1));
+    assertNotNull(pool.claim("user1"));
+    assertSame(processes.get(1), pool.claim("user2"));
+    assertTrue(pool.getHitRate() > 0);
+  }
+}
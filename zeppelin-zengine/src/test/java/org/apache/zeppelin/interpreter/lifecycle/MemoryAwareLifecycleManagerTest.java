@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.interpreter.lifecycle;
+
+import org.apache.zeppelin.conf.ZeppelinConfiguration;
+import org.apache.zeppelin.interpreter.ManagedInterpreterGroup;
+import org.apache.zeppelin.interpreter.remote.RemoteInterpreterProcess;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MemoryAwareLifecycleManagerTest {
+
+  private static final long MB = 1024 * 1024;
+
+  private ProcessMemoryReader memoryReader;
+  private long now;
+  private MemoryAwareLifecycleManager lifecycleManager;
+
+  @Before
+  public void setUp() {
+    System.setProperty(ZeppelinConfiguration.ConfVars
+        .ZEPPELIN_INTERPRETER_LIFECYCLE_MANAGER_MEMORY_IDLE_THRESHOLD.getVarName(), "10000");
+    System.setProperty(ZeppelinConfiguration.ConfVars
+        .ZEPPELIN_INTERPRETER_LIFECYCLE_MANAGER_MEMORY_BUDGET.getVarName(), "1000");
+    memoryReader = mock(ProcessMemoryReader.class);
+    when(memoryReader.getHostMemoryTotal()).thenReturn(10000 * MB);
+    when(memoryReader.getHostMemoryAvailable()).thenReturn(5000 * MB);
+    lifecycleManager = new MemoryAwareLifecycleManager(ZeppelinConfiguration.create(),
+        memoryReader, () -> now);
+  }
+
+  @After
+  public void tearDown() {
+    System.clearProperty(ZeppelinConfiguration.ConfVars
+        .ZEPPELIN_INTERPRETER_LIFECYCLE_MANAGER_MEMORY_IDLE_THRESHOLD.getVarName());
+    System.clearProperty(ZeppelinConfiguration.ConfVars
+        .ZEPPELIN_INTERPRETER_LIFECYCLE_MANAGER_MEMORY_BUDGET.getVarName());
+  }
+
+  @Test
+  public void testNoEvictionWithinBudget() {
+    ManagedInterpreterGroup group1 = startGroup("group1", 400 * MB);
+    ManagedInterpreterGroup group2 = startGroup("group2", 500 * MB);
+    now += 60 * 1000;
+
+    lifecycleManager.checkMemory();
+    verify(group1, never()).close();
+    verify(group2, never()).close();
+    assertEquals(900 * MB, lifecycleManager.getMetrics().get("residentMemory"));
+    assertEquals(0L, lifecycleManager.getMetrics().get("evictions"));
+  }
+
+  @Test
+  public void testEvictLeastRecentlyUsedOverBudget() {
+    ManagedInterpreterGroup group1 = startGroup("group1", 400 * MB);
+    ManagedInterpreterGroup group2 = startGroup("group2", 400 * MB);
+    ManagedInterpreterGroup group3 = startGroup("group3", 400 * MB);
+    now += 20 * 1000;
+    lifecycleManager.onInterpreterUse(group1, "session");
+    now += 20 * 1000;
+
+    // 1200 MB over the budget of 1000 MB, closing group2 is enough
+    lifecycleManager.checkMemory();
+    verify(group1, never()).close();
+    verify(group2).close();
+    verify(group3, never()).close();
+    assertEquals(1L, lifecycleManager.getMetrics().get("evictions"));
+    assertEquals(2, lifecycleManager.getMetrics().get("interpreterGroups"));
+  }
+
+  @Test
+  public void testKeepBusyGroups() {
+    ManagedInterpreterGroup group1 = startGroup("group1", 800 * MB);
+    now += 5 * 1000;
+    ManagedInterpreterGroup group2 = startGroup("group2", 800 * MB);
+    now += 5 * 1000;
+    lifecycleManager.onInterpreterUse(group2, "session");
+
+    // group1 is idle for 10 seconds, group2 is still in use
+    lifecycleManager.checkMemory();
+    verify(group1).close();
+    verify(group2, never()).close();
+
+    now += 5 * 1000;
+    lifecycleManager.checkMemory();
+    verify(group2, never()).close();
+  }
+
+  @Test
+  public void testEvictUnderHostMemoryPressure() {
+    when(memoryReader.getHostMemoryAvailable()).thenReturn(800 * MB);
+    ManagedInterpreterGroup group1 = startGroup("group1", 300 * MB);
+    ManagedInterpreterGroup group2 = startGroup("group2", 300 * MB);
+    ManagedInterpreterGroup remoteGroup = startGroup("remote", -1);
+    now += 60 * 1000;
+
+    // 800 MB of 10000 MB is available, below 10%, closing 1 group is enough
+    lifecycleManager.checkMemory();
+    verify(group1).close();
+    verify(group2, never()).close();
+    verify(remoteGroup, never()).close();
+  }
+
+  private ManagedInterpreterGroup startGroup(String id, long resident) {
+    ManagedInterpreterGroup group = mock(ManagedInterpreterGroup.class);
+    when(group.getId()).thenReturn(id);
+    when(group.getRemoteInterpreterProcess()).thenReturn(mock(RemoteInterpreterProcess.class));
+    when(memoryReader.getResidentMemory(group)).thenReturn(resident);
+    lifecycleManager.onInterpreterProcessStarted(group);
+    now += 1000;
+    return group;
+  }
+}
@@ -2,6 +2,7 @@ package org.apache.zeppelin.interpreter.recovery;
 
 import com.google.common.io.Files;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
 import org.apache.zeppelin.conf.ZeppelinConfiguration;
 import org.apache.zeppelin.interpreter.AbstractInterpreterTest;
 import org.apache.zeppelin.interpreter.Interpreter;
@@ -9,12 +10,16 @@ import org.apache.zeppelin.interpreter.InterpreterContext;
 import org.apache.zeppelin.interpreter.InterpreterException;
 import org.apache.zeppelin.interpreter.InterpreterOption;
 import org.apache.zeppelin.interpreter.InterpreterSetting;
+import org.apache.zeppelin.interpreter.launcher.InterpreterClient;
 import org.apache.zeppelin.interpreter.remote.RemoteInterpreter;
+import org.apache.zeppelin.interpreter.remote.RemoteInterpreterUtils;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 
@@ -87,4 +92,28 @@ public class FileSystemRecoveryStorageTest extends AbstractInterpreterTest {
     assertEquals(0, interpreterSettingManager.getRecoveryStorage().restore().size());
   }
 
+  @Test
+  public void testRestoreFromJournal() throws IOException {
+    try (ServerSocket runningProcess = new ServerSocket(0)) {
+      int runningPort = runningProcess.getLocalPort();
+      int stoppedPort = RemoteInterpreterUtils.findRandomAvailablePortOnAllLocalInterfaces();
+      File recoveryFile = new File(recoveryDir, "test.recovery");
+      FileUtils.writeStringToFile(recoveryFile, StringUtils.join(new String[]{
+          "group_1\tlocalhost:" + runningPort,
+          "group_2\tlocalhost:" + stoppedPort,
+          "group_3\tlocalhost:" + runningPort,
+          "group_3"}, System.lineSeparator()));
+
+      // group_2 is not accessible, group_3 is stopped
+      Map<String, InterpreterClient> clients =
+          interpreterSettingManager.getRecoveryStorage().restore();
+      assertEquals(1, clients.size());
+      assertEquals(runningPort, clients.get("group_1").getPort());
+
+      // the journal is compacted to the running processes
+      interpreterSettingManager.getRecoveryStorage().init();
+      assertEquals("group_1\tlocalhost:" + runningPort,
+          FileUtils.readFileToString(recoveryFile).trim());
+    }
+  }
 }
@@ -33,6 +33,8 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
@@ -143,22 +145,102 @@ public class AppendOutputRunnerTest {
     runner.run();
     List<LoggingEvent> log;
 
-    int warnLogCounter;
-    LoggingEvent sizeWarnLogEntry = null;
-    do {
-      warnLogCounter = 0;
-      log = appender.getLog();
-      for (LoggingEvent logEntry: log) {
-        if (Level.WARN.equals(logEntry.getLevel())) {
-          sizeWarnLogEntry = logEntry;
-          warnLogCounter += 1;
-        }
-      }
-    } while(warnLogCounter != 2);
-
     String loggerString = "Processing size for buffered append-output is high: " +
         (data.length() * numEvents) + " characters.";
-    assertTrue(loggerString.equals(sizeWarnLogEntry.getMessage()));
+    boolean sizeWarnLogged = false;
+    log = appender.getLog();
+    for (LoggingEvent logEntry: log) {
+      if (Level.WARN.equals(logEntry.getLevel())
+          && loggerString.equals(logEntry.getMessage())) {
+        sizeWarnLogged = true;
+      }
+    }
+    assertTrue(sizeWarnLogged);
+  }
+
+  @Test
+  public void testFlushOnSize() throws InterruptedException {
+    RemoteInterpreterProcessListener listener = mock(RemoteInterpreterProcessListener.class);
+    AppendOutputRunner runner = new AppendOutputRunner(listener, 10, 100,
+        AppendOutputRunner.OverflowPolicy.BLOCK);
+    runner.appendBuffer("note", "para", 0, "0123456789");
+
+    // the buffer is full, so it is flushed before the buffer time
+    runner.run();
+    assertEquals(1, runner.getSizeFlushCount());
+    verify(listener, times(1)).onOutputAppend("note", "para", 0, "0123456789");
+
+    // the buffer is flushed after the buffer time
+    runner.appendBuffer("note", "para", 0, "data");
+    runner.run();
+    assertEquals(1, runner.getSizeFlushCount());
+    verify(listener, times(1)).onOutputAppend("note", "para", 0, "data");
+
+    // the buffer of an output without data is released
+    runner.appendBuffer("note", "para", 1, "data");
+    runner.run();
+    assertEquals(1, runner.getBufferCount());
+  }
+
+  @Test
+  public void testTruncateOverflow() throws InterruptedException {
+    RemoteInterpreterProcessListener listener = mock(RemoteInterpreterProcessListener.class);
+    AppendOutputRunner runner = new AppendOutputRunner(listener, 10, 10,
+        AppendOutputRunner.OverflowPolicy.TRUNCATE);
+    runner.appendBuffer("note", "para", 0, "012345");
+    runner.appendBuffer("note", "para", 0, "6789abcdef");
+    runner.appendBuffer("note2", "para", 0, "data");
+    runner.run();
+
+    verify(listener, times(1)).onOutputAppend("note", "para", 0,
+        "0123456789" + String.format(AppendOutputRunner.TRUNCATION_MARKER, 6));
+    verify(listener, times(1)).onOutputAppend("note2", "para", 0, "data");
+  }
+
+  @Test
+  public void testCoalesceOverflow() throws InterruptedException {
+    RemoteInterpreterProcessListener listener = mock(RemoteInterpreterProcessListener.class);
+    AppendOutputRunner runner = new AppendOutputRunner(listener, 10, 10,
+        AppendOutputRunner.OverflowPolicy.COALESCE);
+    runner.appendBuffer("note", "para", 0, "012345");
+    runner.appendBuffer("note", "para", 0, "6789abcdef");
+    runner.run();
+
+    verify(listener, times(1)).onOutputAppend("note", "para", 0,
+        String.format(AppendOutputRunner.TRUNCATION_MARKER, 6) + "6789abcdef");
+  }
+
+  @Test
+  public void testBlockOverflow() throws InterruptedException {
+    RemoteInterpreterProcessListener listener = mock(RemoteInterpreterProcessListener.class);
+    final AppendOutputRunner runner = new AppendOutputRunner(listener, 10, 10,
+        AppendOutputRunner.OverflowPolicy.BLOCK);
+    runner.appendBuffer("note", "para", 0, "012345");
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        runner.appendBuffer("note", "para", 0, "6789abcdef");
+      }
+    });
+    thread.start();
+    // the interpreter waits for the buffer to be flushed
+    runner.run();
+    thread.join(2000);
+    assertFalse(thread.isAlive());
+    runner.run();
+
+    verify(listener, times(1)).onOutputAppend("note", "para", 0, "012345");
+    verify(listener, times(1)).onOutputAppend("note", "para", 0, "6789abcdef");
+
+    // the interpreter waits at most the buffer time, then the output is truncated
+    long blockTimeouts = runner.getBlockTimeoutCount();
+    runner.appendBuffer("note2", "para", 0, "012345");
+    runner.appendBuffer("note2", "para", 0, "6789abcdef");
+    assertEquals(blockTimeouts + 1, runner.getBlockTimeoutCount());
+    runner.run();
+
+    verify(listener, times(1)).onOutputAppend("note2", "para", 0,
+        "0123456789" + String.format(AppendOutputRunner.TRUNCATION_MARKER, 6));
   }
 
   private class BombardEvents implements Runnable {
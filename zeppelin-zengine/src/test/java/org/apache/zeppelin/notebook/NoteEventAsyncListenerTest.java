@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.zeppelin.notebook;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class NoteEventAsyncListenerTest {
+
+  private RecordingListener listener;
+
+  @After
+  public void tearDown() {
+    if (listener != null) {
+      listener.close();
+    }
+  }
+
+  @Test
+  public void testOrderPerNote() throws InterruptedException {
+    listener = new RecordingListener(2);
+    Note note1 = mockNote("note1");
+    Note note2 = mockNote("note2");
+    Paragraph p1 = mockParagraph(note1, "p1");
+    Paragraph p2 = mockParagraph(note2, "p2");
+
+    listener.onNoteCreate(note1, null);
+    listener.onNoteCreate(note2, null);
+    listener.onParagraphCreate(p1);
+    listener.onParagraphCreate(p2);
+    listener.onParagraphUpdate(p1);
+    listener.onParagraphRemove(p2);
+    listener.onNoteRemove(note1, null);
+    listener.drainEvents();
+
+    assertEquals(Arrays.asList("NoteCreate note1", "ParagraphCreate p1", "ParagraphUpdate p1",
+        "NoteRemove note1"), listener.getEvents("note1", "p1"));
+    assertEquals(Arrays.asList("NoteCreate note2", "ParagraphCreate p2", "ParagraphRemove p2"),
+        listener.getEvents("note2", "p2"));
+    assertEquals(7, listener.getHandledEvents());
+    assertEquals(0, listener.getQueueSize());
+  }
+
+  @Test
+  public void testCoalesceUpdates() throws InterruptedException {
+    listener = new RecordingListener(1);
+    Note note1 = mockNote("note1");
+    Paragraph p1 = mockParagraph(note1, "p1");
+    Paragraph p2 = mockParagraph(note1, "p2");
+
+    // hold the thread on the first event
+    listener.block("note1");
+    listener.onNoteCreate(note1, null);
+    listener.awaitBlocked();
+
+    listener.onParagraphUpdate(p1);
+    listener.onParagraphUpdate(p2);
+    listener.onParagraphUpdate(p1);
+    listener.onNoteUpdate(note1, null);
+    listener.onNoteUpdate(note1, null);
+    // the removal is handled after the pending updates, so the next update is queued
+    listener.onParagraphRemove(p2);
+    listener.onParagraphUpdate(p1);
+    assertEquals(5, listener.getQueueSize());
+    assertEquals(2, listener.getCoalescedEvents());
+    assertTrue(listener.getLag() >= 0);
+
+    listener.unblock();
+    listener.drainEvents();
+    assertEquals(Arrays.asList("NoteCreate note1", "ParagraphUpdate p1", "ParagraphUpdate p2",
+        "NoteUpdate note1", "ParagraphRemove p2", "ParagraphUpdate p1"),
+        listener.getEvents("note1", "p1", "p2"));
+  }
+
+  @Test
+  public void testBusyNoteDoesNotHoldOtherNotes() throws InterruptedException {
+    listener = new RecordingListener(2);
+    Note note1 = mockNote("note1");
+    Note note2 = mockNote("note2");
+
+    listener.block("note1");
+    listener.onNoteCreate(note1, null);
+    listener.awaitBlocked();
+    listener.onNoteUpdate(note1, null);
+    listener.onNoteCreate(note2, null);
+    listener.onNoteUpdate(note2, null);
+
+    long start = System.currentTimeMillis();
+    while (listener.getEvents("note2").size() < 2) {
+      assertTrue("note2 is held by note1", System.currentTimeMillis() - start < 10000);
+      Thread.sleep(10);
+    }
+    assertEquals(1, listener.getQueueSize());
+
+    listener.unblock();
+    listener.drainEvents();
+    assertEquals(Arrays.asList("NoteCreate note1", "NoteUpdate note1"),
+        listener.getEvents("note1"));
+  }
+
+  @Test
+  public void testCloseHandlesQueuedEvents() throws InterruptedException {
+    listener = new RecordingListener(2);
+    Note note1 = mockNote("note1");
+    Note note2 = mockNote("note2");
+
+    listener.block("note1");
+    listener.onNoteCreate(note1, null);
+    listener.awaitBlocked();
+    listener.onNoteUpdate(note1, null);
+    listener.onNoteCreate(note2, null);
+
+    Thread closeThread = new Thread(listener::close);
+    closeThread.start();
+    listener.unblock();
+    closeThread.join(10000);
+    assertFalse(closeThread.isAlive());
+    assertEquals(Arrays.asList("NoteCreate note1", "NoteUpdate note1", "NoteCreate note2"),
+        listener.getEvents("note1", "note2"));
+
+    // the events added after the close are dropped
+    listener.onNoteRemove(note1, null);
+    assertEquals(0, listener.getQueueSize());
+  }
+
+  private static Note mockNote(String id) {
+    Note note = mock(Note.class);
+    when(note.getId()).thenReturn(id);
+    return note;
+  }
+
+  private static Paragraph mockParagraph(Note note, String id) {
+    Paragraph p = mock(Paragraph.class);
+    when(p.getId()).thenReturn(id);
+    when(p.getNote()).thenReturn(note);
+    return p;
+  }
+
+  private static class RecordingListener extends NoteEventAsyncListener {
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+    private volatile String blockedNoteId;
+    private final CountDownLatch blocked = new CountDownLatch(1);
+    private final CountDownLatch unblocked = new CountDownLatch(1);
+
+    RecordingListener(int threads) {
+      super("RecordingListener", threads);
+    }
+
+    void block(String noteId) {
+      this.blockedNoteId = noteId;
+    }
+
+    void awaitBlocked() throws InterruptedException {
+      assertTrue(blocked.await(10, TimeUnit.SECONDS));
+    }
+
+    void unblock() {
+      unblocked.countDown();
+    }
+
+    // the events of the given notes and paragraphs
+    List<String> getEvents(String... ids) {
+      List<String> result = new ArrayList<>();
+      synchronized (events) {
+        for (String event : events) {
+          if (Arrays.asList(ids).contains(event.split(" ")[1])) {
+            result.add(event);
+          }
+        }
+      }
+      return result;
+    }
+
+    private void record(String type, Note note) {
+      events.add(type + " " + note.getId());
+      if (note.getId().equals(blockedNoteId)) {
+        blockedNoteId = null;
+        blocked.countDown();
+        try {
+          unblocked.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+
+    @Override
+    public void handleNoteCreateEvent(NoteCreateEvent noteCreateEvent) {
+      record("NoteCreate", noteCreateEvent.getNote());
+    }
+
+    @Override
+    public void handleNoteRemoveEvent(NoteRemoveEvent noteRemoveEvent) {
+      record("NoteRemove", noteRemoveEvent.getNote());
+    }
+
+    @Override
+    public void handleNoteUpdateEvent(NoteUpdateEvent noteUpdateEvent) {
+      record("NoteUpdate", noteUpdateEvent.getNote());
+    }
+
+    @Override
+    public void handleParagraphCreateEvent(ParagraphCreateEvent paragraphCreateEvent) {
+      events.add("ParagraphCreate " + paragraphCreateEvent.getParagraph().getId());
+    }
+
+    @Override
+    public void handleParagraphRemoveEvent(ParagraphRemoveEvent paragraphRemoveEvent) {
+      events.add("ParagraphRemove " + paragraphRemoveEvent.getParagraph().getId());
+    }
+
+    @Override
+    public void handleParagraphUpdateEvent(ParagraphUpdateEvent paragraphUpdateEvent) {
+      events.add("ParagraphUpdate " + paragraphUpdateEvent.getParagraph().getId());
+    }
+  }
+}
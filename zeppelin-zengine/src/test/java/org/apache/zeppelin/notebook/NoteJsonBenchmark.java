@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.zeppelin.notebook;
+
+import org.apache.zeppelin.interpreter.InterpreterResult;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+/**
+ * Manual benchmark of the peak heap used to load a large note, it's not part of the unit tests.
+ *
+ * Run each mode in its own JVM, so that the peak of a mode isn't left by another one, e.g.
+ * <pre>
+ * cd zeppelin-zengine
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -Xmx1g -cp target/test-classes:target/classes:$(cat cp.txt) \
+ *   org.apache.zeppelin.notebook.NoteJsonBenchmark string|stream|stream-without-results [MB]
+ * </pre>
+ */
+public class NoteJsonBenchmark {
+
+  public static void main(String[] args) throws IOException {
+    String mode = args.length > 0 ? args[0] : "stream";
+    int sizeMb = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+    File file = File.createTempFile("note", ".zpln");
+    try {
+      writeNote(file, sizeMb);
+      System.gc();
+      for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+        pool.resetPeakUsage();
+      }
+      long start = System.currentTimeMillis();
+      Note note = loadNote(file, mode);
+      long time = System.currentTimeMillis() - start;
+
+      long peakHeap = 0;
+      for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+        if (pool.getType() == MemoryType.HEAP) {
+          peakHeap += pool.getPeakUsage().getUsed();
+        }
+      }
+      System.out.println(String.format("Load of a %d MB note (%d paragraphs) from %s: %d ms, "
+          + "peak heap %d MB", file.length() / 1024 / 1024, note.getParagraphCount(), mode,
+          time, peakHeap / 1024 / 1024));
+    } finally {
+      file.delete();
+    }
+  }
+
+  // a synthetic note of sizeMb, most of it in table results
+  private static void writeNote(File file, int sizeMb) throws IOException {
+    StringBuilder table = new StringBuilder("id\tvalue\n");
+    for (int i = 0; table.length() < 1024 * 1024; i++) {
+      table.append(i).append("\tvalue_").append(i).append("\n");
+    }
+    Note note = new Note("benchmark", "", null, null, null, null, new ArrayList<>());
+    for (int i = 0; i < sizeMb; i++) {
+      Paragraph p = new Paragraph(note, null);
+      p.setText("%jdbc select * from table_" + i);
+      p.setResult(new InterpreterResult(InterpreterResult.Code.SUCCESS,
+          InterpreterResult.Type.TABLE, table.toString()));
+      note.addParagraph(p);
+    }
+    try (Writer writer = new BufferedWriter(
+        new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+      note.toJson(writer);
+    }
+  }
+
+  private static Note loadNote(File file, String mode) throws IOException {
+    switch (mode) {
+      case "string":
+        return Note.fromJson(
+            new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+      case "stream":
+      case "stream-without-results":
+        try (Reader reader = new InputStreamReader(
+            new FileInputStream(file), StandardCharsets.UTF_8)) {
+          return Note.fromJson(reader, mode.equals("stream"));
+        }
+      default:
+        throw new IllegalArgumentException("Unknown mode: " + mode
+            + ", use string, stream or stream-without-results");
+    }
+  }
+}
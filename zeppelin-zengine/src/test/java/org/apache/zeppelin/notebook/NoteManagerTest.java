@@ -1,21 +1,31 @@
 package org.apache.zeppelin.notebook;
 
 import org.apache.zeppelin.notebook.repo.InMemoryNotebookRepo;
+import org.apache.zeppelin.scheduler.Job;
 import org.apache.zeppelin.user.AuthenticationInfo;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class NoteManagerTest {
+  private InMemoryNotebookRepo notebookRepo;
   private NoteManager noteManager;
 
   @Before
   public void setUp() throws IOException {
-    this.noteManager = new NoteManager(new InMemoryNotebookRepo());
+    this.notebookRepo = new InMemoryNotebookRepo();
+    this.noteManager = new NoteManager(notebookRepo);
   }
 
   @Test
@@ -60,6 +70,88 @@ public class NoteManagerTest {
     assertEquals(0, notesInfo.size());
   }
 
+  @Test
+  public void testRemoteChanges() throws IOException {
+    Note note1 = createNote("/prod/my_note1");
+    this.noteManager.saveNote(note1);
+    assertEquals(1, this.noteManager.getNoteVersion(note1.getId()));
+    assertEquals(1, note1.getClusterVersion());
+
+    // note written by another server
+    this.notebookRepo.save(Note.fromJson(note1.toJson()), AuthenticationInfo.ANONYMOUS);
+    assertTrue(this.noteManager.applyRemoteNoteUpdate(note1.getId(), note1.getPath(), 2));
+    assertEquals(2, this.noteManager.getNoteVersion(note1.getId()));
+    Note reloaded = this.noteManager.getNote(note1.getId());
+    assertNotSame(note1, reloaded);
+    assertEquals(2, reloaded.getClusterVersion());
+    // the note object loaded before the remote write is stale, it is saved after a merge
+    this.noteManager.mergeAndSaveNote(reloaded, AuthenticationInfo.ANONYMOUS);
+    assertEquals(3, reloaded.getClusterVersion());
+
+    // concurrent writes of the note on both servers
+    this.noteManager.saveNote(reloaded);
+    assertFalse(this.noteManager.applyRemoteNoteUpdate(note1.getId(), note1.getPath(), 4));
+    assertEquals(5, this.noteManager.getNoteVersion(note1.getId()));
+
+    // note created and moved by another server
+    Note note2 = createNote("/dev/my_note2");
+    assertTrue(this.noteManager.applyRemoteNoteUpdate(note2.getId(), note2.getPath(), 1));
+    assertTrue(this.noteManager.containsNote("/dev/my_note2"));
+    this.noteManager.applyRemoteNoteMove(note2.getId(), "/dev/project_2/my_note2");
+    assertFalse(this.noteManager.containsNote("/dev/my_note2"));
+    assertEquals("/dev/project_2/my_note2",
+        this.noteManager.getNotesInfo().get(note2.getId()));
+
+    // folder moved by another server
+    this.noteManager.applyRemoteFolderMove("/dev", "/staging");
+    assertEquals("/staging/project_2/my_note2",
+        this.noteManager.getNotesInfo().get(note2.getId()));
+    assertFalse(this.noteManager.containsFolder("/dev"));
+
+    // note and folder removed by another server
+    this.noteManager.applyRemoteNoteRemove(note1.getId());
+    assertNull(this.noteManager.getNote(note1.getId()));
+    try {
+      this.noteManager.mergeAndSaveNote(reloaded, AuthenticationInfo.ANONYMOUS);
+      fail("removed note should not be saved");
+    } catch (IOException e) {
+      // expected
+    }
+    assertEquals(1, this.noteManager.applyRemoteFolderRemove("/staging").size());
+    assertEquals(0, this.noteManager.getNotesInfo().size());
+  }
+
+  @Test
+  public void testMergeRemoteWrite() throws IOException {
+    Note note = new Note("/prod/my_note", "test", null, null, null, null, new ArrayList<>());
+    Paragraph p1 = new Paragraph(note, null);
+    p1.setText("%md 1");
+    note.addParagraph(p1);
+    Paragraph p2 = new Paragraph(note, null);
+    p2.setText("%md 2");
+    note.addParagraph(p2);
+    this.noteManager.saveNote(note);
+
+    // another server changes the first paragraph and adds a paragraph
+    Note remote = Note.fromJson(note.toJson());
+    remote.getParagraph(p1.getId()).setText("%md remote 1");
+    Paragraph p3 = new Paragraph(remote, null);
+    p3.setText("%md remote 3");
+    remote.addParagraph(p3);
+    this.notebookRepo.save(remote, AuthenticationInfo.ANONYMOUS);
+    assertTrue(this.noteManager.applyRemoteNoteUpdate(note.getId(), note.getPath(), 2));
+
+    // while the second paragraph runs here, on the note object loaded before
+    p2.setStatus(Job.Status.RUNNING);
+    this.noteManager.mergeAndSaveNote(note, AuthenticationInfo.ANONYMOUS);
+    assertEquals(3, note.getClusterVersion());
+    assertEquals(3, note.getParagraphCount());
+    assertEquals("%md remote 1", note.getParagraph(p1.getId()).getText());
+    assertSame(p2, note.getParagraph(p2.getId()));
+    assertEquals(2, note.indexOfParagraph(p3.getId()));
+    assertSame(note, this.noteManager.getNote(note.getId()));
+  }
+
   private Note createNote(String notePath) {
     return new Note(notePath, "test", null, null, null, null, null);
   }
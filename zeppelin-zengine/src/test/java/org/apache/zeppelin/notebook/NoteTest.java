@@ -35,6 +35,16 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -192,4 +202,147 @@ public class NoteTest {
     Note note2 = Note.fromJson(note.toJson());
     assertEquals(note2, note);
   }
+
+  @Test
+  public void testParagraphIndex() {
+    Note note = new Note("test", "", interpreterFactory, interpreterSettingManager, paragraphJobListener, credentials, noteEventListener);
+    Paragraph p1 = note.addNewParagraph(AuthenticationInfo.ANONYMOUS);
+    Paragraph p3 = note.addNewParagraph(AuthenticationInfo.ANONYMOUS);
+    Paragraph p2 = note.insertNewParagraph(1, AuthenticationInfo.ANONYMOUS);
+    assertSame(p2, note.getParagraph(p2.getId()));
+    assertEquals(0, note.indexOfParagraph(p1.getId()));
+    assertEquals(1, note.indexOfParagraph(p2.getId()));
+    assertEquals(2, note.indexOfParagraph(p3.getId()));
+    assertTrue(note.isLastParagraph(p3.getId()));
+
+    note.moveParagraph(p3.getId(), 0);
+    assertEquals(0, note.indexOfParagraph(p3.getId()));
+    assertEquals(1, note.indexOfParagraph(p1.getId()));
+    assertEquals(2, note.indexOfParagraph(p2.getId()));
+    assertSame(p2, note.getParagraph(2));
+
+    assertSame(p1, note.removeParagraph("anonymous", p1.getId()));
+    assertNull(note.getParagraph(p1.getId()));
+    assertEquals(-1, note.indexOfParagraph(p1.getId()));
+    assertEquals(1, note.indexOfParagraph(p2.getId()));
+    assertNull(note.removeParagraph("anonymous", p1.getId()));
+
+    Paragraph p4 = note.addNewParagraph(AuthenticationInfo.ANONYMOUS);
+    assertEquals(2, note.indexOfParagraph(p4.getId()));
+
+    // the index of a loaded or cloned note
+    Note loaded = Note.fromJson(note.toJson());
+    assertEquals(p2.getId(), loaded.getParagraph(p2.getId()).getId());
+    assertEquals(2, loaded.indexOfParagraph(p4.getId()));
+    Note cloned = new Note("clone", "", interpreterFactory, interpreterSettingManager, paragraphJobListener, credentials, noteEventListener);
+    for (Paragraph p : note.getParagraphs()) {
+      cloned.addCloneParagraph(p, AuthenticationInfo.ANONYMOUS);
+    }
+    assertEquals(1, cloned.indexOfParagraph(p2.getId()));
+    assertNotSame(p2, cloned.getParagraph(p2.getId()));
+  }
+
+  @Test
+  public void testParagraphIndexAfterMutations() {
+    Note note = new Note("test", "", interpreterFactory, interpreterSettingManager, paragraphJobListener, credentials, noteEventListener);
+    List<Paragraph> expected = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      expected.add(note.addNewParagraph(AuthenticationInfo.ANONYMOUS));
+    }
+    // build the index, the mutations below update it in place
+    assertParagraphIndex(note, expected);
+
+    expected.add(3, note.insertNewParagraph(3, AuthenticationInfo.ANONYMOUS));
+    assertParagraphIndex(note, expected);
+    expected.add(0, note.insertNewParagraph(0, AuthenticationInfo.ANONYMOUS));
+    assertParagraphIndex(note, expected);
+
+    Paragraph moved = expected.remove(8);
+    expected.add(2, moved);
+    note.moveParagraph(moved.getId(), 2);
+    assertParagraphIndex(note, expected);
+    moved = expected.remove(1);
+    expected.add(11, moved);
+    note.moveParagraph(moved.getId(), 11);
+    assertParagraphIndex(note, expected);
+
+    Paragraph removed = expected.remove(5);
+    assertSame(removed, note.removeParagraph("anonymous", removed.getId()));
+    assertNull(note.getParagraph(removed.getId()));
+    assertEquals(-1, note.indexOfParagraph(removed.getId()));
+    assertParagraphIndex(note, expected);
+    removed = expected.remove(expected.size() - 1);
+    note.removeParagraph("anonymous", removed.getId());
+    assertParagraphIndex(note, expected);
+  }
+
+  private void assertParagraphIndex(Note note, List<Paragraph> expected) {
+    assertEquals(expected.size(), note.getParagraphCount());
+    for (int i = 0; i < expected.size(); i++) {
+      Paragraph p = expected.get(i);
+      assertSame(p, note.getParagraph(p.getId()));
+      assertSame(p, note.getParagraph(i));
+      assertEquals(i, note.indexOfParagraph(p.getId()));
+    }
+  }
+
+  @Test
+  public void testStreamingJson() throws IOException {
+    Note note = new Note("test", "", interpreterFactory, interpreterSettingManager, paragraphJobListener, credentials, noteEventListener);
+    Paragraph p = note.addNewParagraph(AuthenticationInfo.ANONYMOUS);
+    p.setText("%md large result");
+    p.setResult(new InterpreterResult(InterpreterResult.Code.SUCCESS,
+        InterpreterResult.Type.TABLE, "a\tb\n1\t2\n"));
+
+    StringWriter writer = new StringWriter();
+    note.toJson(writer);
+    assertEquals(note.toJson(), writer.toString());
+
+    Note loaded = Note.fromJson(new StringReader(writer.toString()));
+    assertEquals(note, loaded);
+
+    Note withoutResults = Note.fromJson(new StringReader(writer.toString()), false);
+    Paragraph loadedParagraph = withoutResults.getParagraph(p.getId());
+    assertEquals("%md large result", loadedParagraph.getText());
+    assertEquals(p.getDateCreated(), loadedParagraph.getDateCreated());
+    assertNull(loadedParagraph.getReturn());
+  }
+
+  @Test
+  public void testStreamingJsonWithoutResults() throws IOException {
+    Note note = new Note("test", "", interpreterFactory, interpreterSettingManager, paragraphJobListener, credentials, noteEventListener);
+    for (int i = 0; i < 3; i++) {
+      Paragraph p = note.addNewParagraph(AuthenticationInfo.ANONYMOUS);
+      p.setText("%jdbc select * from table_" + i + " -- \u00e9t\u00e9");
+      p.setResult(new InterpreterResult(InterpreterResult.Code.SUCCESS,
+          InterpreterResult.Type.TABLE, "id\tvalue\n" + i + "\tvalue_" + i + "\n"));
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+      note.toJson(writer);
+    }
+
+    try (Reader reader = new InputStreamReader(
+        new ByteArrayInputStream(out.toByteArray()), StandardCharsets.UTF_8)) {
+      assertEquals(note, Note.fromJson(reader));
+    }
+
+    Note withoutResults;
+    try (Reader reader = new InputStreamReader(
+        new ByteArrayInputStream(out.toByteArray()), StandardCharsets.UTF_8)) {
+      withoutResults = Note.fromJson(reader, false);
+    }
+    assertEquals(note.getId(), withoutResults.getId());
+    assertEquals(3, withoutResults.getParagraphCount());
+    for (int i = 0; i < 3; i++) {
+      Paragraph p = note.getParagraph(i);
+      Paragraph loaded = withoutResults.getParagraph(i);
+      assertEquals(p.getId(), loaded.getId());
+      assertEquals(p.getText(), loaded.getText());
+      assertEquals(p.getDateCreated(), loaded.getDateCreated());
+      assertNotNull(p.getReturn());
+      assertNull(loaded.getReturn());
+    }
+  }
 }